@@ -24,6 +24,14 @@ public class AndFilter implements Filter {
     return one.and(two).test(requirement);
   }
   
+  Filter getOne() {
+    return one;
+  }
+  
+  Filter getTwo() {
+    return two;
+  }
+  
   @Override
   public String getDisplayRepresentation() {
     return one.getDisplayRepresentation() + " and " + two.getDisplayRepresentation();
@@ -1,22 +1,46 @@
 package ch.unibas.dmi.dbis.reqman.analysis;
 
+import ch.unibas.dmi.dbis.reqman.control.EntityController;
+import ch.unibas.dmi.dbis.reqman.data.Catalogue;
 import ch.unibas.dmi.dbis.reqman.data.Milestone;
+import ch.unibas.dmi.dbis.reqman.data.Requirement;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.HashSet;
+import java.util.*;
 
 /**
  * Managing singleton for filters and milestones.
  * Used in evaluator mode to keep track of current active milestone as well as currently active filter
+ * <p>
+ * The requirements passing a filter are computed once and broadcast to all {@link Filterable}s. The results are cached
+ * by the filter's structure, until the catalogue is modified.
  *
  * @author loris.sauter
  */
 public class AssessmentManager {
   
+  /**
+   * The number of filter results kept
+   */
+  private static final int RESULT_CACHE_SIZE = 16;
+  
   private static AssessmentManager instance = null;
   private HashSet<Filterable> listeners = new HashSet<>();
   private Milestone activeMilestone = null;
   private Filter activeFilter = null;
+  
+  /**
+   * The cached filter results, by the {@link CompiledFilter#getKey()} of the filters, in access order
+   */
+  private final LinkedHashMap<Object, List<Requirement>> filterResults = new LinkedHashMap<Object, List<Requirement>>(RESULT_CACHE_SIZE, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<Object, List<Requirement>> eldest) {
+      return size() > RESULT_CACHE_SIZE;
+    }
+  };
+  private Catalogue resultsCatalogue = null;
+  private long resultsRevision = -1;
+  
   private AssessmentManager() {
   
   }
@@ -64,7 +88,34 @@ public class AssessmentManager {
   
   private void setActiveFilter(@NotNull Filter activeFilter) {
     this.activeFilter = activeFilter;
-    listeners.forEach(f -> f.applyFilter(activeFilter));
+    if (EntityController.getInstance().getCatalogueAnalyser() == null) {
+      listeners.forEach(f -> f.applyFilter(activeFilter));
+      return;
+    }
+    List<Requirement> filtered = getFilteredRequirements(activeFilter);
+    listeners.forEach(f -> f.applyFilter(activeFilter, filtered));
+  }
+  
+  /**
+   * Returns the requirements of the current catalogue passing the given filter.
+   * The result is shared and therefore unmodifiable.
+   *
+   * @param filter The filter to apply
+   * @return The unmodifiable list of the requirements passing the filter, in catalogue order
+   */
+  public List<Requirement> getFilteredRequirements(@NotNull Filter filter) {
+    return getFilteredRequirements(EntityController.getInstance().getCatalogueAnalyser(), filter);
+  }
+  
+  List<Requirement> getFilteredRequirements(@NotNull CatalogueAnalyser analyser, @NotNull Filter filter) {
+    Catalogue catalogue = analyser.getCatalogue();
+    if (resultsCatalogue != catalogue || resultsRevision != catalogue.getRevision()) {
+      filterResults.clear();
+      resultsCatalogue = catalogue;
+      resultsRevision = catalogue.getRevision();
+    }
+    CompiledFilter compiled = CompiledFilter.compile(filter);
+    return filterResults.computeIfAbsent(compiled.getKey(), key -> Collections.unmodifiableList(analyser.getFilteredRequirements(compiled)));
   }
   
   /**
@@ -21,6 +21,25 @@ public class CatalogueAnalyser {
   
   private final CourseManager courseManager;
   
+  private final CatalogueIndex index;
+  
+  private final RequirementGraph graph;
+  
+  private final RequirementTextCache textCache;
+  
+  private final RequirementSearchIndex searchIndex;
+  
+  private final RequirementBitmaps bitmaps;
+  
+  private final FilterQuery filterQuery;
+  
+  /**
+   * The maximal regular points per milestone ordinal. Null if not yet computed
+   */
+  private PrefixSums maximalRegularSums = null;
+  private long sumsRevision = -1;
+  private long sumsTimeRevision = -1;
+  
   public CatalogueAnalyser(Course course, Catalogue catalogue) {
     this.course = course;
     this.catalogue = catalogue;
@@ -28,38 +47,34 @@ public class CatalogueAnalyser {
       throw new IllegalArgumentException("Mismatching catalogue id. Expected " + course.getCatalogueUUID() + "but given " + catalogue.getUuid());
     }
     courseManager = new CourseManager(course, catalogue);
+    index = new CatalogueIndex(catalogue);
+    graph = new RequirementGraph(index);
+    textCache = new RequirementTextCache(catalogue);
+    searchIndex = new RequirementSearchIndex(catalogue, textCache);
+    bitmaps = new RequirementBitmaps(catalogue, searchIndex);
+    filterQuery = new FilterQuery(catalogue, courseManager, bitmaps);
   }
   
   public boolean hasRequirements() {
-    return !catalogue.getRequirements().isEmpty();
+    return !catalogue.requirementsView().isEmpty();
   }
   
   public boolean hasMilestones() {
-    return !catalogue.getMilestones().isEmpty();
+    return !catalogue.milestonesView().isEmpty();
   }
   
   public Requirement getRequirementById(UUID requirementUuid) {
     if (requirementUuid == null) {
       throw new IllegalArgumentException("Cannot find requirement by id, if the id is null");
     }
-    for (Requirement r : catalogue.getRequirements()) {
-      if (requirementUuid.equals(r.getUuid())) {
-        return r;
-      }
-    }
-    return null;
+    return index.getRequirement(requirementUuid);
   }
   
   public Milestone getMilestoneById(UUID milestoneUuid) {
     if (milestoneUuid == null) {
       throw new IllegalArgumentException("Cannot find milestone by id, if the id is null");
     }
-    for (Milestone ms : catalogue.getMilestones()) {
-      if (milestoneUuid.equals(ms.getUuid())) {
-        return ms;
-      }
-    }
-    return null;
+    return index.getMilestone(milestoneUuid);
   }
   
   public Milestone getPredecessorOf(@NotNull Milestone ms) {
@@ -79,18 +94,11 @@ public class CatalogueAnalyser {
    * @return
    */
   public List<Requirement> getRequirementsFor(Milestone milestone) {
-    return catalogue.getRequirements().stream().filter(r -> matchesMinimalMilestone(r, milestone)).sorted(getRequirementComparator()).collect(Collectors.toList());
+    return catalogue.requirementsView().stream().filter(r -> matchesMinimalMilestone(r, milestone)).sorted(getRequirementComparator()).collect(Collectors.toList());
   }
   
   public double getCumulativeMaximalRegularSumFor(Milestone ms) {
-    int pos = courseManager.getMilestoneOrdinal(ms);
-    double sum = 0;
-    
-    for (int i = 0; i <= pos; i++) {
-      sum += getMaximalRegularSumFor(getMilestoneByPosition(i));
-    }
-    
-    return sum;
+    return getMaximalRegularSums().getCumulativeValue(courseManager.getMilestoneOrdinal(ms));
   }
   
   /**
@@ -99,7 +107,7 @@ public class CatalogueAnalyser {
    * @return
    */
   public double getMaximalRegularSum() {
-    return catalogue.getRequirements().stream().filter(Requirement::isRegular).mapToDouble(Requirement::getMaxPoints).sum();
+    return catalogue.requirementsView().stream().filter(Requirement::isRegular).mapToDouble(Requirement::getMaxPoints).sum();
   }
   
   /**
@@ -110,7 +118,11 @@ public class CatalogueAnalyser {
    * @return
    */
   public double getMaximalRegularSumFor(Milestone ms) {
-    return getRequirementsFor(ms).stream().filter(Requirement::isRegular).mapToDouble(Requirement::getMaxPoints).sum();
+    int pos = courseManager.getMilestoneOrdinal(ms);
+    if (pos < 0) {
+      return getRequirementsFor(ms).stream().filter(Requirement::isRegular).mapToDouble(Requirement::getMaxPoints).sum();
+    }
+    return getMaximalRegularSums().getValue(pos);
   }
   
   public double getMaximalRegularSumFor(List<Requirement> list) {
@@ -140,7 +152,7 @@ public class CatalogueAnalyser {
    * @return
    */
   public double getMaximalBonusSum() {
-    return catalogue.getRequirements().stream().filter(Requirement::isBonus).mapToDouble((Requirement::getMaxPoints)).sum();
+    return catalogue.requirementsView().stream().filter(Requirement::isBonus).mapToDouble((Requirement::getMaxPoints)).sum();
   }
   
   public double getMaximalBonusSumFor(Milestone ms) {
@@ -148,7 +160,7 @@ public class CatalogueAnalyser {
   }
   
   public double getMaximalMalusSum() {
-    return catalogue.getRequirements().stream().filter(Requirement::isMalus).mapToDouble(Requirement::getMaxPoints).sum();
+    return catalogue.requirementsView().stream().filter(Requirement::isMalus).mapToDouble(Requirement::getMaxPoints).sum();
   }
   
   public double getMaximalMalusSumFor(Milestone ms) {
@@ -156,49 +168,70 @@ public class CatalogueAnalyser {
   }
   
   public List<Requirement> getPredecessors(Requirement requirement) {
-    List<Requirement> predecessors = new ArrayList<>();
-    for (UUID id : requirement.getPredecessors()) {
-      predecessors.add(getRequirementById(id));
-    }
-    return predecessors;
+    return graph.getPredecessors(requirement);
   }
   
   public boolean isPredecessor(Requirement requirement) {
-    long nbOfDependents = catalogue.getRequirements().stream().filter(r -> getPredecessors(r).contains(requirement)).count();
-    return nbOfDependents > 0;
+    return graph.hasDependants(requirement);
   }
   
   public List<Requirement> getDependants(Requirement requirement){
-    List<Requirement> list = new ArrayList<>();
-    if(isPredecessor(requirement)){
-      list.addAll(catalogue.getRequirements().stream().filter(r->getPredecessors(r).contains(requirement)).collect(Collectors.toList()) );
-    }
-    return list;
+    return graph.getDependants(requirement);
+  }
+  
+  public RequirementSearchIndex getSearchIndex() {
+    return searchIndex;
+  }
+  
+  public RequirementGraph getRequirementGraph() {
+    return graph;
   }
   
   public List<Requirement> findRequirementsNameContains(String search) {
-    return catalogue.getRequirements().stream().filter(r -> r.getName().toLowerCase().contains(search.toLowerCase())).collect(Collectors.toList());
+    return searchIndex.find(RequirementTextCache.NAME, search);
   }
   
   public List<Requirement> findRequirementsContaining(String pattern) {
-    return catalogue.getRequirements().stream().filter(r -> containsRequirementPattern(r, pattern)).collect(Collectors.toList());
+    return searchIndex.find(RequirementTextCache.NAME | RequirementTextCache.EXCERPT | RequirementTextCache.DESCRIPTION, pattern);
   }
   
   public List<Requirement> findRequirementsForCategory(String category) {
-    return catalogue.getRequirements().stream().filter(r -> StringUtils.containsNullSafe(r.getCategory(), category)).collect(Collectors.toList());
+    return searchIndex.find(RequirementTextCache.CATEGORY, category);
   }
   
   public List<Requirement> findRequirementsByType(Requirement.Type type) {
-    return catalogue.getRequirements().stream().filter(r -> r.getType().equals(type)).collect(Collectors.toList());
+    return catalogue.requirementsView().stream().filter(r -> r.getType().equals(type)).collect(Collectors.toList());
   }
   
   public List<Requirement> getFilteredRequirements(Filter filter) {
-    return catalogue.getRequirements().stream().filter(filter).collect(Collectors.toList());
+    return getFilteredRequirements(CompiledFilter.compile(filter));
+  }
+  
+  /**
+   * Returns the requirements passing the given compiled filter, in catalogue order.
+   *
+   * @param filter The compiled filter to apply
+   * @return The requirements passing the filter
+   */
+  public List<Requirement> getFilteredRequirements(CompiledFilter filter) {
+    return filter.apply(bitmaps);
+  }
+  
+  /**
+   * Parses the given textual filter query, e.g. {@code type:bonus AND cat:"SQL" AND NOT text:index ms:>=3}.
+   * See {@link FilterQuery} for the syntax.
+   *
+   * @param query The query to parse
+   * @return The planned filter of the query
+   * @throws IllegalArgumentException If the query is not well-formed
+   */
+  public Filter parseFilterQuery(@NotNull String query) throws IllegalArgumentException {
+    return filterQuery.parse(query);
   }
   
   public Set<String> getCategories() {
     Set<String> set = new TreeSet<>();
-    catalogue.getRequirements().stream().filter(r -> !StringUtils.isNullOrEmpty(r.getCategory())).forEach(r -> set.add(r.getCategory()));
+    catalogue.requirementsView().stream().filter(r -> !StringUtils.isNullOrEmpty(r.getCategory())).forEach(r -> set.add(r.getCategory()));
     return set;
   }
   
@@ -217,7 +250,7 @@ public class CatalogueAnalyser {
   }
   
   public Milestone getMilestoneByName(String parameter) {
-    for (Milestone ms : catalogue.getMilestones()) {
+    for (Milestone ms : catalogue.milestonesView()) {
       if (ms.getName().equals(parameter)) {
         return ms;
       }
@@ -246,30 +279,58 @@ public class CatalogueAnalyser {
   }
   
   public Requirement getRequirementOf(@NotNull Progress progress) {
-    for (Requirement r : catalogue.getRequirements()) {
-      if (r.getUuid().equals(progress.getRequirementUUID())) {
-        return r;
-      }
-    }
-    return null;
+    return index.getRequirement(progress.getRequirementUUID());
   }
   
   public CourseManager getCourseManager() {
     return courseManager;
   }
   
+  /**
+   * Returns the UUID lookup index of the analysed catalogue.
+   *
+   * @return The index of this analyser's catalogue
+   */
+  public CatalogueIndex getIndex() {
+    return index;
+  }
+  
+  public Catalogue getCatalogue() {
+    return catalogue;
+  }
+  
+  public Course getCourse() {
+    return course;
+  }
+  
   public Milestone getMilestoneByPosition(int pos) {
-    if (pos < 0 || pos >= catalogue.getMilestones().size()) {
-      return null;
+    return courseManager.getMilestoneByOrdinal(pos);
+  }
+  
+  /**
+   * Returns the maximal regular points per milestone ordinal, which are computed once per catalogue modification.
+   */
+  private PrefixSums getMaximalRegularSums() {
+    if (maximalRegularSums == null || sumsRevision != catalogue.getRevision() || sumsTimeRevision != course.getTimeRevision()) {
+      sumsRevision = catalogue.getRevision();
+      sumsTimeRevision = course.getTimeRevision();
+      double[] sums = new double[courseManager.getMilestoneCount()];
+      for (Requirement r : catalogue.requirementsView()) {
+        if (r.isRegular()) {
+          int pos = courseManager.getMilestoneOrdinal(index.getMilestone(r.getMinimalMilestoneUUID()));
+          if (pos >= 0) {
+            sums[pos] += r.getMaxPoints();
+          }
+        }
+      }
+      maximalRegularSums = new PrefixSums(sums);
     }
-    List<Milestone> milestones = catalogue.getMilestones();
-    milestones.sort(courseManager);
-    return milestones.get(pos);
+    return maximalRegularSums;
   }
   
   public boolean hasPredecessor(@NotNull Milestone ms) {
     int ordinal = courseManager.getMilestoneOrdinal(ms);
-    return 0 < ordinal && ordinal < catalogue.getMilestones().size();
+    return 0 < ordinal && ordinal < courseManager.getMilestoneCount();
   }
   
   public int getProgressSummaryOrdinal(ProgressSummary ps) {
@@ -277,13 +338,6 @@ public class CatalogueAnalyser {
     return courseManager.getMilestoneOrdinal(ms);
   }
   
-  boolean containsRequirementPattern(Requirement requirement, String pattern) {
-    boolean inName = StringUtils.containsNullSafe(requirement.getName(), pattern);
-    boolean inExcerpt = StringUtils.containsNullSafe(requirement.getExcerpt(), pattern);
-    boolean inDescription = StringUtils.containsNullSafe(requirement.getDescription(), pattern);
-    return inName || inExcerpt || inDescription;
-  }
-  
   boolean matchesMinimalMilestone(Requirement requirement, Milestone milestone) {
     return requirement.getMinimalMilestoneUUID().equals(milestone.getUuid());
   }
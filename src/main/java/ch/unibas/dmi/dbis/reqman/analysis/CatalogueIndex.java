@@ -0,0 +1,144 @@
+package ch.unibas.dmi.dbis.reqman.analysis;
+
+import ch.unibas.dmi.dbis.reqman.data.Catalogue;
+import ch.unibas.dmi.dbis.reqman.data.Milestone;
+import ch.unibas.dmi.dbis.reqman.data.Requirement;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.HashMap;
+import java.util.UUID;
+
+/**
+ * UUID based lookup index for the {@link Requirement}s and {@link Milestone}s of a {@link Catalogue}.
+ * <p>
+ * The index is built once per catalogue and kept in sync by the {@link ch.unibas.dmi.dbis.reqman.control.EntityController}
+ * upon adding and removing entities.
+ * Should the catalogue be modified elsewhere, the index detects this by the catalogue's {@link Catalogue#getRevision()}
+ * and rebuilds itself on the next lookup.
+ *
+ * @author loris.sauter
+ */
+public class CatalogueIndex {
+  
+  private final Catalogue catalogue;
+  
+  private final HashMap<UUID, Requirement> requirementMap = new HashMap<>();
+  private final HashMap<UUID, Milestone> milestoneMap = new HashMap<>();
+  
+  /**
+   * The catalogue revision this index represents
+   */
+  private long revision;
+  
+  public CatalogueIndex(@NotNull Catalogue catalogue) {
+    if (catalogue == null) {
+      throw new IllegalArgumentException("Cannot create an index for a null catalogue");
+    }
+    this.catalogue = catalogue;
+    rebuild();
+  }
+  
+  /**
+   * Re-creates the index from the catalogue's current requirements and milestones.
+   */
+  public void rebuild() {
+    requirementMap.clear();
+    milestoneMap.clear();
+    catalogue.requirementsView().forEach(r -> requirementMap.put(r.getUuid(), r));
+    catalogue.milestonesView().forEach(ms -> milestoneMap.put(ms.getUuid(), ms));
+    revision = catalogue.getRevision();
+  }
+  
+  public Requirement getRequirement(UUID uuid) {
+    ensureCurrent();
+    return requirementMap.get(uuid);
+  }
+  
+  public Milestone getMilestone(UUID uuid) {
+    ensureCurrent();
+    return milestoneMap.get(uuid);
+  }
+  
+  public boolean containsRequirement(UUID uuid) {
+    ensureCurrent();
+    return requirementMap.containsKey(uuid);
+  }
+  
+  public boolean containsMilestone(UUID uuid) {
+    ensureCurrent();
+    return milestoneMap.containsKey(uuid);
+  }
+  
+  /**
+   * Registers the given requirement, which was just added to the catalogue.
+   *
+   * @param requirement The added requirement
+   */
+  public void addRequirement(@NotNull Requirement requirement) {
+    if (isOneRevisionBehind()) {
+      requirementMap.put(requirement.getUuid(), requirement);
+      revision++;
+    } else {
+      rebuild();
+    }
+  }
+  
+  /**
+   * Unregisters the given requirement, which was just removed from the catalogue.
+   *
+   * @param requirement The removed requirement
+   */
+  public void removeRequirement(@NotNull Requirement requirement) {
+    if (isOneRevisionBehind()) {
+      requirementMap.remove(requirement.getUuid());
+      revision++;
+    } else {
+      rebuild();
+    }
+  }
+  
+  /**
+   * Registers the given milestone, which was just added to the catalogue.
+   *
+   * @param milestone The added milestone
+   */
+  public void addMilestone(@NotNull Milestone milestone) {
+    if (isOneRevisionBehind()) {
+      milestoneMap.put(milestone.getUuid(), milestone);
+      revision++;
+    } else {
+      rebuild();
+    }
+  }
+  
+  /**
+   * Unregisters the given milestone, which was just removed from the catalogue.
+   *
+   * @param milestone The removed milestone
+   */
+  public void removeMilestone(@NotNull Milestone milestone) {
+    if (isOneRevisionBehind()) {
+      milestoneMap.remove(milestone.getUuid());
+      revision++;
+    } else {
+      rebuild();
+    }
+  }
+  
+  public Catalogue getCatalogue() {
+    return catalogue;
+  }
+  
+  /**
+   * Whether exactly the one modification, which is currently reported, happened since the last sync
+   */
+  private boolean isOneRevisionBehind() {
+    return revision + 1 == catalogue.getRevision();
+  }
+  
+  private void ensureCurrent() {
+    if (revision != catalogue.getRevision()) {
+      rebuild();
+    }
+  }
+}
@@ -33,6 +33,13 @@ public class CategoryContainsFilter implements Filter {
     }
   }
   
+  /**
+   * Returns the lower-cased category to search
+   */
+  String getCategory() {
+    return category;
+  }
+  
   @Override
   public String getDisplayRepresentation() {
     return "Category contains " + category;
@@ -0,0 +1,330 @@
+package ch.unibas.dmi.dbis.reqman.analysis;
+
+import ch.unibas.dmi.dbis.reqman.data.Requirement;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * A {@link Filter} compiled into an evaluation plan over {@link RequirementBitmaps}.
+ * <p>
+ * Every predicate evaluates to a {@link BitSet} of the requirements passing it: Types and categories are served from
+ * precomputed bitmaps, text predicates resolve their candidates by the {@link RequirementSearchIndex}.
+ * Nested {@link AndFilter}s and {@link OrFilter}s are flattened into word-level bit operations and their operands
+ * ordered by cost, so a conjunction stops before any text is searched once no requirement is left.
+ * Filters of unknown classes are tested requirement by requirement.
+ * <p>
+ * Since the bitmaps cache the results of the predicates, evaluating a filter which extends a previously evaluated one
+ * only evaluates the added predicates.
+ * <p>
+ * Filters of the same structure, e.g. two {@link TypeFilter}s of the same type, share the same {@link #getKey()}.
+ *
+ * @author loris.sauter
+ */
+public final class CompiledFilter {
+  
+  private static final int COST_TYPE = 0;
+  private static final int COST_FIELD = 1;
+  private static final int COST_TEXT = 2;
+  private static final int COST_UNKNOWN = 3;
+  
+  private final Filter filter;
+  private final Node root;
+  private final Object key;
+  
+  private CompiledFilter(Filter filter, Node root) {
+    this.filter = filter;
+    this.root = root;
+    this.key = root.getKey();
+  }
+  
+  /**
+   * Compiles the given filter.
+   *
+   * @param filter The filter to compile
+   * @return The compiled filter
+   */
+  public static CompiledFilter compile(@NotNull Filter filter) {
+    if (filter == null) {
+      throw new IllegalArgumentException("Cannot compile a null filter");
+    }
+    return new CompiledFilter(filter, compileNode(filter));
+  }
+  
+  public Filter getFilter() {
+    return filter;
+  }
+  
+  /**
+   * Returns the structural key of this filter. Filters consisting of the same predicates, combined the same way, have
+   * equal keys. Operands of conjunctions and disjunctions are unordered, filters of unknown classes are compared by
+   * identity.
+   *
+   * @return The structural key of this filter
+   */
+  public Object getKey() {
+    return key;
+  }
+  
+  /**
+   * Returns the requirements of the given bitmaps' catalogue passing this filter, in catalogue order.
+   *
+   * @param bitmaps The bitmaps of the catalogue
+   * @return The requirements passing this filter
+   */
+  List<Requirement> apply(RequirementBitmaps bitmaps) {
+    return bitmaps.toList(evaluate(bitmaps));
+  }
+  
+  /**
+   * Returns the ordinals of the requirements passing this filter.
+   *
+   * @param bitmaps The bitmaps of the catalogue
+   * @return The bitmap of the passing requirements, owned by the caller
+   */
+  BitSet evaluate(RequirementBitmaps bitmaps) {
+    return root.evaluate(bitmaps);
+  }
+  
+  private static Node compileNode(Filter filter) {
+    if (filter instanceof AndFilter) {
+      List<Node> operands = new ArrayList<>();
+      flattenAnd(filter, operands);
+      return new AndNode(operands);
+    } else if (filter instanceof OrFilter) {
+      List<Node> operands = new ArrayList<>();
+      flattenOr(filter, operands);
+      return new OrNode(operands);
+    } else if (filter instanceof NotFilter) {
+      return new NotNode(compileNode(((NotFilter) filter).getFilter()));
+    } else if (filter instanceof TypeFilter) {
+      return new TypeNode(((TypeFilter) filter).getType());
+    } else if (filter instanceof NameContainsFilter) {
+      return new ContainsNode(RequirementTextCache.NAME, ((NameContainsFilter) filter).getName(), COST_FIELD);
+    } else if (filter instanceof CategoryContainsFilter) {
+      return new CategoryNode(((CategoryContainsFilter) filter).getCategory());
+    } else if (filter instanceof TextContainsFilter) {
+      return new ContainsNode(RequirementTextCache.TEXT, ((TextContainsFilter) filter).getPattern(), COST_TEXT);
+    } else {
+      return new PredicateNode(filter);
+    }
+  }
+  
+  private static void flattenAnd(Filter filter, List<Node> operands) {
+    if (filter instanceof AndFilter) {
+      flattenAnd(((AndFilter) filter).getOne(), operands);
+      flattenAnd(((AndFilter) filter).getTwo(), operands);
+    } else {
+      operands.add(compileNode(filter));
+    }
+  }
+  
+  private static void flattenOr(Filter filter, List<Node> operands) {
+    if (filter instanceof OrFilter) {
+      flattenOr(((OrFilter) filter).getOne(), operands);
+      flattenOr(((OrFilter) filter).getTwo(), operands);
+    } else {
+      operands.add(compileNode(filter));
+    }
+  }
+  
+  private interface Node {
+    /**
+     * Returns the bitmap of the passing requirements, which the caller may modify
+     */
+    BitSet evaluate(RequirementBitmaps bitmaps);
+  
+    int getCost();
+  
+    Object getKey();
+  }
+  
+  private static Object keyOf(String operation, Node[] operands) {
+    Set<Object> keys = new HashSet<>();
+    for (Node n : operands) {
+      keys.add(n.getKey());
+    }
+    return Arrays.asList(operation, keys);
+  }
+  
+  private static final class AndNode implements Node {
+    private final Node[] operands;
+    private final int cost;
+  
+    private AndNode(List<Node> operands) {
+      operands.sort(Comparator.comparingInt(Node::getCost));
+      this.operands = operands.toArray(new Node[0]);
+      this.cost = operands.stream().mapToInt(Node::getCost).max().orElse(COST_TYPE);
+    }
+  
+    @Override
+    public BitSet evaluate(RequirementBitmaps bitmaps) {
+      BitSet result = operands[0].evaluate(bitmaps);
+      for (int i = 1; i < operands.length && !result.isEmpty(); i++) {
+        result.and(operands[i].evaluate(bitmaps));
+      }
+      return result;
+    }
+  
+    @Override
+    public int getCost() {
+      return cost;
+    }
+  
+    @Override
+    public Object getKey() {
+      return keyOf("and", operands);
+    }
+  }
+  
+  private static final class OrNode implements Node {
+    private final Node[] operands;
+    private final int cost;
+  
+    private OrNode(List<Node> operands) {
+      operands.sort(Comparator.comparingInt(Node::getCost));
+      this.operands = operands.toArray(new Node[0]);
+      this.cost = operands.stream().mapToInt(Node::getCost).max().orElse(COST_TYPE);
+    }
+  
+    @Override
+    public BitSet evaluate(RequirementBitmaps bitmaps) {
+      BitSet result = operands[0].evaluate(bitmaps);
+      for (int i = 1; i < operands.length && result.cardinality() < bitmaps.size(); i++) {
+        result.or(operands[i].evaluate(bitmaps));
+      }
+      return result;
+    }
+  
+    @Override
+    public int getCost() {
+      return cost;
+    }
+  
+    @Override
+    public Object getKey() {
+      return keyOf("or", operands);
+    }
+  }
+  
+  private static final class NotNode implements Node {
+    private final Node operand;
+  
+    private NotNode(Node operand) {
+      this.operand = operand;
+    }
+  
+    @Override
+    public BitSet evaluate(RequirementBitmaps bitmaps) {
+      BitSet result = operand.evaluate(bitmaps);
+      result.flip(0, bitmaps.size());
+      return result;
+    }
+  
+    @Override
+    public int getCost() {
+      return operand.getCost();
+    }
+  
+    @Override
+    public Object getKey() {
+      return Arrays.asList("not", operand.getKey());
+    }
+  }
+  
+  private static final class TypeNode implements Node {
+    private final Requirement.Type type;
+  
+    private TypeNode(Requirement.Type type) {
+      this.type = type;
+    }
+  
+    @Override
+    public BitSet evaluate(RequirementBitmaps bitmaps) {
+      return bitmaps.ofType(type);
+    }
+  
+    @Override
+    public int getCost() {
+      return COST_TYPE;
+    }
+  
+    @Override
+    public Object getKey() {
+      return Arrays.asList("type", type);
+    }
+  }
+  
+  private static final class CategoryNode implements Node {
+    private final String pattern;
+  
+    private CategoryNode(String pattern) {
+      this.pattern = pattern;
+    }
+  
+    @Override
+    public BitSet evaluate(RequirementBitmaps bitmaps) {
+      return bitmaps.ofCategoryContaining(pattern);
+    }
+  
+    @Override
+    public int getCost() {
+      return COST_FIELD;
+    }
+  
+    @Override
+    public Object getKey() {
+      return Arrays.asList("category", pattern);
+    }
+  }
+  
+  private static final class ContainsNode implements Node {
+    private final int fields;
+    private final String pattern;
+    private final int cost;
+  
+    private ContainsNode(int fields, String pattern, int cost) {
+      this.fields = fields;
+      this.pattern = pattern;
+      this.cost = cost;
+    }
+  
+    @Override
+    public BitSet evaluate(RequirementBitmaps bitmaps) {
+      return bitmaps.ofTextContaining(fields, pattern);
+    }
+  
+    @Override
+    public int getCost() {
+      return cost;
+    }
+  
+    @Override
+    public Object getKey() {
+      return Arrays.asList("contains", fields, pattern);
+    }
+  }
+  
+  private static final class PredicateNode implements Node {
+    private final Filter filter;
+  
+    private PredicateNode(Filter filter) {
+      this.filter = filter;
+    }
+  
+    @Override
+    public BitSet evaluate(RequirementBitmaps bitmaps) {
+      return bitmaps.matching(filter);
+    }
+  
+    @Override
+    public int getCost() {
+      return COST_UNKNOWN;
+    }
+  
+    @Override
+    public Object getKey() {
+      return filter;
+    }
+  }
+}
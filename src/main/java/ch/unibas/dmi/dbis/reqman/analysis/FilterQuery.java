@@ -0,0 +1,361 @@
+package ch.unibas.dmi.dbis.reqman.analysis;
+
+import ch.unibas.dmi.dbis.reqman.data.Catalogue;
+import ch.unibas.dmi.dbis.reqman.data.CourseManager;
+import ch.unibas.dmi.dbis.reqman.data.Requirement;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * Parser and planner of textual filter queries, e.g. {@code type:bonus AND cat:"SQL" AND NOT text:index ms:>=3}.
+ * <p>
+ * A query consists of predicates, which are combined by {@code AND}, {@code OR} and {@code NOT} and grouped by
+ * parentheses. Adjacent predicates without an operator are combined by {@code AND}, which binds stronger than
+ * {@code OR}. The predicates are
+ * <ul>
+ * <li>{@code type:<regular|bonus|malus>}, see {@link TypeFilter}</li>
+ * <li>{@code cat:<pattern>} or {@code category:<pattern>}, see {@link CategoryContainsFilter}</li>
+ * <li>{@code name:<pattern>}, see {@link NameContainsFilter}</li>
+ * <li>{@code text:<pattern>} or just {@code <pattern>}, see {@link TextContainsFilter}</li>
+ * <li>{@code ms:<comparison><position>} or {@code milestone:...}, see {@link MilestoneFilter}. Comparisons are
+ * {@code <, <=, =, >=, >} and default to {@code =}</li>
+ * </ul>
+ * Patterns containing whitespace or parentheses have to be quoted.
+ * <p>
+ * The operands of conjunctions are planned by their cost and estimated selectivity: Type and category predicates,
+ * which are served from precomputed bitmaps, come before text predicates, and within the same cost the most selective
+ * predicate comes first. Planned queries are cached until the catalogue is modified.
+ *
+ * @author loris.sauter
+ */
+final class FilterQuery {
+  
+  private static final Logger LOGGER = LogManager.getLogger(FilterQuery.class);
+  
+  /**
+   * The number of planned queries kept
+   */
+  private static final int CACHE_SIZE = 64;
+  
+  private static final int RANK_TYPE = 0;
+  private static final int RANK_FIELD = 1;
+  private static final int RANK_TEXT = 2;
+  private static final int RANK_UNKNOWN = 3;
+  
+  private final Catalogue catalogue;
+  private final CourseManager courseManager;
+  private final RequirementBitmaps bitmaps;
+  
+  /**
+   * The planned queries, by the query string, in access order
+   */
+  private final LinkedHashMap<String, Filter> cache = new LinkedHashMap<String, Filter>(CACHE_SIZE, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Filter> eldest) {
+      return size() > CACHE_SIZE;
+    }
+  };
+  
+  /**
+   * The catalogue revision the cached plans were made for
+   */
+  private long cacheRevision = -1;
+  
+  FilterQuery(@NotNull Catalogue catalogue, @NotNull CourseManager courseManager, @NotNull RequirementBitmaps bitmaps) {
+    this.catalogue = catalogue;
+    this.courseManager = courseManager;
+    this.bitmaps = bitmaps;
+  }
+  
+  /**
+   * Parses and plans the given query.
+   *
+   * @param query The query to parse
+   * @return The filter of the query
+   * @throws IllegalArgumentException If the query is not well-formed
+   */
+  Filter parse(@NotNull String query) throws IllegalArgumentException {
+    if (cacheRevision != catalogue.getRevision()) {
+      cache.clear();
+      cacheRevision = catalogue.getRevision();
+    }
+    Filter filter = cache.get(query);
+    if (filter == null) {
+      filter = plan(new Parser(query).parse());
+      LOGGER.debug("Planned query '{}' as {}", query, filter.getDisplayRepresentation());
+      cache.put(query, filter);
+    }
+    return filter;
+  }
+  
+  private Filter plan(Filter filter) {
+    if (filter instanceof AndFilter) {
+      List<Filter> operands = new ArrayList<>();
+      flatten(filter, true, operands);
+      operands.replaceAll(this::plan);
+      operands.sort(Comparator.comparingInt(FilterQuery::rankOf).thenComparingInt(this::estimate));
+      Filter planned = operands.get(0);
+      for (int i = 1; i < operands.size(); i++) {
+        planned = new AndFilter(planned, operands.get(i));
+      }
+      return planned;
+    } else if (filter instanceof OrFilter) {
+      List<Filter> operands = new ArrayList<>();
+      flatten(filter, false, operands);
+      operands.replaceAll(this::plan);
+      // The least selective first, as it is most likely to already include the others
+      operands.sort(Comparator.comparingInt(FilterQuery::rankOf).thenComparing(Comparator.comparingInt(this::estimate).reversed()));
+      Filter planned = operands.get(0);
+      for (int i = 1; i < operands.size(); i++) {
+        planned = new OrFilter(planned, operands.get(i));
+      }
+      return planned;
+    } else if (filter instanceof NotFilter) {
+      return new NotFilter(plan(((NotFilter) filter).getFilter()));
+    }
+    return filter;
+  }
+  
+  private static void flatten(Filter filter, boolean and, List<Filter> operands) {
+    if (and && filter instanceof AndFilter) {
+      flatten(((AndFilter) filter).getOne(), true, operands);
+      flatten(((AndFilter) filter).getTwo(), true, operands);
+    } else if (!and && filter instanceof OrFilter) {
+      flatten(((OrFilter) filter).getOne(), false, operands);
+      flatten(((OrFilter) filter).getTwo(), false, operands);
+    } else {
+      operands.add(filter);
+    }
+  }
+  
+  /**
+   * Returns the cost class of the given filter, consistent with the costs of the {@link CompiledFilter}
+   */
+  private static int rankOf(Filter filter) {
+    if (filter instanceof TypeFilter) {
+      return RANK_TYPE;
+    } else if (filter instanceof CategoryContainsFilter || filter instanceof NameContainsFilter) {
+      return RANK_FIELD;
+    } else if (filter instanceof TextContainsFilter) {
+      return RANK_TEXT;
+    } else if (filter instanceof NotFilter) {
+      return rankOf(((NotFilter) filter).getFilter());
+    } else if (filter instanceof AndFilter) {
+      return Math.max(rankOf(((AndFilter) filter).getOne()), rankOf(((AndFilter) filter).getTwo()));
+    } else if (filter instanceof OrFilter) {
+      return Math.max(rankOf(((OrFilter) filter).getOne()), rankOf(((OrFilter) filter).getTwo()));
+    }
+    return RANK_UNKNOWN;
+  }
+  
+  /**
+   * Estimates the number of requirements passing the given filter. Types and categories are counted exactly, since
+   * their bitmaps are precomputed, while the matches of a text pattern are assumed to decrease with its length.
+   */
+  private int estimate(Filter filter) {
+    int size = bitmaps.size();
+    if (filter instanceof TypeFilter) {
+      return bitmaps.ofType(((TypeFilter) filter).getType()).cardinality();
+    } else if (filter instanceof CategoryContainsFilter) {
+      return bitmaps.ofCategoryContaining(((CategoryContainsFilter) filter).getCategory()).cardinality();
+    } else if (filter instanceof NameContainsFilter) {
+      return size / (1 + ((NameContainsFilter) filter).getName().length());
+    } else if (filter instanceof TextContainsFilter) {
+      return size / (1 + ((TextContainsFilter) filter).getPattern().length());
+    } else if (filter instanceof NotFilter) {
+      return size - estimate(((NotFilter) filter).getFilter());
+    } else if (filter instanceof AndFilter) {
+      return Math.min(estimate(((AndFilter) filter).getOne()), estimate(((AndFilter) filter).getTwo()));
+    } else if (filter instanceof OrFilter) {
+      return Math.min(size, estimate(((OrFilter) filter).getOne()) + estimate(((OrFilter) filter).getTwo()));
+    }
+    return size / 2;
+  }
+  
+  /**
+   * Recursive descent parser of a single query
+   */
+  private final class Parser {
+    private final String query;
+    private int pos = 0;
+  
+    private Parser(String query) {
+      this.query = query;
+    }
+  
+    private Filter parse() {
+      Filter filter = parseOr();
+      skipWhitespace();
+      if (pos < query.length()) {
+        throw error("Unexpected '" + query.charAt(pos) + "'");
+      }
+      return filter;
+    }
+  
+    private Filter parseOr() {
+      Filter filter = parseAnd();
+      while (acceptKeyword("OR")) {
+        filter = new OrFilter(filter, parseAnd());
+      }
+      return filter;
+    }
+  
+    private Filter parseAnd() {
+      Filter filter = parseUnary();
+      while (true) {
+        if (acceptKeyword("AND")) {
+          filter = new AndFilter(filter, parseUnary());
+        } else if (startsOperand()) {
+          filter = new AndFilter(filter, parseUnary()); // Implicit AND
+        } else {
+          return filter;
+        }
+      }
+    }
+  
+    private Filter parseUnary() {
+      if (acceptKeyword("NOT")) {
+        return new NotFilter(parseUnary());
+      }
+      skipWhitespace();
+      if (pos < query.length() && query.charAt(pos) == '(') {
+        pos++;
+        Filter filter = parseOr();
+        skipWhitespace();
+        if (pos >= query.length() || query.charAt(pos) != ')') {
+          throw error("Missing ')'");
+        }
+        pos++;
+        return filter;
+      }
+      return parsePredicate();
+    }
+  
+    private Filter parsePredicate() {
+      skipWhitespace();
+      if (pos >= query.length()) {
+        throw error("Missing predicate");
+      }
+      int start = pos;
+      String key = null;
+      if (query.charAt(pos) != '"') {
+        while (pos < query.length() && Character.isLetter(query.charAt(pos))) {
+          pos++;
+        }
+        if (pos < query.length() && query.charAt(pos) == ':' && pos > start) {
+          key = query.substring(start, pos).toLowerCase();
+          pos++;
+        } else {
+          pos = start;
+        }
+      }
+      String value = parseValue();
+      if (key == null) {
+        return new TextContainsFilter(value);
+      }
+      switch (key) {
+        case "type":
+          return new TypeFilter(parseType(value, start));
+        case "cat":
+        case "category":
+          return new CategoryContainsFilter(value);
+        case "name":
+          return new NameContainsFilter(value);
+        case "text":
+          return new TextContainsFilter(value);
+        case "ms":
+        case "milestone":
+          return parseMilestone(value, start);
+        default:
+          pos = start;
+          throw error("Unknown predicate '" + key + "'");
+      }
+    }
+  
+    private String parseValue() {
+      if (pos < query.length() && query.charAt(pos) == '"') {
+        int end = query.indexOf('"', pos + 1);
+        if (end < 0) {
+          throw error("Missing closing '\"'");
+        }
+        String value = query.substring(pos + 1, end);
+        pos = end + 1;
+        return value;
+      }
+      int start = pos;
+      while (pos < query.length() && !Character.isWhitespace(query.charAt(pos)) && query.charAt(pos) != '(' && query.charAt(pos) != ')') {
+        pos++;
+      }
+      if (start == pos) {
+        throw error("Missing value");
+      }
+      return query.substring(start, pos);
+    }
+  
+    private Requirement.Type parseType(String value, int start) {
+      try {
+        return Requirement.Type.valueOf(value.toUpperCase());
+      } catch (IllegalArgumentException ex) {
+        pos = start;
+        throw error("Unknown type '" + value + "'");
+      }
+    }
+  
+    private MilestoneFilter parseMilestone(String value, int start) {
+      MilestoneFilter.Comparison comparison = MilestoneFilter.Comparison.EQUAL;
+      String number = value;
+      // Longest symbols first, such that '<=' is not taken for '<'
+      for (MilestoneFilter.Comparison c : new MilestoneFilter.Comparison[]{MilestoneFilter.Comparison.LESS_OR_EQUAL, MilestoneFilter.Comparison.GREATER_OR_EQUAL, MilestoneFilter.Comparison.LESS, MilestoneFilter.Comparison.GREATER, MilestoneFilter.Comparison.EQUAL}) {
+        if (value.startsWith(c.getSymbol())) {
+          comparison = c;
+          number = value.substring(c.getSymbol().length());
+          break;
+        }
+      }
+      try {
+        return new MilestoneFilter(courseManager, comparison, Integer.parseInt(number));
+      } catch (NumberFormatException ex) {
+        pos = start;
+        throw error("Invalid milestone position '" + value + "'");
+      }
+    }
+  
+    /**
+     * Consumes the given keyword, if it is next
+     */
+    private boolean acceptKeyword(String keyword) {
+      skipWhitespace();
+      int end = pos + keyword.length();
+      if (query.startsWith(keyword, pos) && (end == query.length() || Character.isWhitespace(query.charAt(end)) || query.charAt(end) == '(')) {
+        pos = end;
+        return true;
+      }
+      return false;
+    }
+  
+    private boolean startsOperand() {
+      skipWhitespace();
+      return pos < query.length() && query.charAt(pos) != ')' && !isKeyword("OR");
+    }
+  
+    private boolean isKeyword(String keyword) {
+      int start = pos;
+      boolean keywordNext = acceptKeyword(keyword);
+      pos = start;
+      return keywordNext;
+    }
+  
+    private void skipWhitespace() {
+      while (pos < query.length() && Character.isWhitespace(query.charAt(pos))) {
+        pos++;
+      }
+    }
+  
+    private IllegalArgumentException error(String message) {
+      return new IllegalArgumentException(String.format("%s at position %d of query '%s'", message, pos, query));
+    }
+  }
+}
@@ -1,8 +1,11 @@
 package ch.unibas.dmi.dbis.reqman.analysis;
 
 import ch.unibas.dmi.dbis.reqman.data.Milestone;
+import ch.unibas.dmi.dbis.reqman.data.Requirement;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.List;
+
 /**
  * A Filterable can handle the application of a filter.
  * E.g. a Filterable has some sort of list / set to be filtered.
@@ -13,6 +16,17 @@ public interface Filterable {
   
   void applyFilter(@NotNull Filter filter);
   
+  /**
+   * Applies the given filter, whose result was already computed by the {@link AssessmentManager}.
+   * The result is shared among all filterables and must not be modified.
+   *
+   * @param filter   The filter to apply
+   * @param filtered The requirements passing the filter
+   */
+  default void applyFilter(@NotNull Filter filter, @NotNull List<Requirement> filtered) {
+    applyFilter(filter);
+  }
+  
   void applyActiveMilestone(@NotNull Milestone ps);
   
   void clearFilter();
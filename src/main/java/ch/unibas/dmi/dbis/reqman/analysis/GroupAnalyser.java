@@ -18,18 +18,36 @@ public class GroupAnalyser {
   private final Course course;
   private final Catalogue catalogue;
   private final CatalogueAnalyser catalogueAnalyser;
-  private final CourseManager courseManager;
+  private final ScoreAggregator scoreAggregator;
+  
+  private final ProgressIndex progressIndex;
   
   public GroupAnalyser(Course course, Catalogue catalogue, Group group) {
+    this(new CatalogueAnalyser(course, catalogue), group);
+  }
+  
+  /**
+   * Creates a new analyser for the given group, which shares the given catalogue analyser and thus its lookup
+   * structures with all other analysers of the same catalogue.
+   *
+   * @param catalogueAnalyser The analyser of the catalogue the group tracks progress in
+   * @param group             The group to analyse
+   */
+  public GroupAnalyser(@NotNull CatalogueAnalyser catalogueAnalyser, Group group) {
     this.group = group;
-    this.course = course;
-    this.catalogue = catalogue;
-    this.catalogueAnalyser = new CatalogueAnalyser(course, catalogue);
-    this.courseManager = new CourseManager(course, catalogue);
+    this.course = catalogueAnalyser.getCourse();
+    this.catalogue = catalogueAnalyser.getCatalogue();
+    this.catalogueAnalyser = catalogueAnalyser;
+    this.scoreAggregator = new ScoreAggregator(course, catalogue, group, catalogueAnalyser);
+    this.progressIndex = new ProgressIndex(group, catalogueAnalyser);
+  }
+  
+  public Group getGroup() {
+    return group;
   }
   
   public List<Progress> getProgressFor(ProgressSummary summary) {
-    return group.getProgressList().stream().filter(p -> matchesProgressMilestone(p, summary)).collect(Collectors.toList());
+    return progressIndex.getProgressAt(summary.getMilestoneUUID());
   }
   
   
@@ -58,7 +76,7 @@ public class GroupAnalyser {
    * @return
    */
   public List<Progress> getOpenProgressAt(ProgressSummary ps) {
-    return getProgressFor(ps).stream().filter(p -> !isSingularProgress(p)).filter(Progress::isFresh).collect(Collectors.toList());
+    return progressIndex.getOpenProgressAt(ps.getMilestoneUUID()).stream().filter(p -> !isSingularProgress(p)).collect(Collectors.toList());
   }
   
   public boolean isSingularProgress(Progress progress) {
@@ -79,48 +97,28 @@ public class GroupAnalyser {
   }
   
   public Progress getProgressFor(@NotNull Requirement requirement) {
-    for (Progress p : group.getProgressList()) {
-      if (requirement.getUuid().equals(p.getRequirementUUID())) {
-        return p;
-      }
-    }
-    return null;
+    return progressIndex.getProgressOf(requirement);
   }
   
   public Progress getProgressById(@NotNull UUID id) {
     if (id == null) {
       throw new IllegalArgumentException("Cannot find progress by id, if the id is null");
     }
-    for (Progress p : group.getProgressList()) {
-      if (id.equals(p.getUuid())) {
-        return p;
-      }
-    }
-    return null;
+    return progressIndex.getProgress(id);
   }
   
   public ProgressSummary getProgressSummaryById(@NotNull UUID id) {
     if (id == null) {
       throw new IllegalArgumentException("Cannot find progress summary by id, if the id is null");
     }
-    for (ProgressSummary ps : group.getProgressSummaries()) {
-      if (id.equals(ps.getUuid())) {
-        return ps;
-      }
-    }
-    return null;
+    return progressIndex.getProgressSummary(id);
   }
   
   public ProgressSummary getProgressSummaryFor(@NotNull Milestone ms) {
     if (ms == null) {
       throw new IllegalArgumentException("Cannot find a progress summary for a milestone, if the milestone is null");
     }
-    for (ProgressSummary ps : group.getProgressSummaries()) {
-      if (ms.getUuid().equals(ps.getMilestoneUUID())) {
-        return ps;
-      }
-    }
-    return null;
+    return progressIndex.getProgressSummaryOf(ms);
   }
   
   public Milestone getMilestoneOf(Progress p) {
@@ -139,37 +137,50 @@ public class GroupAnalyser {
   
   
   public boolean isProgressUnlocked(Progress progress) {
-    int predecessorsFulfilled = 0;
-    for (Requirement r : catalogueAnalyser.getPredecessors(getRequirementOf(progress))) {
+    Requirement requirement = getRequirementOf(progress);
+    RequirementGraph graph = catalogueAnalyser.getRequirementGraph();
+    if (graph.getPredecessorCount(requirement) == 0) {
+      return true;
+    }
+    for (Requirement r : graph.getPredecessors(requirement)) {
       Progress p = getProgressFor(r);
-      if (p.hasProgress()) {
-        predecessorsFulfilled++;
+      if (p == null || !p.hasProgress()) {
+        return false;
       }
     }
-    return predecessorsFulfilled == getRequirementOf(progress).getPredecessors().length;
+    return true;
+  }
+  
+  /**
+   * Notifies this analyser that the given {@link Progress} was assessed, i.e. its fraction or its
+   * {@link ProgressSummary} have changed. The point totals are updated accordingly.
+   *
+   * @param progress The assessed progress
+   */
+  public void progressChanged(@NotNull Progress progress) {
+    scoreAggregator.update(progress);
+    progressIndex.update(progress);
+  }
+  
+  /**
+   * Discards the cached point totals and progress lookups, e.g. since a {@link Progress} was modified without being
+   * reported.
+   */
+  public void invalidate() {
+    scoreAggregator.invalidate();
+    progressIndex.invalidate();
   }
   
   public double getSum() {
-    return group.getProgressSummaries().stream().mapToDouble(this::getSumFor).sum();
+    return scoreAggregator.getSum();
   }
   
   public double getSumFor(ProgressSummary ps) {
-    double sum = getProgressForProgressSummary(ps).stream().mapToDouble(this::getActualPoints).sum();
-    if (!course.isNegativeReminderAllowed()) {
-      return sum < 0 ? 0d : sum;
-    }
-    return sum;
+    return scoreAggregator.getSumFor(ps);
   }
   
   public double getCumulativeSumFor(ProgressSummary ps) {
-    double sum = 0;
-    
-    int pos = catalogueAnalyser.getCourseManager().getMilestoneOrdinal(catalogueAnalyser.getMilestoneOf(ps));
-    for (int i = 0; i <= pos; i++) {
-      sum += getSumFor(getProgressSummaryFor(catalogueAnalyser.getMilestoneByPosition(i)));
-    }
-    
-    return sum;
+    return scoreAggregator.getCumulativeSumFor(ps);
   }
   
   public double getBonusSumFor(ProgressSummary ps) {
@@ -185,11 +196,11 @@ public class GroupAnalyser {
   }
   
   public double getSumFor(ProgressSummary ps, Requirement.Type type) {
-    return getProgressForProgressSummary(ps).stream().filter(p -> getRequirementOf(p).getType().equals(type)).mapToDouble(this::getActualPoints).sum();
+    return scoreAggregator.getSumFor(ps, type);
   }
   
   public List<Progress> getProgressForProgressSummary(ProgressSummary ps) {
-    return group.getProgressList().stream().filter(p -> matchesProgressSummary(p, ps)).collect(Collectors.toList());
+    return group.progressListView().stream().filter(p -> matchesProgressSummary(p, ps)).collect(Collectors.toList());
   }
   
   public List<Progress> getProgressFor(List<Requirement> list) {
@@ -0,0 +1,79 @@
+package ch.unibas.dmi.dbis.reqman.analysis;
+
+import ch.unibas.dmi.dbis.reqman.data.CourseManager;
+import ch.unibas.dmi.dbis.reqman.data.Requirement;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * To pass this filter, the position of the requirement's minimal milestone has to compare to the given one.
+ * Positions start at one, in chronological order of the milestones.
+ *
+ * @author loris.sauter
+ */
+public class MilestoneFilter implements Filter {
+  
+  private final CourseManager courseManager;
+  private final Comparison comparison;
+  private final int position;
+  
+  public MilestoneFilter(@NotNull CourseManager courseManager, @NotNull Comparison comparison, int position) {
+    this.courseManager = courseManager;
+    this.comparison = comparison;
+    this.position = position;
+  }
+  
+  @Override
+  public boolean test(Requirement requirement) {
+    int ordinal = courseManager.getMilestoneOrdinal(courseManager.getMinimalMilestone(requirement));
+    return ordinal >= 0 && comparison.test(ordinal + 1, position);
+  }
+  
+  @Override
+  public String getDisplayRepresentation() {
+    return String.format("Milestone %s %d", comparison.getSymbol(), position);
+  }
+  
+  @Override
+  public String toString() {
+    final StringBuffer sb = new StringBuffer("MilestoneFilter{");
+    sb.append("comparison=").append(comparison);
+    sb.append(", position=").append(position);
+    sb.append('}');
+    return sb.toString();
+  }
+  
+  public enum Comparison {
+    LESS("<"),
+    LESS_OR_EQUAL("<="),
+    EQUAL("="),
+    GREATER_OR_EQUAL(">="),
+    GREATER(">");
+  
+    private final String symbol;
+  
+    Comparison(String symbol) {
+      this.symbol = symbol;
+    }
+  
+    public String getSymbol() {
+      return symbol;
+    }
+  
+    boolean test(int actual, int expected) {
+      switch (this) {
+        case LESS:
+          return actual < expected;
+        case LESS_OR_EQUAL:
+          return actual <= expected;
+        case EQUAL:
+          return actual == expected;
+        case GREATER_OR_EQUAL:
+          return actual >= expected;
+        case GREATER:
+          return actual > expected;
+        default:
+          return false;
+      }
+    }
+  }
+}
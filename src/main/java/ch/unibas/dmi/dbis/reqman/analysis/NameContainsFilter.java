@@ -38,6 +38,13 @@ public class NameContainsFilter implements Filter {
     }
   }
   
+  /**
+   * Returns the lower-cased name to search
+   */
+  String getName() {
+    return name;
+  }
+  
   @Override
   public String getDisplayRepresentation() {
     return String.format("Name contains '%s'", name);
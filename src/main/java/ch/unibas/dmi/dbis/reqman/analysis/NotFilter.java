@@ -29,6 +29,10 @@ public class NotFilter implements Filter {
     return filter.negate().test(requirement);
   }
   
+  Filter getFilter() {
+    return filter;
+  }
+  
   @Override
   public String getDisplayRepresentation() {
     return "Must not " + filter.getDisplayRepresentation();
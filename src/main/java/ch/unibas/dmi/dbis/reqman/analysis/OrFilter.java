@@ -32,6 +32,14 @@ public class OrFilter implements Filter {
     return one.or(two).test(requirement);
   }
   
+  Filter getOne() {
+    return one;
+  }
+  
+  Filter getTwo() {
+    return two;
+  }
+  
   @Override
   public String getDisplayRepresentation() {
     return one.getDisplayRepresentation() + " or " + two.getDisplayRepresentation();
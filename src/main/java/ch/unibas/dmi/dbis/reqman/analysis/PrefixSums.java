@@ -0,0 +1,54 @@
+package ch.unibas.dmi.dbis.reqman.analysis;
+
+/**
+ * Immutable per-position values along with their prefix sums, e.g. the points per milestone ordinal and the points
+ * accumulated up to a milestone.
+ * <p>
+ * Positions outside the valid range have neither a value nor a cumulative value, thus zero is returned.
+ *
+ * @author loris.sauter
+ */
+class PrefixSums {
+  
+  private final double[] values;
+  private final double[] cumulative;
+  
+  /**
+   * Creates the prefix sums of the given values. The array is not copied and must not be modified afterwards.
+   *
+   * @param values The value per position
+   */
+  PrefixSums(double[] values) {
+    this.values = values;
+    cumulative = new double[values.length];
+    double sum = 0;
+    for (int i = 0; i < values.length; i++) {
+      sum += values[i];
+      cumulative[i] = sum;
+    }
+  }
+  
+  double getValue(int pos) {
+    if (pos < 0 || pos >= values.length) {
+      return 0d;
+    }
+    return values[pos];
+  }
+  
+  /**
+   * Returns the sum of all values from position zero up to and including the given position.
+   *
+   * @param pos The position up to which the values are summed
+   * @return The sum of all values up to and including the position. Zero, if the position is negative
+   */
+  double getCumulativeValue(int pos) {
+    if (pos < 0 || values.length == 0) {
+      return 0d;
+    }
+    return cumulative[Math.min(pos, values.length - 1)];
+  }
+  
+  int size() {
+    return values.length;
+  }
+}
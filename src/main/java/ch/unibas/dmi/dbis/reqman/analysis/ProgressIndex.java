@@ -0,0 +1,223 @@
+package ch.unibas.dmi.dbis.reqman.analysis;
+
+import ch.unibas.dmi.dbis.reqman.data.*;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * Lookup index for the {@link Progress} and {@link ProgressSummary} entries of a {@link Group}.
+ * <p>
+ * Besides the lookups by uuid, the progress entries are bucketed by milestone:
+ * Each assessed progress is in the bucket of the milestone it was assessed at, each fresh progress is in the
+ * <i>open</i> bucket of every milestone its requirement is available at.
+ * The buckets keep the order of the group's progress list.
+ * <p>
+ * Changes of a single progress are applied by {@link #update(Progress)}, structural changes of the group or the
+ * catalogue are detected by their revisions and lead to a rebuild upon next access.
+ *
+ * @author loris.sauter
+ */
+class ProgressIndex {
+  
+  private static final Logger LOGGER = LogManager.getLogger(ProgressIndex.class);
+  
+  private final Group group;
+  private final Course course;
+  private final Catalogue catalogue;
+  private final CatalogueAnalyser catalogueAnalyser;
+  
+  private final HashMap<UUID, Progress> progressMap = new HashMap<>();
+  private final HashMap<UUID, Progress> requirementProgressMap = new HashMap<>();
+  private final HashMap<UUID, ProgressSummary> summaryMap = new HashMap<>();
+  private final HashMap<UUID, ProgressSummary> milestoneSummaryMap = new HashMap<>();
+  
+  /**
+   * The position of each progress in the group's progress list, by the progress' uuid
+   */
+  private final HashMap<UUID, Integer> positions = new HashMap<>();
+  
+  /**
+   * The assessed progress, by the milestone's uuid
+   */
+  private final HashMap<UUID, TreeMap<Integer, Progress>> assessedBuckets = new HashMap<>();
+  
+  /**
+   * The fresh progress, by the milestone's uuid
+   */
+  private final HashMap<UUID, TreeMap<Integer, Progress>> openBuckets = new HashMap<>();
+  
+  /**
+   * The milestones whose buckets contain a progress, by the progress' uuid
+   */
+  private final HashMap<UUID, List<UUID>> bucketsOfProgress = new HashMap<>();
+  
+  private long groupRevision = -1;
+  private long catalogueRevision = -1;
+  private long timeRevision = -1;
+  
+  ProgressIndex(Group group, CatalogueAnalyser catalogueAnalyser) {
+    this.group = group;
+    this.catalogueAnalyser = catalogueAnalyser;
+    this.course = catalogueAnalyser.getCourse();
+    this.catalogue = catalogueAnalyser.getCatalogue();
+  }
+  
+  Progress getProgress(UUID uuid) {
+    ensureCurrent();
+    return progressMap.get(uuid);
+  }
+  
+  Progress getProgressOf(@NotNull Requirement requirement) {
+    ensureCurrent();
+    return requirementProgressMap.get(requirement.getUuid());
+  }
+  
+  ProgressSummary getProgressSummary(UUID uuid) {
+    ensureCurrent();
+    return summaryMap.get(uuid);
+  }
+  
+  ProgressSummary getProgressSummaryOf(@NotNull Milestone milestone) {
+    ensureCurrent();
+    return milestoneSummaryMap.get(milestone.getUuid());
+  }
+  
+  /**
+   * Returns the progress entries either assessed at the given milestone or still open at it, in list order.
+   *
+   * @param milestoneUuid The uuid of the milestone
+   * @return The progress entries associated with the milestone
+   */
+  List<Progress> getProgressAt(UUID milestoneUuid) {
+    ensureCurrent();
+    TreeMap<Integer, Progress> merged = new TreeMap<>();
+    TreeMap<Integer, Progress> assessed = assessedBuckets.get(milestoneUuid);
+    if (assessed != null) {
+      merged.putAll(assessed);
+    }
+    TreeMap<Integer, Progress> open = openBuckets.get(milestoneUuid);
+    if (open != null) {
+      merged.putAll(open);
+    }
+    return new ArrayList<>(merged.values());
+  }
+  
+  /**
+   * Returns the fresh progress entries whose requirement is available at the given milestone, in list order.
+   *
+   * @param milestoneUuid The uuid of the milestone
+   * @return The unassessed progress entries at the milestone
+   */
+  List<Progress> getOpenProgressAt(UUID milestoneUuid) {
+    ensureCurrent();
+    TreeMap<Integer, Progress> open = openBuckets.get(milestoneUuid);
+    return open == null ? new ArrayList<>() : new ArrayList<>(open.values());
+  }
+  
+  /**
+   * Moves the given progress to the buckets it belongs to after being assessed or reset.
+   *
+   * @param progress The modified progress
+   */
+  void update(@NotNull Progress progress) {
+    if (!ensureCurrent()) {
+      return; // rebuilding already considered the change
+    }
+    if (!positions.containsKey(progress.getUuid())) {
+      return; // Not part of this group
+    }
+    List<UUID> old = bucketsOfProgress.remove(progress.getUuid());
+    if (old != null) {
+      Integer pos = positions.get(progress.getUuid());
+      for (UUID ms : old) {
+        remove(assessedBuckets, ms, pos);
+        remove(openBuckets, ms, pos);
+      }
+    }
+    bucket(progress, positions.get(progress.getUuid()), catalogue.milestonesView());
+  }
+  
+  void invalidate() {
+    groupRevision = -1;
+  }
+  
+  /**
+   * Rebuilds the index if it is outdated.
+   *
+   * @return Whether the index was already up to date
+   */
+  private boolean ensureCurrent() {
+    if (groupRevision == group.getRevision() && catalogueRevision == catalogue.getRevision() && timeRevision == course.getTimeRevision()) {
+      return true;
+    }
+    rebuild();
+    return false;
+  }
+  
+  private void rebuild() {
+    LOGGER.trace("Rebuilding progress index of group {}", group.getName());
+    groupRevision = group.getRevision();
+    catalogueRevision = catalogue.getRevision();
+    timeRevision = course.getTimeRevision();
+    progressMap.clear();
+    requirementProgressMap.clear();
+    summaryMap.clear();
+    milestoneSummaryMap.clear();
+    positions.clear();
+    assessedBuckets.clear();
+    openBuckets.clear();
+    bucketsOfProgress.clear();
+  
+    for (ProgressSummary ps : group.progressSummariesView()) {
+      summaryMap.putIfAbsent(ps.getUuid(), ps);
+      milestoneSummaryMap.putIfAbsent(ps.getMilestoneUUID(), ps);
+    }
+    List<Milestone> milestones = catalogue.milestonesView();
+    int pos = 0;
+    for (Progress p : group.progressListView()) {
+      progressMap.putIfAbsent(p.getUuid(), p);
+      requirementProgressMap.putIfAbsent(p.getRequirementUUID(), p);
+      if (!positions.containsKey(p.getUuid())) {
+        positions.put(p.getUuid(), pos);
+        bucket(p, pos, milestones);
+      }
+      pos++;
+    }
+  }
+  
+  private void bucket(Progress p, int pos, List<Milestone> milestones) {
+    Requirement req = catalogueAnalyser.getRequirementOf(p);
+    if (req == null) {
+      // Most probable reason for this case is, the requirement got removed.
+      return;
+    }
+    List<UUID> buckets = new ArrayList<>();
+    if (!p.isFresh()) {
+      ProgressSummary assessedAt = summaryMap.get(p.getProgressSummaryUUID());
+      if (assessedAt == null) {
+        LOGGER.warn("Progress ({}) is not fresh, but there is no ProgressSummary with this uuid", p);
+        return;
+      }
+      buckets.add(assessedAt.getMilestoneUUID());
+      assessedBuckets.computeIfAbsent(assessedAt.getMilestoneUUID(), k -> new TreeMap<>()).put(pos, p);
+    } else {
+      for (Milestone ms : milestones) {
+        if (catalogueAnalyser.matchesMilestone(req, ms)) {
+          buckets.add(ms.getUuid());
+          openBuckets.computeIfAbsent(ms.getUuid(), k -> new TreeMap<>()).put(pos, p);
+        }
+      }
+    }
+    bucketsOfProgress.put(p.getUuid(), buckets);
+  }
+  
+  private static void remove(HashMap<UUID, TreeMap<Integer, Progress>> buckets, UUID milestone, Integer pos) {
+    TreeMap<Integer, Progress> bucket = buckets.get(milestone);
+    if (bucket != null) {
+      bucket.remove(pos);
+    }
+  }
+}
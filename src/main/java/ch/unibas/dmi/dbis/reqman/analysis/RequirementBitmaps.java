@@ -0,0 +1,169 @@
+package ch.unibas.dmi.dbis.reqman.analysis;
+
+import ch.unibas.dmi.dbis.reqman.data.Catalogue;
+import ch.unibas.dmi.dbis.reqman.data.Requirement;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * Bitmaps over the ordinals of the {@link Requirement}s of a {@link Catalogue}, i.e. their positions in the catalogue.
+ * <p>
+ * The requirements of each type and each category are precomputed as {@link BitSet}s. The results of the leaf
+ * predicates of a {@link CompiledFilter} are cached by their structure, so evaluating a filter which extends a
+ * previous one only evaluates the new predicates. Everything is discarded whenever the catalogue's revision changes.
+ * <p>
+ * Returned bitmaps are copies and may be modified by the caller.
+ *
+ * @author loris.sauter
+ */
+class RequirementBitmaps {
+  
+  private static final Logger LOGGER = LogManager.getLogger(RequirementBitmaps.class);
+  
+  private final Catalogue catalogue;
+  private final RequirementSearchIndex searchIndex;
+  
+  private Requirement[] requirements = new Requirement[0];
+  private final HashMap<UUID, Integer> ordinals = new HashMap<>();
+  private final EnumMap<Requirement.Type, BitSet> typeSets = new EnumMap<>(Requirement.Type.class);
+  
+  /**
+   * The requirements per category, by the lower-cased category
+   */
+  private final HashMap<String, BitSet> categorySets = new HashMap<>();
+  
+  /**
+   * The cached results of contains predicates, by the predicate's fields and pattern
+   */
+  private final HashMap<String, BitSet> leafResults = new HashMap<>();
+  
+  private long revision = -1;
+  
+  RequirementBitmaps(@NotNull Catalogue catalogue, @NotNull RequirementSearchIndex searchIndex) {
+    this.catalogue = catalogue;
+    this.searchIndex = searchIndex;
+  }
+  
+  /**
+   * Returns the number of requirements, i.e. the length of the bitmaps
+   */
+  int size() {
+    ensureCurrent();
+    return requirements.length;
+  }
+  
+  /**
+   * Returns the bitmap of all requirements
+   */
+  BitSet all() {
+    ensureCurrent();
+    BitSet set = new BitSet(requirements.length);
+    set.set(0, requirements.length);
+    return set;
+  }
+  
+  BitSet ofType(@NotNull Requirement.Type type) {
+    ensureCurrent();
+    BitSet set = typeSets.get(type);
+    return set == null ? new BitSet() : (BitSet) set.clone();
+  }
+  
+  /**
+   * Returns the requirements whose category contains the given lower-cased pattern
+   */
+  BitSet ofCategoryContaining(@NotNull String lowerPattern) {
+    ensureCurrent();
+    BitSet result = leafResults.get(key(RequirementTextCache.CATEGORY, lowerPattern));
+    if (result == null) {
+      result = new BitSet(requirements.length);
+      for (Map.Entry<String, BitSet> entry : categorySets.entrySet()) {
+        if (entry.getKey().contains(lowerPattern)) {
+          result.or(entry.getValue());
+        }
+      }
+      leafResults.put(key(RequirementTextCache.CATEGORY, lowerPattern), result);
+    }
+    return (BitSet) result.clone();
+  }
+  
+  /**
+   * Returns the requirements which contain the given lower-cased pattern in one of the given fields
+   *
+   * @param fields       The fields to search, a combination of the {@link RequirementTextCache} field constants
+   * @param lowerPattern The lower-cased pattern
+   * @return The matching requirements
+   */
+  BitSet ofTextContaining(int fields, @NotNull String lowerPattern) {
+    ensureCurrent();
+    BitSet result = leafResults.get(key(fields, lowerPattern));
+    if (result == null) {
+      result = new BitSet(requirements.length);
+      RequirementTextCache cache = searchIndex.getTextCache();
+      for (Requirement r : searchIndex.getCandidates(fields, lowerPattern)) {
+        Integer ordinal = ordinals.get(r.getUuid());
+        if (ordinal != null && cache.get(r).contains(fields, lowerPattern)) {
+          result.set(ordinal);
+        }
+      }
+      leafResults.put(key(fields, lowerPattern), result);
+    }
+    return (BitSet) result.clone();
+  }
+  
+  /**
+   * Returns the requirements passing the given filter, by testing each of them.
+   */
+  BitSet matching(@NotNull Filter filter) {
+    ensureCurrent();
+    BitSet set = new BitSet(requirements.length);
+    for (int i = 0; i < requirements.length; i++) {
+      if (filter.test(requirements[i])) {
+        set.set(i);
+      }
+    }
+    return set;
+  }
+  
+  /**
+   * Returns the requirements of the given bitmap, in catalogue order.
+   */
+  List<Requirement> toList(@NotNull BitSet set) {
+    ensureCurrent();
+    List<Requirement> list = new ArrayList<>(set.cardinality());
+    for (int i = set.nextSetBit(0); i >= 0 && i < requirements.length; i = set.nextSetBit(i + 1)) {
+      list.add(requirements[i]);
+    }
+    return list;
+  }
+  
+  private void ensureCurrent() {
+    if (revision != catalogue.getRevision()) {
+      rebuild();
+    }
+  }
+  
+  private void rebuild() {
+    LOGGER.trace("Rebuilding requirement bitmaps of catalogue {}", catalogue.getName());
+    revision = catalogue.getRevision();
+    requirements = catalogue.requirementsView().toArray(new Requirement[0]);
+    ordinals.clear();
+    typeSets.clear();
+    categorySets.clear();
+    leafResults.clear();
+    for (int i = 0; i < requirements.length; i++) {
+      Requirement r = requirements[i];
+      ordinals.put(r.getUuid(), i);
+      typeSets.computeIfAbsent(r.getType(), k -> new BitSet(requirements.length)).set(i);
+      if (r.getCategory() != null) {
+        categorySets.computeIfAbsent(r.getCategory().toLowerCase(), k -> new BitSet(requirements.length)).set(i);
+      }
+    }
+  }
+  
+  private static String key(int fields, String lowerPattern) {
+    return fields + ":" + lowerPattern;
+  }
+}
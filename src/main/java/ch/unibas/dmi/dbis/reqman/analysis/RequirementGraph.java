@@ -0,0 +1,243 @@
+package ch.unibas.dmi.dbis.reqman.analysis;
+
+import ch.unibas.dmi.dbis.reqman.data.Catalogue;
+import ch.unibas.dmi.dbis.reqman.data.Requirement;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * The dependency graph of the {@link Requirement}s of a {@link Catalogue}.
+ * <p>
+ * An edge leads from a requirement to each of its predecessors. Both, the predecessors and the dependants (i.e. the
+ * reverse edges) of a requirement are stored, thus both lookups are constant in time.
+ * <p>
+ * Since predecessors are modified on the requirement itself, the graph cannot notice such changes on its own.
+ * Modifications have to be done either via {@link #addPredecessor(Requirement, Requirement)} or be reported by
+ * {@link Catalogue#markModified()}, so the graph gets rebuilt upon next access.
+ *
+ * @author loris.sauter
+ */
+public class RequirementGraph {
+  
+  private final Catalogue catalogue;
+  private final CatalogueIndex index;
+  
+  /**
+   * The resolved predecessors, by the requirement's uuid
+   */
+  private final HashMap<UUID, List<Requirement>> predecessorMap = new HashMap<>();
+  
+  /**
+   * The requirements which depend on a requirement, by the requirement's uuid
+   */
+  private final HashMap<UUID, List<Requirement>> dependantMap = new HashMap<>();
+  
+  /**
+   * The topological order, lazily computed. Null if not yet computed or the graph changed
+   */
+  private List<Requirement> topologicalOrder = null;
+  
+  private boolean cyclic = false;
+  
+  /**
+   * The catalogue revision this graph represents
+   */
+  private long revision;
+  
+  public RequirementGraph(@NotNull CatalogueIndex index) {
+    if (index == null) {
+      throw new IllegalArgumentException("Cannot create a requirement graph without an index");
+    }
+    this.index = index;
+    this.catalogue = index.getCatalogue();
+    rebuild();
+  }
+  
+  /**
+   * Re-creates the graph from the catalogue's current requirements.
+   */
+  public void rebuild() {
+    predecessorMap.clear();
+    dependantMap.clear();
+    topologicalOrder = null;
+    revision = catalogue.getRevision();
+    List<Requirement> requirements = catalogue.requirementsView();
+    requirements.forEach(r -> {
+      predecessorMap.put(r.getUuid(), new ArrayList<>());
+      dependantMap.put(r.getUuid(), new ArrayList<>());
+    });
+    for (Requirement r : requirements) {
+      for (UUID id : r.getPredecessors()) {
+        Requirement pred = index.getRequirement(id);
+        if (pred != null) {
+          predecessorMap.get(r.getUuid()).add(pred);
+          dependantMap.get(pred.getUuid()).add(r);
+        }
+      }
+    }
+    sort();
+  }
+  
+  /**
+   * Returns the predecessors of the given requirement.
+   * Predecessors which are not part of the catalogue are omitted.
+   *
+   * @param requirement The requirement to get the predecessors of
+   * @return A list of the predecessors, which is empty if there are none
+   */
+  public List<Requirement> getPredecessors(@NotNull Requirement requirement) {
+    ensureCurrent();
+    return copyOf(predecessorMap.get(requirement.getUuid()));
+  }
+  
+  /**
+   * Returns the requirements, which have the given requirement as a predecessor.
+   *
+   * @param requirement The requirement to get the dependants of
+   * @return A list of dependants, which is empty if there are none
+   */
+  public List<Requirement> getDependants(@NotNull Requirement requirement) {
+    ensureCurrent();
+    return copyOf(dependantMap.get(requirement.getUuid()));
+  }
+  
+  public boolean hasDependants(@NotNull Requirement requirement) {
+    ensureCurrent();
+    List<Requirement> dependants = dependantMap.get(requirement.getUuid());
+    return dependants != null && !dependants.isEmpty();
+  }
+  
+  public int getPredecessorCount(@NotNull Requirement requirement) {
+    ensureCurrent();
+    List<Requirement> predecessors = predecessorMap.get(requirement.getUuid());
+    return predecessors == null ? 0 : predecessors.size();
+  }
+  
+  /**
+   * Checks whether the given requirement directly or transitively depends on the given other requirement.
+   *
+   * @param requirement The requirement whose predecessors are inspected
+   * @param other       The requirement to search in the predecessors
+   * @return Whether the other requirement has to be fulfilled before the given requirement
+   */
+  public boolean dependsOn(@NotNull Requirement requirement, @NotNull Requirement other) {
+    ensureCurrent();
+    Set<UUID> visited = new HashSet<>();
+    Deque<Requirement> stack = new ArrayDeque<>(predecessorMap.getOrDefault(requirement.getUuid(), Collections.emptyList()));
+    while (!stack.isEmpty()) {
+      Requirement r = stack.pop();
+      if (r.getUuid().equals(other.getUuid())) {
+        return true;
+      }
+      if (visited.add(r.getUuid())) {
+        stack.addAll(predecessorMap.getOrDefault(r.getUuid(), Collections.emptyList()));
+      }
+    }
+    return false;
+  }
+  
+  /**
+   * Checks whether adding the given predecessor to the given requirement would result in a cyclic dependency.
+   *
+   * @param requirement The requirement which would get the predecessor
+   * @param predecessor The predecessor to add
+   * @return Whether a cycle would be introduced
+   */
+  public boolean createsCycle(@NotNull Requirement requirement, @NotNull Requirement predecessor) {
+    return requirement.getUuid().equals(predecessor.getUuid()) || dependsOn(predecessor, requirement);
+  }
+  
+  /**
+   * Adds the given predecessor to the given requirement, unless this would introduce a cyclic dependency.
+   *
+   * @param requirement The requirement to add the predecessor to
+   * @param predecessor The predecessor to add
+   * @return Whether the predecessor was added, i.e. it was not yet a predecessor
+   * @throws IllegalArgumentException If the new dependency would introduce a cycle
+   */
+  public boolean addPredecessor(@NotNull Requirement requirement, @NotNull Requirement predecessor) {
+    if (createsCycle(requirement, predecessor)) {
+      throw new IllegalArgumentException(String.format("Cannot add %s as predecessor of %s, as this would introduce a cyclic dependency", predecessor.getName(), requirement.getName()));
+    }
+    boolean added = requirement.addPredecessor(predecessor);
+    if (added && predecessorMap.containsKey(requirement.getUuid()) && dependantMap.containsKey(predecessor.getUuid())) {
+      predecessorMap.get(requirement.getUuid()).add(predecessor);
+      dependantMap.get(predecessor.getUuid()).add(requirement);
+      topologicalOrder = null;
+    } else if (added) {
+      revision = -1; // Not part of the catalogue (yet), rebuild upon next access
+    }
+    return added;
+  }
+  
+  /**
+   * Returns whether the graph contains a cyclic dependency.
+   * Such may only exist if predecessors were set without using {@link #addPredecessor(Requirement, Requirement)}.
+   *
+   * @return Whether there is a cyclic dependency
+   */
+  public boolean hasCycle() {
+    ensureSorted();
+    return cyclic;
+  }
+  
+  /**
+   * Returns all requirements in topological order, i.e. every requirement is preceded by all its predecessors.
+   *
+   * @return The requirements in topological order
+   * @throws IllegalStateException If the graph contains a cyclic dependency
+   */
+  public List<Requirement> getTopologicalOrder() {
+    ensureSorted();
+    if (cyclic) {
+      throw new IllegalStateException("Requirements of catalogue " + catalogue.getName() + " have a cyclic dependency");
+    }
+    return new ArrayList<>(topologicalOrder);
+  }
+  
+  /**
+   * Kahn's algorithm. If a cycle exists, the order contains only those requirements not being part of or depending on it.
+   */
+  private void sort() {
+    HashMap<UUID, Integer> inDegree = new HashMap<>();
+    Deque<Requirement> ready = new ArrayDeque<>();
+    for (Requirement r : catalogue.requirementsView()) {
+      int degree = predecessorMap.get(r.getUuid()).size();
+      inDegree.put(r.getUuid(), degree);
+      if (degree == 0) {
+        ready.add(r);
+      }
+    }
+    List<Requirement> order = new ArrayList<>(inDegree.size());
+    while (!ready.isEmpty()) {
+      Requirement r = ready.poll();
+      order.add(r);
+      for (Requirement dependant : dependantMap.get(r.getUuid())) {
+        int degree = inDegree.merge(dependant.getUuid(), -1, Integer::sum);
+        if (degree == 0) {
+          ready.add(dependant);
+        }
+      }
+    }
+    cyclic = order.size() != inDegree.size();
+    topologicalOrder = order;
+  }
+  
+  private void ensureSorted() {
+    ensureCurrent();
+    if (topologicalOrder == null) {
+      sort();
+    }
+  }
+  
+  private void ensureCurrent() {
+    if (revision != catalogue.getRevision()) {
+      rebuild();
+    }
+  }
+  
+  private static List<Requirement> copyOf(List<Requirement> list) {
+    return list == null ? new ArrayList<>() : new ArrayList<>(list);
+  }
+}
@@ -0,0 +1,257 @@
+package ch.unibas.dmi.dbis.reqman.analysis;
+
+import ch.unibas.dmi.dbis.reqman.data.Catalogue;
+import ch.unibas.dmi.dbis.reqman.data.Requirement;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * Inverted trigram index over the texts of the {@link Requirement}s of a {@link Catalogue}.
+ * <p>
+ * Every trigram of the lower-cased name, excerpt, description, category and property values of a requirement is
+ * posted along with the fields it occurs in. A substring search then only verifies those requirements, which contain
+ * all trigrams of the pattern in one of the searched fields, thus its cost is proportional to the matches rather than
+ * to the size of the catalogue. Patterns shorter than a trigram are verified against all requirements.
+ * <p>
+ * The index is kept in sync by the {@link ch.unibas.dmi.dbis.reqman.control.EntityController} upon adding, modifying
+ * and removing requirements. Should the catalogue be modified elsewhere, the index detects this by the catalogue's
+ * {@link Catalogue#getRevision()} and rebuilds itself on the next search.
+ *
+ * @author loris.sauter
+ */
+public class RequirementSearchIndex {
+  
+  private static final Logger LOGGER = LogManager.getLogger(RequirementSearchIndex.class);
+  
+  private static final int GRAM_LENGTH = 3;
+  
+  private static final int[] FIELDS = {RequirementTextCache.NAME, RequirementTextCache.EXCERPT, RequirementTextCache.DESCRIPTION, RequirementTextCache.CATEGORY, RequirementTextCache.PROPERTIES};
+  
+  private final Catalogue catalogue;
+  private final RequirementTextCache textCache;
+  
+  /**
+   * The indexed requirements, by their uuid
+   */
+  private final HashMap<UUID, Document> documents = new HashMap<>();
+  
+  /**
+   * The fields each requirement contains the trigram in, by the trigram
+   */
+  private final HashMap<String, HashMap<UUID, Integer>> postings = new HashMap<>();
+  
+  /**
+   * The sequence number of the next added requirement. Since requirements are appended to the catalogue, ordering by
+   * sequence number yields the catalogue's order
+   */
+  private long nextSequence = 0;
+  
+  /**
+   * The catalogue revision this index represents
+   */
+  private long revision;
+  
+  RequirementSearchIndex(@NotNull Catalogue catalogue, @NotNull RequirementTextCache textCache) {
+    this.catalogue = catalogue;
+    this.textCache = textCache;
+    rebuild();
+  }
+  
+  /**
+   * Re-creates the index from the catalogue's current requirements.
+   */
+  public void rebuild() {
+    LOGGER.trace("Rebuilding search index of catalogue {}", catalogue.getName());
+    documents.clear();
+    postings.clear();
+    nextSequence = 0;
+    catalogue.requirementsView().forEach(this::post);
+    revision = catalogue.getRevision();
+  }
+  
+  /**
+   * Registers the given requirement, which was just added to the catalogue.
+   *
+   * @param requirement The added requirement
+   */
+  public void addRequirement(@NotNull Requirement requirement) {
+    if (isOneRevisionBehind()) {
+      unpost(requirement);
+      post(requirement);
+      revision++;
+    } else {
+      rebuild();
+    }
+  }
+  
+  /**
+   * Re-indexes the given requirement, whose texts were just modified.
+   *
+   * @param requirement The modified requirement
+   */
+  public void updateRequirement(@NotNull Requirement requirement) {
+    textCache.invalidate(requirement);
+    if (isOneRevisionBehind()) {
+      Document old = documents.get(requirement.getUuid());
+      unpost(requirement);
+      if (old != null) {
+        post(requirement, old.sequence); // Keep its position
+      }
+      revision++;
+    } else {
+      rebuild();
+    }
+  }
+  
+  /**
+   * Unregisters the given requirement, which was just removed from the catalogue.
+   *
+   * @param requirement The removed requirement
+   */
+  public void removeRequirement(@NotNull Requirement requirement) {
+    if (isOneRevisionBehind()) {
+      unpost(requirement);
+      revision++;
+    } else {
+      rebuild();
+    }
+  }
+  
+  /**
+   * Returns the requirements, whose given fields contain the given pattern (case insensitive), in catalogue order.
+   *
+   * @param fields  The fields to search, a combination of the {@link RequirementTextCache} field constants
+   * @param pattern The pattern to search
+   * @return The matching requirements
+   */
+  List<Requirement> find(int fields, @NotNull String pattern) {
+    String lowerPattern = pattern.toLowerCase();
+    List<Requirement> list = new ArrayList<>();
+    for (Requirement r : getCandidates(fields, lowerPattern)) {
+      if (textCache.get(r).contains(fields, lowerPattern)) {
+        list.add(r);
+      }
+    }
+    return list;
+  }
+  
+  /**
+   * Returns the requirements which might contain the given pattern in one of the given fields, in catalogue order.
+   * The candidates contain all matches, but have to be verified.
+   *
+   * @param fields       The fields to search, a combination of the {@link RequirementTextCache} field constants
+   * @param lowerPattern The lower-cased pattern
+   * @return The candidates
+   */
+  List<Requirement> getCandidates(int fields, @NotNull String lowerPattern) {
+    ensureCurrent();
+    if (lowerPattern.length() < GRAM_LENGTH) {
+      return catalogue.requirementsView();
+    }
+    List<HashMap<UUID, Integer>> lists = new ArrayList<>();
+    for (String gram : gramsOf(lowerPattern)) {
+      HashMap<UUID, Integer> posting = postings.get(gram);
+      if (posting == null) {
+        return new ArrayList<>();
+      }
+      lists.add(posting);
+    }
+    lists.sort(Comparator.comparingInt(HashMap::size));
+    List<Document> candidates = new ArrayList<>();
+    outer:
+    for (Map.Entry<UUID, Integer> entry : lists.get(0).entrySet()) {
+      if ((entry.getValue() & fields) == 0) {
+        continue;
+      }
+      for (int i = 1; i < lists.size(); i++) {
+        Integer f = lists.get(i).get(entry.getKey());
+        if (f == null || (f & fields) == 0) {
+          continue outer;
+        }
+      }
+      candidates.add(documents.get(entry.getKey()));
+    }
+    candidates.sort(Comparator.comparingLong(d -> d.sequence));
+    List<Requirement> list = new ArrayList<>(candidates.size());
+    candidates.forEach(d -> list.add(d.requirement));
+    return list;
+  }
+  
+  RequirementTextCache getTextCache() {
+    return textCache;
+  }
+  
+  private void post(Requirement requirement) {
+    post(requirement, nextSequence++);
+  }
+  
+  private void post(Requirement requirement, long sequence) {
+    RequirementTextCache.Entry entry = textCache.get(requirement);
+    HashMap<String, Integer> grams = new HashMap<>();
+    for (int field : FIELDS) {
+      String text = entry.get(field);
+      if (text != null) {
+        for (String gram : gramsOf(text)) {
+          grams.merge(gram, field, (a, b) -> a | b);
+        }
+      }
+    }
+    grams.forEach((gram, fields) -> postings.computeIfAbsent(gram, k -> new HashMap<>()).put(requirement.getUuid(), fields));
+    documents.put(requirement.getUuid(), new Document(requirement, sequence, grams.keySet()));
+  }
+  
+  private void unpost(Requirement requirement) {
+    Document doc = documents.remove(requirement.getUuid());
+    if (doc == null) {
+      return;
+    }
+    for (String gram : doc.grams) {
+      HashMap<UUID, Integer> posting = postings.get(gram);
+      if (posting != null) {
+        posting.remove(requirement.getUuid());
+        if (posting.isEmpty()) {
+          postings.remove(gram);
+        }
+      }
+    }
+  }
+  
+  private static Set<String> gramsOf(String text) {
+    Set<String> grams = new HashSet<>();
+    for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+      grams.add(text.substring(i, i + GRAM_LENGTH));
+    }
+    return grams;
+  }
+  
+  /**
+   * Whether exactly the one modification, which is currently reported, happened since the last sync
+   */
+  private boolean isOneRevisionBehind() {
+    return revision + 1 == catalogue.getRevision();
+  }
+  
+  private void ensureCurrent() {
+    if (revision != catalogue.getRevision()) {
+      rebuild();
+    }
+  }
+  
+  /**
+   * An indexed requirement
+   */
+  private static final class Document {
+    private final Requirement requirement;
+    private final long sequence;
+    private final Set<String> grams;
+  
+    private Document(Requirement requirement, long sequence, Set<String> grams) {
+      this.requirement = requirement;
+      this.sequence = sequence;
+      this.grams = grams;
+    }
+  }
+}
@@ -0,0 +1,161 @@
+package ch.unibas.dmi.dbis.reqman.analysis;
+
+import ch.unibas.dmi.dbis.reqman.data.Catalogue;
+import ch.unibas.dmi.dbis.reqman.data.Requirement;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Cache of the lower-cased texts of the {@link Requirement}s of a {@link Catalogue}, for case insensitive searches.
+ * <p>
+ * Each entry remembers the texts it was created from. Since setting a text replaces the string instance, a modified
+ * requirement is detected by reference comparison and its entry re-created upon next access, even if the modification
+ * was not reported. Since the properties map is only accessible as a copy, changed property values are only detected
+ * if the modification is reported by {@link #invalidate(Requirement)}.
+ * Entries of removed requirements are dropped whenever the catalogue's revision changes.
+ *
+ * @author loris.sauter
+ */
+class RequirementTextCache {
+  
+  static final int NAME = 1;
+  static final int EXCERPT = 1 << 1;
+  static final int DESCRIPTION = 1 << 2;
+  static final int CATEGORY = 1 << 3;
+  static final int PROPERTIES = 1 << 4;
+  
+  /**
+   * The fields searched by {@link TextContainsFilter}
+   */
+  static final int TEXT = NAME | EXCERPT | DESCRIPTION | CATEGORY;
+  
+  private final Catalogue catalogue;
+  
+  private final HashMap<UUID, Entry> entries = new HashMap<>();
+  
+  private long revision;
+  
+  RequirementTextCache(@NotNull Catalogue catalogue) {
+    this.catalogue = catalogue;
+    this.revision = catalogue.getRevision();
+  }
+  
+  /**
+   * Returns the lower-cased texts of the given requirement.
+   *
+   * @param requirement The requirement
+   * @return The up to date entry of the requirement
+   */
+  Entry get(@NotNull Requirement requirement) {
+    if (revision != catalogue.getRevision()) {
+      prune();
+    }
+    Entry entry = entries.get(requirement.getUuid());
+    if (entry == null || !entry.isCurrent(requirement)) {
+      entry = new Entry(requirement);
+      entries.put(requirement.getUuid(), entry);
+    }
+    return entry;
+  }
+  
+  /**
+   * Discards the entry of the given requirement, it gets re-created upon next access.
+   *
+   * @param requirement The modified requirement
+   */
+  void invalidate(@NotNull Requirement requirement) {
+    entries.remove(requirement.getUuid());
+  }
+  
+  private void prune() {
+    Set<UUID> present = new HashSet<>();
+    catalogue.requirementsView().forEach(r -> present.add(r.getUuid()));
+    entries.keySet().retainAll(present);
+    revision = catalogue.getRevision();
+  }
+  
+  private static String lower(String str) {
+    return str == null ? null : str.toLowerCase();
+  }
+  
+  private static boolean contains(String str, String lowerPattern) {
+    return str != null && str.contains(lowerPattern);
+  }
+  
+  /**
+   * The lower-cased texts of a single requirement.
+   */
+  static final class Entry {
+  
+    private final String rawName;
+    private final String rawExcerpt;
+    private final String rawDescription;
+    private final String rawCategory;
+  
+    private final String name;
+    private final String excerpt;
+    private final String description;
+    private final String category;
+    private final String properties;
+  
+    private Entry(Requirement requirement) {
+      rawName = requirement.getName();
+      rawExcerpt = requirement.getExcerpt();
+      rawDescription = requirement.getDescription();
+      rawCategory = requirement.getCategory();
+      name = lower(rawName);
+      excerpt = lower(rawExcerpt);
+      description = lower(rawDescription);
+      category = lower(rawCategory);
+      properties = lower(String.join("\n", requirement.getPropertiesMap().values()));
+    }
+  
+    /**
+     * Returns the lower-cased text of the given field
+     *
+     * @param field One of {@link #NAME}, {@link #EXCERPT}, {@link #DESCRIPTION}, {@link #CATEGORY} and {@link #PROPERTIES}
+     * @return The lower-cased text, null if there is none
+     */
+    String get(int field) {
+      switch (field) {
+        case NAME:
+          return name;
+        case EXCERPT:
+          return excerpt;
+        case DESCRIPTION:
+          return description;
+        case CATEGORY:
+          return category;
+        case PROPERTIES:
+          return properties;
+        default:
+          throw new IllegalArgumentException("Unknown field " + field);
+      }
+    }
+  
+    /**
+     * Checks whether any of the given fields contains the given, already lower-cased, pattern.
+     *
+     * @param fields       The fields to search, as a combination of {@link #NAME}, {@link #EXCERPT}, {@link #DESCRIPTION},
+     *                     {@link #CATEGORY} and {@link #PROPERTIES}
+     * @param lowerPattern The lower-cased pattern
+     * @return Whether one of the fields contains the pattern
+     */
+    boolean contains(int fields, String lowerPattern) {
+      return ((fields & NAME) != 0 && RequirementTextCache.contains(name, lowerPattern))
+          || ((fields & EXCERPT) != 0 && RequirementTextCache.contains(excerpt, lowerPattern))
+          || ((fields & DESCRIPTION) != 0 && RequirementTextCache.contains(description, lowerPattern))
+          || ((fields & CATEGORY) != 0 && RequirementTextCache.contains(category, lowerPattern))
+          || ((fields & PROPERTIES) != 0 && RequirementTextCache.contains(properties, lowerPattern));
+    }
+  
+    private boolean isCurrent(Requirement requirement) {
+      return rawName == requirement.getName() && rawExcerpt == requirement.getExcerpt()
+          && rawDescription == requirement.getDescription() && rawCategory == requirement.getCategory();
+    }
+  }
+}
@@ -0,0 +1,225 @@
+package ch.unibas.dmi.dbis.reqman.analysis;
+
+import ch.unibas.dmi.dbis.reqman.data.*;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Keeps running point totals of a {@link Group}, per {@link ProgressSummary} and {@link Requirement.Type}.
+ * <p>
+ * Instead of summarizing all {@link Progress} of a group on every request, the contribution of each progress is
+ * remembered and, upon a reported change of a single progress, only its delta is applied to the totals.
+ * The totals are fully rebuilt if the group's lists or the catalogue changed structurally.
+ *
+ * @author loris.sauter
+ */
+class ScoreAggregator {
+  
+  private static final Logger LOGGER = LogManager.getLogger(ScoreAggregator.class);
+  
+  private static final int TYPES = Requirement.Type.values().length;
+  
+  private final Group group;
+  private final Course course;
+  private final Catalogue catalogue;
+  private final CatalogueAnalyser catalogueAnalyser;
+  
+  /**
+   * The last known contribution of each progress, by the progress' uuid
+   */
+  private final Map<UUID, Contribution> contributions = new HashMap<>();
+  
+  /**
+   * The points per requirement type, by the progress summary's uuid
+   */
+  private final Map<UUID, double[]> totals = new HashMap<>();
+  
+  /**
+   * The unclamped sum of all progress summaries
+   */
+  private double sum = 0;
+  
+  /**
+   * The sum of all progress summaries, where each negative summary sum is counted as zero
+   */
+  private double clampedSum = 0;
+  
+  private long groupRevision = -1;
+  private long catalogueRevision = -1;
+  
+  /**
+   * The (clamped) sums per milestone ordinal. Null if not computed since the last change
+   */
+  private PrefixSums ordinalSums = null;
+  private long ordinalTimeRevision = -1;
+  private boolean ordinalNegativeAllowed;
+  
+  ScoreAggregator(Course course, Catalogue catalogue, Group group, CatalogueAnalyser catalogueAnalyser) {
+    this.course = course;
+    this.catalogue = catalogue;
+    this.group = group;
+    this.catalogueAnalyser = catalogueAnalyser;
+  }
+  
+  /**
+   * Applies the changes of the given progress to the totals.
+   *
+   * @param progress The progress whose fraction or progress summary has changed
+   */
+  void update(@NotNull Progress progress) {
+    if (!ensureCurrent()) {
+      return; // rebuilding already considered the change
+    }
+    Contribution old = contributions.get(progress.getUuid());
+    if (old != null) {
+      apply(old, -1);
+    }
+    Contribution c = contributionOf(progress);
+    if (c == null) {
+      contributions.remove(progress.getUuid());
+    } else {
+      contributions.put(progress.getUuid(), c);
+      apply(c, 1);
+    }
+  }
+  
+  double getSum() {
+    ensureCurrent();
+    return course.isNegativeReminderAllowed() ? sum : clampedSum;
+  }
+  
+  double getSumFor(@NotNull ProgressSummary ps) {
+    ensureCurrent();
+    double s = total(totals.get(ps.getUuid()));
+    if (!course.isNegativeReminderAllowed()) {
+      return s < 0 ? 0d : s;
+    }
+    return s;
+  }
+  
+  double getSumFor(@NotNull ProgressSummary ps, @NotNull Requirement.Type type) {
+    ensureCurrent();
+    double[] t = totals.get(ps.getUuid());
+    return t == null ? 0d : t[type.ordinal()];
+  }
+  
+  /**
+   * Returns the sum of all progress summaries up to and including the given one, in chronological order of their
+   * milestones.
+   *
+   * @param ps The progress summary up to which the points are summed
+   * @return The accumulated points
+   */
+  double getCumulativeSumFor(@NotNull ProgressSummary ps) {
+    ensureCurrent();
+    if (ordinalSums == null || ordinalTimeRevision != course.getTimeRevision() || ordinalNegativeAllowed != course.isNegativeReminderAllowed()) {
+      ordinalTimeRevision = course.getTimeRevision();
+      ordinalNegativeAllowed = course.isNegativeReminderAllowed();
+      double[] sums = new double[catalogueAnalyser.getCourseManager().getMilestoneCount()];
+      for (ProgressSummary summary : group.progressSummariesView()) {
+        int pos = catalogueAnalyser.getProgressSummaryOrdinal(summary);
+        if (pos >= 0) {
+          sums[pos] += getSumFor(summary);
+        }
+      }
+      ordinalSums = new PrefixSums(sums);
+    }
+    return ordinalSums.getCumulativeValue(catalogueAnalyser.getProgressSummaryOrdinal(ps));
+  }
+  
+  /**
+   * Discards all totals, they get rebuilt upon next access.
+   */
+  void invalidate() {
+    groupRevision = -1;
+  }
+  
+  /**
+   * Rebuilds the totals if they are outdated.
+   *
+   * @return Whether the totals were already up to date
+   */
+  private boolean ensureCurrent() {
+    if (groupRevision == group.getRevision() && catalogueRevision == catalogue.getRevision()) {
+      return true;
+    }
+    rebuild();
+    return false;
+  }
+  
+  private void rebuild() {
+    LOGGER.trace("Rebuilding score totals of group {}", group.getName());
+    groupRevision = group.getRevision();
+    catalogueRevision = catalogue.getRevision();
+    contributions.clear();
+    totals.clear();
+    ordinalSums = null;
+    sum = 0;
+    clampedSum = 0;
+    for (ProgressSummary ps : group.progressSummariesView()) {
+      totals.put(ps.getUuid(), new double[TYPES]);
+    }
+    for (Progress p : group.progressListView()) {
+      Contribution c = contributionOf(p);
+      if (c != null) {
+        contributions.put(p.getUuid(), c);
+        apply(c, 1);
+      }
+    }
+  }
+  
+  private Contribution contributionOf(Progress progress) {
+    if (progress.getProgressSummaryUUID() == null) {
+      return null; // Not yet assessed
+    }
+    Requirement r = catalogueAnalyser.getRequirementOf(progress);
+    if (r == null) {
+      return null;
+    }
+    return new Contribution(progress.getProgressSummaryUUID(), r.getType(), catalogueAnalyser.getActualPoints(progress));
+  }
+  
+  private void apply(Contribution c, int sign) {
+    double[] t = totals.get(c.summary);
+    if (t == null) {
+      return; // Progress summary not part of this group
+    }
+    ordinalSums = null;
+    double before = total(t);
+    t[c.type.ordinal()] += sign * c.points;
+    double after = total(t);
+    sum += after - before;
+    clampedSum += Math.max(after, 0d) - Math.max(before, 0d);
+  }
+  
+  private static double total(double[] t) {
+    if (t == null) {
+      return 0d;
+    }
+    double s = 0;
+    for (double d : t) {
+      s += d;
+    }
+    return s;
+  }
+  
+  /**
+   * The points a single progress contributes to the totals.
+   */
+  private static final class Contribution {
+    private final UUID summary;
+    private final Requirement.Type type;
+    private final double points;
+  
+    private Contribution(UUID summary, Requirement.Type type, double points) {
+      this.summary = summary;
+      this.type = type;
+      this.points = points;
+    }
+  }
+}
@@ -0,0 +1,552 @@
+package ch.unibas.dmi.dbis.reqman.analysis;
+
+import ch.unibas.dmi.dbis.reqman.data.*;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Collectors;
+
+/**
+ * Columnar snapshot of the achievements of several {@link Group}s in a {@link Catalogue}.
+ * <p>
+ * The achieved fraction of every group (row) and requirement (column) is stored in a dense matrix, along with the
+ * milestone ordinal each fraction was assessed at. The requirements' type, maximal points and minimal milestone
+ * ordinal are stored as vectors. The sums per group and milestone are computed upon creation, thus the matrix is
+ * immutable and statistics over all groups are plain array lookups and loops, without resolving any entities.
+ * <p>
+ * Creating a matrix happens in two steps: The entities are captured by {@link #capture(CatalogueAnalyser, List)} on the
+ * application thread, the rows are then computed by {@link #ScoreMatrix(Snapshot, ForkJoinPool)} on any thread,
+ * optionally with one {@link java.util.concurrent.ForkJoinTask} per group.
+ * <p>
+ * The matrix is a snapshot and does not reflect later changes, a new one has to be created instead.
+ *
+ * @author loris.sauter
+ */
+public class ScoreMatrix {
+  
+  private static final int TYPES = Requirement.Type.values().length;
+  
+  private final Group[] groups;
+  private final Requirement[] requirements;
+  private final Map<UUID, Integer> groupRows;
+  private final Map<UUID, Integer> requirementColumns;
+  
+  /**
+   * The achieved fraction, [group][requirement]. Zero if there is no progress
+   */
+  private final double[][] fractions;
+  
+  /**
+   * The ordinal of the milestone each progress was assessed at, [group][requirement]. -1 if not assessed
+   */
+  private final int[][] assessedAt;
+  
+  private final Requirement.Type[] types;
+  private final double[] maxPoints;
+  
+  /**
+   * The ordinal of each requirement's minimal milestone, -1 if unknown
+   */
+  private final int[] minimalMilestones;
+  
+  private final int milestoneCount;
+  private final boolean negativeAllowed;
+  
+  /**
+   * The points per [group][milestone ordinal][type]
+   */
+  private final double[][][] typeSums;
+  
+  /**
+   * The points per [group][milestone ordinal], clamped if negative sums are not allowed
+   */
+  private final double[][] milestoneSums;
+  
+  /**
+   * The accumulated {@link #milestoneSums} per [group][milestone ordinal]
+   */
+  private final double[][] cumulativeSums;
+  
+  private final double[] sums;
+  
+  /**
+   * The maximal points per [milestone ordinal][type]
+   */
+  private final double[][] maximalSums;
+  
+  /**
+   * Creates the matrix of the given group analysers on the calling thread.
+   *
+   * @param catalogueAnalyser The analyser of the catalogue
+   * @param groupAnalysers    The analysers of the groups, whose order defines the rows
+   */
+  public ScoreMatrix(@NotNull CatalogueAnalyser catalogueAnalyser, @NotNull List<GroupAnalyser> groupAnalysers) {
+    this(capture(catalogueAnalyser, groupAnalysers.stream().map(GroupAnalyser::getGroup).collect(Collectors.toList())), null);
+  }
+  
+  /**
+   * Computes the matrix of the given snapshot.
+   * If a pool is given, the rows are computed by one task per group in that pool, otherwise on the calling thread.
+   *
+   * @param snapshot The captured entities
+   * @param pool     The pool to compute the rows in, may be null
+   */
+  public ScoreMatrix(@NotNull Snapshot snapshot, ForkJoinPool pool) {
+    requirements = snapshot.requirements;
+    requirementColumns = snapshot.requirementColumns;
+    types = snapshot.types;
+    maxPoints = snapshot.maxPoints;
+    minimalMilestones = snapshot.minimalMilestones;
+    milestoneCount = snapshot.milestoneCount;
+    negativeAllowed = snapshot.negativeAllowed;
+    groups = snapshot.groups;
+  
+    HashMap<UUID, Integer> rows = new HashMap<>();
+    for (int g = 0; g < groups.length; g++) {
+      rows.putIfAbsent(groups[g].getUuid(), g);
+    }
+    groupRows = rows;
+  
+    int n = requirements.length;
+    fractions = snapshot.fractions;
+    assessedAt = snapshot.assessedAt;
+    typeSums = new double[groups.length][milestoneCount][TYPES];
+    milestoneSums = new double[groups.length][milestoneCount];
+    cumulativeSums = new double[groups.length][milestoneCount];
+    sums = new double[groups.length];
+  
+    maximalSums = new double[milestoneCount][TYPES];
+    for (int r = 0; r < n; r++) {
+      if (minimalMilestones[r] >= 0) {
+        maximalSums[minimalMilestones[r]][types[r].ordinal()] += maxPoints[r];
+      }
+    }
+  
+    if (pool == null || groups.length < 2) {
+      for (int g = 0; g < groups.length; g++) {
+        computeRow(g);
+      }
+    } else {
+      pool.invoke(new RowsTask(this));
+    }
+  }
+  
+  /**
+   * Captures the entities required to compute a matrix of the given groups.
+   * Since the entities are not thread-safe, this has to happen on the thread modifying them, i.e. the application
+   * thread. The fraction and milestone of each progress are copied, the sums are computed by
+   * {@link #ScoreMatrix(Snapshot, ForkJoinPool)}.
+   *
+   * @param catalogueAnalyser The analyser of the catalogue
+   * @param groups            The groups, whose order defines the rows
+   * @return The snapshot to compute the matrix of
+   */
+  public static Snapshot capture(@NotNull CatalogueAnalyser catalogueAnalyser, @NotNull List<Group> groups) {
+    return new Snapshot(catalogueAnalyser, groups);
+  }
+  
+  public int getGroupCount() {
+    return groups.length;
+  }
+  
+  public int getRequirementCount() {
+    return requirements.length;
+  }
+  
+  public int getMilestoneCount() {
+    return milestoneCount;
+  }
+  
+  /**
+   * Returns the group of the given row
+   */
+  public Group getGroup(int group) {
+    return groups[group];
+  }
+  
+  /**
+   * Returns the row of the given group
+   *
+   * @param group The group
+   * @return The row index of the group or -1 if it is not part of this matrix
+   */
+  public int indexOf(@NotNull Group group) {
+    Integer i = groupRows.get(group.getUuid());
+    return i == null ? -1 : i;
+  }
+  
+  /**
+   * Returns the column of the given requirement
+   *
+   * @param requirement The requirement
+   * @return The column index of the requirement or -1 if it is not part of this matrix
+   */
+  public int indexOf(@NotNull Requirement requirement) {
+    Integer i = requirementColumns.get(requirement.getUuid());
+    return i == null ? -1 : i;
+  }
+  
+  public double getFraction(int group, int requirement) {
+    return fractions[group][requirement];
+  }
+  
+  /**
+   * Returns the points the given group achieved for the given requirement. Malus points are negative.
+   */
+  public double getPoints(int group, int requirement) {
+    return sign(requirement) * fractions[group][requirement] * maxPoints[requirement];
+  }
+  
+  /**
+   * Returns the points the given group achieved at the given milestone, as {@link GroupAnalyser#getSumFor(ProgressSummary)}.
+   *
+   * @param group     The row of the group
+   * @param milestone The ordinal of the milestone
+   * @return The points of the group at the milestone
+   */
+  public double getSumFor(int group, int milestone) {
+    if (milestone < 0 || milestone >= milestoneCount) {
+      return 0d;
+    }
+    return milestoneSums[group][milestone];
+  }
+  
+  /**
+   * Returns the points of the given type, the given group achieved at the given milestone, as
+   * {@link GroupAnalyser#getSumFor(ProgressSummary, Requirement.Type)}.
+   */
+  public double getSumFor(int group, int milestone, Requirement.Type type) {
+    if (milestone < 0 || milestone >= milestoneCount) {
+      return 0d;
+    }
+    return typeSums[group][milestone][type.ordinal()];
+  }
+  
+  /**
+   * Returns the total points of the given group, as {@link GroupAnalyser#getSum()}.
+   */
+  public double getSum(int group) {
+    return sums[group];
+  }
+  
+  /**
+   * Returns the points of the given group accumulated up to and including the given milestone, as
+   * {@link GroupAnalyser#getCumulativeSumFor(ProgressSummary)}.
+   */
+  public double getCumulativeSumFor(int group, int milestone) {
+    if (milestone < 0 || milestoneCount == 0) {
+      return 0d;
+    }
+    return cumulativeSums[group][Math.min(milestone, milestoneCount - 1)];
+  }
+  
+  /**
+   * Returns the total points of all groups, indexed by the groups' rows.
+   */
+  public double[] getSums() {
+    return sums.clone();
+  }
+  
+  public double getMeanSum() {
+    return mean(sums);
+  }
+  
+  public double getMedianSum() {
+    return median(sums);
+  }
+  
+  /**
+   * Returns the mean fraction all groups achieved for the given requirement.
+   */
+  public double getMeanFraction(int requirement) {
+    if (groups.length == 0) {
+      return 0d;
+    }
+    double sum = 0;
+    for (double[] row : fractions) {
+      sum += row[requirement];
+    }
+    return sum / groups.length;
+  }
+  
+  /**
+   * Returns the maximal points of the given type, which are available at the given milestone.
+   * As {@link CatalogueAnalyser#getMaximalRegularSumFor(Milestone)}, only requirements whose minimal milestone is the
+   * given one are considered.
+   */
+  public double getMaximalSumFor(int milestone, Requirement.Type type) {
+    if (milestone < 0 || milestone >= milestoneCount) {
+      return 0d;
+    }
+    return maximalSums[milestone][type.ordinal()];
+  }
+  
+  /**
+   * Returns the maximal points of the given type, accumulated up to and including the given milestone.
+   */
+  public double getCumulativeMaximalSumFor(int milestone, Requirement.Type type) {
+    double sum = 0;
+    for (int m = 0; m <= milestone && m < milestoneCount; m++) {
+      sum += maximalSums[m][type.ordinal()];
+    }
+    return sum;
+  }
+  
+  /**
+   * Returns the maximal points of the given type of the whole catalogue, as {@link CatalogueAnalyser#getMaximalRegularSum()}.
+   */
+  public double getMaximalSum(Requirement.Type type) {
+    double sum = 0;
+    for (int r = 0; r < requirements.length; r++) {
+      if (types[r] == type) {
+        sum += maxPoints[r];
+      }
+    }
+    return sum;
+  }
+  
+  /**
+   * Counts the values in equally sized bins between the minimum and the maximum value.
+   *
+   * @param values The values to count
+   * @param bins   The number of bins, must be positive
+   * @return The number of values per bin
+   */
+  public static int[] histogram(double[] values, int bins) {
+    if (bins <= 0) {
+      throw new IllegalArgumentException("Cannot create a histogram with " + bins + " bins");
+    }
+    int[] counts = new int[bins];
+    if (values.length == 0) {
+      return counts;
+    }
+    double min = Double.POSITIVE_INFINITY;
+    double max = Double.NEGATIVE_INFINITY;
+    for (double v : values) {
+      min = Math.min(min, v);
+      max = Math.max(max, v);
+    }
+    double width = (max - min) / bins;
+    for (double v : values) {
+      int bin = width == 0 ? 0 : (int) ((v - min) / width);
+      counts[Math.min(bin, bins - 1)]++;
+    }
+    return counts;
+  }
+  
+  public static double mean(double[] values) {
+    if (values.length == 0) {
+      return 0d;
+    }
+    double sum = 0;
+    for (double v : values) {
+      sum += v;
+    }
+    return sum / values.length;
+  }
+  
+  public static double median(double[] values) {
+    if (values.length == 0) {
+      return 0d;
+    }
+    double[] sorted = values.clone();
+    Arrays.sort(sorted);
+    int mid = sorted.length / 2;
+    if (sorted.length % 2 == 0) {
+      return (sorted[mid - 1] + sorted[mid]) / 2d;
+    }
+    return sorted[mid];
+  }
+  
+  /**
+   * Fills the sums of the given row. Only writes to the row's own arrays, thus rows may be computed concurrently.
+   */
+  private void computeRow(int g) {
+    double[] f = fractions[g];
+    int[] at = assessedAt[g];
+  
+    double[][] t = typeSums[g];
+    for (int r = 0; r < f.length; r++) {
+      if (at[r] >= 0) {
+        t[at[r]][types[r].ordinal()] += sign(r) * f[r] * maxPoints[r];
+      }
+    }
+    double[] s = milestoneSums[g];
+    double[] c = cumulativeSums[g];
+    double total = 0;
+    for (int m = 0; m < milestoneCount; m++) {
+      double sum = 0;
+      for (double d : t[m]) {
+        sum += d;
+      }
+      s[m] = !negativeAllowed && sum < 0 ? 0d : sum;
+      total += s[m];
+      c[m] = total;
+    }
+    sums[g] = total;
+  }
+  
+  private double sign(int requirement) {
+    return types[requirement] == Requirement.Type.MALUS ? -1d : 1d;
+  }
+  
+  /**
+   * The entities a {@link ScoreMatrix} is computed from, captured by {@link #capture(CatalogueAnalyser, List)}.
+   */
+  public static final class Snapshot {
+  
+    private final Requirement[] requirements;
+    private final Map<UUID, Integer> requirementColumns;
+    private final Requirement.Type[] types;
+    private final double[] maxPoints;
+    private final int[] minimalMilestones;
+    private final Map<UUID, Integer> milestoneOrdinals;
+    private final int milestoneCount;
+    private final boolean negativeAllowed;
+  
+    private final Group[] groups;
+  
+    /**
+     * The fraction and the ordinal of the milestone assessed at per [group][requirement], as of capturing
+     */
+    private final double[][] fractions;
+    private final int[][] assessedAt;
+  
+    private Snapshot(CatalogueAnalyser catalogueAnalyser, List<Group> groups) {
+      CourseManager courseManager = catalogueAnalyser.getCourseManager();
+      milestoneCount = courseManager.getMilestoneCount();
+      negativeAllowed = catalogueAnalyser.getCourse().isNegativeReminderAllowed();
+  
+      HashMap<UUID, Integer> ordinals = new HashMap<>();
+      for (Milestone ms : catalogueAnalyser.getCatalogue().milestonesView()) {
+        ordinals.put(ms.getUuid(), courseManager.getMilestoneOrdinal(ms));
+      }
+      milestoneOrdinals = ordinals;
+  
+      requirements = catalogueAnalyser.getCatalogue().requirementsView().toArray(new Requirement[0]);
+      int n = requirements.length;
+      types = new Requirement.Type[n];
+      maxPoints = new double[n];
+      minimalMilestones = new int[n];
+      HashMap<UUID, Integer> columns = new HashMap<>();
+      for (int r = 0; r < n; r++) {
+        Requirement req = requirements[r];
+        columns.put(req.getUuid(), r);
+        types[r] = req.getType();
+        maxPoints[r] = req.getMaxPoints();
+        minimalMilestones[r] = courseManager.getMilestoneOrdinal(courseManager.getMinimalMilestone(req));
+      }
+      requirementColumns = columns;
+  
+      this.groups = groups.toArray(new Group[0]);
+      fractions = new double[this.groups.length][n];
+      assessedAt = new int[this.groups.length][n];
+      for (int g = 0; g < this.groups.length; g++) {
+        captureRow(this.groups[g], fractions[g], assessedAt[g]);
+      }
+    }
+  
+    private Snapshot(Snapshot base, List<Group> added) {
+      requirements = base.requirements;
+      requirementColumns = base.requirementColumns;
+      types = base.types;
+      maxPoints = base.maxPoints;
+      minimalMilestones = base.minimalMilestones;
+      milestoneOrdinals = base.milestoneOrdinals;
+      milestoneCount = base.milestoneCount;
+      negativeAllowed = base.negativeAllowed;
+  
+      int captured = base.groups.length;
+      int total = captured + added.size();
+      groups = Arrays.copyOf(base.groups, total);
+      fractions = Arrays.copyOf(base.fractions, total);
+      assessedAt = Arrays.copyOf(base.assessedAt, total);
+      for (int g = captured; g < total; g++) {
+        groups[g] = added.get(g - captured);
+        fractions[g] = new double[requirements.length];
+        assessedAt[g] = new int[requirements.length];
+        captureRow(groups[g], fractions[g], assessedAt[g]);
+      }
+    }
+  
+    /**
+     * Creates a snapshot with the rows of the given groups appended to the ones of this snapshot.
+     * Other than {@link ScoreMatrix#capture(CatalogueAnalyser, List)}, this may be called on any thread, as long as the
+     * given groups are not modified meanwhile, e.g. groups read from their files for statistics only.
+     *
+     * @param added The groups to append
+     * @return The snapshot with the rows of this one and the given groups
+     */
+    public Snapshot withGroups(@NotNull List<Group> added) {
+      return new Snapshot(this, added);
+    }
+  
+    private void captureRow(Group group, double[] f, int[] at) {
+      Arrays.fill(at, -1);
+      HashMap<UUID, Integer> summaryOrdinals = new HashMap<>();
+      for (ProgressSummary ps : group.progressSummariesView()) {
+        Integer ordinal = milestoneOrdinals.get(ps.getMilestoneUUID());
+        summaryOrdinals.putIfAbsent(ps.getUuid(), ordinal == null ? -1 : ordinal);
+      }
+  
+      boolean[] seen = new boolean[f.length];
+      for (Progress p : group.progressListView()) {
+        Integer r = requirementColumns.get(p.getRequirementUUID());
+        if (r == null || seen[r]) {
+          continue; // Requirement removed or duplicate progress, the first one counts as in the ProgressIndex
+        }
+        seen[r] = true;
+        f[r] = p.hasProgress() ? p.getFraction() : 0d;
+        if (p.getProgressSummaryUUID() != null) {
+          at[r] = summaryOrdinals.getOrDefault(p.getProgressSummaryUUID(), -1);
+        }
+      }
+    }
+  }
+  
+  /**
+   * Computes all rows of a matrix with one {@link RowTask} per group.
+   */
+  private static final class RowsTask extends RecursiveAction {
+  
+    private static final long serialVersionUID = 1L;
+  
+    private final ScoreMatrix matrix;
+  
+    private RowsTask(ScoreMatrix matrix) {
+      this.matrix = matrix;
+    }
+  
+    @Override
+    protected void compute() {
+      List<RowTask> rows = new ArrayList<>(matrix.groups.length);
+      for (int g = 0; g < matrix.groups.length; g++) {
+        rows.add(new RowTask(matrix, g));
+      }
+      invokeAll(rows);
+    }
+  }
+  
+  /**
+   * Computes a single row of a matrix.
+   */
+  private static final class RowTask extends RecursiveAction {
+  
+    private static final long serialVersionUID = 1L;
+  
+    private final ScoreMatrix matrix;
+    private final int row;
+  
+    private RowTask(ScoreMatrix matrix, int row) {
+      this.matrix = matrix;
+      this.row = row;
+    }
+  
+    @Override
+    protected void compute() {
+      matrix.computeRow(row);
+    }
+  }
+}
@@ -26,6 +26,13 @@ public class TextContainsFilter implements Filter {
     return inName || inExcerpt || inDesc || inCategory;
   }
   
+  /**
+   * Returns the lower-cased pattern to search
+   */
+  String getPattern() {
+    return pattern;
+  }
+  
   @Override
   public String getDisplayRepresentation() {
     return "Text contains " + pattern;
@@ -20,6 +20,10 @@ public class TypeFilter implements Filter {
     return requirement.getType().equals(type);
   }
   
+  Requirement.Type getType() {
+    return type;
+  }
+  
   @Override
   public String getDisplayRepresentation() {
     return String.format("Type is '%s'", type);
@@ -1,5 +1,6 @@
 package ch.unibas.dmi.dbis.reqman.backup;
 
+import ch.unibas.dmi.dbis.reqman.common.IOUtils;
 import ch.unibas.dmi.dbis.reqman.common.JSONUtils;
 import ch.unibas.dmi.dbis.reqman.data.Group;
 import ch.unibas.dmi.dbis.reqman.session.SessionManager;
@@ -98,7 +99,7 @@ public class BackupManager {
     }
     try {
       LOGGER.debug("Locs before write: {}", JSONUtils.toJSON(locs));
-      JSONUtils.writeToJSONFile(locs, getBackupDescriptionLocation().toFile());
+      IOUtils.writeIfChanged(getBackupDescriptionLocation().toFile(), JSONUtils.toJSONBytes(locs));
       LOGGER.info("Wrote backup locations at {}", getBackupDescriptionLocation());
     } catch (IOException e) {
       LOGGER.error("Couldn't write backuplocations. This is generally bad and may lead to data loss");
@@ -132,8 +133,11 @@ public class BackupManager {
   
   private BackupDescription storeBackup(Group g) throws IOException {
     BackupDescription desc = new BackupDescription(g.getUuid(), getDefaultBackupLocation().resolve(g.getName() + BACKUP_EXTENSION).toFile().getAbsolutePath());
-    JSONUtils.writeToJSONFile(g, new File(desc.getPath()));
-    LOGGER.info("Stored a backup of group {} at {}", g.getName(), desc.getPath());
+    if (IOUtils.writeIfChanged(new File(desc.getPath()), JSONUtils.toJSONBytes(g))) {
+      LOGGER.info("Stored a backup of group {} at {}", g.getName(), desc.getPath());
+    } else {
+      LOGGER.debug("Backup of group {} at {} is unchanged", g.getName(), desc.getPath());
+    }
     return desc;
   }
   
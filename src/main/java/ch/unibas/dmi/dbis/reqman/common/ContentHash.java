@@ -0,0 +1,151 @@
+package ch.unibas.dmi.dbis.reqman.common;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The content hashes of the files written by ReqMan, to skip writing files whose content is unchanged.
+ * <p>
+ * For every file written, the 64 bit xxHash of its content is remembered together with the modification time and size
+ * of the file after writing. Thus {@link #isWritten(File, byte[])} answers from memory, whether the file still holds
+ * the given content, without reading it. Files not written since the start of ReqMan, or modified meanwhile, are
+ * compared to the given content, if their size matches.
+ *
+ * @author loris.sauter
+ */
+public final class ContentHash {
+  
+  private static final long PRIME_1 = 0x9E3779B185EBCA87L;
+  private static final long PRIME_2 = 0xC2B2AE3D27D4EB4FL;
+  private static final long PRIME_3 = 0x165667B19E3779F9L;
+  private static final long PRIME_4 = 0x85EBCA77C2B2AE63L;
+  private static final long PRIME_5 = 0x27D4EB2F165667C5L;
+  
+  private static final Map<File, ContentHash> WRITTEN = new ConcurrentHashMap<>();
+  
+  private final long hash;
+  private final long lastModified;
+  private final long size;
+  
+  private ContentHash(long hash, long lastModified, long size) {
+    this.hash = hash;
+    this.lastModified = lastModified;
+    this.size = size;
+  }
+  
+  /**
+   * Checks whether the given file holds exactly the given content, thus writing it may be skipped.
+   *
+   * @param file    The file to check
+   * @param content The content about to be written
+   * @return Whether the file already holds the content
+   */
+  public static boolean isWritten(@NotNull File file, @NotNull byte[] content) {
+    File key = file.getAbsoluteFile();
+    long lastModified = key.lastModified();
+    long size = key.length();
+    if (lastModified == 0L || size != content.length) {
+      return false; // Missing or of different size
+    }
+    ContentHash known = WRITTEN.get(key);
+    if (known != null && known.lastModified == lastModified && known.size == size) {
+      return known.hash == hash(content);
+    }
+    try {
+      boolean same = Arrays.equals(content, Files.readAllBytes(key.toPath()));
+      if (same) {
+        written(key, content);
+      }
+      return same;
+    } catch (IOException e) {
+      return false;
+    }
+  }
+  
+  /**
+   * Remembers the given content as the one just written into the given file.
+   *
+   * @param file    The file written
+   * @param content The content of the file
+   */
+  public static void written(@NotNull File file, @NotNull byte[] content) {
+    File key = file.getAbsoluteFile();
+    WRITTEN.put(key, new ContentHash(hash(content), key.lastModified(), key.length()));
+  }
+  
+  /**
+   * Computes the 64 bit xxHash, with seed 0, of the given bytes.
+   *
+   * @param bytes The bytes to hash
+   * @return The hash of the bytes
+   */
+  public static long hash(@NotNull byte[] bytes) {
+    int length = bytes.length;
+    int i = 0;
+    long h;
+    if (length >= 32) {
+      long v1 = PRIME_1 + PRIME_2;
+      long v2 = PRIME_2;
+      long v3 = 0;
+      long v4 = -PRIME_1;
+      for (; i <= length - 32; i += 32) {
+        v1 = round(v1, readLong(bytes, i));
+        v2 = round(v2, readLong(bytes, i + 8));
+        v3 = round(v3, readLong(bytes, i + 16));
+        v4 = round(v4, readLong(bytes, i + 24));
+      }
+      h = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+      h = mergeRound(h, v1);
+      h = mergeRound(h, v2);
+      h = mergeRound(h, v3);
+      h = mergeRound(h, v4);
+    } else {
+      h = PRIME_5;
+    }
+    h += length;
+    for (; i <= length - 8; i += 8) {
+      h ^= round(0, readLong(bytes, i));
+      h = Long.rotateLeft(h, 27) * PRIME_1 + PRIME_4;
+    }
+    if (i <= length - 4) {
+      h ^= (readInt(bytes, i) & 0xFFFFFFFFL) * PRIME_1;
+      h = Long.rotateLeft(h, 23) * PRIME_2 + PRIME_3;
+      i += 4;
+    }
+    for (; i < length; i++) {
+      h ^= (bytes[i] & 0xFFL) * PRIME_5;
+      h = Long.rotateLeft(h, 11) * PRIME_1;
+    }
+    h ^= h >>> 33;
+    h *= PRIME_2;
+    h ^= h >>> 29;
+    h *= PRIME_3;
+    h ^= h >>> 32;
+    return h;
+  }
+  
+  private static long round(long acc, long input) {
+    acc += input * PRIME_2;
+    acc = Long.rotateLeft(acc, 31);
+    return acc * PRIME_1;
+  }
+  
+  private static long mergeRound(long acc, long value) {
+    acc ^= round(0, value);
+    return acc * PRIME_1 + PRIME_4;
+  }
+  
+  private static long readLong(byte[] bytes, int offset) {
+    return (readInt(bytes, offset) & 0xFFFFFFFFL) | ((long) readInt(bytes, offset + 4) << 32);
+  }
+  
+  private static int readInt(byte[] bytes, int offset) {
+    return (bytes[offset] & 0xFF) | (bytes[offset + 1] & 0xFF) << 8 | (bytes[offset + 2] & 0xFF) << 16 | (bytes[offset + 3] & 0xFF) << 24;
+  }
+}
@@ -3,6 +3,9 @@ package ch.unibas.dmi.dbis.reqman.common;
 import org.apache.logging.log4j.core.util.FileUtils;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
 
 /**
  * General I/O related utilities.
@@ -31,5 +34,34 @@ public class IOUtils {
     return FileUtils.getFileExtension(file).equals(extension);
   }
   
+  /**
+   * Writes the given content into the given file, unless the file already holds it, see {@link ContentHash}.
+   *
+   * @param file    The file to write
+   * @param content The content to write
+   * @return Whether the file was written, false if its content was unchanged
+   * @throws IOException If writing fails
+   */
+  public static boolean writeIfChanged(File file, byte[] content) throws IOException {
+    if (ContentHash.isWritten(file, content)) {
+      return false;
+    }
+    Files.write(file.toPath(), content);
+    ContentHash.written(file, content);
+    return true;
+  }
+  
+  /**
+   * Writes the given text, in the platform's default charset, into the given file, unless the file already holds it.
+   *
+   * @param file The file to write
+   * @param text The text to write
+   * @return Whether the file was written, false if its content was unchanged
+   * @throws IOException If writing fails
+   */
+  public static boolean writeIfChanged(File file, String text) throws IOException {
+    return writeIfChanged(file, text.getBytes(Charset.defaultCharset()));
+  }
+  
   
 }
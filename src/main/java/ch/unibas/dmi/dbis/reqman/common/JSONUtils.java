@@ -2,16 +2,21 @@ package ch.unibas.dmi.dbis.reqman.common;
 
 import ch.unibas.dmi.dbis.reqman.data.Catalogue;
 import ch.unibas.dmi.dbis.reqman.data.Group;
+import ch.unibas.dmi.dbis.reqman.data.GroupDecoder;
 import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * The applications sinlge entry point / interface with faster-xml/jackson.
@@ -25,6 +30,12 @@ public class JSONUtils {
    */
   private static final ObjectMapper MAPPER = new ObjectMapper();
   
+  /**
+   * The readers per class. Readers are immutable and thread-safe, caching them avoids looking up the deserializers on
+   * every read
+   */
+  private static final Map<Class<?>, ObjectReader> READERS = new ConcurrentHashMap<>();
+  
   /**
    * Enables pretty print per default
    */
@@ -33,6 +44,17 @@ public class JSONUtils {
     
   }
   
+  /**
+   * Converts the given object into its JSON representation on a single line, e.g. to append it to a journal.
+   *
+   * @param obj The object to convert
+   * @return The object represented as a single line string in JSON notation
+   * @throws JsonProcessingException
+   */
+  public static String toJSONLine(Object obj) throws JsonProcessingException {
+    return MAPPER.writer().without(SerializationFeature.INDENT_OUTPUT).writeValueAsString(obj);
+  }
+  
   /**
    * Converts the given object into its JSON representation.
    *
@@ -57,8 +79,71 @@ public class JSONUtils {
     MAPPER.writeValue(file, obj);
   }
   
+  /**
+   * Converts the given object into the bytes of its JSON representation, as written by {@link #writeToJSONFile(Object, File)}.
+   *
+   * @param obj The object to convert
+   * @return The UTF-8 encoded JSON of the object
+   * @throws JsonProcessingException
+   */
+  public static byte[] toJSONBytes(Object obj) throws JsonProcessingException {
+    return MAPPER.writeValueAsBytes(obj);
+  }
+  
+  /**
+   * Returns the cached reader for objects of the given class.
+   *
+   * @param clazz The class of the objects to read
+   * @return The reader for the given class
+   */
+  public static ObjectReader readerFor(Class<?> clazz) {
+    return READERS.computeIfAbsent(clazz, MAPPER::readerFor);
+  }
+  
+  /**
+   * Serializes the given object into a buffer of JSON tokens, e.g. to encode it in another format.
+   *
+   * @param obj The object to serialize
+   * @return The buffered JSON tokens of the object
+   * @throws IOException
+   */
+  public static TokenBuffer writeToTokens(Object obj) throws IOException {
+    TokenBuffer buffer = createTokenBuffer();
+    MAPPER.writeValue(buffer, obj);
+    return buffer;
+  }
+  
+  /**
+   * Creates an empty buffer of JSON tokens, to be read by {@link #readFromTokens(TokenBuffer, Class)}.
+   *
+   * @return A new token buffer
+   */
+  public static TokenBuffer createTokenBuffer() {
+    return new TokenBuffer(MAPPER, false);
+  }
+  
+  /**
+   * Reads from the given buffered JSON tokens an object of the specified class.
+   * Groups are read by the streaming {@link GroupDecoder}.
+   *
+   * @param buffer The tokens to read from
+   * @param clazz  The class of the object which is represented by the tokens
+   * @param <T>    The type of the object to return
+   * @return An object of type T, with its value read from the tokens
+   * @throws IOException
+   */
+  public static <T> T readFromTokens(TokenBuffer buffer, Class<T> clazz) throws IOException {
+    try (JsonParser parser = buffer.asParser(MAPPER)) {
+      if (clazz == Group.class) {
+        return clazz.cast(GroupDecoder.decode(parser));
+      }
+      return readerFor(clazz).readValue(parser);
+    }
+  }
+  
   /**
    * Reads from the given file an object of spiefied class.
+   * Groups are read by the streaming {@link GroupDecoder}.
    *
    * @param file  The file to read from
    * @param clazz The class of the object which is JSON encoded in the file
@@ -68,7 +153,29 @@ public class JSONUtils {
    * @see ObjectMapper#readValue(File, Class)
    */
   public static <T> T readFromJSONFile(File file, Class<T> clazz) throws IOException {
-    return MAPPER.readValue(file, clazz);
+    if (clazz == Group.class) {
+      return clazz.cast(readGroupJSONFile(file));
+    }
+    return readerFor(clazz).readValue(file);
+  }
+  
+  /**
+   * Reads from the given UTF-8 encoded JSON an object of specified class.
+   * Groups are read by the streaming {@link GroupDecoder}.
+   *
+   * @param bytes The JSON to read from
+   * @param clazz The class of the object which is JSON encoded
+   * @param <T>   The type of the object to return
+   * @return An object of type T, with its value read from the JSON representation
+   * @throws IOException
+   */
+  public static <T> T readFromJSONBytes(byte[] bytes, Class<T> clazz) throws IOException {
+    if (clazz == Group.class) {
+      try (JsonParser parser = MAPPER.getFactory().createParser(bytes)) {
+        return clazz.cast(GroupDecoder.decode(parser));
+      }
+    }
+    return readerFor(clazz).readValue(bytes);
   }
   
   /**
@@ -84,7 +191,12 @@ public class JSONUtils {
    * @see ObjectMapper#readValue(String, Class)
    */
   public static <T> T readFromString(String str, Class<T> clazz) throws JsonParseException, JsonMappingException, IOException {
-    return MAPPER.readValue(str, clazz);
+    if (clazz == Group.class) {
+      try (JsonParser parser = MAPPER.getFactory().createParser(str)) {
+        return clazz.cast(GroupDecoder.decode(parser));
+      }
+    }
+    return readerFor(clazz).readValue(str);
   }
   
   /**
@@ -102,14 +214,31 @@ public class JSONUtils {
   
   /**
    * Reads a group from a given file.
-   * The file must be a file in JSON format, containin the fields of a group
+   * The file must be a file in JSON format, containin the fields of a group.
+   * The group is decoded while streaming through the file, see {@link GroupDecoder}.
    *
    * @param file The group file to read form
    * @return The group which was encoded in the file
    * @throws IOException
    */
   public static Group readGroupJSONFile(File file) throws IOException {
-    return readFromJSONFile(file, Group.class);
+    try (JsonParser parser = MAPPER.getFactory().createParser(file)) {
+      return GroupDecoder.decode(parser);
+    }
+  }
+  
+  /**
+   * Reads only the header of the group in the given JSON file, without its progresses and progress summaries.
+   *
+   * @param file The file to read from
+   * @return The group, without progresses and progress summaries
+   * @throws IOException If the file cannot be read or is not a group
+   * @see GroupDecoder#decodeHeader(JsonParser)
+   */
+  public static Group readGroupHeaderJSONFile(File file) throws IOException {
+    try (JsonParser parser = MAPPER.getFactory().createParser(file)) {
+      return GroupDecoder.decodeHeader(parser);
+    }
   }
   
   /**
@@ -0,0 +1,131 @@
+package ch.unibas.dmi.dbis.reqman.common;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads several inputs, e.g. files, concurrently on a shared pool of as many daemon threads as there are cores.
+ * <p>
+ * The results are returned in the order of the inputs, regardless of the order in which the loads finished.
+ * Thus callers get the same result as if they had loaded the inputs one after the other, only faster, as long as the
+ * {@link Loader} does not share unsynchronized state between inputs.
+ *
+ * @author loris.sauter
+ */
+public final class ParallelLoader {
+  
+  private static final Logger LOGGER = LogManager.getLogger();
+  
+  private static final int THREADS = Math.max(1, Runtime.getRuntime().availableProcessors());
+  
+  private static ExecutorService executor = null;
+  
+  private ParallelLoader() {
+    // No instance needed
+  }
+  
+  /**
+   * Loads all the given inputs concurrently.
+   * <p>
+   * If loading any input fails, the loads not yet started are cancelled and the exception of the first failed input,
+   * in input order, is thrown.
+   *
+   * @param inputs   The inputs to load
+   * @param loader   The loader to apply on each input, it is invoked concurrently
+   * @param listener The listener to notify whenever an input was loaded, may be null. It is notified from the loading
+   *                 threads
+   * @param <T>      The type of the inputs
+   * @param <R>      The type of the results
+   * @return The results, in the order of the inputs
+   * @throws Exception The exception the loader threw for the first failed input
+   */
+  public static <T, R> List<R> loadAll(@NotNull List<T> inputs, @NotNull Loader<T, R> loader, ProgressListener<T> listener) throws Exception {
+    int total = inputs.size();
+    AtomicInteger done = new AtomicInteger();
+    List<R> results = new ArrayList<>(total);
+    if (total <= 1) {
+      for (T input : inputs) {
+        results.add(loader.load(input));
+        notify(listener, input, done.incrementAndGet(), total);
+      }
+      return results;
+    }
+    ExecutorService pool = getExecutor();
+    List<Future<R>> futures = new ArrayList<>(total);
+    for (T input : inputs) {
+      futures.add(pool.submit(() -> {
+        R result = loader.load(input);
+        notify(listener, input, done.incrementAndGet(), total);
+        return result;
+      }));
+    }
+    try {
+      for (Future<R> future : futures) {
+        results.add(future.get());
+      }
+    } catch (ExecutionException e) {
+      futures.forEach(f -> f.cancel(false));
+      Throwable cause = e.getCause();
+      if (cause instanceof Exception) {
+        throw (Exception) cause;
+      }
+      throw (Error) cause;
+    } catch (InterruptedException e) {
+      futures.forEach(f -> f.cancel(true));
+      Thread.currentThread().interrupt();
+      throw e;
+    }
+    return results;
+  }
+  
+  private static <T> void notify(ProgressListener<T> listener, T input, int done, int total) {
+    if (listener != null) {
+      listener.loaded(input, done, total);
+    }
+  }
+  
+  private static synchronized ExecutorService getExecutor() {
+    if (executor == null) {
+      AtomicInteger count = new AtomicInteger();
+      executor = Executors.newFixedThreadPool(THREADS, runnable -> {
+        Thread thread = new Thread(runnable, "ReqMan-Loader-" + count.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      });
+      LOGGER.debug("Created loader pool with {} threads", THREADS);
+    }
+    return executor;
+  }
+  
+  /**
+   * Loads a single input.
+   *
+   * @param <T> The type of the input
+   * @param <R> The type of the result
+   */
+  @FunctionalInterface
+  public interface Loader<T, R> {
+    R load(T input) throws Exception;
+  }
+  
+  /**
+   * Gets notified whenever an input was loaded.
+   *
+   * @param <T> The type of the inputs
+   */
+  @FunctionalInterface
+  public interface ProgressListener<T> {
+    /**
+     * @param input The input just loaded
+     * @param done  The number of inputs loaded so far, including this one
+     * @param total The total number of inputs
+     */
+    void loaded(T input, int done, int total);
+  }
+}
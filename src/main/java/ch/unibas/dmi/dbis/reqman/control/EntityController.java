@@ -2,12 +2,20 @@ package ch.unibas.dmi.dbis.reqman.control;
 
 import ch.unibas.dmi.dbis.reqman.analysis.CatalogueAnalyser;
 import ch.unibas.dmi.dbis.reqman.analysis.GroupAnalyser;
+import ch.unibas.dmi.dbis.reqman.analysis.ScoreMatrix;
 import ch.unibas.dmi.dbis.reqman.common.EntityAlreadyOpenException;
 import ch.unibas.dmi.dbis.reqman.common.MissingEntityException;
+import ch.unibas.dmi.dbis.reqman.common.ParallelLoader;
 import ch.unibas.dmi.dbis.reqman.common.Version;
 import ch.unibas.dmi.dbis.reqman.data.*;
 import ch.unibas.dmi.dbis.reqman.session.SessionManager;
 import ch.unibas.dmi.dbis.reqman.session.SessionStorage;
+import ch.unibas.dmi.dbis.reqman.storage.ExternalModificationException;
+import ch.unibas.dmi.dbis.reqman.storage.LazyGroup;
+import ch.unibas.dmi.dbis.reqman.storage.ReqmanFile;
+import ch.unibas.dmi.dbis.reqman.storage.SaveQueue;
+import ch.unibas.dmi.dbis.reqman.storage.StorageBackend;
+import ch.unibas.dmi.dbis.reqman.storage.StorageFormat;
 import ch.unibas.dmi.dbis.reqman.storage.StorageManager;
 import ch.unibas.dmi.dbis.reqman.storage.UuidMismatchException;
 import javafx.collections.FXCollections;
@@ -19,6 +27,11 @@ import org.jetbrains.annotations.NotNull;
 import java.io.File;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -42,6 +55,21 @@ public class EntityController {
   
   private static final Logger LOGGER = LogManager.getLogger();
   private static EntityController instance = null;
+  
+  /**
+   * The number of journaled assessments of a group, after which the group is saved to compact its journal
+   */
+  public static final int JOURNAL_COMPACTION_THRESHOLD = 200;
+  
+  /**
+   * The time in milliseconds to wait for groups still being saved, before converting the storage
+   */
+  private static final long CONVERSION_SAVE_TIMEOUT = 10000;
+  
+  /**
+   * The types of the entity files, which are written in the selected {@link StorageFormat}
+   */
+  private static final ReqmanFile.Type[] ENTITY_TYPES = {ReqmanFile.Type.COURSE, ReqmanFile.Type.CATALOGUE, ReqmanFile.Type.GROUP};
   private CatalogueAnalyser catalogueAnalyser;
   
   private CourseManager courseManager;
@@ -59,6 +87,10 @@ public class EntityController {
   private ObservableList<Requirement> observableRequirements;
   private ObservableList<Milestone> observableMilestones;
   
+  private volatile Consumer<File> externalModificationHandler = null;
+  private final Consumer<File> externalModificationForwarder = this::notifyExternalModification;
+  private volatile Consumer<Throwable> saveFailureHandler = null;
+  
   
   private EntityController() {
     sessionManager = new SessionManager();
@@ -97,32 +129,35 @@ public class EntityController {
   }
   
   public Requirement createBinaryRequirement(String name, String excerpt, double maxPoints, Milestone minMS, Milestone maxMS) {
-    return entityFactory.createBinaryRequirement(name, excerpt, maxPoints, minMS, maxMS);
+    return registerRequirement(entityFactory.createBinaryRequirement(name, excerpt, maxPoints, minMS, maxMS));
   }
   
   public Requirement createRequirement(String name, String excerpt, double maxPoints, Milestone minMS, Milestone maxMS) {
-    return entityFactory.createRequirement(name, excerpt, maxPoints, minMS, maxMS);
+    return registerRequirement(entityFactory.createRequirement(name, excerpt, maxPoints, minMS, maxMS));
   }
   
   public Requirement createMalusRequirement(String name, String excerpt, double maxPoints, Milestone minMS, Milestone maxMS) {
-    return entityFactory.createMalusRequirement(name, excerpt, maxPoints, minMS, maxMS);
+    return registerRequirement(entityFactory.createMalusRequirement(name, excerpt, maxPoints, minMS, maxMS));
   }
   
   public Requirement createBonusRequirement(String name, String excerpt, double maxPoints, Milestone minMS, Milestone maxMS) {
-    return entityFactory.createBonusRequirement(name, excerpt, maxPoints, minMS, maxMS);
+    return registerRequirement(entityFactory.createBonusRequirement(name, excerpt, maxPoints, minMS, maxMS));
   }
   
   public Requirement createMalusRequirement(String name, String excerpt, double maxPoints, Milestone minMS, Milestone maxMS, boolean binary) {
-    return entityFactory.createMalusRequirement(name, excerpt, maxPoints, minMS, maxMS, binary);
+    return registerRequirement(entityFactory.createMalusRequirement(name, excerpt, maxPoints, minMS, maxMS, binary));
   }
   
   public Requirement createBonusRequirement(String name, String excerpt, double maxPoints, Milestone minMS, Milestone maxMS, boolean binary) {
-    return entityFactory.createBonusRequirement(name, excerpt, maxPoints, minMS, maxMS, binary);
+    return registerRequirement(entityFactory.createBonusRequirement(name, excerpt, maxPoints, minMS, maxMS, binary));
   }
   
   @NotNull
   public Milestone createMilestone(String name, Date date) {
     Milestone ms = entityFactory.createMilestone(name, date);
+    if (catalogueAnalyser != null) {
+      catalogueAnalyser.getIndex().addMilestone(ms);
+    }
     LOGGER.debug("Created the ms={}", ms);
     return ms;
   }
@@ -170,56 +205,196 @@ public class EntityController {
     return list;
   }
   
-  public void saveGroup(UUID groupUuid) {
+  /**
+   * Saves the group with the given uuid in the background.
+   *
+   * @param groupUuid The uuid of the group to save
+   * @return The future, which completes once the group is written or exceptionally, if it could not be written
+   */
+  public CompletableFuture<Void> saveGroup(UUID groupUuid) {
     if (groupUuid != null) {
-      LOGGER.debug("Progress-size: {}", getGroup(groupUuid).getProgressList().size());
+      LOGGER.debug("Progress-size: {}", getGroup(groupUuid).progressListView().size());
       if (storageManager != null) {
-        try {
-          storageManager.saveGroup(groupUuid);
-        } catch (IOException e) {
-          LOGGER.catching(e);
-          // Couldn't save the group to where it should have been saved.
-        }
+        return storageManager.saveGroupLater(groupUuid).whenComplete(this::handleSaveFailure);
       } else {
         throw LOGGER.throwing(new IllegalStateException("Cannot save group if no StorageManager is available"));
       }
     }
+    return CompletableFuture.completedFuture(null);
   }
   
-  public void saveGroupAs(Group g) {
+  /**
+   * Saves the given group in the background, into a new file of the save directory if it has none yet.
+   *
+   * @param g The group to save
+   * @return The future, which completes once the group is written or exceptionally, if it could not be written
+   */
+  public CompletableFuture<Void> saveGroupAs(Group g) {
     if (g != null) {
       if (storageManager != null) {
         LOGGER.debug("Saving group with name {}", g.getName());
-        try {
-          storageManager.saveGroupSensitively(g);
-          
-        } catch (IOException e) {
-          LOGGER.catching(e);
-          // Couldn't save the group to where it should have gone
-        }
+        return storageManager.saveGroupSensitivelyLater(g).whenComplete(this::handleSaveFailure);
       } else {
         throw LOGGER.throwing(new IllegalStateException("Cannot save group as if no StorageManager is available"));
       }
     }
+    return CompletableFuture.completedFuture(null);
+  }
+  
+  /**
+   * Waits until all groups saved in the background are written.
+   *
+   * @param timeout The maximal time to wait, in milliseconds
+   * @return Whether all groups were written in time
+   */
+  public boolean flushSaves(long timeout) {
+    return SaveQueue.getInstance().flush(timeout);
+  }
+  
+  /**
+   * Journals the assessment of the given progress, thus it is durable without saving the whole group.
+   * Once the journal of the group holds {@link #JOURNAL_COMPACTION_THRESHOLD} events, the group is saved in the
+   * background, which compacts its journal.
+   *
+   * @param group    The group of the progress
+   * @param progress The assessed progress
+   */
+  public void journalProgress(Group group, Progress progress) {
+    if (storageManager == null) {
+      return;
+    }
+    try {
+      if (storageManager.journalProgress(group, progress) >= JOURNAL_COMPACTION_THRESHOLD) {
+        LOGGER.debug("Compacting the journal of group {}", group.getName());
+        saveGroup(group.getUuid());
+      }
+    } catch (IOException e) {
+      LOGGER.warn("Could not journal the assessment of {}: {}", progress.getUuid(), e.getMessage());
+    }
   }
   
+  /**
+   * Closes the journals of the groups, their events not yet saved are replayed when the groups are opened again.
+   */
+  public void closeJournals() {
+    if (storageManager != null) {
+      storageManager.closeJournals();
+    }
+  }
+  
+  /**
+   * Closes the storage of the save directory, i.e. the journals, the directory's manifest and the backend.
+   * Pending saves have to be flushed before.
+   *
+   * @see StorageManager#close()
+   */
+  public void closeStorage() {
+    if (storageManager != null) {
+      storageManager.close();
+    }
+  }
+  
+  private void handleSaveFailure(Void result, Throwable ex) {
+    Throwable cause = ex instanceof CompletionException ? ex.getCause() : ex;
+    if (cause instanceof ExternalModificationException) {
+      LOGGER.warn(cause.getMessage() + ", not overwriting it");
+      notifyExternalModification(((ExternalModificationException) cause).getFile());
+    } else if (cause != null) {
+      LOGGER.catching(cause);
+      // Couldn't save the group to where it should have been saved.
+      Consumer<Throwable> handler = saveFailureHandler;
+      if (handler != null) {
+        handler.accept(cause);
+      }
+    }
+  }
+  
+  /**
+   * Opens the given group files concurrently.
+   * <p>
+   * Each file is read, checked and reconciled with the catalogue on its own thread, the groups are then added in the
+   * order of the files. If any file fails, none of the groups is added, nor saved into its file.
+   *
+   * @param files The group files to open
+   * @return The opened groups, in the order of the files
+   */
   public List<Group> openGroups(List<File> files) throws UuidMismatchException, IOException, MissingEntityException, EntityAlreadyOpenException {
     LOGGER.debug("Opening group files {}", files);
-    List<Group> groupList = new ArrayList<>();
-    for (File g : files) {
-      Group group = storageManager.openGroup(g);
-      if (groupList.stream().map(Group::getUuid).collect(Collectors.toList()).contains(group.getUuid())) {
-        throw new EntityAlreadyOpenException(group.getUuid(), "Group");
-      }
-      // TODO fix so that only the faulty / already opened ones are not opened, but the others are
-      if (group.getProgressList().isEmpty()) {
-        throw new MissingEntityException("The group (" + group.getName() + ") was loaded without any progress", group, "progressList");
-      }
-      if (group.getProgressSummaries().isEmpty()) {
-        throw new MissingEntityException("The group (" + group.getName() + ") was loaded without any progress summaries", group, "progressSummaries");
+    return openGroups(files, storageManager::readGroup, storageManager::addGroup);
+  }
+  
+  /**
+   * Opens the given groups of the storage backend concurrently, like {@link #openGroups(List)} does with files.
+   * Groups of the directory backend are opened from their files.
+   *
+   * @param uuids The uuids of the groups to open
+   * @return The opened groups, in the order of the uuids
+   */
+  public List<Group> openStoredGroups(List<UUID> uuids) throws UuidMismatchException, IOException, MissingEntityException, EntityAlreadyOpenException {
+    LOGGER.debug("Opening stored groups {}", uuids);
+    if (storageManager.getBackendKind() == StorageBackend.Kind.DIRECTORY) {
+      List<File> files = new ArrayList<>();
+      for (UUID uuid : uuids) {
+        files.add(storageManager.locateGroup(uuid));
       }
-      addGroup(group);
-      groupList.add(group);
+      return openGroups(files);
+    }
+    return openGroups(uuids, storageManager::readGroup, (group, uuid) -> storageManager.addGroup(group, null));
+  }
+  
+  /**
+   * Lists the groups of the storage backend.
+   *
+   * @return The names of the stored groups by their uuids, ordered by name
+   * @throws IOException If the groups cannot be listed
+   */
+  public Map<UUID, String> listStoredGroups() throws IOException {
+    return storageManager.listGroups();
+  }
+  
+  /**
+   * Converts the save directory to the storage backend of the given kind, which is used from then on.
+   * Groups still being saved in the background are written first.
+   *
+   * @param kind The kind of storage backend to convert to
+   * @return The number of converted entities
+   * @throws IOException If the conversion failed, the current backend is kept then
+   */
+  public int convertStorage(StorageBackend.Kind kind) throws IOException {
+    flushSaves(CONVERSION_SAVE_TIMEOUT);
+    return storageManager.convertBackend(kind);
+  }
+  
+  /**
+   * Reads the given inputs concurrently, checks and reconciles the read groups and adds them, if all were read.
+   */
+  private <T> List<Group> openGroups(List<T> inputs, ParallelLoader.Loader<T, Group> reader, BiConsumer<Group, T> adder) throws UuidMismatchException, IOException, MissingEntityException, EntityAlreadyOpenException {
+    Set<UUID> openedUuids = ConcurrentHashMap.newKeySet();
+    List<Group> groupList;
+    try {
+      groupList = ParallelLoader.loadAll(inputs, input -> {
+        Group group = reader.load(input);
+        if (!openedUuids.add(group.getUuid())) {
+          throw new EntityAlreadyOpenException(group.getUuid(), "Group");
+        }
+        // TODO fix so that only the faulty / already opened ones are not opened, but the others are
+        if (group.progressListView().isEmpty()) {
+          throw new MissingEntityException("The group (" + group.getName() + ") was loaded without any progress", group, "progressList");
+        }
+        if (group.progressSummariesView().isEmpty()) {
+          throw new MissingEntityException("The group (" + group.getName() + ") was loaded without any progress summaries", group, "progressSummaries");
+        }
+        appendMissingEntities(group);
+        return group;
+      }, null);
+    } catch (UuidMismatchException | IOException | MissingEntityException | RuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+    for (int i = 0; i < groupList.size(); i++) {
+      adder.accept(groupList.get(i), inputs.get(i)); // Only accepted groups are saved
+      registerGroup(groupList.get(i));
     }
     return groupList;
   }
@@ -251,7 +426,7 @@ public class EntityController {
   
   public void setupSaveDirectory(File dir) {
     if (storageManager == null) {
-      storageManager = StorageManager.getInstance(dir);
+      attachStorageManager(StorageManager.getInstance(dir));
       LOGGER.debug("Created StorageManager, dir={}", storageManager.getSaveDir());
     } else {
       storageManager.setSaveDir(dir);
@@ -270,13 +445,26 @@ public class EntityController {
   }
   
   public void addGroup(Group g) {
-    observableGroups.add(g);
-    addGroupAnalyser(g, new GroupAnalyser(getCourse(), getCatalogue(), g));
+    appendMissingEntities(g);
+    registerGroup(g);
+  }
+  
+  /**
+   * Appends the progresses and progress summaries the group lacks. Only reads the catalogue, thus groups may be
+   * reconciled concurrently.
+   */
+  private void appendMissingEntities(Group g) {
     int missingProgresses = entityFactory.appendMissingProgresses(g);
-    progressGroupMap.put(g.getUuid(), FXCollections.observableList(g.getProgressList()));
     int missingSummaries = entityFactory.appendMissingProgressSummaries(g);
+    LOGGER.debug("Added {} missing progresses and {} missing progress summaries to group ({})", missingProgresses, missingSummaries, g.getName());
+  }
+  
+  private void registerGroup(Group g) {
+    observableGroups.add(g);
+    addGroupAnalyser(g, new GroupAnalyser(catalogueAnalyser, g));
+    progressGroupMap.put(g.getUuid(), FXCollections.observableList(g.getProgressList()));
     summaryGroupMap.put(g.getUuid(), FXCollections.observableList(g.getProgressSummaries()));
-    LOGGER.debug("Added group ({}) and added {} missing progresses and {} missing progress summareis", g.getName(), missingProgresses, missingSummaries);
+    LOGGER.debug("Added group ({})", g.getName());
   }
   
   public void removeGroup(Group g) {
@@ -303,6 +491,80 @@ public class EntityController {
     return groupAnalyserMap.get(key.getUuid());
   }
   
+  /**
+   * Creates a {@link ScoreMatrix} snapshot of all currently open groups.
+   *
+   * @return The score matrix of the open groups
+   */
+  public ScoreMatrix createScoreMatrix() {
+    List<GroupAnalyser> analysers = observableGroups.stream().map(this::getGroupAnalyser).collect(Collectors.toList());
+    return new ScoreMatrix(catalogueAnalyser, analysers);
+  }
+  
+  /**
+   * Returns the uuids of the open groups. Has to be called on the application thread.
+   *
+   * @return The uuids of the open groups
+   */
+  public Set<UUID> getOpenGroupUuids() {
+    return observableGroups.stream().map(Group::getUuid).collect(Collectors.toSet());
+  }
+  
+  /**
+   * Reads the groups of the save directory which belong to the opened catalogue and are not among the given ones,
+   * as they were saved. The returned groups are not opened and must not be modified.
+   * May be called on any thread, since the read groups are materialized from the index only.
+   *
+   * @param except The uuids of the groups to skip, usually the open ones
+   * @return The saved groups, or an empty list if groups are not saved in a directory
+   * @throws IOException If a group file cannot be read
+   */
+  public List<Group> readSavedGroups(Set<UUID> except) throws IOException {
+    if (!storesGroupFiles()) {
+      return new ArrayList<>();
+    }
+    return readGroups(indexGroups(), except);
+  }
+  
+  /**
+   * Whether the groups are saved as files of a save directory, which can be indexed by {@link #indexGroups()}
+   *
+   * @return Whether the group files can be indexed
+   */
+  public boolean storesGroupFiles() {
+    return storageManager != null && storageManager.getSaveDir() != null && storageManager.getBackendKind() == StorageBackend.Kind.DIRECTORY;
+  }
+  
+  private List<Group> readGroups(List<LazyGroup> groups, Set<UUID> except) throws IOException {
+    List<LazyGroup> saved = groups.stream().filter(lazy -> !except.contains(lazy.getHeader().getUuid())).collect(Collectors.toList());
+    try {
+      return ParallelLoader.loadAll(saved, LazyGroup::get, null);
+    } catch (IOException | RuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new IOException(e);
+    }
+  }
+  
+  /**
+   * Lists the group files of the save directory which belong to the opened course and catalogue, without reading
+   * their progress.
+   *
+   * @return The group files of the save directory of the opened catalogue
+   * @throws IOException If a group file cannot be read
+   * @see StorageManager#indexGroups()
+   */
+  public List<LazyGroup> indexGroups() throws IOException {
+    if (storageManager == null) {
+      throw LOGGER.throwing(new IllegalStateException("Cannot index groups if no StorageManager is available"));
+    }
+    UUID course = getCourse().getUuid();
+    UUID catalogue = getCatalogue().getUuid();
+    return storageManager.indexGroups().stream()
+        .filter(lazy -> course.equals(lazy.getHeader().getCourseUuid()) && catalogue.equals(lazy.getHeader().getCatalogueUuid()))
+        .collect(Collectors.toList());
+  }
+  
   public boolean containsGroupAnalyserFor(Group key) {
     return groupAnalyserMap.containsKey(key.getUuid());
   }
@@ -324,10 +586,10 @@ public class EntityController {
   }
   
   public boolean removeRequirement(Requirement requirement) {
-    if(catalogueAnalyser.isPredecessor(requirement)){
-      catalogueAnalyser.getDependants(requirement).forEach(r -> r.removePredecessor(requirement));
-    }
+    catalogueAnalyser.getDependants(requirement).forEach(r -> r.removePredecessor(requirement));
     boolean result = entityFactory.getCatalogue().removeRequirement(requirement);
+    catalogueAnalyser.getIndex().removeRequirement(requirement);
+    catalogueAnalyser.getSearchIndex().removeRequirement(requirement);
     LOGGER.debug("Removing req={}", requirement);
     LOGGER.debug("After deletion: {}", entityFactory.getCatalogue().getRequirements());
     observableRequirements.remove(requirement);
@@ -346,6 +608,34 @@ public class EntityController {
     return false;
   }
   
+  /**
+   * Notifies the controller that the given requirement was modified in place, e.g. its points have changed.
+   * Cached lookups and point totals get invalidated, the requirement is re-indexed for searching.
+   *
+   * @param requirement The modified requirement
+   */
+  public void modifiedRequirement(Requirement requirement) {
+    LOGGER.debug("Modified req={}", requirement);
+    getCatalogue().markModified();
+    if (catalogueAnalyser != null) {
+      catalogueAnalyser.getSearchIndex().updateRequirement(requirement);
+    }
+  }
+  
+  /**
+   * Notifies the controller that the given milestone was modified in place, e.g. its date has changed.
+   * Cached orderings of the milestones get invalidated.
+   *
+   * @param milestone The modified milestone
+   */
+  public void modifiedMilestone(Milestone milestone) {
+    LOGGER.debug("Modified ms={}", milestone);
+    getCatalogue().markModified();
+    if (courseManager != null) {
+      courseManager.invalidate();
+    }
+  }
+  
   public boolean hasCatalogue() {
     if (entityFactory == null) {
       return false;
@@ -376,6 +666,9 @@ public class EntityController {
         //OperationFactory.createSaveCourseOperation(getCourse(), null).start();
         try {
           storageManager.saveCourse(getCourse());
+        } catch (ExternalModificationException e) {
+          LOGGER.warn(e.getMessage() + ", not overwriting it");
+          notifyExternalModification(e.getFile());
         } catch (IOException e) {
           LOGGER.catching(e);
           // Couldn't save entity as desired
@@ -394,6 +687,9 @@ public class EntityController {
         try {
           storageManager.saveCatalogue(getCatalogue());
           storageManager.saveCourse(getCourse()); // because times could have been added
+        } catch (ExternalModificationException e) {
+          LOGGER.warn(e.getMessage() + ", not overwriting it");
+          notifyExternalModification(e.getFile());
         } catch (IOException e) {
           LOGGER.catching(e);
           // couldn't save entity as desired
@@ -413,7 +709,7 @@ public class EntityController {
   }
   
   public void openCourse(File courseFile) {
-    storageManager = StorageManager.getInstance(courseFile.getParentFile());
+    attachStorageManager(StorageManager.getInstance(courseFile.getParentFile()));
     try {
       Course c = storageManager.openCourse(courseFile);
       entityFactory = EntityFactory.createFactoryFor(c);
@@ -479,13 +775,38 @@ public class EntityController {
       if (storageManager != null) {
         storageManager.setSaveDir(new File(session.getLastUsedDir()));
       } else {
-        storageManager = StorageManager.getInstance(new File(session.getLastUsedDir()));
+        attachStorageManager(StorageManager.getInstance(new File(session.getLastUsedDir())));
+      }
+      if (session.getStorageFormats() != null) {
+        session.getStorageFormats().forEach(StorageFormat::setFormatFor);
       }
     } else {
       LOGGER.info("No session available");
     }
   }
   
+  /**
+   * Sets the format the course, the catalogue and the groups are written in. Files already saved are read in either
+   * format and written in the new one on their next save.
+   *
+   * @param format The format to write the entities in
+   */
+  public void setStorageFormat(@NotNull StorageFormat format) {
+    for (ReqmanFile.Type type : ENTITY_TYPES) {
+      StorageFormat.setFormatFor(type, format);
+    }
+    LOGGER.info("Writing entities in the {} format", format);
+  }
+  
+  /**
+   * Returns the format the groups are written in.
+   *
+   * @return The format groups are written in
+   */
+  public StorageFormat getStorageFormat() {
+    return StorageFormat.getFormatFor(ReqmanFile.Type.GROUP);
+  }
+  
   public void saveSession() {
     if (storageManager != null) {
       LOGGER.info("Storing session...");
@@ -493,6 +814,7 @@ public class EntityController {
       session.setDate(new Date());
       session.setVersion(Version.getInstance().getVersion());
       session.setLastUsedDir(storageManager.getSaveDir().getAbsolutePath());
+      session.setStorageFormats(StorageFormat.getFormats());
       sessionManager.storeSession(session);
       LOGGER.info("Stored session {}", session);
     } else {
@@ -500,6 +822,50 @@ public class EntityController {
     }
   }
   
+  /**
+   * Sets the handler to notify if a file opened or saved by ReqMan was modified outside of it, e.g. to ask whether to
+   * overwrite the modification. The handler is notified when the modification is noticed, possibly from a background
+   * thread, and whenever saving the file is refused due to it.
+   *
+   * @param handler The handler to notify with the modified file
+   */
+  public void setExternalModificationHandler(Consumer<File> handler) {
+    externalModificationHandler = handler;
+  }
+  
+  /**
+   * Sets the handler to notify if saving a group in the background failed for another reason than an external
+   * modification. The handler is notified from the background thread which attempted to save.
+   *
+   * @param handler The handler to notify with the cause of the failure
+   */
+  public void setSaveFailureHandler(Consumer<Throwable> handler) {
+    saveFailureHandler = handler;
+  }
+  
+  /**
+   * Accepts the external modification of the given file, thus it is overwritten with the next save.
+   *
+   * @param file The modified file
+   */
+  public void acceptExternalModification(File file) {
+    if (storageManager != null) {
+      storageManager.acceptExternalModification(file);
+    }
+  }
+  
+  private void attachStorageManager(StorageManager manager) {
+    storageManager = manager;
+    storageManager.addExternalModificationListener(externalModificationForwarder);
+  }
+  
+  private void notifyExternalModification(File file) {
+    Consumer<File> handler = externalModificationHandler;
+    if (handler != null) {
+      handler.accept(file);
+    }
+  }
+  
   public EntityFactory getEntityFactory() {
     return entityFactory;
   }
@@ -508,6 +874,14 @@ public class EntityController {
     addGroup(g);
   }
   
+  private Requirement registerRequirement(Requirement requirement) {
+    if (catalogueAnalyser != null) {
+      catalogueAnalyser.getIndex().addRequirement(requirement);
+      catalogueAnalyser.getSearchIndex().addRequirement(requirement);
+    }
+    return requirement;
+  }
+  
   private void setupObservableCatalogueLists() {
     observableRequirements = FXCollections.observableArrayList(); // Actually not very beautiful, but since the catalogue.getRequirements returns a copy / changes to it catalgoue.requirements are not reported, this is the only way.
     observableMilestones = FXCollections.observableArrayList();
@@ -518,13 +892,13 @@ public class EntityController {
   
   private void loadedCatalogue() {
     catalogueAnalyser = new CatalogueAnalyser(getCourse(), getCatalogue());
-    courseManager = new CourseManager(getCourse(), getCatalogue());
+    courseManager = catalogueAnalyser.getCourseManager();
     
     fixPredecessors();
   }
   
   private void fixPredecessors() {
-    List<Requirement> list = getCatalogue().getRequirements().stream().filter(r -> r.getPredecessors().length > 0).collect(Collectors.toList());
+    List<Requirement> list = getCatalogue().requirementsView().stream().filter(r -> r.getPredecessors().length > 0).collect(Collectors.toList());
     LOGGER.debug("Fixing {} times predecessors", list.size());
     list.forEach(requirement -> {
       LOGGER.debug("Potential predecessor-dupes: {}", requirement);
@@ -6,6 +6,7 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
 
@@ -38,6 +39,12 @@ public class Catalogue extends VersionedEntity {
    */
   private List<Requirement> requirements = new ArrayList<>();
   
+  /**
+   * The structural revision of this catalogue.
+   * Incremented whenever a milestone or requirement is added or removed, not serialized.
+   */
+  private transient long revision = 0;
+  
   /**
    * The default constructor
    */
@@ -92,6 +99,7 @@ public class Catalogue extends VersionedEntity {
    * @see List#add(Object)
    */
   public boolean addMilestone(Milestone milestone) {
+    revision++;
     return milestones.add(milestone);
   }
   
@@ -103,6 +111,7 @@ public class Catalogue extends VersionedEntity {
    * @see List#remove(Object)
    */
   public boolean removeMilestone(Milestone milestone) {
+    revision++;
     return milestones.remove(milestone);
   }
   
@@ -122,6 +131,7 @@ public class Catalogue extends VersionedEntity {
    * @return The result of the {@link List#add(Object)} operation
    */
   public boolean addRequirement(Requirement requirement) {
+    revision++;
     return requirements.add(requirement);
   }
   
@@ -133,6 +143,7 @@ public class Catalogue extends VersionedEntity {
    * @return The result of the {@link List#remove(Object)} operation
    */
   public boolean removeRequirement(Requirement requirement) {
+    revision++;
     return requirements.remove(requirement);
     
   }
@@ -146,6 +157,28 @@ public class Catalogue extends VersionedEntity {
     return new ArrayList<>(requirements);
   }
   
+  /**
+   * Returns an unmodifiable view of the requirements list.
+   * Other than {@link #getRequirements()}, no copy is created, thus changes of this catalogue are reflected by the view.
+   *
+   * @return A read-only view of the requirements
+   */
+  @JsonIgnore
+  public List<Requirement> requirementsView() {
+    return Collections.unmodifiableList(requirements);
+  }
+  
+  /**
+   * Returns an unmodifiable view of the milestones list.
+   * Other than {@link #getMilestones()}, no copy is created, thus changes of this catalogue are reflected by the view.
+   *
+   * @return A read-only view of the milestones
+   */
+  @JsonIgnore
+  public List<Milestone> milestonesView() {
+    return Collections.unmodifiableList(milestones);
+  }
+  
   /**
    * Returns the requirements list itself
    *
@@ -162,6 +195,7 @@ public class Catalogue extends VersionedEntity {
    * @param milestones The milestones to add to the list of milestones
    */
   public void addAllMilestones(Milestone... milestones) {
+    revision++;
     this.milestones.addAll(Arrays.asList(milestones));
   }
   
@@ -179,13 +213,34 @@ public class Catalogue extends VersionedEntity {
     return uuid;
   }
   
+  /**
+   * Returns the structural revision of this catalogue.
+   * <p>
+   * The revision changes whenever milestones or requirements are added to or removed from this catalogue, thus
+   * derived lookup structures may use it to detect that they are outdated.
+   *
+   * @return The current structural revision
+   */
+  @JsonIgnore
+  public long getRevision() {
+    return revision;
+  }
+  
+  /**
+   * Marks this catalogue as modified, i.e. increments its revision.
+   * To be used when a contained entity was changed in place, such that derived structures have to be rebuilt.
+   */
+  public void markModified() {
+    revision++;
+  }
+  
   @Override
   public int hashCode() {
     int result = getUuid().hashCode();
     result = 31 * result + (getName() != null ? getName().hashCode() : 0);
     result = 31 * result + (getDescription() != null ? getDescription().hashCode() : 0);
-    result = 31 * result + (getMilestones() != null ? getMilestones().hashCode() : 0);
-    result = 31 * result + (getRequirements() != null ? getRequirements().hashCode() : 0);
+    result = 31 * result + (milestones != null ? milestones.hashCode() : 0);
+    result = 31 * result + (requirements != null ? requirements.hashCode() : 0);
     return result;
   }
   
@@ -211,6 +266,7 @@ public class Catalogue extends VersionedEntity {
   }
   
   public void addAllRequirements(Requirement... requirements) {
+    revision++;
     this.requirements.addAll(Arrays.asList(requirements));
   }
 }
@@ -24,6 +24,11 @@ public class Course extends VersionedEntity{
   private Set<UUID> groupUUIDs;
   private Set<Time> timeEntities;
   
+  /**
+   * The revision of the time entities, incremented whenever a time entity is added or removed. Not serialized.
+   */
+  private transient long timeRevision = 0;
+  
   public Course() {
     uuid = UUID.randomUUID();
     groupUUIDs = new HashSet<>();
@@ -123,18 +128,32 @@ public class Course extends VersionedEntity{
     if (containsTime(time)) {
       return false;
     }
+    timeRevision++;
     return timeEntities.add(time);
   }
   
   @NotNull
   public boolean removeTime(Time time) {
+    timeRevision++;
     return timeEntities.remove(time);
   }
   
   public void clearTimeList() {
+    timeRevision++;
     timeEntities.clear();
   }
   
+  /**
+   * Returns the revision of this course's time entities.
+   * The revision changes whenever a {@link Time} entity is added or removed.
+   *
+   * @return The current revision of the time entities
+   */
+  @JsonIgnore
+  public long getTimeRevision() {
+    return timeRevision;
+  }
+  
   @JsonIgnore
   public boolean isGroupSetEmpty() {
     return groupUUIDs.isEmpty();
@@ -161,6 +180,7 @@ public class Course extends VersionedEntity{
   
   @NotNull
   public void addAllTimes(Time... times) {
+    timeRevision++;
     timeEntities.addAll(Arrays.asList(times));
   }
   
@@ -179,11 +199,22 @@ public class Course extends VersionedEntity{
     return new ArrayList<>(timeEntities);
   }
   
+  /**
+   * Returns an unmodifiable view of the time entities, without copying them.
+   *
+   * @return A read-only view of the time entities
+   */
+  @JsonIgnore
+  public Set<Time> timesView() {
+    return Collections.unmodifiableSet(timeEntities);
+  }
+  
   public Time[] getTimeEntities(){
     return timeEntities.toArray(new Time[0]);
   }
   
   void setTimeEntities(Time[] entities){
+    timeRevision++;
     timeEntities.addAll(Arrays.asList(entities));
   }
   
@@ -2,10 +2,7 @@ package ch.unibas.dmi.dbis.reqman.data;
 
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.Date;
-import java.util.List;
+import java.util.*;
 
 /**
  * TODO: write JavaDoc
@@ -17,6 +14,11 @@ public class CourseManager implements Comparator<Milestone> {
   private final Course course;
   private final Catalogue catalogue;
   
+  /**
+   * The cached timeline, rebuilt only if the catalogue's milestones or the course's times changed
+   */
+  private MilestoneTimeline timeline = null;
+  
   public CourseManager(Course course, Catalogue catalogue) {
     if (course == null || catalogue == null) {
       throw new IllegalArgumentException("Cannot create CourseManager if course or catalogue is null");
@@ -29,34 +31,15 @@ public class CourseManager implements Comparator<Milestone> {
   }
   
   public Date getMilestoneDate(Milestone milestone) {
-    Time time = null;
-    for (Time t : course.getTimes()) {
-      if (milestone.getTimeUUID().equals(t.getUuid())) {
-        time = t;
-      }
-    }
-    if (time != null) {
-      return time.getDate();
-    }
-    return null;
+    return getTimeline().getDate(milestone);
   }
   
   public Milestone getMinimalMilestone(@NotNull Requirement requirement) {
-    for (Milestone ms : catalogue.getMilestones()) {
-      if (ms.getUuid().equals(requirement.getMinimalMilestoneUUID())) {
-        return ms;
-      }
-    }
-    return null;
+    return getTimeline().getMilestone(requirement.getMinimalMilestoneUUID());
   }
   
   public Milestone getMaximalMilestone(Requirement requirement) {
-    for (Milestone ms : catalogue.getMilestones()) {
-      if (ms.getUuid().equals(requirement.getMaximalMilestoneUUID())) {
-        return ms;
-      }
-    }
-    return null;
+    return getTimeline().getMilestone(requirement.getMaximalMilestoneUUID());
   }
   
   
@@ -66,15 +49,129 @@ public class CourseManager implements Comparator<Milestone> {
   }
   
   public Milestone getFirstMilestone() {
-    List<Milestone> milestones = new ArrayList<>(catalogue.getMilestones());
-    milestones.sort(this);
-    return milestones.get(0);
+    return getMilestoneByOrdinal(0);
   }
   
   public int getMilestoneOrdinal(Milestone ms) {
-    List<Milestone> milestones = catalogue.getMilestones();
-    milestones.sort(this);
-    return milestones.indexOf(ms);
+    if (ms == null) {
+      return -1;
+    }
+    return getTimeline().getOrdinal(ms.getUuid());
+  }
+  
+  /**
+   * Returns the milestone at the given position of the chronologically sorted milestones.
+   *
+   * @param ordinal The position of the milestone, starting at zero
+   * @return The milestone at the given position or {@code null} if there is no such position
+   */
+  public Milestone getMilestoneByOrdinal(int ordinal) {
+    return getTimeline().getMilestone(ordinal);
+  }
+  
+  public int getMilestoneCount() {
+    return getTimeline().size();
+  }
+  
+  /**
+   * Returns the chronologically sorted milestones of the catalogue.
+   *
+   * @return A new list of the milestones, sorted by their date
+   */
+  public List<Milestone> getSortedMilestones() {
+    return getTimeline().getMilestones();
+  }
+  
+  /**
+   * Discards the cached timeline, so that it is rebuilt on next access.
+   * Required if a {@link Milestone} or {@link Time} was modified in place.
+   */
+  public void invalidate() {
+    timeline = null;
+  }
+  
+  private MilestoneTimeline getTimeline() {
+    MilestoneTimeline current = timeline;
+    if (current == null || !current.isCurrent(catalogue, course)) {
+      current = new MilestoneTimeline(catalogue, course);
+      timeline = current;
+    }
+    return current;
   }
   
+  /**
+   * Immutable snapshot of the chronologically sorted milestones of a catalogue, along with their ordinals and dates.
+   */
+  private static final class MilestoneTimeline {
+  
+    private final long catalogueRevision;
+    private final long timeRevision;
+  
+    private final Milestone[] milestones;
+    private final Map<UUID, Integer> ordinals;
+    private final Map<UUID, Date> milestoneDates;
+    private final Map<UUID, Date> timeDates;
+  
+    private MilestoneTimeline(Catalogue catalogue, Course course) {
+      catalogueRevision = catalogue.getRevision();
+      timeRevision = course.getTimeRevision();
+  
+      HashMap<UUID, Date> times = new HashMap<>();
+      for (Time t : course.timesView()) {
+        times.put(t.getUuid(), t.getDate());
+      }
+      timeDates = times;
+  
+      HashMap<UUID, Date> dates = new HashMap<>();
+      Milestone[] sorted = catalogue.milestonesView().toArray(new Milestone[0]);
+      for (Milestone ms : sorted) {
+        dates.put(ms.getUuid(), times.get(ms.getTimeUUID()));
+      }
+      milestoneDates = dates;
+      Arrays.sort(sorted, Comparator.comparing(ms -> dates.get(ms.getUuid()), Comparator.nullsLast(Comparator.naturalOrder())));
+      milestones = sorted;
+  
+      HashMap<UUID, Integer> ords = new HashMap<>();
+      for (int i = 0; i < sorted.length; i++) {
+        ords.put(sorted[i].getUuid(), i);
+      }
+      ordinals = ords;
+    }
+  
+    private boolean isCurrent(Catalogue catalogue, Course course) {
+      return catalogueRevision == catalogue.getRevision() && timeRevision == course.getTimeRevision();
+    }
+  
+    private Date getDate(Milestone ms) {
+      if (milestoneDates.containsKey(ms.getUuid())) {
+        return milestoneDates.get(ms.getUuid());
+      }
+      // Milestone not (yet) part of the catalogue
+      return timeDates.get(ms.getTimeUUID());
+    }
+  
+    private int getOrdinal(UUID uuid) {
+      Integer ordinal = ordinals.get(uuid);
+      return ordinal == null ? -1 : ordinal;
+    }
+  
+    private Milestone getMilestone(UUID uuid) {
+      return getMilestone(getOrdinal(uuid));
+    }
+  
+    private Milestone getMilestone(int ordinal) {
+      if (ordinal < 0 || ordinal >= milestones.length) {
+        return null;
+      }
+      return milestones[ordinal];
+    }
+  
+    private int size() {
+      return milestones.length;
+    }
+  
+    private List<Milestone> getMilestones() {
+      return new ArrayList<>(Arrays.asList(milestones));
+    }
+  }
 }
@@ -1,12 +1,14 @@
 package ch.unibas.dmi.dbis.reqman.data;
 
 import ch.unibas.dmi.dbis.reqman.common.VersionedEntity;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
 
@@ -76,6 +78,11 @@ public class Group extends VersionedEntity implements Comparable<Group> {
    */
   private String exportFileName;
   
+  /**
+   * The modification counter of the progress and progress summary lists, used to detect stale derived data
+   */
+  private transient long revision = 0;
+  
   /**
    * Creates a new group with the specified arguments
    *
@@ -101,6 +108,16 @@ public class Group extends VersionedEntity implements Comparable<Group> {
     members = new ArrayList<>();
   }
   
+  /**
+   * Creates a group with the given, persisted, identifiers. Used by the {@link GroupDecoder}.
+   */
+  Group(UUID uuid, UUID courseUuid, UUID catalogueUuid) {
+    this.uuid = uuid;
+    this.courseUuid = courseUuid;
+    this.catalogueUuid = catalogueUuid;
+    members = new ArrayList<>();
+  }
+  
   /**
    * Returns the list of {@link Progress}
    *
@@ -164,6 +181,7 @@ public class Group extends VersionedEntity implements Comparable<Group> {
   }
   
   public boolean addProgress(Progress progress) {
+    revision++;
     return progressList.add(progress);
   }
   
@@ -177,13 +195,16 @@ public class Group extends VersionedEntity implements Comparable<Group> {
   public void setProgressList(List<Progress> progressList) {
     this.progressList.clear();
     this.progressList.addAll(progressList);
+    revision++;
   }
   
   public boolean removeProgress(Progress progress) {
+    revision++;
     return progressList.remove(progress);
   }
   
   public boolean addProgressSummary(ProgressSummary progressSummary) {
+    revision++;
     return progressSummaries.add(progressSummary);
   }
   
@@ -191,15 +212,48 @@ public class Group extends VersionedEntity implements Comparable<Group> {
     return new ArrayList<ProgressSummary>(progressSummaries);
   }
   
+  /**
+   * Returns an unmodifiable view of the list of {@link Progress}, without copying it.
+   *
+   * @return A read-only view of the progress list
+   */
+  @JsonIgnore
+  public List<Progress> progressListView() {
+    return Collections.unmodifiableList(progressList);
+  }
+  
+  /**
+   * Returns an unmodifiable view of the list of {@link ProgressSummary}, without copying it.
+   *
+   * @return A read-only view of the progress summaries
+   */
+  @JsonIgnore
+  public List<ProgressSummary> progressSummariesView() {
+    return Collections.unmodifiableList(progressSummaries);
+  }
+  
   public void setProgressSummaries(List<ProgressSummary> progressSummaryList) {
     this.progressSummaries.clear();
     this.progressSummaries.addAll(progressSummaryList);
+    revision++;
   }
   
   public boolean removeProgressSummary(ProgressSummary progressSummary) {
+    revision++;
     return progressSummaries.remove(progressSummary);
   }
   
+  /**
+   * Returns the revision of this group's progress and progress summary lists.
+   * The revision changes whenever one of these lists is modified.
+   *
+   * @return The current revision
+   */
+  @JsonIgnore
+  public long getRevision() {
+    return revision;
+  }
+  
   @Override
   public int compareTo(Group o) {
     return name.compareTo(o.getName());
@@ -223,8 +277,8 @@ public class Group extends VersionedEntity implements Comparable<Group> {
     int result = getUuid() != null ? getUuid().hashCode() : 0;
     result = 31 * result + (getName() != null ? getName().hashCode() : 0);
     result = 31 * result + (getProjectName() != null ? getProjectName().hashCode() : 0);
-    result = 31 * result + (getProgressList() != null ? getProgressList().hashCode() : 0);
-    result = 31 * result + (getProgressSummaries() != null ? getProgressSummaries().hashCode() : 0);
+    result = 31 * result + (progressList != null ? progressList.hashCode() : 0);
+    result = 31 * result + (progressSummaries != null ? progressSummaries.hashCode() : 0);
     result = 31 * result + (getVersion() != null ? getVersion().hashCode() : 0);
     return result;
   }
@@ -0,0 +1,299 @@
+package ch.unibas.dmi.dbis.reqman.data;
+
+import ch.unibas.dmi.dbis.reqman.common.JSONUtils;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Streaming decoder of the JSON representation of a {@link Group}.
+ * <p>
+ * The group, its {@link Progress}es and {@link ProgressSummary}s are decoded token by token from a {@link JsonParser},
+ * instead of being bound by introspection. Thus only the entities themselves are allocated, no matter how large the
+ * group file is. The rarely occurring {@link Member}s and textual dates are bound by the cached {@link ObjectReader}s
+ * of {@link JSONUtils}.
+ * <p>
+ * The decoded entities equal the ones bound by jackson: Unknown properties are ignored and absent ones keep their
+ * defaults.
+ *
+ * @author loris.sauter
+ */
+public final class GroupDecoder {
+  
+  private GroupDecoder() {
+    // No instance needed
+  }
+  
+  /**
+   * Decodes the group the given parser is positioned at, i.e. either before or at its start object token.
+   *
+   * @param parser The parser to read from
+   * @return The decoded group
+   * @throws IOException If the input is not a well-formed group
+   */
+  public static Group decode(@NotNull JsonParser parser) throws IOException {
+    return decode(parser, false);
+  }
+  
+  /**
+   * Decodes only the header of the group the given parser is positioned at, i.e. its uuids, names and members.
+   * The progress list and the progress summaries are skipped without being decoded, thus the returned group has none.
+   *
+   * @param parser The parser to read from
+   * @return The decoded group, without progresses and progress summaries
+   * @throws IOException If the input is not a well-formed group
+   */
+  public static Group decodeHeader(@NotNull JsonParser parser) throws IOException {
+    return decode(parser, true);
+  }
+  
+  private static Group decode(JsonParser parser, boolean headerOnly) throws IOException {
+    expectStartObject(parser);
+    String version = null;
+    boolean hasVersion = false;
+    UUID uuid = null;
+    UUID courseUuid = null;
+    UUID catalogueUuid = null;
+    String name = null;
+    String projectName = null;
+    String exportFileName = null;
+    List<Member> members = null;
+    List<Progress> progressList = null;
+    List<ProgressSummary> progressSummaries = null;
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.getCurrentName();
+      parser.nextToken();
+      if (headerOnly && (field.equals("progressList") || field.equals("progressSummaries"))) {
+        parser.skipChildren();
+        continue;
+      }
+      switch (field) {
+        case "version":
+          version = parser.getValueAsString();
+          hasVersion = true;
+          break;
+        case "uuid":
+          uuid = readUuid(parser);
+          break;
+        case "courseUuid":
+          courseUuid = readUuid(parser);
+          break;
+        case "catalogueUuid":
+          catalogueUuid = readUuid(parser);
+          break;
+        case "name":
+          name = parser.getValueAsString();
+          break;
+        case "projectName":
+          projectName = parser.getValueAsString();
+          break;
+        case "exportFileName":
+          exportFileName = parser.getValueAsString();
+          break;
+        case "members":
+          members = readMembers(parser);
+          break;
+        case "progressList":
+          progressList = readProgressList(parser);
+          break;
+        case "progressSummaries":
+          progressSummaries = readProgressSummaries(parser);
+          break;
+        default:
+          parser.skipChildren();
+      }
+    }
+    Group group = new Group(uuid == null ? UUID.randomUUID() : uuid, courseUuid, catalogueUuid);
+    if (hasVersion) {
+      group.setVersion(version);
+    }
+    group.setName(name);
+    group.setProjectName(projectName);
+    group.setExportFileName(exportFileName);
+    if (members != null) {
+      group.setMembers(members);
+    }
+    if (progressList != null) {
+      group.setProgressList(progressList);
+    }
+    if (progressSummaries != null) {
+      group.setProgressSummaries(progressSummaries);
+    }
+    return group;
+  }
+  
+  /**
+   * Decodes the progress the given parser is positioned at.
+   *
+   * @param parser The parser to read from
+   * @return The decoded progress
+   * @throws IOException If the input is not a well-formed progress
+   */
+  public static Progress decodeProgress(@NotNull JsonParser parser) throws IOException {
+    expectStartObject(parser);
+    UUID uuid = null;
+    double fraction = Progress.NO_PROGRESS;
+    UUID requirementUuid = null;
+    Date assessmentDate = null;
+    UUID progressSummaryUuid = null;
+    String comment = null;
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.getCurrentName();
+      parser.nextToken();
+      switch (field) {
+        case "uuid":
+          uuid = readUuid(parser);
+          break;
+        case "fraction":
+          fraction = parser.getValueAsDouble(Progress.NO_PROGRESS);
+          break;
+        case "requirementUUID":
+          requirementUuid = readUuid(parser);
+          break;
+        case "assessmentDate":
+          assessmentDate = readDate(parser);
+          break;
+        case "progressSummaryUUID":
+          progressSummaryUuid = readUuid(parser);
+          break;
+        case "comment":
+          comment = parser.getValueAsString();
+          break;
+        default:
+          parser.skipChildren();
+      }
+    }
+    Progress progress = new Progress(uuid == null ? UUID.randomUUID() : uuid);
+    progress.setFraction(fraction);
+    progress.setRequirementUUID(requirementUuid);
+    progress.setAssessmentDate(assessmentDate);
+    progress.setProgressSummaryUUID(progressSummaryUuid);
+    progress.setComment(comment);
+    return progress;
+  }
+  
+  /**
+   * Decodes the progress summary the given parser is positioned at.
+   *
+   * @param parser The parser to read from
+   * @return The decoded progress summary
+   * @throws IOException If the input is not a well-formed progress summary
+   */
+  public static ProgressSummary decodeProgressSummary(@NotNull JsonParser parser) throws IOException {
+    expectStartObject(parser);
+    UUID uuid = null;
+    UUID milestoneUuid = null;
+    String internalComment = null;
+    String externalComment = null;
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.getCurrentName();
+      parser.nextToken();
+      switch (field) {
+        case "uuid":
+          uuid = readUuid(parser);
+          break;
+        case "milestoneUUID":
+          milestoneUuid = readUuid(parser);
+          break;
+        case "internalComment":
+          internalComment = parser.getValueAsString();
+          break;
+        case "externalComment":
+          externalComment = parser.getValueAsString();
+          break;
+        default:
+          parser.skipChildren();
+      }
+    }
+    ProgressSummary summary = new ProgressSummary(uuid == null ? UUID.randomUUID() : uuid);
+    summary.setMilestoneUUID(milestoneUuid);
+    summary.setInternalComment(internalComment);
+    summary.setExternalComment(externalComment);
+    return summary;
+  }
+  
+  private static List<Member> readMembers(JsonParser parser) throws IOException {
+    if (!startArray(parser)) {
+      return null;
+    }
+    ObjectReader reader = JSONUtils.readerFor(Member.class);
+    List<Member> list = new ArrayList<>();
+    while (parser.nextToken() != JsonToken.END_ARRAY) {
+      list.add(reader.readValue(parser));
+    }
+    return list;
+  }
+  
+  private static List<Progress> readProgressList(JsonParser parser) throws IOException {
+    if (!startArray(parser)) {
+      return null;
+    }
+    List<Progress> list = new ArrayList<>();
+    while (parser.nextToken() != JsonToken.END_ARRAY) {
+      list.add(decodeProgress(parser));
+    }
+    return list;
+  }
+  
+  private static List<ProgressSummary> readProgressSummaries(JsonParser parser) throws IOException {
+    if (!startArray(parser)) {
+      return null;
+    }
+    List<ProgressSummary> list = new ArrayList<>();
+    while (parser.nextToken() != JsonToken.END_ARRAY) {
+      list.add(decodeProgressSummary(parser));
+    }
+    return list;
+  }
+  
+  /**
+   * Checks whether the current token starts an array, null values are skipped
+   */
+  private static boolean startArray(JsonParser parser) throws IOException {
+    if (parser.getCurrentToken() == JsonToken.VALUE_NULL) {
+      return false;
+    }
+    if (parser.getCurrentToken() != JsonToken.START_ARRAY) {
+      throw new IOException("Expected an array at " + parser.getCurrentLocation());
+    }
+    return true;
+  }
+  
+  private static void expectStartObject(JsonParser parser) throws IOException {
+    if (parser.getCurrentToken() == null) {
+      parser.nextToken();
+    }
+    if (parser.getCurrentToken() != JsonToken.START_OBJECT) {
+      throw new IOException("Expected an object at " + parser.getCurrentLocation());
+    }
+  }
+  
+  private static UUID readUuid(JsonParser parser) throws IOException {
+    if (parser.getCurrentToken() == JsonToken.VALUE_NULL) {
+      return null;
+    }
+    try {
+      return UUID.fromString(parser.getText());
+    } catch (IllegalArgumentException ex) {
+      throw new IOException("Invalid uuid '" + parser.getText() + "' at " + parser.getCurrentLocation(), ex);
+    }
+  }
+  
+  private static Date readDate(JsonParser parser) throws IOException {
+    switch (parser.getCurrentToken()) {
+      case VALUE_NULL:
+        return null;
+      case VALUE_NUMBER_INT:
+        return new Date(parser.getLongValue());
+      default:
+        return JSONUtils.readerFor(Date.class).readValue(parser);
+    }
+  }
+}
@@ -31,6 +31,13 @@ public class Progress {
     uuid = UUID.randomUUID();
   }
   
+  /**
+   * Creates a progress with the given, persisted, identifier. Used by the {@link GroupDecoder}.
+   */
+  Progress(UUID uuid) {
+    this.uuid = uuid;
+  }
+  
   public Progress(Progress progress) {
     this();
     fraction = progress.getFraction();
@@ -24,6 +24,13 @@ public class ProgressSummary {
     this.uuid = UUID.randomUUID();
   }
   
+  /**
+   * Creates a progress summary with the given, persisted, identifier. Used by the {@link GroupDecoder}.
+   */
+  ProgressSummary(UUID uuid) {
+    this.uuid = uuid;
+  }
+  
   public ProgressSummary(ProgressSummary ps) {
     this();
     milestoneUUID = ps.getMilestoneUUID();
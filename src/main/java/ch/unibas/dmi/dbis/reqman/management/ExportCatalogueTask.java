@@ -1,5 +1,6 @@
 package ch.unibas.dmi.dbis.reqman.management;
 
+import ch.unibas.dmi.dbis.reqman.common.IOUtils;
 import ch.unibas.dmi.dbis.reqman.common.StringUtils;
 import ch.unibas.dmi.dbis.reqman.configuration.Templates;
 import ch.unibas.dmi.dbis.reqman.configuration.TemplatingConfigurationManager;
@@ -7,7 +8,6 @@ import ch.unibas.dmi.dbis.reqman.data.Catalogue;
 import ch.unibas.dmi.dbis.reqman.templating.RenderManager;
 
 import java.io.File;
-import java.io.PrintWriter;
 
 /**
  * TODO: Write JavaDoc
@@ -53,12 +53,11 @@ public class ExportCatalogueTask extends ManagementTask<Boolean> {
             exportFile += "." + extension;
         }
         File eFile = new File(exportFile);
-        PrintWriter pw = new PrintWriter(eFile);
-        pw.write(export);
-        pw.close();
-        pw.flush();
-
-        updateAll("Successfully wrote export to disk", 0.9);
+        if (IOUtils.writeIfChanged(eFile, export)) {
+            updateAll("Successfully wrote export to disk", 0.9);
+        } else {
+            updateAll("Export unchanged, not written", 0.9);
+        }
 
         LOGGER.info("==============================");
         LOGGER.info(" D O N E   Catalogue Export @ " + StringUtils.prettyPrintTimestamp(System.currentTimeMillis()));
@@ -1,5 +1,6 @@
 package ch.unibas.dmi.dbis.reqman.management;
 
+import ch.unibas.dmi.dbis.reqman.common.IOUtils;
 import ch.unibas.dmi.dbis.reqman.configuration.ConfigUtils;
 import ch.unibas.dmi.dbis.reqman.configuration.Templates;
 import ch.unibas.dmi.dbis.reqman.configuration.TemplatingConfigurationManager;
@@ -8,7 +9,6 @@ import ch.unibas.dmi.dbis.reqman.data.Group;
 import ch.unibas.dmi.dbis.reqman.templating.RenderManager;
 
 import java.io.File;
-import java.io.PrintWriter;
 import java.util.List;
 
 /**
@@ -59,12 +59,11 @@ public class ExportMultipleGroupTask extends ManagementTask<Boolean> {
                 exportFile += "." + extension;
             }
             File eFile = new File(exportFile);
-            PrintWriter pw = new PrintWriter(eFile);
-            pw.write(export);
-            pw.flush();
-            pw.close();
-
-            updateAll("Wrote export to disk (" + eFile.getPath() + ")", calcAfterWrite(i));
+            if (IOUtils.writeIfChanged(eFile, export)) {
+                updateAll("Wrote export to disk (" + eFile.getPath() + ")", calcAfterWrite(i));
+            } else {
+                updateAll("Export unchanged (" + eFile.getPath() + ")", calcAfterWrite(i));
+            }
 
             LOGGER.info("============================");
             LOGGER.info(" FINISHED : " + g.getName() + " @ " + ch.unibas.dmi.dbis.reqman.common.StringUtils.prettyPrintTimestamp(System.currentTimeMillis()));
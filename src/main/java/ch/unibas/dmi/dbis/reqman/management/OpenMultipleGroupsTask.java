@@ -1,6 +1,7 @@
 package ch.unibas.dmi.dbis.reqman.management;
 
 import ch.unibas.dmi.dbis.reqman.common.JSONUtils;
+import ch.unibas.dmi.dbis.reqman.common.ParallelLoader;
 import ch.unibas.dmi.dbis.reqman.data.Group;
 
 import java.io.File;
@@ -20,27 +21,15 @@ public class OpenMultipleGroupsTask extends ManagementTask<List<Group>> {
         this.files = new ArrayList<>(files);
     }
 
-    @Override
-    protected List<Group> call() throws Exception {
-        List<Group> list = new ArrayList<>();
-        for (int i = 1; i <= files.size(); i++) {
-            updateAll("Opening group " + files.get(i - 1).getName() + "..." + String.format(" (%d/%d)", i, files.size()), calcFirstProgress(i));
-            Group gr = JSONUtils.readGroupJSONFile(files.get(i - 1));
-            list.add(gr);
-            updateAll("Succsessfully opened group " + gr.getName() + "." + String.format(" (%d/%d)", i, files.size()), calcSecondProgress(i));
-        }
-        return list;
-    }
-
     /**
-     * @param i Must be that first stage: i==1
-     * @return
+     * Reads the group files concurrently. Since files finish in any order, the progress is reported by the number of
+     * files read so far.
      */
-    private double calcFirstProgress(double i) {
-        return i * (0.2 / (double) files.size()) + (i - 1) * (0.8 / (double) files.size());
-    }
-
-    private double calcSecondProgress(double i) {
-        return i * (0.2 / (double) files.size()) + (i) * (0.8 / (double) files.size());
+    @Override
+    protected List<Group> call() throws Exception {
+        updateAll(String.format("Opening %d groups...", files.size()), 0);
+        return ParallelLoader.loadAll(files, JSONUtils::readGroupJSONFile, (file, done, total) ->
+                updateAll("Succsessfully opened group " + file.getName() + "." + String.format(" (%d/%d)", done, total), done / (double) total)
+        );
     }
 }
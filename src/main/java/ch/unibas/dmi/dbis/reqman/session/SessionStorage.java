@@ -1,5 +1,7 @@
 package ch.unibas.dmi.dbis.reqman.session;
 
+import ch.unibas.dmi.dbis.reqman.storage.ReqmanFile;
+import ch.unibas.dmi.dbis.reqman.storage.StorageFormat;
 import ch.unibas.dmi.dbis.reqman.ui.MainScene;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
@@ -27,6 +29,7 @@ public class SessionStorage {
   private List<String> lastOpenGroups;
   
   private UUID lastActiveProgressSummary;
+  private Map<ReqmanFile.Type, StorageFormat> storageFormats;
   
   public boolean isEnabled() {
     return enabled;
@@ -52,6 +55,19 @@ public class SessionStorage {
     this.lastOpenGroups = lastOpenGroups;
   }
   
+  /**
+   * Returns the formats the entities are written in, per type.
+   *
+   * @return The formats set per type or null, if the session predates selectable formats
+   */
+  public Map<ReqmanFile.Type, StorageFormat> getStorageFormats() {
+    return storageFormats;
+  }
+  
+  public void setStorageFormats(Map<ReqmanFile.Type, StorageFormat> storageFormats) {
+    this.storageFormats = storageFormats;
+  }
+  
   public UUID getLastActiveProgressSummary() {
     return lastActiveProgressSummary;
   }
@@ -0,0 +1,278 @@
+package ch.unibas.dmi.dbis.reqman.storage;
+
+import ch.unibas.dmi.dbis.reqman.common.JSONUtils;
+import ch.unibas.dmi.dbis.reqman.data.Group;
+import ch.unibas.dmi.dbis.reqman.data.Progress;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * The append-only journal of the assessments of a group, stored next to its group file.
+ * <p>
+ * Every assessment of a {@link Progress} is appended as a single line of JSON, thus it is durable without rewriting the
+ * whole group file. Opening a group replays its journal over the group file, see {@link #replay(File, Group)}.
+ * Once the group file is written again, the events contained in it are dropped from the journal, see
+ * {@link #compacted(long)}. A line torn by a crash while appending is discarded.
+ *
+ * @author loris.sauter
+ */
+public final class AssessmentJournal implements Closeable {
+  
+  /**
+   * The extension appended to the group file name
+   */
+  public static final String EXTENSION = "journal";
+  
+  private static final Logger LOGGER = LogManager.getLogger();
+  
+  private final File file;
+  private Writer writer;
+  private int size;
+  
+  /**
+   * The number of events dropped since the journal was opened
+   */
+  private long dropped;
+  
+  private AssessmentJournal(File file, int size) throws IOException {
+    this.file = file;
+    this.size = size;
+    this.writer = openWriter(file);
+  }
+  
+  /**
+   * Returns the journal file of the given group file
+   *
+   * @param groupFile The group file
+   * @return The journal file, which may not exist
+   */
+  public static File fileOf(@NotNull File groupFile) {
+    return new File(groupFile.getAbsoluteFile().getParentFile(), groupFile.getName() + "." + EXTENSION);
+  }
+  
+  /**
+   * Opens the journal of the given group file for appending, discarding a torn last line.
+   *
+   * @param groupFile The group file to open the journal of
+   * @return The journal of the group file
+   * @throws IOException If the journal cannot be opened
+   */
+  static AssessmentJournal open(@NotNull File groupFile) throws IOException {
+    File file = fileOf(groupFile);
+    int size = 0;
+    if (file.exists()) {
+      byte[] bytes = Files.readAllBytes(file.toPath());
+      int end = 0;
+      for (int i = 0; i < bytes.length; i++) {
+        if (bytes[i] == '\n') {
+          size++;
+          end = i + 1;
+        }
+      }
+      if (end < bytes.length) {
+        LOGGER.warn("Discarding the torn last event of {}", file);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+          channel.truncate(end);
+        }
+      }
+    }
+    return new AssessmentJournal(file, size);
+  }
+  
+  /**
+   * Applies the journal of the given group file to the given group, which was read from that file.
+   * Replaying stops at the first unreadable event, events of unknown progresses are ignored.
+   *
+   * @param groupFile The group file the group was read from
+   * @param group     The group to apply the events to
+   * @return The number of events applied
+   * @throws IOException If the journal cannot be read
+   */
+  static int replay(@NotNull File groupFile, @NotNull Group group) throws IOException {
+    File file = fileOf(groupFile);
+    if (!file.exists()) {
+      return 0;
+    }
+    Map<UUID, Progress> progresses = group.getProgressList().stream().collect(Collectors.toMap(Progress::getUuid, Function.identity()));
+    int applied = 0;
+    try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        Event event;
+        try {
+          event = JSONUtils.readFromString(line, Event.class);
+        } catch (IOException e) {
+          LOGGER.warn("Stopped replaying {} at an unreadable event: {}", file, e.getMessage());
+          break;
+        }
+        Progress progress = progresses.get(event.getProgress());
+        if (progress == null) {
+          LOGGER.debug("Ignoring event of unknown progress {}", event.getProgress());
+          continue;
+        }
+        event.applyTo(progress);
+        applied++;
+      }
+    }
+    LOGGER.debug("Replayed {} events of {}", applied, file);
+    return applied;
+  }
+  
+  /**
+   * Appends the current assessment of the given progress.
+   *
+   * @param progress The assessed progress
+   * @return The number of events in the journal
+   * @throws IOException If the event cannot be appended
+   */
+  synchronized int append(@NotNull Progress progress) throws IOException {
+    writer.write(JSONUtils.toJSONLine(Event.of(progress)));
+    writer.write('\n');
+    writer.flush();
+    return ++size;
+  }
+  
+  /**
+   * Returns the number of events in the journal.
+   *
+   * @return The number of events not yet compacted
+   */
+  synchronized int size() {
+    return size;
+  }
+  
+  /**
+   * Returns the sequence number of the latest event, which counts all events appended since the journal was opened,
+   * including the ones already dropped. Unlike {@link #size()}, it is not shifted by compacting the journal.
+   *
+   * @return The number of events ever in the journal since it was opened
+   */
+  synchronized long sequence() {
+    return dropped + size;
+  }
+  
+  /**
+   * Drops the events up to the given sequence number, after the group file was written with them.
+   * Events appended meanwhile are kept, as are events dropped already by a later write, which finished first.
+   *
+   * @param mark The sequence number of the latest event contained in the written group file, as of
+   *             {@link #sequence()} when it was written
+   * @throws IOException If the journal cannot be rewritten
+   */
+  synchronized void compacted(long mark) throws IOException {
+    int count = (int) Math.min(mark - dropped, size);
+    if (count <= 0) {
+      return;
+    }
+    writer.close();
+    dropped += count;
+    if (count == size) {
+      Files.deleteIfExists(file.toPath());
+      size = 0;
+    } else {
+      List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+      lines = lines.subList(lines.size() - (size - count), lines.size());
+      File temp = new File(file.getParentFile(), "." + file.getName() + ".tmp");
+      Files.write(temp.toPath(), lines, StandardCharsets.UTF_8);
+      Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      size = lines.size();
+    }
+    writer = openWriter(file);
+    LOGGER.debug("Compacted {}, {} events left", file, size);
+  }
+  
+  @Override
+  public synchronized void close() throws IOException {
+    writer.close();
+    if (size == 0) {
+      Files.deleteIfExists(file.toPath());
+    }
+  }
+  
+  private static Writer openWriter(File file) throws IOException {
+    return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8));
+  }
+  
+  /**
+   * A single assessment of a progress
+   */
+  public static class Event {
+    private UUID progress;
+    private double fraction;
+    private Date date;
+    private UUID summary;
+    private String comment;
+  
+    public Event() {
+      // For jackson
+    }
+  
+    static Event of(Progress progress) {
+      Event event = new Event();
+      event.progress = progress.getUuid();
+      event.fraction = progress.getFraction();
+      event.date = progress.getAssessmentDate();
+      event.summary = progress.getProgressSummaryUUID();
+      event.comment = progress.getComment();
+      return event;
+    }
+  
+    void applyTo(Progress target) {
+      target.setFraction(fraction);
+      target.setAssessmentDate(date);
+      target.setProgressSummaryUUID(summary);
+      target.setComment(comment);
+    }
+  
+    public UUID getProgress() {
+      return progress;
+    }
+  
+    public void setProgress(UUID progress) {
+      this.progress = progress;
+    }
+  
+    public double getFraction() {
+      return fraction;
+    }
+  
+    public void setFraction(double fraction) {
+      this.fraction = fraction;
+    }
+  
+    public Date getDate() {
+      return date;
+    }
+  
+    public void setDate(Date date) {
+      this.date = date;
+    }
+  
+    public UUID getSummary() {
+      return summary;
+    }
+  
+    public void setSummary(UUID summary) {
+      this.summary = summary;
+    }
+  
+    public String getComment() {
+      return comment;
+    }
+  
+    public void setComment(String comment) {
+      this.comment = comment;
+    }
+  }
+}
@@ -0,0 +1,422 @@
+package ch.unibas.dmi.dbis.reqman.storage;
+
+import ch.unibas.dmi.dbis.reqman.common.JSONUtils;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Compact binary encoding of the JSON representation of an entity.
+ * <p>
+ * The entity is serialized by jackson as usual, but instead of the JSON text, its tokens are written as tagged binary
+ * values:
+ * <ul>
+ * <li>Strings which are UUIDs are written as 16 raw bytes upon their first occurrence and referenced by their index
+ * in this per file dictionary afterwards. Field names are kept in a dictionary the same way</li>
+ * <li>Integral numbers, thus also dates, which jackson writes as epoch milliseconds, are written as zig-zag varints</li>
+ * <li>Floating point numbers are written as raw 8 byte doubles</li>
+ * </ul>
+ * Files start with the {@link #MAGIC} header, by which {@link #isBinary(File)} recognises them.
+ * Since reading yields the very same JSON tokens, the decoded entities equal the ones read from JSON files.
+ *
+ * @author loris.sauter
+ */
+final class BinaryFormat {
+  
+  /**
+   * The header of binary files, followed by the format version
+   */
+  static final byte[] MAGIC = {'R', 'Q', 'M', 'B'};
+  
+  private static final int VERSION = 1;
+  
+  private static final int START_OBJECT = 1;
+  private static final int END_OBJECT = 2;
+  private static final int START_ARRAY = 3;
+  private static final int END_ARRAY = 4;
+  private static final int FIELD_NEW = 5;
+  private static final int FIELD_REF = 6;
+  private static final int STRING = 7;
+  private static final int UUID_NEW = 8;
+  private static final int UUID_REF = 9;
+  private static final int INT = 10;
+  private static final int LONG = 11;
+  private static final int DOUBLE = 12;
+  private static final int TRUE = 13;
+  private static final int FALSE = 14;
+  private static final int NULL = 15;
+  private static final int BIG_INTEGER = 16;
+  private static final int BIG_DECIMAL = 17;
+  
+  private BinaryFormat() {
+    // No instance needed
+  }
+  
+  /**
+   * Checks whether the given file starts with the binary header.
+   *
+   * @param file The file to check
+   * @return Whether the file is a binary file
+   * @throws IOException If the file cannot be read
+   */
+  static boolean isBinary(@NotNull File file) throws IOException {
+    try (InputStream in = new FileInputStream(file)) {
+      for (byte b : MAGIC) {
+        if (in.read() != b) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+  
+  /**
+   * Checks whether the given content starts with the binary header.
+   *
+   * @param content The content to check
+   * @return Whether the content is in binary format
+   */
+  static boolean isBinary(@NotNull byte[] content) {
+    if (content.length < MAGIC.length) {
+      return false;
+    }
+    for (int i = 0; i < MAGIC.length; i++) {
+      if (content[i] != MAGIC[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+  
+  /**
+   * Writes the given JSON tokens of an entity in binary to the given stream, which is not closed.
+   *
+   * @param tokens The tokens of the entity to write, see {@link JSONUtils#writeToTokens(Object)}
+   * @param stream The stream to write to
+   * @throws IOException If writing fails
+   */
+  static void write(@NotNull TokenBuffer tokens, @NotNull OutputStream stream) throws IOException {
+    DataOutputStream out = new DataOutputStream(stream);
+    try (JsonParser parser = tokens.asParser()) {
+      out.write(MAGIC);
+      out.writeByte(VERSION);
+      new Encoder(out).encode(parser);
+    }
+    out.flush();
+  }
+  
+  /**
+   * Reads an entity of the given class from the given binary file.
+   *
+   * @param file  The file to read from
+   * @param clazz The class of the entity
+   * @param <T>   The type of the entity
+   * @return The read entity
+   * @throws IOException If the file is not a well-formed binary file
+   */
+  static <T> T read(@NotNull File file, @NotNull Class<T> clazz) throws IOException {
+    return JSONUtils.readFromTokens(readTokens(file), clazz);
+  }
+  
+  /**
+   * Reads the JSON tokens encoded in the given binary file.
+   *
+   * @param file The file to read from
+   * @return The tokens of the file
+   * @throws IOException If the file is not a well-formed binary file
+   */
+  static TokenBuffer readTokens(@NotNull File file) throws IOException {
+    try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+      return readTokens(in, file.toString());
+    }
+  }
+  
+  /**
+   * Reads the JSON tokens encoded in binary in the given stream, which is not closed.
+   *
+   * @param stream The stream to read from
+   * @param source The source of the stream, for error messages
+   * @return The tokens of the stream
+   * @throws IOException If the stream is not well-formed binary
+   */
+  static TokenBuffer readTokens(@NotNull InputStream stream, String source) throws IOException {
+    TokenBuffer tokens = JSONUtils.createTokenBuffer();
+    DataInputStream in = new DataInputStream(stream);
+    byte[] header = new byte[MAGIC.length];
+    in.readFully(header);
+    if (!isBinary(header)) {
+      throw new IOException("Not a binary file: " + source);
+    }
+    int version = in.readUnsignedByte();
+    if (version != VERSION) {
+      throw new IOException("Unsupported binary format version " + version + " of " + source);
+    }
+    new Decoder(in).decode(tokens);
+    return tokens;
+  }
+  
+  /**
+   * Returns the given string as UUID, if it is the canonical representation of one
+   */
+  private static UUID asUuid(String str) {
+    if (str.length() != 36 || str.charAt(8) != '-' || str.charAt(13) != '-' || str.charAt(18) != '-' || str.charAt(23) != '-') {
+      return null;
+    }
+    try {
+      UUID uuid = UUID.fromString(str);
+      return uuid.toString().equals(str) ? uuid : null;
+    } catch (IllegalArgumentException ex) {
+      return null;
+    }
+  }
+  
+  private static final class Encoder {
+    private final DataOutputStream out;
+    private final HashMap<String, Integer> fields = new HashMap<>();
+    private final HashMap<UUID, Integer> uuids = new HashMap<>();
+  
+    private Encoder(DataOutputStream out) {
+      this.out = out;
+    }
+  
+    private void encode(JsonParser parser) throws IOException {
+      JsonToken token;
+      while ((token = parser.nextToken()) != null) {
+        switch (token) {
+          case START_OBJECT:
+            out.writeByte(START_OBJECT);
+            break;
+          case END_OBJECT:
+            out.writeByte(END_OBJECT);
+            break;
+          case START_ARRAY:
+            out.writeByte(START_ARRAY);
+            break;
+          case END_ARRAY:
+            out.writeByte(END_ARRAY);
+            break;
+          case FIELD_NAME:
+            writeFieldName(parser.getCurrentName());
+            break;
+          case VALUE_STRING:
+            writeString(parser.getText());
+            break;
+          case VALUE_NUMBER_INT:
+            writeInteger(parser);
+            break;
+          case VALUE_NUMBER_FLOAT:
+            if (parser.getNumberType() == JsonParser.NumberType.BIG_DECIMAL) {
+              out.writeByte(BIG_DECIMAL);
+              writeUtf(parser.getDecimalValue().toString());
+            } else {
+              out.writeByte(DOUBLE);
+              out.writeDouble(parser.getDoubleValue());
+            }
+            break;
+          case VALUE_TRUE:
+            out.writeByte(TRUE);
+            break;
+          case VALUE_FALSE:
+            out.writeByte(FALSE);
+            break;
+          case VALUE_NULL:
+            out.writeByte(NULL);
+            break;
+          default:
+            throw new IOException("Unsupported token " + token);
+        }
+      }
+    }
+  
+    private void writeFieldName(String name) throws IOException {
+      Integer index = fields.get(name);
+      if (index == null) {
+        fields.put(name, fields.size());
+        out.writeByte(FIELD_NEW);
+        writeUtf(name);
+      } else {
+        out.writeByte(FIELD_REF);
+        writeVarint(index);
+      }
+    }
+  
+    private void writeString(String str) throws IOException {
+      UUID uuid = asUuid(str);
+      if (uuid == null) {
+        out.writeByte(STRING);
+        writeUtf(str);
+        return;
+      }
+      Integer index = uuids.get(uuid);
+      if (index == null) {
+        uuids.put(uuid, uuids.size());
+        out.writeByte(UUID_NEW);
+        out.writeLong(uuid.getMostSignificantBits());
+        out.writeLong(uuid.getLeastSignificantBits());
+      } else {
+        out.writeByte(UUID_REF);
+        writeVarint(index);
+      }
+    }
+  
+    private void writeInteger(JsonParser parser) throws IOException {
+      switch (parser.getNumberType()) {
+        case INT:
+          out.writeByte(INT);
+          writeVarint(zigZag(parser.getIntValue()));
+          break;
+        case LONG:
+          out.writeByte(LONG);
+          writeVarint(zigZag(parser.getLongValue()));
+          break;
+        default:
+          out.writeByte(BIG_INTEGER);
+          writeUtf(parser.getBigIntegerValue().toString());
+      }
+    }
+  
+    private void writeUtf(String str) throws IOException {
+      byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+      writeVarint(bytes.length);
+      out.write(bytes);
+    }
+  
+    private void writeVarint(long value) throws IOException {
+      while ((value & ~0x7FL) != 0) {
+        out.writeByte((int) ((value & 0x7F) | 0x80));
+        value >>>= 7;
+      }
+      out.writeByte((int) value);
+    }
+  
+    private static long zigZag(long value) {
+      return (value << 1) ^ (value >> 63);
+    }
+  }
+  
+  private static final class Decoder {
+    private final DataInputStream in;
+    private final List<String> fields = new ArrayList<>();
+    private final List<String> uuids = new ArrayList<>();
+  
+    private Decoder(DataInputStream in) {
+      this.in = in;
+    }
+  
+    private void decode(TokenBuffer tokens) throws IOException {
+      int depth = 0;
+      do {
+        int tag = in.read();
+        switch (tag) {
+          case START_OBJECT:
+            tokens.writeStartObject();
+            depth++;
+            break;
+          case END_OBJECT:
+            tokens.writeEndObject();
+            depth--;
+            break;
+          case START_ARRAY:
+            tokens.writeStartArray();
+            depth++;
+            break;
+          case END_ARRAY:
+            tokens.writeEndArray();
+            depth--;
+            break;
+          case FIELD_NEW:
+            String name = readUtf();
+            fields.add(name);
+            tokens.writeFieldName(name);
+            break;
+          case FIELD_REF:
+            tokens.writeFieldName(fields.get(readIndex(fields.size())));
+            break;
+          case STRING:
+            tokens.writeString(readUtf());
+            break;
+          case UUID_NEW:
+            String uuid = new UUID(in.readLong(), in.readLong()).toString();
+            uuids.add(uuid);
+            tokens.writeString(uuid);
+            break;
+          case UUID_REF:
+            tokens.writeString(uuids.get(readIndex(uuids.size())));
+            break;
+          case INT:
+            tokens.writeNumber((int) unZigZag(readVarint()));
+            break;
+          case LONG:
+            tokens.writeNumber(unZigZag(readVarint()));
+            break;
+          case DOUBLE:
+            tokens.writeNumber(in.readDouble());
+            break;
+          case TRUE:
+            tokens.writeBoolean(true);
+            break;
+          case FALSE:
+            tokens.writeBoolean(false);
+            break;
+          case NULL:
+            tokens.writeNull();
+            break;
+          case BIG_INTEGER:
+            tokens.writeNumber(new BigInteger(readUtf()));
+            break;
+          case BIG_DECIMAL:
+            tokens.writeNumber(new BigDecimal(readUtf()));
+            break;
+          case -1:
+            throw new EOFException("Unexpected end of binary file");
+          default:
+            throw new IOException("Unknown tag " + tag);
+        }
+      } while (depth > 0);
+    }
+  
+    private int readIndex(int size) throws IOException {
+      long index = readVarint();
+      if (index >= size) {
+        throw new IOException("Invalid dictionary reference " + index);
+      }
+      return (int) index;
+    }
+  
+    private String readUtf() throws IOException {
+      long length = readVarint();
+      if (length > Integer.MAX_VALUE) {
+        throw new IOException("Invalid string length " + length);
+      }
+      byte[] bytes = new byte[(int) length];
+      in.readFully(bytes);
+      return new String(bytes, StandardCharsets.UTF_8);
+    }
+  
+    private long readVarint() throws IOException {
+      long value = 0;
+      for (int shift = 0; shift < 64; shift += 7) {
+        int b = in.readUnsignedByte();
+        value |= (long) (b & 0x7F) << shift;
+        if ((b & 0x80) == 0) {
+          return value;
+        }
+      }
+      throw new IOException("Malformed varint");
+    }
+  
+    private static long unZigZag(long value) {
+      return (value >>> 1) ^ -(value & 1);
+    }
+  }
+}
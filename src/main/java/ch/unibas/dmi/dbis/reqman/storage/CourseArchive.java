@@ -0,0 +1,541 @@
+package ch.unibas.dmi.dbis.reqman.storage;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * A single file archive holding all entities of a course: the course, its catalogue and its groups. As
+ * {@link StorageBackend}, the entities are addressed by their type and uuid.
+ * <p>
+ * The archive is a regular zip file, thus it may be inspected and extracted by any zip tool. Each entity is an entry
+ * named by its uuid and the extension of its type, e.g. {@code <uuid>.group}, holding the entity as encoded by its
+ * {@link StorageFormat}. The central directory of the zip file is read into memory and indexed on opening, thus a
+ * single entry is read without touching the others. The directory is not memory-mapped, since a mapping cannot be
+ * released explicitly and would prevent truncating or replacing the file on some platforms until garbage collected.
+ * <p>
+ * Writing an entry appends it together with a new central directory to the end of the archive, the previous entries
+ * are neither read nor moved. The written central directory is kept and indexed as it was written. Since the previous
+ * central directory is left intact, an interrupted write loses only the entry being written. The space of replaced
+ * entries is reclaimed by {@link #compact()}, which is done automatically once it exceeds the space of the live
+ * entries.
+ *
+ * @author loris.sauter
+ */
+public final class CourseArchive implements StorageBackend {
+  
+  /**
+   * The extension of archive files
+   */
+  public static final String EXTENSION = "reqman";
+  
+  private static final Logger LOGGER = LogManager.getLogger();
+  
+  private static final int LOCAL_HEADER = 0x04034b50;
+  private static final int CENTRAL_HEADER = 0x02014b50;
+  private static final int END_OF_DIRECTORY = 0x06054b50;
+  private static final int LOCAL_HEADER_SIZE = 30;
+  private static final int CENTRAL_HEADER_SIZE = 46;
+  private static final int END_OF_DIRECTORY_SIZE = 22;
+  private static final int VERSION = 20;
+  private static final int UTF8_NAMES = 0x0800;
+  private static final int STORED = 0;
+  private static final int DEFLATED = 8;
+  private static final int SCAN_CHUNK = 64 * 1024;
+  
+  /**
+   * The wasted space, below which the archive is not compacted automatically
+   */
+  private static final long COMPACTION_MINIMUM = 1024 * 1024;
+  
+  private final File file;
+  private FileChannel channel;
+  
+  /**
+   * The central directory, as read on opening or last written
+   */
+  private ByteBuffer directory;
+  
+  /**
+   * The position of each entry's record in the central {@link #directory}, by entry name
+   */
+  private final Map<String, Integer> index = new TreeMap<>();
+  
+  private long directoryOffset;
+  private long end;
+  private long liveBytes;
+  
+  private CourseArchive(File file) {
+    this.file = file;
+  }
+  
+  /**
+   * Opens the given archive, which is created if it does not exist.
+   *
+   * @param file The archive file
+   * @return The opened archive
+   * @throws IOException If the file is no archive or cannot be opened
+   */
+  public static CourseArchive open(@NotNull File file) throws IOException {
+    CourseArchive archive = new CourseArchive(file);
+    archive.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    try {
+      archive.load();
+    } catch (IOException | RuntimeException e) {
+      archive.channel.close();
+      throw e;
+    }
+    return archive;
+  }
+  
+  /**
+   * Checks whether the given file is an archive, by its extension.
+   *
+   * @param file The file to check
+   * @return Whether the file is an archive
+   */
+  public static boolean isArchive(@NotNull File file) {
+    return file.getName().endsWith("." + EXTENSION);
+  }
+  
+  /**
+   * Returns the name of the entry of the given entity.
+   *
+   * @param type The type of the entity
+   * @param uuid The uuid of the entity
+   * @return The name of its entry
+   */
+  public static String entryName(@NotNull ReqmanFile.Type type, @NotNull UUID uuid) {
+    return uuid + "." + type.getExtension();
+  }
+  
+  public File getFile() {
+    return file;
+  }
+  
+  /**
+   * Returns the names of all entries.
+   *
+   * @return The entry names, in their natural order
+   */
+  public synchronized List<String> names() {
+    return new ArrayList<>(index.keySet());
+  }
+  
+  @Override
+  public synchronized List<UUID> list(@NotNull ReqmanFile.Type type) {
+    String suffix = "." + type.getExtension();
+    List<UUID> uuids = new ArrayList<>();
+    for (String name : index.keySet()) {
+      if (name.endsWith(suffix)) {
+        try {
+          uuids.add(UUID.fromString(name.substring(0, name.length() - suffix.length())));
+        } catch (IllegalArgumentException e) {
+          LOGGER.debug("Ignoring entry {}, which is not named by uuid", name);
+        }
+      }
+    }
+    return uuids;
+  }
+  
+  public synchronized boolean contains(@NotNull String name) {
+    return index.containsKey(name);
+  }
+  
+  /**
+   * Reads the content of the given entry.
+   *
+   * @param name The name of the entry
+   * @return The content of the entry or null, if there is no such entry
+   * @throws IOException If the entry cannot be read or is corrupt
+   */
+  public synchronized byte[] read(@NotNull String name) throws IOException {
+    Integer record = index.get(name);
+    if (record == null) {
+      return null;
+    }
+    int method = directory.getShort(record + 10) & 0xFFFF;
+    int crc = directory.getInt(record + 16);
+    int compressedSize = directory.getInt(record + 20);
+    int size = directory.getInt(record + 24);
+    long offset = directory.getInt(record + 42) & 0xFFFFFFFFL;
+    ByteBuffer local = readAt(offset, LOCAL_HEADER_SIZE);
+    if (local.getInt(0) != LOCAL_HEADER) {
+      throw new IOException("Corrupt entry " + name + " in " + file);
+    }
+    long dataOffset = offset + LOCAL_HEADER_SIZE + (local.getShort(26) & 0xFFFF) + (local.getShort(28) & 0xFFFF);
+    byte[] data = readAt(dataOffset, compressedSize).array();
+    byte[] content = method == DEFLATED ? inflate(data, size) : data;
+    if (crc(content) != crc) {
+      throw new IOException("Checksum mismatch of entry " + name + " in " + file);
+    }
+    return content;
+  }
+  
+  @Override
+  public <T> T open(@NotNull ReqmanFile.Type type, @NotNull UUID uuid, @NotNull Class<T> clazz) throws IOException {
+    byte[] content = read(entryName(type, uuid));
+    return content == null ? null : StorageFormat.read(content, clazz);
+  }
+  
+  /**
+   * Writes the given content as the given entry, replacing an existing entry of the same name.
+   *
+   * @param name    The name of the entry
+   * @param content The content of the entry
+   * @throws IOException If the entry cannot be written
+   */
+  public synchronized void write(@NotNull String name, @NotNull byte[] content) throws IOException {
+    byte[] deflated = deflate(content);
+    boolean compress = deflated.length < content.length;
+    byte[] data = compress ? deflated : content;
+    byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+    int crc = crc(content);
+    int[] time = dosTime(System.currentTimeMillis());
+  
+    ByteBuffer local = ByteBuffer.allocate(LOCAL_HEADER_SIZE + nameBytes.length).order(ByteOrder.LITTLE_ENDIAN);
+    local.putInt(LOCAL_HEADER).putShort((short) VERSION).putShort((short) UTF8_NAMES).putShort((short) (compress ? DEFLATED : STORED));
+    local.putShort((short) time[0]).putShort((short) time[1]).putInt(crc).putInt(data.length).putInt(content.length);
+    local.putShort((short) nameBytes.length).putShort((short) 0).put(nameBytes);
+    local.flip();
+  
+    ByteBuffer record = ByteBuffer.allocate(CENTRAL_HEADER_SIZE + nameBytes.length).order(ByteOrder.LITTLE_ENDIAN);
+    record.putInt(CENTRAL_HEADER).putShort((short) VERSION).putShort((short) VERSION).putShort((short) UTF8_NAMES);
+    record.putShort((short) (compress ? DEFLATED : STORED)).putShort((short) time[0]).putShort((short) time[1]);
+    record.putInt(crc).putInt(data.length).putInt(content.length).putShort((short) nameBytes.length);
+    record.putShort((short) 0).putShort((short) 0).putShort((short) 0).putShort((short) 0).putInt(0);
+    record.putInt((int) checkOffset(end)).put(nameBytes);
+    record.flip();
+  
+    long offset = end;
+    writeAt(offset, local);
+    writeAt(offset + LOCAL_HEADER_SIZE + nameBytes.length, ByteBuffer.wrap(data));
+    writeDirectory(offset + LOCAL_HEADER_SIZE + nameBytes.length + data.length, name, record);
+    LOGGER.trace("Wrote entry {} to {}", name, file);
+    compactIfWasteful();
+  }
+  
+  /**
+   * Saves the given entity as entry, in the format of its type, unless the entry already holds it.
+   *
+   * @param type   The type of the entity
+   * @param uuid   The uuid of the entity
+   * @param entity The entity to save
+   * @throws IOException If the entry cannot be written
+   */
+  @Override
+  public void save(@NotNull ReqmanFile.Type type, @NotNull UUID uuid, @NotNull Object entity) throws IOException {
+    String name = entryName(type, uuid);
+    byte[] content = StorageFormat.getFormatFor(type).encode(entity);
+    if (!Arrays.equals(content, read(name))) {
+      write(name, content);
+    }
+  }
+  
+  /**
+   * Removes the given entry.
+   *
+   * @param name The name of the entry
+   * @return Whether there was such an entry
+   * @throws IOException If the central directory cannot be written
+   */
+  public synchronized boolean delete(@NotNull String name) throws IOException {
+    if (!index.containsKey(name)) {
+      return false;
+    }
+    writeDirectory(end, name, null);
+    compactIfWasteful();
+    return true;
+  }
+  
+  @Override
+  public boolean delete(@NotNull ReqmanFile.Type type, @NotNull UUID uuid) throws IOException {
+    return delete(entryName(type, uuid));
+  }
+  
+  @Override
+  public Kind getKind() {
+    return Kind.ARCHIVE;
+  }
+  
+  /**
+   * Rewrites the archive with only its current entries, reclaiming the space of replaced and deleted ones.
+   * The compacted archive is written next to this one and atomically moved over it.
+   *
+   * @throws IOException If the archive cannot be rewritten
+   */
+  public synchronized void compact() throws IOException {
+    Path target = file.toPath().toAbsolutePath();
+    Path temp = target.resolveSibling("." + target.getFileName() + ".tmp");
+    try {
+      try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+        ByteBuffer records = ByteBuffer.allocate(directory.capacity()).order(ByteOrder.LITTLE_ENDIAN);
+        long position = 0;
+        for (int record : index.values()) {
+          int length = recordLength(record);
+          long offset = directory.getInt(record + 42) & 0xFFFFFFFFL;
+          ByteBuffer local = readAt(offset, LOCAL_HEADER_SIZE);
+          long entryLength = LOCAL_HEADER_SIZE + (local.getShort(26) & 0xFFFF) + (local.getShort(28) & 0xFFFF) + (directory.getInt(record + 20) & 0xFFFFFFFFL);
+          long copied = 0;
+          while (copied < entryLength) {
+            copied += channel.transferTo(offset + copied, entryLength - copied, out);
+          }
+          int start = records.position();
+          records.put(slice(record, length));
+          records.putInt(start + 42, (int) checkOffset(position));
+          position += entryLength;
+        }
+        records.flip();
+        int size = records.remaining();
+        out.position(position);
+        while (records.hasRemaining()) {
+          out.write(records);
+        }
+        out.write(endOfDirectory(index.size(), size, position));
+        out.force(true);
+      }
+      channel.close();
+      directory = null;
+      Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(temp);
+      if (!channel.isOpen()) {
+        channel = FileChannel.open(target, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        load();
+      }
+    }
+    LOGGER.debug("Compacted {} to {} bytes", file, end);
+  }
+  
+  @Override
+  public synchronized void close() throws IOException {
+    channel.close();
+    directory = null;
+    index.clear();
+  }
+  
+  /**
+   * Finds the last valid end of central directory record, reads the central directory and indexes it.
+   * Bytes after that record, left by an interrupted write, are cut off.
+   */
+  private void load() throws IOException {
+    long size = channel.size();
+    if (size == 0) {
+      writeAt(0, endOfDirectory(0, 0, 0));
+      size = END_OF_DIRECTORY_SIZE;
+    }
+    long eocd = findEndOfDirectory(size);
+    if (eocd < 0) {
+      throw new IOException("Not an archive: " + file);
+    }
+    ByteBuffer record = readAt(eocd, END_OF_DIRECTORY_SIZE);
+    int directorySize = record.getInt(12);
+    directoryOffset = record.getInt(16) & 0xFFFFFFFFL;
+    end = eocd + END_OF_DIRECTORY_SIZE + (record.getShort(20) & 0xFFFF);
+    if (end < size) {
+      LOGGER.warn("Discarding {} bytes of an interrupted write to {}", size - end, file);
+      channel.truncate(end);
+    }
+    directory = readAt(directoryOffset, directorySize);
+    indexDirectory();
+  }
+  
+  private void indexDirectory() throws IOException {
+    index.clear();
+    liveBytes = 0;
+    for (int position = 0; position < directory.capacity(); position += recordLength(position)) {
+      if (directory.getInt(position) != CENTRAL_HEADER) {
+        throw new IOException("Corrupt central directory of " + file);
+      }
+      index.put(nameOf(position), position);
+      liveBytes += LOCAL_HEADER_SIZE + (directory.getShort(position + 28) & 0xFFFF) + (directory.getInt(position + 20) & 0xFFFFFFFFL);
+    }
+  }
+  
+  /**
+   * Scans backwards for the end of central directory record, which is directly preceded by the directory it denotes
+   */
+  private long findEndOfDirectory(long size) throws IOException {
+    long chunkEnd = size;
+    while (chunkEnd >= END_OF_DIRECTORY_SIZE) {
+      long chunkStart = Math.max(0, chunkEnd - SCAN_CHUNK);
+      ByteBuffer chunk = readAt(chunkStart, (int) (chunkEnd - chunkStart));
+      for (int i = chunk.capacity() - 4; i >= 0; i--) {
+        long position = chunkStart + i;
+        if (chunk.getInt(i) == END_OF_DIRECTORY && position + END_OF_DIRECTORY_SIZE <= size) {
+          ByteBuffer record = readAt(position, END_OF_DIRECTORY_SIZE);
+          long directorySize = record.getInt(12) & 0xFFFFFFFFL;
+          long offset = record.getInt(16) & 0xFFFFFFFFL;
+          if (offset + directorySize == position) {
+            return position;
+          }
+        }
+      }
+      chunkEnd = chunkStart + 3; // Overlapping, as the signature may span two chunks
+      if (chunkStart == 0) {
+        break;
+      }
+    }
+    return -1;
+  }
+  
+  /**
+   * Writes the current central directory, without the replaced entry, plus the given record at the given position
+   */
+  private void writeDirectory(long position, String replaced, ByteBuffer added) throws IOException {
+    Map<String, ByteBuffer> records = new TreeMap<>();
+    int size = 0;
+    for (Map.Entry<String, Integer> e : index.entrySet()) {
+      if (!e.getKey().equals(replaced)) {
+        ByteBuffer record = slice(e.getValue(), recordLength(e.getValue()));
+        records.put(e.getKey(), record);
+        size += record.remaining();
+      }
+    }
+    if (added != null) {
+      records.put(replaced, added);
+      size += added.remaining();
+    }
+    ByteBuffer buffer = ByteBuffer.allocate(size + END_OF_DIRECTORY_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    records.values().forEach(buffer::put);
+    buffer.put(endOfDirectory(records.size(), size, checkOffset(position)));
+    buffer.flip();
+    writeAt(position, buffer);
+    channel.force(false);
+  
+    buffer.position(0).limit(size);
+    directory = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+    directoryOffset = position;
+    end = position + size + END_OF_DIRECTORY_SIZE;
+    indexDirectory();
+  }
+  
+  private void compactIfWasteful() throws IOException {
+    long waste = directoryOffset - liveBytes;
+    if (waste > Math.max(liveBytes, COMPACTION_MINIMUM)) {
+      compact();
+    }
+  }
+  
+  private ByteBuffer endOfDirectory(int entries, int directorySize, long offset) {
+    ByteBuffer buffer = ByteBuffer.allocate(END_OF_DIRECTORY_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    buffer.putInt(END_OF_DIRECTORY).putShort((short) 0).putShort((short) 0);
+    buffer.putShort((short) entries).putShort((short) entries).putInt(directorySize).putInt((int) offset).putShort((short) 0);
+    buffer.flip();
+    return buffer;
+  }
+  
+  private int recordLength(int record) {
+    return CENTRAL_HEADER_SIZE + (directory.getShort(record + 28) & 0xFFFF) + (directory.getShort(record + 30) & 0xFFFF) + (directory.getShort(record + 32) & 0xFFFF);
+  }
+  
+  private String nameOf(int record) {
+    byte[] name = new byte[directory.getShort(record + 28) & 0xFFFF];
+    ByteBuffer view = directory.duplicate();
+    view.position(record + CENTRAL_HEADER_SIZE);
+    view.get(name);
+    return new String(name, StandardCharsets.UTF_8);
+  }
+  
+  private ByteBuffer slice(int position, int length) {
+    ByteBuffer view = directory.duplicate();
+    view.position(position).limit(position + length);
+    return view.slice();
+  }
+  
+  private ByteBuffer readAt(long position, int length) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, position + buffer.position()) < 0) {
+        throw new IOException("Unexpected end of " + file);
+      }
+    }
+    buffer.flip();
+    return buffer;
+  }
+  
+  private void writeAt(long position, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      position += channel.write(buffer, position);
+    }
+  }
+  
+  private long checkOffset(long offset) throws IOException {
+    if (offset > 0xFFFFFFFFL) {
+      throw new IOException("The archive " + file + " exceeds 4 GB");
+    }
+    return offset;
+  }
+  
+  private static int crc(byte[] content) {
+    CRC32 crc = new CRC32();
+    crc.update(content);
+    return (int) crc.getValue();
+  }
+  
+  private static byte[] deflate(byte[] content) {
+    Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    try {
+      deflater.setInput(content);
+      deflater.finish();
+      ByteArrayOutputStream out = new ByteArrayOutputStream(content.length / 2 + 64);
+      byte[] buffer = new byte[8192];
+      while (!deflater.finished()) {
+        out.write(buffer, 0, deflater.deflate(buffer));
+      }
+      return out.toByteArray();
+    } finally {
+      deflater.end();
+    }
+  }
+  
+  private byte[] inflate(byte[] data, int size) throws IOException {
+    Inflater inflater = new Inflater(true);
+    try {
+      inflater.setInput(data);
+      byte[] content = new byte[size];
+      int read = 0;
+      while (read < size && !inflater.finished()) {
+        int n = inflater.inflate(content, read, size - read);
+        if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+          break;
+        }
+        read += n;
+      }
+      if (read != size) {
+        throw new IOException("Truncated entry in " + file);
+      }
+      return content;
+    } catch (DataFormatException e) {
+      throw new IOException("Corrupt entry in " + file, e);
+    } finally {
+      inflater.end();
+    }
+  }
+  
+  /**
+   * Converts the given time into the MS-DOS time and date of zip entries
+   */
+  private static int[] dosTime(long millis) {
+    Calendar c = Calendar.getInstance();
+    c.setTimeInMillis(millis);
+    int year = Math.max(1980, c.get(Calendar.YEAR));
+    int time = c.get(Calendar.HOUR_OF_DAY) << 11 | c.get(Calendar.MINUTE) << 5 | c.get(Calendar.SECOND) >> 1;
+    int date = (year - 1980) << 9 | (c.get(Calendar.MONTH) + 1) << 5 | c.get(Calendar.DAY_OF_MONTH);
+    return new int[]{time, date};
+  }
+}
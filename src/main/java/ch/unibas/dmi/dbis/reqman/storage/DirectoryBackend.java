@@ -0,0 +1,162 @@
+package ch.unibas.dmi.dbis.reqman.storage;
+
+import ch.unibas.dmi.dbis.reqman.common.VersionedEntity;
+import ch.unibas.dmi.dbis.reqman.data.Catalogue;
+import ch.unibas.dmi.dbis.reqman.data.Course;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The default {@link StorageBackend}: One file per entity in a directory, named after the entity and written by its
+ * {@link SaveFile}.
+ * <p>
+ * Since the files are named after the entities, the files are resolved and listed by the {@link DirectoryManifest} of
+ * the directory, which knows the uuid of each file. Without a manifest, the uuids are read from the files when listing
+ * them, only the header of group files is read, see {@link StorageFormat#readGroupHeader(File)}.
+ *
+ * @author loris.sauter
+ */
+public final class DirectoryBackend implements StorageBackend {
+  
+  private static final Logger LOGGER = LogManager.getLogger();
+  
+  private final File dir;
+  
+  /**
+   * The manifest of the directory, null if the directory is listed instead
+   */
+  private final DirectoryManifest manifest;
+  
+  /**
+   * The files of the entities listed or saved so far, by uuid. Only used without manifest
+   */
+  private final Map<UUID, File> files = new ConcurrentHashMap<>();
+  
+  public DirectoryBackend(@NotNull File dir) {
+    this(dir, null);
+  }
+  
+  /**
+   * Creates the backend of the given directory, which resolves and lists the files by the given manifest.
+   *
+   * @param dir      The directory
+   * @param manifest The manifest of the directory, may be null to list the directory instead
+   */
+  DirectoryBackend(@NotNull File dir, DirectoryManifest manifest) {
+    this.dir = dir;
+    this.manifest = manifest;
+  }
+  
+  public File getDir() {
+    return dir;
+  }
+  
+  /**
+   * Returns the file of the entity of the given type and uuid.
+   *
+   * @param type The type of the entity
+   * @param uuid The uuid of the entity
+   * @return The file of the entity or null, if there is none
+   * @throws IOException If the directory cannot be listed
+   */
+  public File locate(@NotNull ReqmanFile.Type type, @NotNull UUID uuid) throws IOException {
+    if (manifest != null) {
+      return manifest.getFile(type, uuid);
+    }
+    File file = files.get(uuid);
+    if (file == null || !file.exists()) {
+      list(type);
+      file = files.get(uuid);
+    }
+    return file;
+  }
+  
+  @Override
+  public <T> T open(@NotNull ReqmanFile.Type type, @NotNull UUID uuid, @NotNull Class<T> clazz) throws IOException {
+    File file = locate(type, uuid);
+    return file == null ? null : StorageFormat.read(file, clazz);
+  }
+  
+  @Override
+  public void save(@NotNull ReqmanFile.Type type, @NotNull UUID uuid, @NotNull Object entity) throws IOException {
+    File file = locate(type, uuid);
+    SaveFile<VersionedEntity> saveFile = SaveFile.createForEntity((VersionedEntity) entity);
+    if (file != null) {
+      saveFile.setSaveFile(file);
+    } else {
+      saveFile.setSaveDirectory(dir);
+    }
+    saveFile.save();
+    if (manifest != null) {
+      manifest.record(saveFile.getSaveFile().getAbsoluteFile(), type, uuid);
+    } else {
+      files.put(uuid, saveFile.getSaveFile());
+    }
+  }
+  
+  @Override
+  public List<UUID> list(@NotNull ReqmanFile.Type type) throws IOException {
+    if (manifest != null) {
+      return manifest.getUuids(type);
+    }
+    File[] typed = dir.listFiles(type.getFileFilter);
+    if (typed == null) {
+      throw new IOException("Cannot list files of " + dir);
+    }
+    Arrays.sort(typed);
+    List<UUID> uuids = new ArrayList<>();
+    for (File file : typed) {
+      UUID uuid = readUuid(type, file);
+      if (uuid != null) {
+        files.put(uuid, file);
+        uuids.add(uuid);
+      }
+    }
+    return uuids;
+  }
+  
+  @Override
+  public boolean delete(@NotNull ReqmanFile.Type type, @NotNull UUID uuid) throws IOException {
+    File file = locate(type, uuid);
+    files.remove(uuid);
+    return file != null && Files.deleteIfExists(file.toPath());
+  }
+  
+  @Override
+  public Kind getKind() {
+    return Kind.DIRECTORY;
+  }
+  
+  @Override
+  public void close() {
+    files.clear();
+  }
+  
+  /**
+   * Reads the uuid of the entity in the given file, only the header of groups is read
+   */
+  static UUID readUuid(ReqmanFile.Type type, File file) {
+    try {
+      switch (type) {
+        case COURSE:
+          return StorageFormat.read(file, Course.class).getUuid();
+        case CATALOGUE:
+          return StorageFormat.read(file, Catalogue.class).getUuid();
+        case GROUP:
+          return StorageFormat.readGroupHeader(file).getUuid();
+        default:
+          return null;
+      }
+    } catch (IOException | RuntimeException e) {
+      LOGGER.debug("Could not read the uuid of {}: {}", file, e.getMessage());
+      return null;
+    }
+  }
+}
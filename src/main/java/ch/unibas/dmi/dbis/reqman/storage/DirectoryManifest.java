@@ -0,0 +1,385 @@
+package ch.unibas.dmi.dbis.reqman.storage;
+
+import ch.unibas.dmi.dbis.reqman.common.JSONUtils;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.core.util.FileUtils;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * The manifest of the ReqMan files of a directory: The type, uuid, path, modification time and size of each file,
+ * and the {@link StorageBackend.Kind} the directory is stored with.
+ * <p>
+ * The manifest is persisted as {@link #FILE_NAME} in the directory itself. Upon opening, the directory is listed once
+ * and only files whose modification time or size differ from the persisted manifest are read. From then on, a
+ * {@link WatchService} keeps the manifest current, thus listing the files and finding the file of a type is answered
+ * from memory. The manifest is persisted again when it is closed.
+ *
+ * @author loris.sauter
+ */
+final class DirectoryManifest implements Closeable {
+  
+  /**
+   * The name of the file the manifest is persisted in
+   */
+  static final String FILE_NAME = ".reqman-manifest.json";
+  
+  private static final Logger LOGGER = LogManager.getLogger();
+  
+  private final File dir;
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+  private volatile StorageBackend.Kind backend;
+  private final Consumer<File> changeListener;
+  private final WatchService watchService;
+  
+  private DirectoryManifest(File dir, Consumer<File> changeListener) throws IOException {
+    this.dir = dir;
+    this.changeListener = changeListener;
+    this.watchService = FileSystems.getDefault().newWatchService();
+  }
+  
+  /**
+   * Opens the manifest of the given directory and starts watching it.
+   *
+   * @param dir            The directory to manage the manifest of
+   * @param changeListener Notified, from the watching thread, of every ReqMan file changed, created or deleted in the
+   *                       directory
+   * @return The current manifest of the directory
+   * @throws IOException If the directory cannot be watched
+   */
+  static DirectoryManifest open(@NotNull File dir, @NotNull Consumer<File> changeListener) throws IOException {
+    DirectoryManifest manifest = new DirectoryManifest(dir, changeListener);
+    manifest.load();
+    manifest.dir.toPath().register(manifest.watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+    if (manifest.rescan()) {
+      manifest.persist();
+    }
+    Thread watcher = new Thread(manifest::watch, "ReqMan-Manifest-" + dir.getName());
+    watcher.setDaemon(true);
+    watcher.start();
+    return manifest;
+  }
+  
+  /**
+   * Returns the manifest entries of all files.
+   *
+   * @return The entries of the files, ordered by path
+   */
+  List<Entry> getEntries() {
+    return entries.values().stream().sorted(Comparator.comparing(Entry::getPath)).collect(Collectors.toList());
+  }
+  
+  /**
+   * Returns the files of the given type.
+   *
+   * @param type The type of the files
+   * @return The files of the type, ordered by path
+   */
+  List<File> getFiles(@NotNull ReqmanFile.Type type) {
+    return getEntries().stream().filter(e -> e.getType() == type).map(this::resolve).collect(Collectors.toList());
+  }
+  
+  /**
+   * Returns the first file of the given type.
+   *
+   * @param type The type of the file
+   * @return The file of the type or null, if there is none
+   */
+  File getFile(@NotNull ReqmanFile.Type type) {
+    List<File> files = getFiles(type);
+    return files.isEmpty() ? null : files.get(0);
+  }
+  
+  /**
+   * Returns the file of the entity of the given type and uuid.
+   *
+   * @param type The type of the entity
+   * @param uuid The uuid of the entity
+   * @return The file of the entity or null, if there is none
+   */
+  File getFile(@NotNull ReqmanFile.Type type, @NotNull UUID uuid) {
+    return getEntries().stream().filter(e -> e.getType() == type && uuid.equals(e.getUuid())).findFirst().map(this::resolve).orElse(null);
+  }
+  
+  /**
+   * Returns the uuids of the entities of the given type, files of which the uuid could not be read are left out.
+   *
+   * @param type The type of the entities
+   * @return The uuids of the entities, ordered by the path of their files
+   */
+  List<UUID> getUuids(@NotNull ReqmanFile.Type type) {
+    return getEntries().stream().filter(e -> e.getType() == type && e.getUuid() != null).map(Entry::getUuid).distinct().collect(Collectors.toList());
+  }
+  
+  File resolve(Entry entry) {
+    return new File(dir, entry.getPath());
+  }
+  
+  /**
+   * Returns the kind of backend recorded for the directory.
+   *
+   * @return The recorded kind of backend or null, if none was recorded yet
+   */
+  StorageBackend.Kind getBackend() {
+    return backend;
+  }
+  
+  /**
+   * Records the kind of backend the directory is stored with and persists the manifest.
+   *
+   * @param backend The kind of backend of the directory
+   */
+  void recordBackend(@NotNull StorageBackend.Kind backend) {
+    if (this.backend != backend) {
+      this.backend = backend;
+      persist();
+    }
+  }
+  
+  /**
+   * Records a file, which was just written by ReqMan, without reading it.
+   *
+   * @param file The written file
+   * @param type The type of the file
+   * @param uuid The uuid of the entity written
+   */
+  void record(@NotNull File file, @NotNull ReqmanFile.Type type, UUID uuid) {
+    if (dir.equals(file.getParentFile())) {
+      entries.put(file.getName(), Entry.of(file, type, uuid));
+    }
+  }
+  
+  /**
+   * Writes the manifest into its directory, if it still exists.
+   */
+  synchronized void persist() {
+    if (!dir.isDirectory()) {
+      return;
+    }
+    try {
+      Contents contents = new Contents();
+      contents.setBackend(backend);
+      contents.setEntries(getEntries());
+      JSONUtils.writeToJSONFile(contents, new File(dir, FILE_NAME));
+    } catch (IOException e) {
+      LOGGER.warn("Could not persist the manifest of {}: {}", dir, e.getMessage());
+    }
+  }
+  
+  /**
+   * Stops watching the directory and persists the manifest.
+   */
+  @Override
+  public void close() throws IOException {
+    watchService.close();
+    persist();
+  }
+  
+  private void load() {
+    File file = new File(dir, FILE_NAME);
+    if (!file.exists()) {
+      return;
+    }
+    try {
+      Contents contents;
+      try {
+        contents = JSONUtils.readFromJSONFile(file, Contents.class);
+      } catch (JsonMappingException e) {
+        contents = new Contents(); // Manifests without backend are a plain array of entries
+        contents.setEntries(Arrays.asList(JSONUtils.readFromJSONFile(file, Entry[].class)));
+      }
+      backend = contents.getBackend();
+      for (Entry e : contents.getEntries()) {
+        entries.put(e.getPath(), e);
+      }
+    } catch (IOException e) {
+      LOGGER.warn("Ignoring unreadable manifest of {}: {}", dir, e.getMessage());
+    }
+  }
+  
+  /**
+   * Brings the manifest in line with the directory, reading only changed files.
+   *
+   * @return Whether the manifest changed
+   */
+  private boolean rescan() {
+    File[] files = dir.listFiles(StorageManager.REQMAN_FILE_FILTER);
+    if (files == null) {
+      return false;
+    }
+    Set<String> present = new HashSet<>();
+    boolean changed = false;
+    for (File f : files) {
+      present.add(f.getName());
+      changed |= refresh(f);
+    }
+    changed |= entries.keySet().retainAll(present);
+    return changed;
+  }
+  
+  /**
+   * Updates the entry of the given file, if it changed.
+   *
+   * @return Whether the entry changed
+   */
+  private boolean refresh(File file) {
+    Entry known = entries.get(file.getName());
+    if (!file.isFile()) {
+      return entries.remove(file.getName()) != null;
+    }
+    if (known != null && known.isCurrent(file)) {
+      return false;
+    }
+    ReqmanFile.Type type = typeOf(file);
+    if (type == null) {
+      return false;
+    }
+    Entry entry = Entry.of(file, type, null); // State before reading, thus a concurrent write is noticed next time
+    entry.setUuid(DirectoryBackend.readUuid(type, file));
+    entries.put(file.getName(), entry);
+    LOGGER.trace("Updated manifest entry of {}", file);
+    return true;
+  }
+  
+  private void watch() {
+    try {
+      while (true) {
+        WatchKey key = watchService.take();
+        for (WatchEvent<?> event : key.pollEvents()) {
+          if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+            rescan();
+            continue;
+          }
+          File file = dir.toPath().resolve((Path) event.context()).toFile();
+          if (StorageManager.REQMAN_FILE_FILTER.accept(file)) {
+            refresh(file);
+            changeListener.accept(file);
+          }
+        }
+        if (!key.reset()) {
+          LOGGER.debug("Stopped watching {}, as it is no longer accessible", dir);
+          return;
+        }
+      }
+    } catch (ClosedWatchServiceException | InterruptedException e) {
+      LOGGER.debug("Stopped watching {}", dir);
+    }
+  }
+  
+  private static ReqmanFile.Type typeOf(File file) {
+    try {
+      return ReqmanFile.Type.valueOf(FileUtils.getFileExtension(file).toUpperCase());
+    } catch (IllegalArgumentException ex) {
+      return null;
+    }
+  }
+  
+  /**
+   * The persisted manifest
+   */
+  public static class Contents {
+    private StorageBackend.Kind backend;
+    private List<Entry> entries = new ArrayList<>();
+  
+    public StorageBackend.Kind getBackend() {
+      return backend;
+    }
+  
+    public void setBackend(StorageBackend.Kind backend) {
+      this.backend = backend;
+    }
+  
+    public List<Entry> getEntries() {
+      return entries;
+    }
+  
+    public void setEntries(List<Entry> entries) {
+      this.entries = entries;
+    }
+  }
+  
+  /**
+   * The manifest entry of a single file
+   */
+  public static class Entry {
+    private ReqmanFile.Type type;
+    private UUID uuid;
+    private String path;
+    private long lastModified;
+    private long size;
+  
+    public Entry() {
+      // For jackson
+    }
+  
+    static Entry of(File file, ReqmanFile.Type type, UUID uuid) {
+      Entry entry = new Entry();
+      entry.type = type;
+      entry.uuid = uuid;
+      entry.path = file.getName();
+      entry.lastModified = file.lastModified();
+      entry.size = file.length();
+      return entry;
+    }
+  
+    /**
+     * Checks whether the given file still has the modification time and size of this entry.
+     *
+     * @param file The file to check
+     * @return Whether the file is unchanged
+     */
+    boolean isCurrent(File file) {
+      return file.lastModified() == lastModified && file.length() == size;
+    }
+  
+    public ReqmanFile.Type getType() {
+      return type;
+    }
+  
+    public void setType(ReqmanFile.Type type) {
+      this.type = type;
+    }
+  
+    public UUID getUuid() {
+      return uuid;
+    }
+  
+    public void setUuid(UUID uuid) {
+      this.uuid = uuid;
+    }
+  
+    public String getPath() {
+      return path;
+    }
+  
+    public void setPath(String path) {
+      this.path = path;
+    }
+  
+    public long getLastModified() {
+      return lastModified;
+    }
+  
+    public void setLastModified(long lastModified) {
+      this.lastModified = lastModified;
+    }
+  
+    public long getSize() {
+      return size;
+    }
+  
+    public void setSize(long size) {
+      this.size = size;
+    }
+  }
+}
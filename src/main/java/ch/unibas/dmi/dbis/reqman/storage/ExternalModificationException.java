@@ -0,0 +1,27 @@
+package ch.unibas.dmi.dbis.reqman.storage;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Thrown if a file is about to be written, which was modified outside of ReqMan since it was last opened or saved.
+ * <p>
+ * The file is not overwritten, unless the modification is accepted by {@link StorageManager#acceptExternalModification(File)}.
+ *
+ * @author loris.sauter
+ */
+public class ExternalModificationException extends IOException {
+  
+  private static final long serialVersionUID = 1L;
+  
+  private final File file;
+  
+  public ExternalModificationException(File file) {
+    super("The file " + file + " was modified outside of ReqMan");
+    this.file = file;
+  }
+  
+  public File getFile() {
+    return file;
+  }
+}
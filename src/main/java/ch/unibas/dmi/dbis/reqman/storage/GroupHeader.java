@@ -0,0 +1,112 @@
+package ch.unibas.dmi.dbis.reqman.storage;
+
+import ch.unibas.dmi.dbis.reqman.data.Group;
+import ch.unibas.dmi.dbis.reqman.data.Member;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * The lightweight header of a group file: The identity, names and members of the group, but none of its progress.
+ * <p>
+ * Headers are cheap to read, see {@link StorageFormat#readGroupHeader(File)}, thus all group files of a directory may
+ * be listed without loading their progress.
+ *
+ * @author loris.sauter
+ */
+public final class GroupHeader {
+  
+  private final File file;
+  private final long lastModified;
+  private final UUID uuid;
+  private final UUID courseUuid;
+  private final UUID catalogueUuid;
+  private final String name;
+  private final String projectName;
+  private final List<Member> members;
+  
+  private GroupHeader(File file, long lastModified, Group group) {
+    this.file = file;
+    this.lastModified = lastModified;
+    this.uuid = group.getUuid();
+    this.courseUuid = group.getCourseUuid();
+    this.catalogueUuid = group.getCatalogueUuid();
+    this.name = group.getName();
+    this.projectName = group.getProjectName();
+    this.members = Collections.unmodifiableList(Arrays.asList(group.getMembers()));
+  }
+  
+  /**
+   * Reads the header of the given group file.
+   *
+   * @param file The group file to read
+   * @return The header of the group file
+   * @throws IOException If the file cannot be read
+   */
+  static GroupHeader read(@NotNull File file) throws IOException {
+    long lastModified = file.lastModified();
+    return new GroupHeader(file, lastModified, StorageFormat.readGroupHeader(file));
+  }
+  
+  public File getFile() {
+    return file;
+  }
+  
+  /**
+   * Returns the modification time of the file at the time this header was read
+   *
+   * @return The modification time of the file, as of {@link File#lastModified()}
+   */
+  public long getLastModified() {
+    return lastModified;
+  }
+  
+  /**
+   * Checks whether the file has been modified since this header was read.
+   *
+   * @return Whether the header is outdated
+   */
+  public boolean isOutdated() {
+    return file.lastModified() != lastModified;
+  }
+  
+  public UUID getUuid() {
+    return uuid;
+  }
+  
+  public UUID getCourseUuid() {
+    return courseUuid;
+  }
+  
+  public UUID getCatalogueUuid() {
+    return catalogueUuid;
+  }
+  
+  public String getName() {
+    return name;
+  }
+  
+  public String getProjectName() {
+    return projectName;
+  }
+  
+  public List<Member> getMembers() {
+    return members;
+  }
+  
+  @Override
+  public String toString() {
+    final StringBuffer sb = new StringBuffer("GroupHeader{");
+    sb.append("file=").append(file);
+    sb.append(", uuid=").append(uuid);
+    sb.append(", name='").append(name).append('\'');
+    sb.append(", projectName='").append(projectName).append('\'');
+    sb.append('}');
+    return sb.toString();
+  }
+}
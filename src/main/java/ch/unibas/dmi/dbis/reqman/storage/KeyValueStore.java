@@ -0,0 +1,335 @@
+package ch.unibas.dmi.dbis.reqman.storage;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * An embedded, single file key-value store of entities: A {@link StorageBackend} with indexed random access.
+ * <p>
+ * The file is a log of records, each holding a key, the entity's type and uuid, and the entity as encoded by the
+ * {@link StorageFormat} of its type. Saving appends a record, deleting appends a record without value. Opening the
+ * store reads only the record headers to index the latest record of each key, thus opening an entity reads its
+ * record only, without parsing any other entity. Each record is checked against its checksum when read. A record torn
+ * by an interrupted write can only be the last one, which is therefore checked on opening and cut off if torn.
+ * <p>
+ * The space of replaced and deleted records is reclaimed by {@link #compact()}, which is done automatically once it
+ * exceeds the space of the live records.
+ *
+ * @author loris.sauter
+ */
+public final class KeyValueStore implements StorageBackend {
+  
+  /**
+   * The extension of key-value store files
+   */
+  public static final String EXTENSION = "reqkv";
+  
+  private static final Logger LOGGER = LogManager.getLogger();
+  
+  private static final byte[] MAGIC = {'R', 'Q', 'K', 'V'};
+  private static final int VERSION = 1;
+  private static final int HEADER_SIZE = MAGIC.length + 1;
+  
+  /**
+   * Key length, value length and checksum of key and value of a record
+   */
+  private static final int RECORD_HEADER_SIZE = 2 + 4 + 4;
+  private static final int DELETED = -1;
+  
+  /**
+   * The wasted space, below which the store is not compacted automatically
+   */
+  private static final long COMPACTION_MINIMUM = 1024 * 1024;
+  
+  private final File file;
+  private FileChannel channel;
+  
+  /**
+   * The position of the latest record of each key
+   */
+  private final Map<String, Long> index = new TreeMap<>();
+  
+  private long end;
+  private long liveBytes;
+  
+  private KeyValueStore(File file) {
+    this.file = file;
+  }
+  
+  /**
+   * Opens the given store, which is created if it does not exist.
+   *
+   * @param file The store file
+   * @return The opened store
+   * @throws IOException If the file is no store or cannot be opened
+   */
+  public static KeyValueStore open(@NotNull File file) throws IOException {
+    KeyValueStore store = new KeyValueStore(file);
+    store.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    try {
+      store.load();
+    } catch (IOException | RuntimeException e) {
+      store.channel.close();
+      throw e;
+    }
+    return store;
+  }
+  
+  public File getFile() {
+    return file;
+  }
+  
+  @Override
+  public <T> T open(@NotNull ReqmanFile.Type type, @NotNull UUID uuid, @NotNull Class<T> clazz) throws IOException {
+    byte[] value = get(CourseArchive.entryName(type, uuid));
+    return value == null ? null : StorageFormat.read(value, clazz);
+  }
+  
+  @Override
+  public void save(@NotNull ReqmanFile.Type type, @NotNull UUID uuid, @NotNull Object entity) throws IOException {
+    String key = CourseArchive.entryName(type, uuid);
+    byte[] value = StorageFormat.getFormatFor(type).encode(entity);
+    if (!Arrays.equals(value, get(key))) {
+      put(key, value);
+    }
+  }
+  
+  @Override
+  public synchronized List<UUID> list(@NotNull ReqmanFile.Type type) {
+    String suffix = "." + type.getExtension();
+    List<UUID> uuids = new ArrayList<>();
+    for (String key : index.keySet()) {
+      if (key.endsWith(suffix)) {
+        uuids.add(UUID.fromString(key.substring(0, key.length() - suffix.length())));
+      }
+    }
+    return uuids;
+  }
+  
+  @Override
+  public synchronized boolean delete(@NotNull ReqmanFile.Type type, @NotNull UUID uuid) throws IOException {
+    String key = CourseArchive.entryName(type, uuid);
+    if (!index.containsKey(key)) {
+      return false;
+    }
+    append(key, null);
+    return true;
+  }
+  
+  @Override
+  public Kind getKind() {
+    return Kind.KEY_VALUE;
+  }
+  
+  /**
+   * Returns the value of the given key.
+   *
+   * @param key The key to look up
+   * @return The value of the key or null, if there is none
+   * @throws IOException If the value cannot be read or is corrupt
+   */
+  public synchronized byte[] get(@NotNull String key) throws IOException {
+    Long position = index.get(key);
+    if (position == null) {
+      return null;
+    }
+    ByteBuffer header = readAt(position, RECORD_HEADER_SIZE);
+    int keyLength = header.getShort() & 0xFFFF;
+    int length = header.getInt();
+    int crc = header.getInt();
+    byte[] value = readAt(position + RECORD_HEADER_SIZE + keyLength, length).array();
+    if (crc(key.getBytes(StandardCharsets.UTF_8), value) != crc) {
+      throw new IOException("Checksum mismatch of " + key + " in " + file);
+    }
+    return value;
+  }
+  
+  /**
+   * Sets the value of the given key.
+   *
+   * @param key   The key to set
+   * @param value The value of the key
+   * @throws IOException If the value cannot be written
+   */
+  public synchronized void put(@NotNull String key, @NotNull byte[] value) throws IOException {
+    append(key, value);
+  }
+  
+  /**
+   * Rewrites the store with only the latest records of its keys.
+   * The compacted store is written next to this one and atomically moved over it.
+   *
+   * @throws IOException If the store cannot be rewritten
+   */
+  public synchronized void compact() throws IOException {
+    Path target = file.toPath().toAbsolutePath();
+    Path temp = target.resolveSibling("." + target.getFileName() + ".tmp");
+    try {
+      try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+        out.write(header());
+        for (long position : index.values()) {
+          long length = recordLength(readAt(position, RECORD_HEADER_SIZE));
+          long copied = 0;
+          while (copied < length) {
+            copied += channel.transferTo(position + copied, length - copied, out);
+          }
+        }
+        out.force(true);
+      }
+      channel.close();
+      Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(temp);
+      if (!channel.isOpen()) {
+        channel = FileChannel.open(target, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        load();
+      }
+    }
+    LOGGER.debug("Compacted {} to {} bytes", file, end);
+  }
+  
+  @Override
+  public synchronized void close() throws IOException {
+    channel.close();
+    index.clear();
+  }
+  
+  /**
+   * Indexes the records by reading their headers, cutting off a torn last record.
+   * Since the last record replaces the index entry of a previous record of its key, it is checked entirely.
+   */
+  private void load() throws IOException {
+    long size = channel.size();
+    if (size == 0) {
+      channel.write(header(), 0);
+      channel.force(true);
+      size = HEADER_SIZE;
+    }
+    ByteBuffer header = readAt(0, (int) Math.min(HEADER_SIZE, size));
+    byte[] magic = new byte[MAGIC.length];
+    if (header.remaining() < HEADER_SIZE || !Arrays.equals(MAGIC, readBytes(header, magic)) || header.get() != VERSION) {
+      throw new IOException("Not a key-value store: " + file);
+    }
+    index.clear();
+    liveBytes = 0;
+    long position = HEADER_SIZE;
+    long last = -1;
+    while (position + RECORD_HEADER_SIZE <= size) {
+      ByteBuffer record = readAt(position, RECORD_HEADER_SIZE);
+      long length = recordLength(record);
+      if (record.getInt(2) < DELETED || position + length > size) {
+        break;
+      }
+      int keyLength = record.getShort(0) & 0xFFFF;
+      String key = new String(readAt(position + RECORD_HEADER_SIZE, keyLength).array(), StandardCharsets.UTF_8);
+      Long previous = record.getInt(2) == DELETED ? index.remove(key) : index.put(key, position);
+      if (previous != null) {
+        liveBytes -= recordLength(readAt(previous, RECORD_HEADER_SIZE));
+      }
+      if (record.getInt(2) != DELETED) {
+        liveBytes += length;
+      }
+      last = position;
+      position += length;
+    }
+    if (last >= 0 && !isIntact(last)) {
+      position = last;
+    }
+    if (position < size) {
+      LOGGER.warn("Discarding {} bytes of an interrupted write to {}", size - position, file);
+      channel.truncate(position);
+      if (position == last) {
+        load(); // Indexes the previous record of the key again
+        return;
+      }
+    }
+    end = position;
+  }
+  
+  /**
+   * Checks the record at the given position against its checksum
+   */
+  private boolean isIntact(long position) throws IOException {
+    ByteBuffer header = readAt(position, RECORD_HEADER_SIZE);
+    int keyLength = header.getShort(0) & 0xFFFF;
+    int length = header.getInt(2);
+    ByteBuffer record = readAt(position + RECORD_HEADER_SIZE, keyLength + (length == DELETED ? 0 : length));
+    byte[] key = new byte[keyLength];
+    record.get(key);
+    byte[] value = new byte[record.remaining()];
+    record.get(value);
+    return crc(key, value) == header.getInt(6);
+  }
+  
+  private void append(String key, byte[] value) throws IOException {
+    byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+    int length = value == null ? 0 : value.length;
+    ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + keyBytes.length + length);
+    record.putShort((short) keyBytes.length).putInt(value == null ? DELETED : length).putInt(crc(keyBytes, value == null ? new byte[0] : value));
+    record.put(keyBytes);
+    if (value != null) {
+      record.put(value);
+    }
+    record.flip();
+    long position = end;
+    while (record.hasRemaining()) {
+      position += channel.write(record, position);
+    }
+    channel.force(false);
+    Long previous = value == null ? index.remove(key) : index.put(key, end);
+    if (previous != null) {
+      liveBytes -= recordLength(readAt(previous, RECORD_HEADER_SIZE));
+    }
+    if (value != null) {
+      liveBytes += position - end;
+    }
+    end = position;
+    if (end - HEADER_SIZE - liveBytes > Math.max(liveBytes, COMPACTION_MINIMUM)) {
+      compact();
+    }
+  }
+  
+  private static long recordLength(ByteBuffer header) {
+    int length = header.getInt(2);
+    return RECORD_HEADER_SIZE + (header.getShort(0) & 0xFFFF) + (length == DELETED ? 0 : length);
+  }
+  
+  private static ByteBuffer header() {
+    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+    header.put(MAGIC).put((byte) VERSION).flip();
+    return header;
+  }
+  
+  private static byte[] readBytes(ByteBuffer buffer, byte[] bytes) {
+    buffer.get(bytes);
+    return bytes;
+  }
+  
+  private ByteBuffer readAt(long position, int length) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(length);
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, position + buffer.position()) < 0) {
+        throw new IOException("Unexpected end of " + file);
+      }
+    }
+    buffer.flip();
+    return buffer;
+  }
+  
+  private static int crc(byte[] key, byte[] value) {
+    CRC32 crc = new CRC32();
+    crc.update(key);
+    crc.update(value);
+    return (int) crc.getValue();
+  }
+}
@@ -0,0 +1,77 @@
+package ch.unibas.dmi.dbis.reqman.storage;
+
+import ch.unibas.dmi.dbis.reqman.data.Group;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+
+/**
+ * A group file of which only the {@link GroupHeader} is read upfront, the group with all its progress is materialized
+ * on first access.
+ * <p>
+ * The materialized group is only softly referenced, thus the garbage collector may release it under memory pressure,
+ * in which case the next access reads it again. Since such a group is never modified, no changes get lost.
+ * Groups which are to be modified, e.g. opened for assessment, are handed over by {@link #detach()} and held
+ * by their owner from then on.
+ *
+ * @author loris.sauter
+ */
+public final class LazyGroup {
+  
+  private static final Logger LOGGER = LogManager.getLogger();
+  
+  private final GroupHeader header;
+  
+  private SoftReference<Group> reference = null;
+  
+  LazyGroup(GroupHeader header) {
+    this.header = header;
+  }
+  
+  public GroupHeader getHeader() {
+    return header;
+  }
+  
+  /**
+   * Checks whether the group is currently materialized.
+   *
+   * @return Whether the group is in memory
+   */
+  public synchronized boolean isLoaded() {
+    return reference != null && reference.get() != null;
+  }
+  
+  /**
+   * Returns the group, which is read from its file if it is not in memory. The returned group must not be modified.
+   * The journal of the file is replayed onto the read group, thus it contains the assessments not yet written to the
+   * file, as if it was opened.
+   *
+   * @return The group of this file
+   * @throws IOException If the file or its journal cannot be read
+   */
+  public synchronized Group get() throws IOException {
+    Group group = reference == null ? null : reference.get();
+    if (group == null) {
+      group = StorageFormat.read(header.getFile(), Group.class);
+      AssessmentJournal.replay(header.getFile(), group);
+      reference = new SoftReference<>(group);
+      LOGGER.debug("Materialized group {}", header.getName());
+    }
+    return group;
+  }
+  
+  /**
+   * Returns the group and hands it over to the caller, who may modify it.
+   * Later accesses read the group again from its file.
+   *
+   * @return The group of this file
+   * @throws IOException If the file cannot be read
+   */
+  public synchronized Group detach() throws IOException {
+    Group group = get();
+    reference = null;
+    return group;
+  }
+}
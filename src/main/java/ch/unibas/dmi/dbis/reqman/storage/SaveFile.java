@@ -10,12 +10,13 @@ import org.jetbrains.annotations.NotNull;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * The {@link SaveFile} class represents a save file of an entity.
  * <p>
  * The save file is used to open and write the entity it is typed for, using {@link
- * ch.unibas.dmi.dbis.reqman.common.JSONUtils}.
+ * ch.unibas.dmi.dbis.reqman.common.JSONUtils} or, if selected for its type, the binary {@link StorageFormat}.
  * Furthermore, it keeps track of the on disk storage location, so that it could be written to disk without the need
  * of getting a location for it.
  *
@@ -38,21 +39,21 @@ public class SaveFile<T extends VersionedEntity> {
     this.typeClass = typeClass;
   }
   
-  public static <T extends VersionedEntity> SaveFile createForEntity(@NotNull T entity) {
+  public static <T extends VersionedEntity> SaveFile<T> createForEntity(@NotNull T entity) {
     if (entity == null) {
       throw new IllegalArgumentException("Cannot create SaveFile for null entity");
     }
     return new SaveFile<>(entity);
   }
   
-  public static <T extends VersionedEntity> SaveFile createForSaveDir(@NotNull File dir, @NotNull Class<T> typeClass) {
+  public static <T extends VersionedEntity> SaveFile<T> createForSaveDir(@NotNull File dir, @NotNull Class<T> typeClass) {
     // TODO no way to check if directory, if not existent
     SaveFile<T> save = new SaveFile<>(typeClass);
     save.setSaveDirectory(dir);
     return save;
   }
   
-  public static <T extends VersionedEntity> SaveFile createForSaveFile(@NotNull File file, @NotNull Class<T> typeClass) {
+  public static <T extends VersionedEntity> SaveFile<T> createForSaveFile(@NotNull File file, @NotNull Class<T> typeClass) {
     SaveFile<T> save = new SaveFile<>(typeClass);
     save.setSaveFile(file);
     return save;
@@ -76,7 +77,27 @@ public class SaveFile<T extends VersionedEntity> {
       file = new File(getSaveFilePath());
     }
     entity.setVersion(Version.getInstance().getVersion());
-    JSONUtils.writeToJSONFile(entity, file);
+    getFormat().write(entity, file);
+  }
+  
+  /**
+   * Takes a snapshot of the entity and schedules writing it on the {@link SaveQueue}.
+   * Unlike {@link #save()}, this returns before the file is written.
+   *
+   * @return The future, which completes once the file is written
+   * @throws IOException If the snapshot cannot be taken
+   */
+  public CompletableFuture<Void> saveLater() throws IOException {
+    // No file set:
+    if (dir == null) {
+      throw new RuntimeException("No directory given");
+    }
+    
+    if (file == null) {
+      file = new File(getSaveFilePath());
+    }
+    entity.setVersion(Version.getInstance().getVersion());
+    return SaveQueue.getInstance().submit(file, getFormat(), JSONUtils.writeToTokens(entity));
   }
   
   private void saveSensitively() throws IOException{
@@ -93,7 +114,7 @@ public class SaveFile<T extends VersionedEntity> {
       file = new File(getSaveFileName(suffix++));
     }
     entity.setVersion(Version.getInstance().getVersion());
-    JSONUtils.writeToJSONFile(entity, file);
+    getFormat().write(entity, file);
   }
   
   public void open() throws IOException {
@@ -115,7 +136,7 @@ public class SaveFile<T extends VersionedEntity> {
     } else {
       throw new IllegalStateException("Cannot open a savefile, if neither savedir nor savefile is set");
     }
-    entity = JSONUtils.readFromJSONFile(file, typeClass);
+    entity = StorageFormat.read(file, typeClass);
   }
   
   public T getEntity() {
@@ -162,6 +183,17 @@ public class SaveFile<T extends VersionedEntity> {
   }
   
   
+  /**
+   * Returns the format to write this file in, as selected for its {@link ReqmanFile.Type}
+   */
+  StorageFormat getFormat() {
+    try {
+      return StorageFormat.getFormatFor(ReqmanFile.Type.valueOf(getDesignatedExtension().toUpperCase()));
+    } catch (IllegalArgumentException ex) {
+      return StorageFormat.JSON; // Not a designated type
+    }
+  }
+  
   private String getDesignatedExtension() {
     if (entity == null) {
       return typeClass.getTypeName().substring(typeClass.getTypeName().lastIndexOf(IOUtils.EXTENSION_SEPARATOR) + 1).toLowerCase();
@@ -0,0 +1,122 @@
+package ch.unibas.dmi.dbis.reqman.storage;
+
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+
+/**
+ * The write-behind queue of {@link SaveFile}s: A single background thread writes the snapshots of the entities to save.
+ * <p>
+ * Snapshots are taken by the caller, thus the entity may be modified while its snapshot is still waiting to be written.
+ * Saving a file again, while its previous save has not yet started, replaces the waiting snapshot by the latest one, so
+ * repeated saves of the same entity are written only once.
+ *
+ * @author loris.sauter
+ */
+public final class SaveQueue {
+  
+  private static final Logger LOGGER = LogManager.getLogger();
+  
+  private static SaveQueue instance = null;
+  
+  /**
+   * The saves not yet started, per file. Guarded by this queue
+   */
+  private final Map<File, PendingSave> pending = new HashMap<>();
+  
+  private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "ReqMan-Writer");
+    thread.setDaemon(true); // Pending saves are flushed on stop
+    return thread;
+  });
+  
+  private SaveQueue() {
+    // Singleton
+  }
+  
+  public static synchronized SaveQueue getInstance() {
+    if (instance == null) {
+      instance = new SaveQueue();
+    }
+    return instance;
+  }
+  
+  /**
+   * Schedules writing the given snapshot into the given file.
+   *
+   * @param file     The file to write to
+   * @param format   The format to write in
+   * @param snapshot The JSON tokens of the entity to write
+   * @return The future, which completes once the file is written. Saves which were coalesced share the same future
+   */
+  synchronized CompletableFuture<Void> submit(@NotNull File file, @NotNull StorageFormat format, @NotNull TokenBuffer snapshot) {
+    File key = file.getAbsoluteFile();
+    PendingSave save = pending.get(key);
+    if (save != null) {
+      LOGGER.debug("Coalescing save of {}", key);
+      save.format = format;
+      save.snapshot = snapshot;
+      return save.future;
+    }
+    save = new PendingSave(format, snapshot);
+    pending.put(key, save);
+    writer.execute(() -> write(key));
+    return save.future;
+  }
+  
+  /**
+   * Waits until all saves submitted so far are written.
+   *
+   * @param timeout The maximal time to wait, in milliseconds
+   * @return Whether all saves were written in time
+   */
+  public boolean flush(long timeout) {
+    try {
+      writer.submit(() -> {
+      }).get(timeout, TimeUnit.MILLISECONDS);
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    } catch (ExecutionException | TimeoutException e) {
+      LOGGER.warn("Not all saves were written: {}", e.toString());
+      return false;
+    }
+  }
+  
+  private void write(File file) {
+    PendingSave save;
+    synchronized (this) {
+      save = pending.remove(file);
+    }
+    try {
+      if (save.format.writeSnapshot(save.snapshot, file)) {
+        LOGGER.debug("Wrote {}", file);
+      } else {
+        LOGGER.debug("Skipped writing unchanged {}", file);
+      }
+      save.future.complete(null);
+    } catch (IOException | RuntimeException e) {
+      LOGGER.error("Could not write {}: {}", file, e.getMessage());
+      save.future.completeExceptionally(e);
+    }
+  }
+  
+  private static final class PendingSave {
+    private final CompletableFuture<Void> future = new CompletableFuture<>();
+    private StorageFormat format;
+    private TokenBuffer snapshot;
+  
+    private PendingSave(StorageFormat format, TokenBuffer snapshot) {
+      this.format = format;
+      this.snapshot = snapshot;
+    }
+  }
+}
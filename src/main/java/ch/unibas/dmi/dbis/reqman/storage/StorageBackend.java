@@ -0,0 +1,154 @@
+package ch.unibas.dmi.dbis.reqman.storage;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * The storage of the entities of a course: The course, its catalogue and its groups, addressed by their
+ * {@link ReqmanFile.Type} and uuid.
+ * <p>
+ * The {@link StorageManager} opens and saves the entities through its backend, which is selected by {@link Kind}.
+ * The default is the {@link DirectoryBackend}, with one file per entity in the save directory.
+ *
+ * @author loris.sauter
+ */
+public interface StorageBackend extends Closeable {
+  
+  /**
+   * Opens the entity of the given type and uuid.
+   *
+   * @param type  The type of the entity
+   * @param uuid  The uuid of the entity
+   * @param clazz The class of the entity
+   * @param <T>   The type of the entity
+   * @return The entity or null, if there is no such entity
+   * @throws IOException If the entity cannot be read
+   */
+  <T> T open(@NotNull ReqmanFile.Type type, @NotNull UUID uuid, @NotNull Class<T> clazz) throws IOException;
+  
+  /**
+   * Saves the given entity, replacing the stored one of the same type and uuid.
+   *
+   * @param type   The type of the entity
+   * @param uuid   The uuid of the entity
+   * @param entity The entity to save
+   * @throws IOException If the entity cannot be written
+   */
+  void save(@NotNull ReqmanFile.Type type, @NotNull UUID uuid, @NotNull Object entity) throws IOException;
+  
+  /**
+   * Lists the stored entities of the given type.
+   *
+   * @param type The type of the entities
+   * @return The uuids of the entities of the type
+   * @throws IOException If the storage cannot be listed
+   */
+  List<UUID> list(@NotNull ReqmanFile.Type type) throws IOException;
+  
+  /**
+   * Deletes the entity of the given type and uuid.
+   *
+   * @param type The type of the entity
+   * @param uuid The uuid of the entity
+   * @return Whether there was such an entity
+   * @throws IOException If the entity cannot be deleted
+   */
+  boolean delete(@NotNull ReqmanFile.Type type, @NotNull UUID uuid) throws IOException;
+  
+  /**
+   * Returns the kind of this backend.
+   *
+   * @return The kind of this backend
+   */
+  Kind getKind();
+  
+  /**
+   * The available backends. The kind a save directory is stored with is recorded in its manifest.
+   */
+  enum Kind {
+    /**
+     * One file per entity in the save directory, see {@link DirectoryBackend}
+     */
+    DIRECTORY,
+    /**
+     * A single zip file in the save directory, see {@link CourseArchive}
+     */
+    ARCHIVE,
+    /**
+     * A single key-value store file in the save directory, see {@link KeyValueStore}
+     */
+    KEY_VALUE;
+    
+    /**
+     * The name, without extension, of single file backends in the save directory
+     */
+    public static final String FILE_NAME = "course";
+    
+    /**
+     * Opens the backend of this kind for the given save directory.
+     *
+     * @param dir The save directory
+     * @return The opened backend
+     * @throws IOException If the backend cannot be opened
+     */
+    public StorageBackend open(@NotNull File dir) throws IOException {
+      switch (this) {
+        case ARCHIVE:
+          return CourseArchive.open(getFile(dir));
+        case KEY_VALUE:
+          return KeyValueStore.open(getFile(dir));
+        default:
+          return new DirectoryBackend(dir);
+      }
+    }
+    
+    /**
+     * Returns the file of the single file backend of this kind in the given save directory.
+     *
+     * @param dir The save directory
+     * @return The file of the backend or null, if this is the directory backend
+     */
+    public File getFile(@NotNull File dir) {
+      switch (this) {
+        case ARCHIVE:
+          return new File(dir, FILE_NAME + "." + CourseArchive.EXTENSION);
+        case KEY_VALUE:
+          return new File(dir, FILE_NAME + "." + KeyValueStore.EXTENSION);
+        default:
+          return null;
+      }
+    }
+    
+    /**
+     * Checks whether the backend of this kind exists in the given save directory, the directory backend always does.
+     *
+     * @param dir The save directory
+     * @return Whether the backend exists
+     */
+    public boolean existsIn(@NotNull File dir) {
+      File file = getFile(dir);
+      return file == null || file.isFile();
+    }
+    
+    /**
+     * Detects the backend of a save directory without a recorded one: The single file backend present in it, or the
+     * directory backend if there is none.
+     *
+     * @param dir The save directory
+     * @return The kind of backend of the directory
+     */
+    public static Kind detect(@NotNull File dir) {
+      for (Kind kind : values()) {
+        if (kind != DIRECTORY && kind.existsIn(dir)) {
+          return kind;
+        }
+      }
+      return DIRECTORY;
+    }
+  }
+}
@@ -0,0 +1,210 @@
+package ch.unibas.dmi.dbis.reqman.storage;
+
+import ch.unibas.dmi.dbis.reqman.common.ContentHash;
+import ch.unibas.dmi.dbis.reqman.common.JSONUtils;
+import ch.unibas.dmi.dbis.reqman.data.Group;
+import ch.unibas.dmi.dbis.reqman.data.GroupDecoder;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * The on disk formats of the {@link SaveFile}s.
+ * <p>
+ * The format written is selectable per {@link ReqmanFile.Type} and defaults to {@link #JSON}. Reading detects the
+ * format of a file by its header, thus files of both formats can be opened regardless of the selection.
+ *
+ * @author loris.sauter
+ */
+public enum StorageFormat {
+  /**
+   * Pretty-printed JSON, see {@link JSONUtils}
+   */
+  JSON,
+  /**
+   * Compact binary encoding, see {@link BinaryFormat}
+   */
+  BINARY;
+  
+  private static final EnumMap<ReqmanFile.Type, StorageFormat> FORMATS = new EnumMap<>(ReqmanFile.Type.class);
+  
+  /**
+   * Returns the format files of the given type are written in.
+   *
+   * @param type The type of the file
+   * @return The format to write the file in
+   */
+  public static synchronized StorageFormat getFormatFor(@NotNull ReqmanFile.Type type) {
+    return FORMATS.getOrDefault(type, JSON);
+  }
+  
+  /**
+   * Sets the format files of the given type are written in.
+   *
+   * @param type   The type of the file
+   * @param format The format to write the file in
+   */
+  public static synchronized void setFormatFor(@NotNull ReqmanFile.Type type, @NotNull StorageFormat format) {
+    FORMATS.put(type, format);
+  }
+  
+  /**
+   * Returns the formats explicitly set per type, types not contained are written in {@link #JSON}.
+   *
+   * @return A copy of the formats set per type
+   */
+  public static synchronized Map<ReqmanFile.Type, StorageFormat> getFormats() {
+    return new EnumMap<>(FORMATS);
+  }
+  
+  /**
+   * Reads an entity of the given class from the given file, which is in either format.
+   *
+   * @param file  The file to read from
+   * @param clazz The class of the entity
+   * @param <T>   The type of the entity
+   * @return The read entity
+   * @throws IOException If reading fails
+   */
+  public static <T> T read(@NotNull File file, @NotNull Class<T> clazz) throws IOException {
+    if (BinaryFormat.isBinary(file)) {
+      return BinaryFormat.read(file, clazz);
+    }
+    return JSONUtils.readFromJSONFile(file, clazz);
+  }
+  
+  /**
+   * Reads an entity of the given class from the given content, which is in either format, e.g. an archive entry.
+   *
+   * @param content The encoded entity
+   * @param clazz   The class of the entity
+   * @param <T>     The type of the entity
+   * @return The read entity
+   * @throws IOException If reading fails
+   */
+  public static <T> T read(@NotNull byte[] content, @NotNull Class<T> clazz) throws IOException {
+    if (BinaryFormat.isBinary(content)) {
+      return JSONUtils.readFromTokens(BinaryFormat.readTokens(new ByteArrayInputStream(content), "content"), clazz);
+    }
+    return JSONUtils.readFromJSONBytes(content, clazz);
+  }
+  
+  /**
+   * Reads only the header of the group in the given file, which is in either format.
+   *
+   * @param file The file to read from
+   * @return The group, without progresses and progress summaries
+   * @throws IOException If reading fails
+   * @see GroupDecoder#decodeHeader(JsonParser)
+   */
+  public static Group readGroupHeader(@NotNull File file) throws IOException {
+    if (BinaryFormat.isBinary(file)) {
+      try (JsonParser parser = BinaryFormat.readTokens(file).asParser()) {
+        return GroupDecoder.decodeHeader(parser);
+      }
+    }
+    return JSONUtils.readGroupHeaderJSONFile(file);
+  }
+  
+  /**
+   * Writes the given entity into the given file in this format, unless the file already holds it.
+   * The file is replaced atomically, thus it is never left partially written, see {@link #writeSnapshot(TokenBuffer, File)}.
+   *
+   * @param entity The entity to write
+   * @param file   The file to write to
+   * @return Whether the file was written, false if its content was unchanged
+   * @throws IOException If writing fails
+   */
+  public boolean write(@NotNull Object entity, @NotNull File file) throws IOException {
+    return writeIfChanged(file, encode(entity));
+  }
+  
+  /**
+   * Writes the given snapshot of an entity into the given file in this format, unless the file already holds it.
+   * <p>
+   * The snapshot is encoded first and compared to the file's content by its {@link ContentHash}, thus unchanged files
+   * are not written at all. Otherwise it is written into a temporary file next to the given one, which is synced to the
+   * disk and then moved over the given file. Thus, if writing fails or ReqMan crashes meanwhile, the previous file
+   * remains intact.
+   *
+   * @param snapshot The JSON tokens of the entity, see {@link JSONUtils#writeToTokens(Object)}
+   * @param file     The file to write to
+   * @return Whether the file was written, false if its content was unchanged
+   * @throws IOException If writing fails
+   */
+  public boolean writeSnapshot(@NotNull TokenBuffer snapshot, @NotNull File file) throws IOException {
+    return writeIfChanged(file, encode(snapshot));
+  }
+  
+  /**
+   * Encodes the given entity in this format, as it is written into files.
+   *
+   * @param entity The entity to encode
+   * @return The encoded entity
+   * @throws IOException If encoding fails
+   */
+  byte[] encode(@NotNull Object entity) throws IOException {
+    return this == BINARY ? encode(JSONUtils.writeToTokens(entity)) : JSONUtils.toJSONBytes(entity);
+  }
+  
+  private byte[] encode(TokenBuffer snapshot) throws IOException {
+    if (this == BINARY) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      BinaryFormat.write(snapshot, out);
+      return out.toByteArray();
+    } else {
+      return JSONUtils.toJSONBytes(snapshot);
+    }
+  }
+  
+  private static boolean writeIfChanged(File file, byte[] content) throws IOException {
+    if (ContentHash.isWritten(file, content)) {
+      return false;
+    }
+    writeAtomically(file, content);
+    ContentHash.written(file, content);
+    return true;
+  }
+  
+  private static void writeAtomically(File file, byte[] content) throws IOException {
+    Path target = file.toPath().toAbsolutePath();
+    Path dir = target.getParent();
+    // Hidden and of no known extension, thus never listed as ReqMan file. A stale one of a crash gets overwritten
+    Path temp = dir.resolve("." + target.getFileName() + "-" + Thread.currentThread().getId() + ".tmp");
+    try {
+      try (FileOutputStream out = new FileOutputStream(temp.toFile())) {
+        out.write(content);
+        out.getChannel().force(true);
+      }
+      try {
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+    syncDirectory(dir);
+  }
+  
+  /**
+   * Syncs the directory entry of a moved file, on platforms supporting it
+   */
+  private static void syncDirectory(Path dir) {
+    try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+      channel.force(true);
+    } catch (IOException e) {
+      // Not supported, e.g. on windows. The move is done nevertheless
+    }
+  }
+}
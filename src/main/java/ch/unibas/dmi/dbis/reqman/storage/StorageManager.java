@@ -1,20 +1,28 @@
 package ch.unibas.dmi.dbis.reqman.storage;
 
+import ch.unibas.dmi.dbis.reqman.common.ParallelLoader;
+import ch.unibas.dmi.dbis.reqman.common.Version;
+import ch.unibas.dmi.dbis.reqman.common.VersionedEntity;
 import ch.unibas.dmi.dbis.reqman.control.EntityController;
 import ch.unibas.dmi.dbis.reqman.data.Catalogue;
 import ch.unibas.dmi.dbis.reqman.data.Course;
 import ch.unibas.dmi.dbis.reqman.data.Group;
+import ch.unibas.dmi.dbis.reqman.data.Progress;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.core.util.FileUtils;
 
 import java.io.File;
 import java.io.FileFilter;
+import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
-import java.util.UUID;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 /**
  * The {@link StorageManager} manages {@link SaveFile} for a ReqMan session.
@@ -24,18 +32,43 @@ import java.util.UUID;
  * <p>
  * It keeps track of all opened files and is enables other components of ReqMan to read and write from the files.
  * <p>
- * Furthermore it provides the means for the UI to list and show ReqMan related files.
+ * Furthermore it provides the means for the UI to list and show ReqMan related files. These are answered from the
+ * {@link DirectoryManifest} of the directory, which also reveals modifications of opened files from outside of ReqMan.
+ * <p>
+ * The entities are stored by the {@link StorageBackend} selected with {@link #setBackend(StorageBackend.Kind)}, by
+ * default the save files of the directory.
  *
  * @author loris.sauter
  */
 public class StorageManager {
   private Logger LOGGER = LogManager.getLogger();
   
-  private SaveFile courseSaveFile;
-  private SaveFile catalogueSaveFile;
-  private List<SaveFile> groupSaveFileList;
+  private SaveFile<Course> courseSaveFile;
+  private SaveFile<Catalogue> catalogueSaveFile;
+  private List<SaveFile<Group>> groupSaveFileList;
+  private Map<File, LazyGroup> groupIndex = new ConcurrentHashMap<>();
   
   private File dir;
+  private DirectoryManifest manifest;
+  
+  /**
+   * The backend the entities are stored in. The {@link DirectoryBackend} is served by the save files, thus with the
+   * manifest, the journals and the save queue, other backends are used directly
+   */
+  private StorageBackend backend;
+  
+  /**
+   * The state of the files as last opened or saved by ReqMan, to detect modifications from outside
+   */
+  private final Map<File, DirectoryManifest.Entry> knownStates = new ConcurrentHashMap<>();
+  private final Set<File> writing = ConcurrentHashMap.newKeySet();
+  private final Set<File> reported = ConcurrentHashMap.newKeySet();
+  private final Set<Consumer<File>> externalModificationListeners = new CopyOnWriteArraySet<>();
+  
+  /**
+   * The assessment journals of the opened group files, opened on their first event
+   */
+  private final Map<File, AssessmentJournal> journals = new ConcurrentHashMap<>();
   
   // TODO: openX - check if already opened and check if dependencies were already opened
   
@@ -46,7 +79,9 @@ public class StorageManager {
   private StorageManager(File dir) {
     this.dir = dir;
     LOGGER.debug("Created with dir={}",dir);
-    groupSaveFileList = new ArrayList<>();
+    groupSaveFileList = new CopyOnWriteArrayList<>(); // Groups may be opened concurrently
+    openManifest();
+    openBackend(recordedBackend());
   }
   
   private static StorageManager instance = null;
@@ -77,11 +112,15 @@ public class StorageManager {
   }
   
   /**
-   * Lists the files found in the current directory.
+   * Lists the files found in the current directory. These are answered by the directory's manifest, if available.
    * @return
    */
   public List<ReqmanFile> listFiles(){
     ArrayList<ReqmanFile> files = new ArrayList<>();
+    if (manifest != null) {
+      manifest.getEntries().forEach(e -> files.add(new ReqmanFile(manifest.resolve(e), e.getType())));
+      return files;
+    }
     Arrays.stream(dir.listFiles(REQMAN_FILE_FILTER)).forEach(f -> {
       LOGGER.debug("Processing file {}", f);
       try {
@@ -97,25 +136,33 @@ public class StorageManager {
   }
   
   public Course openCourse() throws IOException {
-    courseSaveFile = SaveFile.createForSaveDir(dir, Course.class);
-    courseSaveFile.open();
+    if (!usesSaveFiles()) {
+      courseSaveFile = createStored(readSingle(ReqmanFile.Type.COURSE, Course.class));
+      return courseSaveFile.getEntity();
+    }
+    courseSaveFile = createForSaveDir(Course.class, ReqmanFile.Type.COURSE);
+    open(courseSaveFile);
     LOGGER.debug("Opened course: {}", courseSaveFile.getEntity());
-    return (Course)courseSaveFile.getEntity();
+    return courseSaveFile.getEntity();
   }
   
   public Course openCourse(File file) throws IOException{
     courseSaveFile = SaveFile.createForSaveFile(file, Course.class);
-    courseSaveFile.open();
+    open(courseSaveFile);
     LOGGER.debug("Opened course:{}", courseSaveFile.getEntity());
-    return (Course)courseSaveFile.getEntity();
+    return courseSaveFile.getEntity();
   }
   
   public Catalogue openCatalogue() throws IOException, UuidMismatchException {
     LOGGER.debug("Opening catalogue with dir={}", dir);
-    catalogueSaveFile = SaveFile.createForSaveDir(dir, Catalogue.class);
-    catalogueSaveFile.open();
+    if (!usesSaveFiles()) {
+      catalogueSaveFile = createStored(readSingle(ReqmanFile.Type.CATALOGUE, Catalogue.class));
+    } else {
+      catalogueSaveFile = createForSaveDir(Catalogue.class, ReqmanFile.Type.CATALOGUE);
+      open(catalogueSaveFile);
+    }
     
-    Catalogue cat = (Catalogue) catalogueSaveFile.getEntity();
+    Catalogue cat = catalogueSaveFile.getEntity();
     Course course = openCourse();
     
     if(!matchingUuid(course.getCatalogueUUID(), cat.getUuid())){
@@ -130,24 +177,167 @@ public class StorageManager {
   
   public Course getCourse(){
     if(courseSaveFile != null){
-      return (Course) courseSaveFile.getEntity();
+      return courseSaveFile.getEntity();
     }
     return null;
   }
   
   public Catalogue getCatalogue(){
     if(catalogueSaveFile != null){
-      return (Catalogue) catalogueSaveFile.getEntity();
+      return catalogueSaveFile.getEntity();
     }
     return null;
   }
   
+  /**
+   * Opens the group file and checks it belongs to the opened course and catalogue.
+   * The group is saved into the file from then on.
+   *
+   * @param file The group file to open
+   * @return The opened group
+   * @throws IOException           If the file cannot be read
+   * @throws UuidMismatchException If the group does not belong to the opened course and catalogue
+   */
   public Group openGroup(File file) throws IOException, UuidMismatchException {
-    SaveFile groupFile = SaveFile.createForSaveFile(file, Group.class);
-    groupFile.open();
+    Group group = readGroup(file);
+    addGroup(group, file);
+    return group;
+  }
+  
+  /**
+   * Reads the group file and checks it belongs to the opened course and catalogue, without saving the group into the
+   * file from then on. Thus a group, which is rejected after reading, is not saved. Use {@link #addGroup(Group, File)}
+   * to save an accepted group into its file.
+   * This is safe to be called concurrently for different files.
+   *
+   * @param file The group file to read
+   * @return The read group
+   * @throws IOException           If the file cannot be read
+   * @throws UuidMismatchException If the group does not belong to the opened course and catalogue
+   */
+  public Group readGroup(File file) throws IOException, UuidMismatchException {
+    SaveFile<Group> groupFile = SaveFile.createForSaveFile(file, Group.class);
+    LazyGroup lazy = groupIndex.get(file.getAbsoluteFile());
+    if (lazy != null && !lazy.getHeader().isOutdated()) {
+      groupFile.setEntity(lazy.detach()); // Possibly already materialized, e.g. for statistics
+      rememberState(groupFile.getSaveFile());
+    } else {
+      open(groupFile);
+    }
     
-    Group group = (Group) groupFile.getEntity();
+    Group group = groupFile.getEntity();
     
+    checkMatching(group);
+    
+    int replayed = AssessmentJournal.replay(groupFile.getSaveFile(), group);
+    if (replayed > 0) {
+      LOGGER.info("Recovered {} assessments of group {} from its journal", replayed, group.getName());
+    }
+    return group;
+  }
+  
+  /**
+   * Saves the given group, read by {@link #readGroup(File)} or {@link #readGroup(UUID)}, into the given file or the
+   * backend from then on.
+   *
+   * @param group The read group
+   * @param file  The file the group was read from or null, if it was read from the backend
+   */
+  public void addGroup(Group group, File file) {
+    SaveFile<Group> groupFile;
+    if (file != null) {
+      groupFile = SaveFile.createForSaveFile(file, Group.class);
+      groupFile.setEntity(group);
+    } else {
+      groupFile = createStored(group);
+    }
+    groupSaveFileList.add(groupFile);
+  }
+  
+  /**
+   * Opens the group with the given uuid from the backend and checks it belongs to the opened course and catalogue.
+   * Groups of the {@link DirectoryBackend} are opened from their file, see {@link #openGroup(File)}.
+   *
+   * @param uuid The uuid of the group to open
+   * @return The opened group
+   * @throws IOException           If the group cannot be read
+   * @throws UuidMismatchException If the group does not belong to the opened course and catalogue
+   */
+  public Group openGroup(UUID uuid) throws IOException, UuidMismatchException {
+    if (usesSaveFiles()) {
+      return openGroup(locateGroup(uuid));
+    }
+    Group group = readGroup(uuid);
+    addGroup(group, null);
+    return group;
+  }
+  
+  /**
+   * Reads the group with the given uuid from the backend and checks it belongs to the opened course and catalogue,
+   * without saving the group into the backend from then on, see {@link #readGroup(File)}.
+   *
+   * @param uuid The uuid of the group to read
+   * @return The read group
+   * @throws IOException           If the group cannot be read
+   * @throws UuidMismatchException If the group does not belong to the opened course and catalogue
+   */
+  public Group readGroup(UUID uuid) throws IOException, UuidMismatchException {
+    checkIfDirSet();
+    if (usesSaveFiles()) {
+      return readGroup(locateGroup(uuid));
+    }
+    Group group = backend.open(ReqmanFile.Type.GROUP, uuid, Group.class);
+    if (group == null) {
+      throw new FileNotFoundException("No group " + uuid + " in the " + backend.getKind() + " backend of " + dir);
+    }
+    checkMatching(group);
+    return group;
+  }
+  
+  /**
+   * Returns the file of the group with the given uuid in the save directory.
+   *
+   * @param uuid The uuid of the group
+   * @return The file of the group
+   * @throws IOException If there is no such file
+   */
+  public File locateGroup(UUID uuid) throws IOException {
+    checkIfDirSet();
+    DirectoryBackend directory = backend instanceof DirectoryBackend ? (DirectoryBackend) backend : new DirectoryBackend(dir, manifest);
+    File file = directory.locate(ReqmanFile.Type.GROUP, uuid);
+    if (file == null) {
+      throw new FileNotFoundException("No group " + uuid + " in " + dir);
+    }
+    return file;
+  }
+  
+  /**
+   * Lists the groups stored in the backend. Group files of the save directory are listed by their indexed headers,
+   * groups of other backends are read to get their names.
+   *
+   * @return The names of the groups by their uuids, ordered by name
+   * @throws IOException If the backend cannot be listed or a group cannot be read
+   */
+  public Map<UUID, String> listGroups() throws IOException {
+    checkIfDirSet();
+    Map<UUID, String> names = new LinkedHashMap<>();
+    if (usesSaveFiles()) {
+      indexGroups().stream().map(LazyGroup::getHeader).sorted(Comparator.comparing(GroupHeader::getName))
+          .forEach(h -> names.putIfAbsent(h.getUuid(), h.getName()));
+      return names;
+    }
+    List<Group> groups = new ArrayList<>();
+    for (UUID uuid : backend.list(ReqmanFile.Type.GROUP)) {
+      Group group = backend.open(ReqmanFile.Type.GROUP, uuid, Group.class);
+      if (group != null) {
+        groups.add(group);
+      }
+    }
+    groups.stream().sorted(Comparator.comparing(Group::getName)).forEach(g -> names.put(g.getUuid(), g.getName()));
+    return names;
+  }
+  
+  private void checkMatching(Group group) throws UuidMismatchException {
     Catalogue cat = getCatalogue(); // Checks if catalogue is matchin on its own.
     Course course = getCourse(); // Loaded / opened due call of openCatalogue()
     
@@ -163,9 +353,43 @@ public class StorageManager {
       }
       throw ex;
     }
-    
-    groupSaveFileList.add(groupFile);
-    return group;
+  }
+  
+  /**
+   * Indexes the group files of the save directory by reading their headers only.
+   * The groups themselves are read on first access to the returned {@link LazyGroup}s, files already indexed and not
+   * modified since are not read again. The course and catalogue a group belongs to are part of its header, opening it
+   * checks they match the opened ones.
+   *
+   * @return The indexed group files, ordered by file name
+   * @throws IOException If a group file cannot be read
+   */
+  public List<LazyGroup> indexGroups() throws IOException {
+    checkIfDirSet();
+    File[] files = manifest != null ? manifest.getFiles(ReqmanFile.Type.GROUP).toArray(new File[0]) : dir.listFiles(ReqmanFile.Type.GROUP.getFileFilter);
+    if (files == null) {
+      throw new IOException("Cannot list files of " + dir);
+    }
+    Arrays.sort(files);
+    List<LazyGroup> groups;
+    try {
+      groups = ParallelLoader.loadAll(Arrays.asList(files), f -> {
+        File file = f.getAbsoluteFile();
+        LazyGroup lazy = groupIndex.get(file);
+        if (lazy == null || lazy.getHeader().isOutdated()) {
+          lazy = new LazyGroup(GroupHeader.read(file));
+          groupIndex.put(file, lazy);
+        }
+        return lazy;
+      }, null);
+    } catch (IOException | RuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new IOException(e);
+    }
+    groupIndex.keySet().retainAll(Arrays.stream(files).map(File::getAbsoluteFile).collect(Collectors.toSet()));
+    LOGGER.debug("Indexed {} group files in {}", groups.size(), dir);
+    return groups;
   }
   
   public void saveCourse(Course course) throws IOException {
@@ -173,13 +397,13 @@ public class StorageManager {
     courseSaveFile = SaveFile.createForEntity(course);
     courseSaveFile.setSaveDirectory(dir);
     LOGGER.debug("Course savePath={}",courseSaveFile.getSaveFilePath());
-    courseSaveFile.save();
+    write(courseSaveFile, ReqmanFile.Type.COURSE, course.getUuid());
     LOGGER.debug("Saved course to {}", courseSaveFile.getSaveFilePath());
   }
   
   public void saveCourse() throws IOException{
     LOGGER.debug("Saving to {}",courseSaveFile.getSaveFilePath());
-    courseSaveFile.save();
+    write(courseSaveFile, ReqmanFile.Type.COURSE, getCourse().getUuid());
     LOGGER.debug("Saved course to {}", courseSaveFile.getSaveFilePath());
   }
   
@@ -188,12 +412,12 @@ public class StorageManager {
     catalogueSaveFile = SaveFile.createForEntity(catalogue);
     catalogueSaveFile.setSaveDirectory(dir);
     LOGGER.debug("Catalogue savePath={}", catalogueSaveFile.getSaveFilePath());
-    catalogueSaveFile.save();
+    write(catalogueSaveFile, ReqmanFile.Type.CATALOGUE, catalogue.getUuid());
     LOGGER.debug("Saved catalogue to {}", catalogueSaveFile.getSaveFilePath());
   }
   
   public void saveCatalogue() throws IOException {
-    catalogueSaveFile.save();
+    write(catalogueSaveFile, ReqmanFile.Type.CATALOGUE, getCatalogue().getUuid());
     LOGGER.debug("Saved catalogue to {}", catalogueSaveFile.getSaveFilePath());
   }
   
@@ -201,31 +425,102 @@ public class StorageManager {
     // TODO handle existing group
     LOGGER.debug("Save group with group obj as param");
     checkIfDirSet();
-    SaveFile groupFile = SaveFile.createForEntity(group);
+    SaveFile<Group> groupFile = SaveFile.createForEntity(group);
     groupFile.setSaveDirectory(dir);
     if(sensitively){
-      groupFile.save();
+      write(groupFile, ReqmanFile.Type.GROUP, group.getUuid());
     }else{
-      groupFile.save();
+      write(groupFile, ReqmanFile.Type.GROUP, group.getUuid());
     }
     LOGGER.debug("Saved group to {}", groupFile.getSaveFilePath());
     groupSaveFileList.add(groupFile);
   }
   
   public void saveGroup(UUID groupUuid) throws IOException {
-    for (SaveFile sf : groupSaveFileList) {
-      if (groupUuid.equals(((Group) sf.getEntity()).getUuid())){
+    for (SaveFile<Group> sf : groupSaveFileList) {
+      if (groupUuid.equals(sf.getEntity().getUuid())){
         LOGGER.debug("Trying to save at {}", sf.getSaveFilePath());
-        sf.save();
+        write(sf, ReqmanFile.Type.GROUP, groupUuid);
         LOGGER.debug("Saved group to {}", sf.getSaveFilePath());
         return;
       }
     }
   }
   
+  /**
+   * Schedules saving the group with the given uuid on the {@link SaveQueue}.
+   *
+   * @param groupUuid The uuid of the group to save
+   * @return The future, which completes once the group is written
+   */
+  public CompletableFuture<Void> saveGroupLater(UUID groupUuid) {
+    for (SaveFile<Group> sf : groupSaveFileList) {
+      if (groupUuid.equals(sf.getEntity().getUuid())) {
+        LOGGER.debug("Scheduling save at {}", sf.getSaveFilePath());
+        return writeLater(sf, ReqmanFile.Type.GROUP, groupUuid);
+      }
+    }
+    return CompletableFuture.completedFuture(null);
+  }
+  
+  /**
+   * Schedules saving the given group on the {@link SaveQueue}, into a new file of the save directory, if it has none.
+   *
+   * @param g The group to save
+   * @return The future, which completes once the group is written
+   */
+  public CompletableFuture<Void> saveGroupSensitivelyLater(Group g) {
+    if (hasGroupSaveFile(g.getUuid())) {
+      return saveGroupLater(g.getUuid());
+    }
+    checkIfDirSet();
+    SaveFile<Group> groupFile = SaveFile.createForEntity(g);
+    groupFile.setSaveDirectory(dir);
+    groupSaveFileList.add(groupFile);
+    return writeLater(groupFile, ReqmanFile.Type.GROUP, g.getUuid());
+  }
+  
+  /**
+   * Appends the assessment of the given progress to the journal of its group.
+   * Groups without a save file are not journaled, until they are saved.
+   *
+   * @param group    The group of the progress
+   * @param progress The assessed progress
+   * @return The number of events in the journal of the group, which are not yet written to the group file
+   * @throws IOException If the event cannot be appended
+   */
+  public int journalProgress(Group group, Progress progress) throws IOException {
+    for (SaveFile<Group> sf : groupSaveFileList) {
+      if (group.getUuid().equals(sf.getEntity().getUuid()) && sf.getSaveFile() != null) {
+        File file = sf.getSaveFile().getAbsoluteFile();
+        AssessmentJournal journal = journals.get(file);
+        if (journal == null) {
+          journal = AssessmentJournal.open(file);
+          journals.put(file, journal);
+        }
+        return journal.append(progress);
+      }
+    }
+    return 0;
+  }
+  
+  /**
+   * Closes the journals of all groups, which keeps the events not yet written to their group files.
+   */
+  public void closeJournals() {
+    journals.values().forEach(journal -> {
+      try {
+        journal.close();
+      } catch (IOException e) {
+        LOGGER.catching(e);
+      }
+    });
+    journals.clear();
+  }
+  
   public boolean hasGroupSaveFile(UUID groupUuid){
-    for(SaveFile sf : groupSaveFileList){
-      if(groupUuid.equals( ((Group)sf.getEntity()).getUuid())){
+    for(SaveFile<Group> sf : groupSaveFileList){
+      if(groupUuid.equals(sf.getEntity().getUuid())){
         return true;
       }
     }
@@ -233,13 +528,7 @@ public class StorageManager {
   }
   
   
-  private static List<String> getKnownExtensions(){
-    ArrayList<String> list = new ArrayList<>();
-    for(ReqmanFile.Type type : ReqmanFile.Type.values()){
-      list.add(type.getExtension() );
-    }
-    return list;
-  }
+  private static final Set<String> KNOWN_EXTENSIONS = Arrays.stream(ReqmanFile.Type.values()).map(ReqmanFile.Type::getExtension).collect(Collectors.toSet());
   
   private static boolean matchingUuid(UUID expected, UUID actual){
     return expected.equals(actual);
@@ -263,9 +552,398 @@ public class StorageManager {
     return courseSaveFile.getSaveFilePath();
   }
   
+  /**
+   * Selects the backend of the given kind for the save directory. From then on the course, catalogue and groups are
+   * opened from and saved into it. Single file backends are created if they do not exist. The kind is recorded in the
+   * manifest of the directory, thus it is used again whenever the directory is opened.
+   *
+   * @param kind The kind of backend to use
+   * @throws IOException If the backend cannot be opened, the previous one is kept then
+   */
+  public void setBackend(StorageBackend.Kind kind) throws IOException {
+    checkIfDirSet();
+    if (backend != null && backend.getKind() == kind) {
+      return;
+    }
+    StorageBackend opened = createBackend(kind);
+    closeBackend();
+    backend = opened;
+    recordBackend();
+    LOGGER.info("Using the {} backend of {}", kind, dir);
+  }
+  
+  public StorageBackend getBackend() {
+    return backend;
+  }
+  
+  public StorageBackend.Kind getBackendKind() {
+    return backend != null ? backend.getKind() : StorageBackend.Kind.DIRECTORY;
+  }
+  
+  /**
+   * Copies the course, catalogue and groups of the backend into the given one, e.g. to convert the save directory to
+   * another backend. Entities of the same type and uuid are replaced in the target.
+   *
+   * @param target The backend to copy into
+   * @return The number of copied entities
+   * @throws IOException If an entity cannot be read or written
+   */
+  public int copyTo(StorageBackend target) throws IOException {
+    checkIfDirSet();
+    int copied = 0;
+    for (ReqmanFile.Type type : Arrays.asList(ReqmanFile.Type.COURSE, ReqmanFile.Type.CATALOGUE, ReqmanFile.Type.GROUP)) {
+      Class<?> clazz = type == ReqmanFile.Type.COURSE ? Course.class : type == ReqmanFile.Type.CATALOGUE ? Catalogue.class : Group.class;
+      for (UUID uuid : backend.list(type)) {
+        target.save(type, uuid, backend.open(type, uuid, clazz));
+        copied++;
+      }
+    }
+    LOGGER.info("Copied {} entities of the {} backend into the {} backend", copied, backend.getKind(), target.getKind());
+    return copied;
+  }
+  
+  /**
+   * Converts the save directory to the backend of the given kind: The entities of the current backend are copied into
+   * it, then the opened ones, which belong to the save directory, are saved into it. From then on it is used, see
+   * {@link #setBackend(StorageBackend.Kind)}.
+   *
+   * @param kind The kind of backend to convert to
+   * @return The number of copied entities
+   * @throws IOException If the backend cannot be opened or written, the current one is kept then
+   */
+  public int convertBackend(StorageBackend.Kind kind) throws IOException {
+    checkIfDirSet();
+    if (kind == getBackendKind()) {
+      return 0;
+    }
+    StorageBackend target = createBackend(kind);
+    int copied;
+    List<SaveFile<Group>> groups = new ArrayList<>();
+    try {
+      copied = copyTo(target);
+      courseSaveFile = moveTo(target, courseSaveFile, ReqmanFile.Type.COURSE, Course.class);
+      catalogueSaveFile = moveTo(target, catalogueSaveFile, ReqmanFile.Type.CATALOGUE, Catalogue.class);
+      for (SaveFile<Group> sf : groupSaveFileList) {
+        groups.add(moveTo(target, sf, ReqmanFile.Type.GROUP, Group.class));
+      }
+    } catch (IOException | RuntimeException e) {
+      target.close();
+      throw e;
+    }
+    groupSaveFileList.clear();
+    groupSaveFileList.addAll(groups);
+    closeBackend();
+    backend = target;
+    recordBackend();
+    LOGGER.info("Converted {} to the {} backend", dir, kind);
+    return copied;
+  }
+  
   public void setSaveDir(File saveDir) {
     LOGGER.debug("Set savedir to {}", saveDir);
     this.dir = saveDir;
+    openManifest();
+    closeBackend();
+    openBackend(recordedBackend());
+  }
+  
+  /**
+   * Registers a listener to be notified of files opened or saved by ReqMan, which were modified outside of it.
+   * The listener is notified once per modification from the thread watching the directory. Saving such a file fails
+   * with an {@link ExternalModificationException} until the modification is accepted.
+   *
+   * @param listener The listener to notify with the modified file
+   */
+  public void addExternalModificationListener(Consumer<File> listener) {
+    externalModificationListeners.add(listener);
+  }
+  
+  public void removeExternalModificationListener(Consumer<File> listener) {
+    externalModificationListeners.remove(listener);
+  }
+  
+  /**
+   * Checks whether the given file, which was opened or saved by ReqMan, was modified outside of it since.
+   *
+   * @param file The file to check
+   * @return Whether the file was modified externally
+   */
+  public boolean isModifiedExternally(File file) {
+    DirectoryManifest.Entry known = knownStates.get(file.getAbsoluteFile());
+    return known != null && file.exists() && !known.isCurrent(file);
+  }
+  
+  /**
+   * Accepts the external modification of the given file, thus it is overwritten with the next save.
+   *
+   * @param file The modified file
+   */
+  public void acceptExternalModification(File file) {
+    rememberState(file);
+    LOGGER.info("Accepted external modification of {}", file);
+  }
+  
+  /**
+   * Closes the journals, the manifest and the backend of the save directory, which persists the manifest.
+   * To be called once the entities are saved, e.g. on shutdown.
+   */
+  public void close() {
+    closeJournals();
+    closeManifest();
+    closeBackend();
+  }
+  
+  /**
+   * Closes the manifest of the current directory and opens the one of the new directory
+   */
+  private void openManifest() {
+    closeManifest();
+    if (dir != null && dir.isDirectory()) {
+      try {
+        manifest = DirectoryManifest.open(dir, this::onFileChanged);
+      } catch (IOException e) {
+        LOGGER.warn("Cannot watch {}, files are listed on demand: {}", dir, e.getMessage());
+      }
+    }
+  }
+  
+  /**
+   * Saves the entity of the given file into the given backend, if it belongs to the save directory.
+   *
+   * @return The save file to save the entity with into the backend, or the given one, if it belongs elsewhere
+   */
+  private <T extends VersionedEntity> SaveFile<T> moveTo(StorageBackend target, SaveFile<T> saveFile, ReqmanFile.Type type, Class<T> clazz) throws IOException {
+    if (saveFile == null || saveFile.getEntity() == null) {
+      return saveFile;
+    }
+    if (saveFile.getSaveDir() != null && !saveFile.getSaveDir().getAbsoluteFile().equals(dir.getAbsoluteFile())) {
+      return saveFile;
+    }
+    T entity = saveFile.getEntity();
+    UUID uuid = entity instanceof Group ? ((Group) entity).getUuid() : entity instanceof Catalogue ? ((Catalogue) entity).getUuid() : ((Course) entity).getUuid();
+    target.save(type, uuid, entity);
+    if (target instanceof DirectoryBackend) {
+      SaveFile<T> moved = SaveFile.createForSaveFile(((DirectoryBackend) target).locate(type, uuid), clazz);
+      moved.setEntity(entity);
+      return moved;
+    }
+    return createStored(entity);
+  }
+  
+  /**
+   * Creates the save file of an entity of the backend. It has the save directory, but no file, see
+   * {@link #isStored(SaveFile)}
+   */
+  private <T extends VersionedEntity> SaveFile<T> createStored(T entity) {
+    SaveFile<T> saveFile = SaveFile.createForEntity(entity);
+    saveFile.setSaveDirectory(dir);
+    return saveFile;
+  }
+  
+  private <T extends VersionedEntity> SaveFile<T> createForSaveDir(Class<T> clazz, ReqmanFile.Type type) {
+    File file = manifest != null ? manifest.getFile(type) : null;
+    return file != null ? SaveFile.createForSaveFile(file, clazz) : SaveFile.createForSaveDir(dir, clazz);
+  }
+  
+  /**
+   * Returns the kind of backend of the current directory: The one recorded in its manifest, or the detected one if
+   * none is recorded. Falls back to the directory backend if the recorded one does not exist, rather than creating it.
+   */
+  private StorageBackend.Kind recordedBackend() {
+    if (dir == null) {
+      return StorageBackend.Kind.DIRECTORY;
+    }
+    StorageBackend.Kind kind = manifest != null ? manifest.getBackend() : null;
+    if (kind == null) {
+      kind = StorageBackend.Kind.detect(dir);
+    }
+    if (!kind.existsIn(dir)) {
+      LOGGER.warn("The {} backend of {} is missing, using the directory", kind, dir);
+      return StorageBackend.Kind.DIRECTORY;
+    }
+    return kind;
+  }
+  
+  private void recordBackend() {
+    if (manifest != null) {
+      manifest.recordBackend(getBackendKind());
+    }
+  }
+  
+  /**
+   * Opens the backend of the given kind for the current directory, falling back to the directory backend
+   */
+  private void openBackend(StorageBackend.Kind kind) {
+    if (dir == null) {
+      return;
+    }
+    try {
+      backend = createBackend(kind);
+    } catch (IOException e) {
+      LOGGER.error("Cannot open the {} backend of {}, using the directory: {}", kind, dir, e.getMessage());
+      backend = new DirectoryBackend(dir, manifest);
+    }
+  }
+  
+  /**
+   * Opens the backend of the given kind for the current directory, the directory backend is served by the manifest
+   */
+  private StorageBackend createBackend(StorageBackend.Kind kind) throws IOException {
+    return kind == StorageBackend.Kind.DIRECTORY ? new DirectoryBackend(dir, manifest) : kind.open(dir);
+  }
+  
+  private void closeManifest() {
+    if (manifest != null) {
+      try {
+        manifest.close();
+      } catch (IOException e) {
+        LOGGER.catching(e);
+      }
+      manifest = null;
+    }
+  }
+  
+  private void closeBackend() {
+    if (backend != null) {
+      try {
+        backend.close();
+      } catch (IOException e) {
+        LOGGER.catching(e);
+      }
+      backend = null;
+    }
+  }
+  
+  /**
+   * Whether the entities are stored in save files of the directory, rather than another backend
+   */
+  private boolean usesSaveFiles() {
+    return getBackendKind() == StorageBackend.Kind.DIRECTORY;
+  }
+  
+  /**
+   * Whether the given file is saved into the backend. Entities opened from a file are saved into that file, regardless
+   * of the backend
+   */
+  private boolean isStored(SaveFile<?> saveFile) {
+    return !usesSaveFiles() && saveFile.getSaveFile() == null;
+  }
+  
+  /**
+   * Reads the single entity of the given type from the backend
+   */
+  private <T> T readSingle(ReqmanFile.Type type, Class<T> clazz) throws IOException {
+    List<UUID> uuids = backend.list(type);
+    if (uuids.isEmpty()) {
+      throw new FileNotFoundException(String.format("Could not find a %s in the %s backend of %s", type.getExtension(), backend.getKind(), dir));
+    }
+    return backend.open(type, uuids.get(0), clazz);
+  }
+  
+  private void open(SaveFile<?> saveFile) throws IOException {
+    saveFile.open();
+    rememberState(saveFile.getSaveFile());
+  }
+  
+  /**
+   * Saves the given file, unless it was modified outside of ReqMan since it was opened or saved last
+   */
+  private void write(SaveFile<?> saveFile, ReqmanFile.Type type, UUID uuid) throws IOException {
+    if (isStored(saveFile)) {
+      saveFile.getEntity().setVersion(Version.getInstance().getVersion());
+      backend.save(type, uuid, saveFile.getEntity());
+      return;
+    }
+    File file = (saveFile.getSaveFile() != null ? saveFile.getSaveFile() : new File(saveFile.getSaveFilePath())).getAbsoluteFile();
+    if (isModifiedExternally(file)) {
+      throw new ExternalModificationException(file);
+    }
+    AssessmentJournal journal = journals.get(file);
+    long mark = journal != null ? journal.sequence() : 0;
+    writing.add(file);
+    try {
+      saveFile.save();
+      compact(journal, mark);
+      rememberState(saveFile.getSaveFile());
+      if (manifest != null) {
+        manifest.record(saveFile.getSaveFile().getAbsoluteFile(), type, uuid);
+      }
+    } finally {
+      writing.remove(file);
+    }
+  }
+  
+  /**
+   * Schedules saving the given file, unless it was modified outside of ReqMan since it was opened or saved last
+   */
+  private CompletableFuture<Void> writeLater(SaveFile<?> saveFile, ReqmanFile.Type type, UUID uuid) {
+    if (isStored(saveFile)) { // Records are appended, thus written right away
+      CompletableFuture<Void> written = new CompletableFuture<>();
+      try {
+        write(saveFile, type, uuid);
+        written.complete(null);
+      } catch (IOException | RuntimeException e) {
+        written.completeExceptionally(e);
+      }
+      return written;
+    }
+    File file = (saveFile.getSaveFile() != null ? saveFile.getSaveFile() : new File(saveFile.getSaveFilePath())).getAbsoluteFile();
+    CompletableFuture<Void> written;
+    if (isModifiedExternally(file)) {
+      written = new CompletableFuture<>();
+      written.completeExceptionally(new ExternalModificationException(file));
+      return written;
+    }
+    AssessmentJournal journal = journals.get(file);
+    long mark = journal != null ? journal.sequence() : 0; // The events contained in the snapshot
+    writing.add(file);
+    try {
+      written = saveFile.saveLater();
+    } catch (IOException | RuntimeException e) {
+      writing.remove(file);
+      written = new CompletableFuture<>();
+      written.completeExceptionally(e);
+      return written;
+    }
+    return written.whenComplete((v, ex) -> {
+      if (ex == null) {
+        compact(journal, mark);
+        rememberState(file);
+        if (manifest != null) {
+          manifest.record(file, type, uuid);
+        }
+      }
+      writing.remove(file);
+    });
+  }
+  
+  private void compact(AssessmentJournal journal, long mark) {
+    if (journal != null) {
+      try {
+        journal.compacted(mark);
+      } catch (IOException e) {
+        LOGGER.warn("Could not compact the journal, it is replayed again: {}", e.getMessage());
+      }
+    }
+  }
+  
+  private void rememberState(File file) {
+    if (file != null) {
+      File absolute = file.getAbsoluteFile();
+      knownStates.put(absolute, DirectoryManifest.Entry.of(absolute, null, null));
+      reported.remove(absolute);
+    }
+  }
+  
+  /**
+   * Invoked by the manifest's watcher, reports modifications of files not written by ReqMan
+   */
+  private void onFileChanged(File file) {
+    File absolute = file.getAbsoluteFile();
+    if (!writing.contains(absolute) && isModifiedExternally(absolute) && reported.add(absolute)) {
+      LOGGER.warn("The file {} was modified outside of ReqMan", absolute);
+      externalModificationListeners.forEach(l -> l.accept(absolute));
+    }
   }
   
   public void saveGroupSensitively(Group g) throws IOException {
@@ -283,6 +961,6 @@ public class StorageManager {
     }
   }
   
-  public static final FileFilter REQMAN_FILE_FILTER = pathname -> getKnownExtensions().contains(FileUtils.getFileExtension(pathname));
+  public static final FileFilter REQMAN_FILE_FILTER = pathname -> KNOWN_EXTENSIONS.contains(FileUtils.getFileExtension(pathname));
   
 }
@@ -336,7 +336,7 @@ public class RenderManager {
       Field.createNormalField("name", Group::getName),
       Field.createNormalField("project", Group::getProjectName),
       new Field<Group, List<ProgressSummary>>("progressSummaries", Field.Type.LIST,
-          g -> EntityController.getInstance().getGroup(g.getUuid()).getProgressSummaries(),
+          g -> EntityController.getInstance().getGroup(g.getUuid()).progressSummariesView(),
           list -> {
             StringBuilder sb = new StringBuilder();
             list.forEach(ps -> sb.append(renderProgressSummary(ps)));
@@ -3,6 +3,8 @@ package ch.unibas.dmi.dbis.reqman.ui;
 import ch.unibas.dmi.dbis.reqman.common.Version;
 import ch.unibas.dmi.dbis.reqman.control.EntityController;
 import ch.unibas.dmi.dbis.reqman.management.OperationFactory;
+import ch.unibas.dmi.dbis.reqman.storage.StorageBackend;
+import ch.unibas.dmi.dbis.reqman.storage.StorageFormat;
 import ch.unibas.dmi.dbis.reqman.storage.UuidMismatchException;
 import ch.unibas.dmi.dbis.reqman.templating.ExportHelper;
 import ch.unibas.dmi.dbis.reqman.ui.common.Utils;
@@ -14,6 +16,7 @@ import ch.unibas.dmi.dbis.reqman.ui.help.HelpDisplay;
 import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.event.Event;
+import javafx.scene.control.ChoiceDialog;
 import javafx.scene.control.RadioMenuItem;
 import javafx.stage.DirectoryChooser;
 import javafx.stage.FileChooser;
@@ -28,6 +31,7 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.file.Paths;
+import java.util.Optional;
 
 /**
  * TODO: Write JavaDoc
@@ -39,6 +43,10 @@ public class MainHandler implements MenuHandler {
   public static final String EXPORT_DISABLED_REASON = "The export feature is currently being re-written.\n" +
       "In particular, the complete export language is subject to change.";
   private static final Logger LOGGER = LogManager.getLogger(MainHandler.class);
+  /**
+   * The time in milliseconds to wait for groups still being saved, when stopping
+   */
+  private static final long SAVE_TIMEOUT = 10000;
   private static MainHandler instance = null;
   private final EvaluatorHandler evaluatorHandler;
   private final EditorHandler editorHandler;
@@ -55,6 +63,16 @@ public class MainHandler implements MenuHandler {
     });
     this.editorHandler = editorHandler;
     manager.enableOpenItems();
+    EntityController.getInstance().setExternalModificationHandler(file -> Platform.runLater(() -> {
+      if (Utils.showConfirmationDialog("File modified outside of ReqMan", "The file " + file.getName() + " was modified outside of ReqMan.\n" +
+          "Overwrite these modifications with the next save?")) {
+        EntityController.getInstance().acceptExternalModification(file);
+      }
+    }));
+    EntityController.getInstance().setSaveFailureHandler(cause -> Platform.runLater(() ->
+        Utils.showErrorDialog("Saving failed", "The group could not be saved.\n" +
+            "The following exception was caught:\n\t" + cause.getMessage())
+    ));
     
   }
   
@@ -489,6 +507,41 @@ public class MainHandler implements MenuHandler {
     
   }
   
+  @Override
+  public void handleConvertStorage(ActionEvent event) {
+    StorageBackend.Kind current = EntityController.getInstance().getStorageManager().getBackendKind();
+    ChoiceDialog<StorageBackend.Kind> dialog = new ChoiceDialog<>(current, StorageBackend.Kind.values());
+    dialog.setTitle("Convert Storage");
+    dialog.setHeaderText("Convert the save directory to another storage");
+    dialog.setContentText("Storage:");
+    Optional<StorageBackend.Kind> kind = dialog.showAndWait();
+    if (!kind.isPresent() || kind.get() == current) {
+      return; // User abort
+    }
+    try {
+      int converted = EntityController.getInstance().convertStorage(kind.get());
+      Notifications.create().title("Conversion successful!").hideAfter(Duration.seconds(5)).text(String.format("Converted %d entities to %s storage", converted, kind.get())).showInformation();
+    } catch (IOException e) {
+      LOGGER.catching(e);
+      Utils.showErrorDialog("Conversion failed", "The save directory could not be converted, the current storage is kept.\n" +
+          "The following exception was caught:\n\t" + e.getMessage());
+    }
+  }
+  
+  @Override
+  public void handleStorageFormat(ActionEvent event) {
+    StorageFormat current = EntityController.getInstance().getStorageFormat();
+    ChoiceDialog<StorageFormat> dialog = new ChoiceDialog<>(current, StorageFormat.values());
+    dialog.setTitle("Storage Format");
+    dialog.setHeaderText("Select the format to save the course, catalogue and groups in.\nSaved files are read in either format and written in the selected one on their next save.");
+    dialog.setContentText("Format:");
+    Optional<StorageFormat> format = dialog.showAndWait();
+    if (!format.isPresent() || format.get() == current) {
+      return; // User abort
+    }
+    EntityController.getInstance().setStorageFormat(format.get());
+  }
+  
   @Override
   public void handleGroupStatistics(ActionEvent event) {
     evaluatorHandler.showStatistics();
@@ -530,7 +583,9 @@ public class MainHandler implements MenuHandler {
   
   void stop() {
     evaluatorHandler.stop();
+    EntityController.getInstance().flushSaves(SAVE_TIMEOUT);
     EntityController.getInstance().saveSession();
+    EntityController.getInstance().closeStorage();
   }
   
   void checkGroupsPresent() {
@@ -69,6 +69,10 @@ public interface MenuHandler {
   
   void handleImport(ActionEvent event);
   
+  void handleConvertStorage(ActionEvent event);
+  
+  void handleStorageFormat(ActionEvent event);
+  
   void handleGroupStatistics(ActionEvent event);
   
   void handleShowAbout(ActionEvent event);
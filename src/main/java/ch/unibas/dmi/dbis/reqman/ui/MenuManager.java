@@ -88,6 +88,8 @@ public class MenuManager {
   public static final String ITEM_HELP = MENU_HELP_PREFIX + KEY_SEPARATOR + "help" + KEY_SEPARATOR + ITEM_SUFFIX;
   
   public static final String ITEM_IMPORT = MENU_FILE_PREFIX + KEY_SEPARATOR + "import" + KEY_SEPARATOR + ITEM_SUFFIX;
+  public static final String ITEM_CONVERT_STORAGE = MENU_FILE_PREFIX + KEY_SEPARATOR + "convert-storage" + KEY_SEPARATOR + ITEM_SUFFIX;
+  public static final String ITEM_STORAGE_FORMAT = MENU_FILE_PREFIX + KEY_SEPARATOR + "storage-format" + KEY_SEPARATOR + ITEM_SUFFIX;
   
   private final static Logger LOGGER = LogManager.getLogger(MenuManager.class);
   private static MenuManager instance = null;
@@ -142,6 +144,8 @@ public class MenuManager {
   private MenuItem itemShowGroupStatistics;
   private MenuItem itemPresentation;
   private MenuItem itemImport;
+  private MenuItem itemConvertStorage;
+  private MenuItem itemStorageFormat;
   private MenuItem itemAbout;
   private MenuItem itemHelp;
   
@@ -340,6 +344,8 @@ public class MenuManager {
     registerEvaluatorItem(ITEM_EXPORT_GROUPS, itemExportGroups = new MenuItem("Export Groups..."), true);
     // Remaining Items
     registerMenuItem(ITEM_IMPORT, itemImport = new MenuItem("Import Catalogue..."));
+    registerMenuItem(ITEM_CONVERT_STORAGE, itemConvertStorage = new MenuItem("Convert Storage..."));
+    registerMenuItem(ITEM_STORAGE_FORMAT, itemStorageFormat = new MenuItem("Storage Format..."));
     registerMenuItem(ITEM_QUIT, itemQuit = new MenuItem("Quit"));
     // Categories:
     catNeeded.add(ITEM_NEW_GROUP);
@@ -348,6 +354,7 @@ public class MenuManager {
     openItems.add(ITEM_IMPORT);
     openItems.add(ITEM_OPEN_GROUPS);
     catNeeded.add(ITEM_OPEN_GROUPS);
+    catNeeded.add(ITEM_CONVERT_STORAGE);
   }
   
   private void loadDefaultKeyBindings() {
@@ -473,6 +480,12 @@ public class MenuManager {
             case ITEM_IMPORT:
               handler.handleImport(event);
               break;
+            case ITEM_CONVERT_STORAGE:
+              handler.handleConvertStorage(event);
+              break;
+            case ITEM_STORAGE_FORMAT:
+              handler.handleStorageFormat(event);
+              break;
             case ITEM_SHOW_GROUP_STATISTICS:
               handler.handleGroupStatistics(event);
               break;
@@ -527,6 +540,8 @@ public class MenuManager {
         menuExport,
         new SeparatorMenuItem(),
         itemImport,
+        itemConvertStorage,
+        itemStorageFormat,
         new SeparatorMenuItem(),
         itemQuit);
   }
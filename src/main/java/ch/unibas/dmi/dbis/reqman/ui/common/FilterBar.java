@@ -1,6 +1,7 @@
 package ch.unibas.dmi.dbis.reqman.ui.common;
 
 import ch.unibas.dmi.dbis.reqman.analysis.*;
+import ch.unibas.dmi.dbis.reqman.control.EntityController;
 import ch.unibas.dmi.dbis.reqman.data.Requirement;
 import javafx.collections.FXCollections;
 import javafx.event.ActionEvent;
@@ -109,7 +110,7 @@ public class FilterBar extends HBox {
       } else {
         horizontal.getChildren().remove(3);
         horizontal.getChildren().add(3, searchInput);
-        containsLbl.setText("contains");
+        containsLbl.setText(newValue.equals(Mode.QUERY) ? "matches" : "contains");
         handleFilter();
       }
     }));
@@ -194,6 +195,9 @@ public class FilterBar extends HBox {
         case TYPE:
           f = new TypeFilter(typeCB.getSelectionModel().getSelectedItem());
           break;
+        case QUERY:
+          f = EntityController.getInstance().getCatalogueAnalyser().parseFilterQuery(searchInput.getText());
+          break;
       }
     } else if (modeCB.getSelectionModel().getSelectedItem() == Mode.TYPE) {
       f = new TypeFilter(typeCB.getSelectionModel().getSelectedItem());
@@ -235,7 +239,8 @@ public class FilterBar extends HBox {
     NAME,
     TEXT,
     CATEGORY,
-    TYPE;
+    TYPE,
+    QUERY;
     
     @Override
     public String toString() {
@@ -19,10 +19,9 @@ import org.kordamp.ikonli.javafx.FontIcon;
 import org.kordamp.ikonli.openiconic.Openiconic;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * TODO: write JavaDoc
@@ -240,6 +239,33 @@ public class Utils {
     return false;
   }
   
+  /**
+   * Shows a dialog to choose any number of the given items.
+   *
+   * @param header The header of the dialog
+   * @param items  The items to choose from
+   * @param naming Provides the name of an item to display
+   * @param <T>    The type of the items
+   * @return The chosen items, in the order of the given ones. Empty, if the user aborted
+   */
+  public static <T> List<T> showMultipleChoiceDialog(String header, List<T> items, Function<T, String> naming) {
+    ListView<String> list = new ListView<>();
+    items.forEach(item -> list.getItems().add(naming.apply(item)));
+    list.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+    Dialog<List<T>> dialog = new Dialog<>();
+    dialog.setTitle("Choose");
+    dialog.setHeaderText(header);
+    dialog.getDialogPane().setContent(list);
+    dialog.getDialogPane().getButtonTypes().addAll(ButtonType.OK, ButtonType.CANCEL);
+    dialog.setResultConverter(button -> {
+      if (!ButtonType.OK.equals(button)) {
+        return null;
+      }
+      return list.getSelectionModel().getSelectedIndices().stream().sorted().map(items::get).collect(Collectors.toList());
+    });
+    return dialog.showAndWait().orElse(Collections.emptyList());
+  }
+  
   public static void showFeatureDisabled(String featureName, String reason) {
     showWarningDialog("Feature Disabled", String.format("Feature %s disabled", featureName), String.format("The feature %s, is in the current version (%s) disabled.\n\nThe reason for this is:\n%s", featureName, Version.getInstance().getVersion(), reason));
   }
@@ -24,6 +24,7 @@ import org.apache.logging.log4j.Logger;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -162,6 +163,7 @@ public class EditorHandler implements EventHandler<CUDEvent>, FilterActionHandle
           RequirementTableView.ObservableRequirement obsReq = (RequirementTableView.ObservableRequirement) evt.getDelivery();
           Requirement r = obsReq.getRequirement();
           Requirement mod = EditorPromptFactory.promptRequirement(this, r);
+          EntityController.getInstance().modifiedRequirement(mod);
           editor.getRequirementsView().updateRequirement(mod);
           // modification should happen in the same object, since java objects are always call by reference
           LOGGER.debug("hash(origin)={}, hash(modified)={} (O={}, M={})", r.hashCode(), mod.hashCode(), r, mod);
@@ -170,6 +172,7 @@ public class EditorHandler implements EventHandler<CUDEvent>, FilterActionHandle
       case MILESTONE:
         if (evt.getDelivery() instanceof Milestone) {
           Milestone mod = EditorPromptFactory.promptMilestone((Milestone) evt.getDelivery());
+          EntityController.getInstance().modifiedMilestone(mod);
           editor.getMilestoneView().updateMilestone(mod);
           LOGGER.debug("Milestone got modified: {}", mod);
         }
@@ -319,6 +322,9 @@ public class EditorHandler implements EventHandler<CUDEvent>, FilterActionHandle
       case CATEGORY:
         filtered = EntityController.getInstance().getCatalogueAnalyser().findRequirementsForCategory(pattern);
         break;
+      case QUERY:
+        filtered = EntityController.getInstance().getCatalogueAnalyser().getFilteredRequirements(EntityController.getInstance().getCatalogueAnalyser().parseFilterQuery(pattern));
+        break;
     }
     if (filtered == null) {
       return 0;
@@ -344,13 +350,20 @@ public class EditorHandler implements EventHandler<CUDEvent>, FilterActionHandle
   
   @Override
   public void applyFilter(@NotNull Filter filter) {
+    if(!active){
+      return;
+    }
+    applyFilter(filter, AssessmentManager.getInstance().getFilteredRequirements(filter));
+  }
+  
+  @Override
+  public void applyFilter(@NotNull Filter filter, @NotNull List<Requirement> filtered) {
     if(!active){
       return;
     }
     LOGGER.debug("Applying filter {}", filter.getDisplayRepresentation());
-    List<Requirement> filtered = EntityController.getInstance().getCatalogueAnalyser().getFilteredRequirements(filter);
     LOGGER.debug("Filtered {} items.", filtered.size());
-    displayOnly(filtered);
+    displayOnly(new ArrayList<>(filtered));
   }
   
   @Override
@@ -145,6 +145,7 @@ public class RequirementPropertiesScene extends AbstractVisualCreator<Requiremen
       LOGGER.debug("Predecessors unchanged");
     }else{
       requirement.setPredecessors(pred.toArray(new UUID[0]));
+      EntityController.getInstance().modifiedRequirement(requirement);
     }
   }
   
@@ -441,6 +442,10 @@ public class RequirementPropertiesScene extends AbstractVisualCreator<Requiremen
       if (selected == null) {
         return;
       }
+      if (requirement != null && EntityController.getInstance().getCatalogueAnalyser().getRequirementGraph().createsCycle(requirement, selected)) {
+        Utils.showWarningDialog("Cyclic dependency", String.format("Requirement %s depends on %s", selected.getName(), requirement.getName()), "Adding this predecessor would introduce a cyclic dependency, thus the requirements could never be unlocked.");
+        return;
+      }
       if(!predecessors.contains(selected)){
         predecessors.add(selected);
       }
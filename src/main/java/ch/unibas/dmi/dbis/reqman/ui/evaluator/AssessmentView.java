@@ -147,8 +147,12 @@ public class AssessmentView extends BorderPane implements PointsChangeListener,
     LOGGER.debug("apply filter: "+filter);
     Milestone ms = AssessmentManager.getInstance().getActiveMilestone();
     LOGGER.debug("Active MS: "+ms.getName());
-    List<Requirement> reqs = EntityController.getInstance().getCatalogueAnalyser().getFilteredRequirements(filter);
-    displayProgressViews(reqs);
+    applyFilter(filter, AssessmentManager.getInstance().getFilteredRequirements(filter));
+  }
+  
+  @Override
+  public void applyFilter(Filter filter, List<Requirement> filtered) {
+    displayProgressViews(new ArrayList<>(filtered));
   }
   
   @Override
@@ -11,12 +11,14 @@ import ch.unibas.dmi.dbis.reqman.data.Group;
 import ch.unibas.dmi.dbis.reqman.data.Milestone;
 import ch.unibas.dmi.dbis.reqman.data.Requirement;
 import ch.unibas.dmi.dbis.reqman.storage.ReqmanFile;
+import ch.unibas.dmi.dbis.reqman.storage.StorageBackend;
 import ch.unibas.dmi.dbis.reqman.storage.UuidMismatchException;
 import ch.unibas.dmi.dbis.reqman.ui.StatusBar;
 import ch.unibas.dmi.dbis.reqman.ui.common.FilterActionHandler;
 import ch.unibas.dmi.dbis.reqman.ui.common.FilterBar;
 import ch.unibas.dmi.dbis.reqman.ui.common.Utils;
 import ch.unibas.dmi.dbis.reqman.ui.event.CUDEvent;
+import javafx.application.Platform;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
@@ -30,9 +32,8 @@ import org.jetbrains.annotations.NotNull;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.List;
-import java.util.UUID;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * TODO: Write JavaDoc
@@ -104,8 +105,10 @@ public class EvaluatorHandler implements EventHandler<CUDEvent>, FilterActionHan
       case GROUP:
         LOGGER.trace(":handleModificaiton");
         Group gr = EntityController.getInstance().getGroup(evaluator.getActiveGroupUUID());
-        EvaluatorPromptFactory.promptGroup(gr);
-        evaluator.updateDisplayOf(gr);
+        if (EvaluatorPromptFactory.promptGroup(gr) != null) {
+          evaluator.updateDisplayOf(gr);
+          evaluator.markDirty(gr);
+        }
         LOGGER.trace(":handleModification - Done");
         break;
       default:
@@ -180,6 +183,9 @@ public class EvaluatorHandler implements EventHandler<CUDEvent>, FilterActionHan
       case CATEGORY:
         requirements = analyser.findRequirementsForCategory(pattern);
         break;
+      case QUERY:
+        requirements = analyser.getFilteredRequirements(analyser.parseFilterQuery(pattern));
+        break;
       case TYPE:
         // Should not happen
         break;
@@ -253,6 +259,10 @@ public class EvaluatorHandler implements EventHandler<CUDEvent>, FilterActionHan
     if (!EntityController.getInstance().hasCatalogue()) {
       return;
     }
+    if (EntityController.getInstance().getStorageManager().getBackendKind() != StorageBackend.Kind.DIRECTORY) {
+      handleOpenStoredGroups();
+      return;
+    }
     FileChooser fc = Utils.createFileChooser("Open Groups");
     if(EntityController.getInstance().getStorageManager() != null && EntityController.getInstance().getStorageManager().getSaveDir() != null){
       fc.setInitialDirectory(EntityController.getInstance().getStorageManager().getSaveDir());
@@ -262,39 +272,76 @@ public class EvaluatorHandler implements EventHandler<CUDEvent>, FilterActionHan
     if(files == null){
       return; // user abort
     }else{
-      List<Group> groups = null;
-      try {
-        groups = EntityController.getInstance().openGroups(files);
-      }catch(EntityAlreadyOpenException ex){
-        Utils.showErrorDialog(ex.getEntityType()+" already open", ex.getEntityType()+" already open", "Cannot open the entity of type "+ex.getEntityType()+" and uuid="+ex.getUuid().toString()+" more than once.");
-      } catch (UuidMismatchException | IOException e) {
-        LOGGER.catching(e);
-        Utils.showErrorDialog("Exception while opening groups", "The following exception was caught:\n\t"+e.getMessage());
-        return;
-      } catch (MissingEntityException e) {
-        Utils.showErrorDialog("Corrupt group file", "The group file of group ("+e.getEntity().getName()+") is corrupt.\n" +
-            "The entity has no or an empty field '"+e.getMissing()+"'.\n" +
-            "Please restart ReqMan to avoid further corrupt files.");
-      }
-      groups.forEach(this::loadGroupUIAndRefresh);
+      openGroups(() -> EntityController.getInstance().openGroups(files));
+    }
+  }
+  
+  /**
+   * Lets the user choose the groups to open among the ones of the storage backend, since these are no files
+   */
+  private void handleOpenStoredGroups() {
+    Map<UUID, String> stored;
+    try {
+      stored = EntityController.getInstance().listStoredGroups();
+    } catch (IOException e) {
+      LOGGER.catching(e);
+      Utils.showErrorDialog("Exception while listing groups", "The following exception was caught:\n\t"+e.getMessage());
+      return;
+    }
+    List<UUID> uuids = Utils.showMultipleChoiceDialog("Open Groups", new ArrayList<>(stored.keySet()), stored::get);
+    if(uuids.isEmpty()){
+      return; // user abort
+    }
+    openGroups(() -> EntityController.getInstance().openStoredGroups(uuids));
+  }
+  
+  private void openGroups(GroupsOpener opener) {
+    List<Group> groups;
+    try {
+      groups = opener.open();
+    }catch(EntityAlreadyOpenException ex){
+      Utils.showErrorDialog(ex.getEntityType()+" already open", ex.getEntityType()+" already open", "Cannot open the entity of type "+ex.getEntityType()+" and uuid="+ex.getUuid().toString()+" more than once.");
+      return;
+    } catch (UuidMismatchException | IOException e) {
+      LOGGER.catching(e);
+      Utils.showErrorDialog("Exception while opening groups", "The following exception was caught:\n\t"+e.getMessage());
+      return;
+    } catch (MissingEntityException e) {
+      Utils.showErrorDialog("Corrupt group file", "The group file of group ("+e.getEntity().getName()+") is corrupt.\n" +
+          "The entity has no or an empty field '"+e.getMissing()+"'.\n" +
+          "Please restart ReqMan to avoid further corrupt files.");
+      return;
     }
+    groups.forEach(this::loadGroupUIAndRefresh);
   }
   
   public void handleSaveGroup(ActionEvent actionEvent) {
     UUID groupID = evaluator.getActiveGroupUUID();
     LOGGER.debug("Saving group with id {}", groupID);
     Group gr = EntityController.getInstance().getGroup(groupID);
+    CompletableFuture<Void> saved;
     if(EntityController.getInstance().getStorageManager().hasGroupSaveFile(groupID)){
-      EntityController.getInstance().saveGroup(groupID);
-      LOGGER.info("Saved group {}", groupID);
+      saved = EntityController.getInstance().saveGroup(groupID);
     }else{
       LOGGER.debug("No save file for group {} found. Using current save dir");
-      Group g = EntityController.getInstance().getGroup(groupID);
-      EntityController.getInstance().saveGroupAs(g);
-      LOGGER.info("Group {} saved.", g.getName());
+      saved = EntityController.getInstance().saveGroupAs(gr);
     }
-    evaluator.unmarkDirty(gr);
-    Notifications.create().title("Export successful!").hideAfter(Duration.seconds(5)).text(String.format("Group '%s' saved", EntityController.getInstance().getGroup(groupID).getName())).showInformation();
+    whenSaved(saved, gr);
+  }
+  
+  /**
+   * Unmarks the group as dirty and notifies the user, once the group is written in the background.
+   * The group stays dirty if it was modified after the save was submitted, as the written file misses these changes.
+   */
+  private void whenSaved(CompletableFuture<Void> saved, Group g) {
+    long submitted = evaluator.getModificationCount(g);
+    saved.thenRun(() -> Platform.runLater(() -> {
+      LOGGER.info("Group {} saved.", g.getName());
+      if (evaluator.getModificationCount(g) == submitted) {
+        evaluator.unmarkDirty(g);
+      }
+      Notifications.create().title("Export successful!").hideAfter(Duration.seconds(5)).text(String.format("Group '%s' saved", g.getName())).showInformation();
+    }));
   }
   
   public void handleSaveGroupAs(ActionEvent event) {
@@ -308,9 +355,7 @@ public class EvaluatorHandler implements EventHandler<CUDEvent>, FilterActionHan
       File dir = dc.showDialog(evaluator.getScene().getWindow());
       LOGGER.debug("Chosen dir={}", dir);
       EntityController.getInstance().setupSaveDirectory(dir);
-      EntityController.getInstance().saveGroupAs(g);
-      evaluator.unmarkDirty(g);
-      Notifications.create().title("Export successful!").hideAfter(Duration.seconds(5)).text(String.format("Group '%s' saved", g.getName())).showInformation();
+      whenSaved(EntityController.getInstance().saveGroupAs(g), g);
     }
   }
   
@@ -485,4 +530,11 @@ public class EvaluatorHandler implements EventHandler<CUDEvent>, FilterActionHan
     return new AssessmentView(group);
   }
   
+  /**
+   * Opens groups, see {@link EntityController#openGroups(List)}
+   */
+  @FunctionalInterface
+  private interface GroupsOpener {
+    List<Group> open() throws UuidMismatchException, IOException, MissingEntityException;
+  }
 }
@@ -45,6 +45,7 @@ public class EvaluatorView extends VBox implements TitleProvider {
   private CourseInfoView courseView;
   private HashMap<String, Tab> legacyGroupTabMap = new HashMap<>();
   private HashMap<UUID, Tab> groupTapMap = new HashMap<>();
+  private HashMap<UUID, Long> modificationCounts = new HashMap<>();
   
   public EvaluatorView(EvaluatorHandler handler) {
     super();
@@ -99,6 +100,7 @@ public class EvaluatorView extends VBox implements TitleProvider {
   }
   
   public void markDirty(Group group) {
+    modificationCounts.merge(group.getUuid(), 1L, Long::sum);
     Tab tab = groupTapMap.get(group.getUuid());
     if (tab.getText().indexOf("*") < 0) {
       tab.setText(tab.getText() + "*");
@@ -117,6 +119,17 @@ public class EvaluatorView extends VBox implements TitleProvider {
     }
   }
   
+  /**
+   * Returns the number of times the given group was marked dirty so far.
+   * This count is never reset, thus a group was modified between two calls, if the returned counts differ.
+   *
+   * @param group The group to get the modification count of
+   * @return The number of modifications of the group
+   */
+  public long getModificationCount(Group group) {
+    return modificationCounts.getOrDefault(group.getUuid(), 0L);
+  }
+  
   public boolean isDirty(Group group) {
     Tab tab = groupTapMap.get(group.getUuid());
     return tab.getStyleClass().contains("modified");
@@ -130,6 +143,7 @@ public class EvaluatorView extends VBox implements TitleProvider {
   public void removeTab(Group g) {
     Tab tab = groupTapMap.get(g.getUuid());
     groupTapMap.remove(g.getUuid());
+    modificationCounts.remove(g.getUuid());
     tabPane.getTabs().remove(tab);
   }
   
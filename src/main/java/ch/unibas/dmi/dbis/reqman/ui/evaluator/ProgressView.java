@@ -19,6 +19,7 @@ import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * TODO: write JavaDoc
@@ -91,6 +92,10 @@ public class ProgressView extends VBox {
   private Label maxMS;
   private Label commentLbl;
   private TextArea taComment;
+  /**
+   * Whether the current comment is journaled already
+   */
+  private boolean commentJournaled = true;
   
   private Label lastModifiedLbl;
   private Label lastModifiedDisplay;
@@ -478,11 +483,25 @@ public class ProgressView extends VBox {
     processAssessment();
   }
   
+  /**
+   * Keeps the comment of the progress up to date while typing, but journals it only once the comment area loses the
+   * focus, since journaling each keystroke would fill the journal in no time.
+   */
   private void setupCommentHandling() {
     taComment.textProperty().addListener((observable, oldValue, newValue) -> {
+      if (Objects.equals(newValue, progress.getComment())) {
+        return; // Displaying the loaded comment
+      }
       progress.setComment(newValue);
+      commentJournaled = false;
       LOGGER.debug("Handled comment: {}", newValue);
     });
+    taComment.focusedProperty().addListener((observable, wasFocused, focused) -> {
+      if (!focused && !commentJournaled) {
+        EntityController.getInstance().journalProgress(group, progress);
+        commentJournaled = true;
+      }
+    });
   }
   
   private void handleCollapse(ActionEvent event) {
@@ -504,6 +523,8 @@ public class ProgressView extends VBox {
     progress.setAssessmentDate(new Date());
     progress.setProgressSummaryUUID(progressSummary.getUuid());
     LOGGER.debug("Processing assessment: {}", progress);
+    EntityController.getInstance().getGroupAnalyser(group).progressChanged(progress);
+    EntityController.getInstance().journalProgress(group, progress);
     updatePointsDisplay();
     displayAssessmentDate();
     notifyPointsListener();
@@ -1,6 +1,7 @@
 package ch.unibas.dmi.dbis.reqman.ui.overview;
 
 import ch.unibas.dmi.dbis.reqman.analysis.CatalogueAnalyser;
+import ch.unibas.dmi.dbis.reqman.analysis.ScoreMatrix;
 import ch.unibas.dmi.dbis.reqman.data.Catalogue;
 import ch.unibas.dmi.dbis.reqman.data.Milestone;
 import ch.unibas.dmi.dbis.reqman.data.Requirement;
@@ -15,9 +16,21 @@ import static ch.unibas.dmi.dbis.reqman.ui.overview.CatalogueOverviewItem.Entity
 public class CatalogueOverviewItemFactory {
   
   private CatalogueAnalyser analyser;
+  private ScoreMatrix matrix;
   
   public CatalogueOverviewItemFactory(CatalogueAnalyser analyser) {
+    this(analyser, null);
+  }
+  
+  /**
+   * Creates a factory which reads the maximal points per milestone from the given score matrix.
+   *
+   * @param analyser The analyser of the catalogue
+   * @param matrix   The score matrix of the catalogue, may be null
+   */
+  public CatalogueOverviewItemFactory(CatalogueAnalyser analyser, ScoreMatrix matrix) {
     this.analyser = analyser;
+    this.matrix = matrix;
   }
   
   public CatalogueOverviewItem createFor(Catalogue catalogue) {
@@ -37,10 +50,18 @@ public class CatalogueOverviewItemFactory {
     
     item.setName(ms.getName());
     item.setType("Milestone");
-    item.setActualPoints(analyser.getMaximalRegularSumFor(ms));
-    item.setRegularPoints(analyser.getMaximalRegularSumFor(ms));
-    item.setBonusPoints(analyser.getMaximalBonusSumFor(ms));
-    item.setMalusPoints(analyser.getMaximalMalusSumFor(ms));
+    int ordinal = analyser.getCourseManager().getMilestoneOrdinal(ms);
+    if (matrix != null && ordinal >= 0) {
+      item.setActualPoints(matrix.getMaximalSumFor(ordinal, Requirement.Type.REGULAR));
+      item.setRegularPoints(matrix.getMaximalSumFor(ordinal, Requirement.Type.REGULAR));
+      item.setBonusPoints(matrix.getMaximalSumFor(ordinal, Requirement.Type.BONUS));
+      item.setMalusPoints(matrix.getMaximalSumFor(ordinal, Requirement.Type.MALUS));
+    } else {
+      item.setActualPoints(analyser.getMaximalRegularSumFor(ms));
+      item.setRegularPoints(analyser.getMaximalRegularSumFor(ms));
+      item.setBonusPoints(analyser.getMaximalBonusSumFor(ms));
+      item.setMalusPoints(analyser.getMaximalMalusSumFor(ms));
+    }
     return item;
   }
   
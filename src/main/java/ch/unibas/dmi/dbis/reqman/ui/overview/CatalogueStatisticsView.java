@@ -59,10 +59,10 @@ public class CatalogueStatisticsView extends VBox {
     ctrl = EntityController.getInstance();
     analyser = ctrl.getCatalogueAnalyser();
     Catalogue cat = ctrl.getCatalogue();
-    CatalogueOverviewItemFactory factory = new CatalogueOverviewItemFactory(analyser);
+    CatalogueOverviewItemFactory factory = new CatalogueOverviewItemFactory(analyser, ctrl.createScoreMatrix());
     TreeItem<CatalogueOverviewItem> root = new TreeItem<>(factory.createFor(cat));
     root.setExpanded(true);
-    cat.getMilestones().forEach(ms -> {
+    cat.milestonesView().forEach(ms -> {
       TreeItem<CatalogueOverviewItem> msItem = new TreeItem<>(factory.createFor(ms));
       msItem.setExpanded(true);
       analyser.getRequirementsFor(ms).stream().sorted(analyser.getRequirementComparator()).forEach(r -> {
@@ -2,10 +2,13 @@ package ch.unibas.dmi.dbis.reqman.ui.overview;
 
 import ch.unibas.dmi.dbis.reqman.analysis.CatalogueAnalyser;
 import ch.unibas.dmi.dbis.reqman.analysis.GroupAnalyser;
+import ch.unibas.dmi.dbis.reqman.analysis.ScoreMatrix;
+import ch.unibas.dmi.dbis.reqman.control.EntityController;
 import ch.unibas.dmi.dbis.reqman.data.Catalogue;
 import ch.unibas.dmi.dbis.reqman.data.Course;
 import ch.unibas.dmi.dbis.reqman.data.Group;
 import ch.unibas.dmi.dbis.reqman.data.Milestone;
+import ch.unibas.dmi.dbis.reqman.data.Requirement;
 
 import java.util.HashMap;
 import java.util.List;
@@ -25,18 +28,26 @@ public class GroupOverviewItemFactory {
   
   
   public GroupOverviewItemFactory(Course course, Catalogue catalogue) {
-    this.catalogue = catalogue;
-    this.course = course;
-    catalogueAnalyser = new CatalogueAnalyser(course, catalogue);
+    this(new CatalogueAnalyser(course, catalogue));
+  }
+  
+  /**
+   * Creates a factory which reuses the given analyser and, if present, the group analysers of the
+   * {@link EntityController}.
+   *
+   * @param catalogueAnalyser The analyser of the catalogue
+   */
+  public GroupOverviewItemFactory(CatalogueAnalyser catalogueAnalyser) {
+    this.catalogue = catalogueAnalyser.getCatalogue();
+    this.course = catalogueAnalyser.getCourse();
+    this.catalogueAnalyser = catalogueAnalyser;
   }
   
   public GroupOverviewItem createForCatalogue(List<Group> groups) {
     Map<UUID, Double> map = new HashMap<>();
     map.put(catalogue.getUuid(), catalogueAnalyser.getMaximalRegularSum());
-    GroupAnalyser analyser;
     for (Group g : groups) {
-      analyser = new GroupAnalyser(course, catalogue, g);
-      map.put(g.getUuid(), analyser.getSum());
+      map.put(g.getUuid(), getGroupAnalyser(g).getSum());
     }
     return new GroupOverviewItem(catalogue.getName(), catalogue.getUuid(), map);
   }
@@ -46,9 +57,53 @@ public class GroupOverviewItemFactory {
     map.put(catalogue.getUuid(), catalogueAnalyser.getMaximalRegularSumFor(milestone));
     GroupAnalyser analyser;
     for (Group g : groups) {
-      analyser = new GroupAnalyser(course, catalogue, g);
+      analyser = getGroupAnalyser(g);
       map.put(g.getUuid(), analyser.getSumFor(analyser.getProgressSummaryFor(milestone)));
     }
     return new GroupOverviewItem(milestone.getName(), milestone.getUuid(), map);
   }
+  
+  /**
+   * Creates the catalogue's item from the given score matrix.
+   * Since only the matrix is accessed, this may be called on any thread.
+   *
+   * @param catalogue The catalogue
+   * @param matrix    The score matrix of the groups
+   * @return The item with the maximal regular points and the total points of each group of the matrix
+   */
+  public static GroupOverviewItem createForCatalogue(Catalogue catalogue, ScoreMatrix matrix) {
+    Map<UUID, Double> map = new HashMap<>();
+    map.put(catalogue.getUuid(), matrix.getMaximalSum(Requirement.Type.REGULAR));
+    for (int row = 0; row < matrix.getGroupCount(); row++) {
+      map.put(matrix.getGroup(row).getUuid(), matrix.getSum(row));
+    }
+    return new GroupOverviewItem(catalogue.getName(), catalogue.getUuid(), map);
+  }
+  
+  /**
+   * Creates the milestone's item from the given score matrix.
+   * Since only the matrix is accessed, this may be called on any thread.
+   *
+   * @param catalogue The catalogue
+   * @param milestone The milestone
+   * @param ordinal   The ordinal of the milestone
+   * @param matrix    The score matrix of the groups
+   * @return The item with the maximal regular points and the points of each group of the matrix at the milestone
+   */
+  public static GroupOverviewItem createFor(Catalogue catalogue, Milestone milestone, int ordinal, ScoreMatrix matrix) {
+    Map<UUID, Double> map = new HashMap<>();
+    map.put(catalogue.getUuid(), matrix.getMaximalSumFor(ordinal, Requirement.Type.REGULAR));
+    for (int row = 0; row < matrix.getGroupCount(); row++) {
+      map.put(matrix.getGroup(row).getUuid(), matrix.getSumFor(row, ordinal));
+    }
+    return new GroupOverviewItem(milestone.getName(), milestone.getUuid(), map);
+  }
+  
+  private GroupAnalyser getGroupAnalyser(Group g) {
+    EntityController ctrl = EntityController.getInstance();
+    if (ctrl.containsGroupAnalyserFor(g)) {
+      return ctrl.getGroupAnalyser(g);
+    }
+    return new GroupAnalyser(catalogueAnalyser, g);
+  }
 }
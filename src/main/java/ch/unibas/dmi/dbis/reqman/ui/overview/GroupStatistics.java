@@ -0,0 +1,73 @@
+package ch.unibas.dmi.dbis.reqman.ui.overview;
+
+import ch.unibas.dmi.dbis.reqman.analysis.ScoreMatrix;
+import ch.unibas.dmi.dbis.reqman.data.Catalogue;
+import ch.unibas.dmi.dbis.reqman.data.Milestone;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The immutable model of the {@link GroupStatisticsView}.
+ * <p>
+ * All values are computed upon creation, which happens off the application thread. The view then only creates its
+ * nodes from these values.
+ *
+ * @author loris.sauter
+ */
+final class GroupStatistics {
+  
+  private final Catalogue catalogue;
+  private final ScoreMatrix matrix;
+  private final List<Milestone> milestones;
+  private final int[] ordinals;
+  private final GroupOverviewItem catalogueItem;
+  private final List<GroupOverviewItem> milestoneItems;
+  
+  /**
+   * @param catalogue  The catalogue
+   * @param milestones The milestones of the catalogue, in display order
+   * @param ordinals   The ordinal of each milestone
+   * @param matrix     The computed score matrix of the groups
+   */
+  GroupStatistics(Catalogue catalogue, List<Milestone> milestones, int[] ordinals, ScoreMatrix matrix) {
+    this.catalogue = catalogue;
+    this.matrix = matrix;
+    this.milestones = Collections.unmodifiableList(new ArrayList<>(milestones));
+    this.ordinals = ordinals.clone();
+    catalogueItem = GroupOverviewItemFactory.createForCatalogue(catalogue, matrix);
+    List<GroupOverviewItem> items = new ArrayList<>(milestones.size());
+    for (int i = 0; i < milestones.size(); i++) {
+      items.add(GroupOverviewItemFactory.createFor(catalogue, milestones.get(i), ordinals[i], matrix));
+    }
+    milestoneItems = Collections.unmodifiableList(items);
+  }
+  
+  Catalogue getCatalogue() {
+    return catalogue;
+  }
+  
+  ScoreMatrix getMatrix() {
+    return matrix;
+  }
+  
+  List<Milestone> getMilestones() {
+    return milestones;
+  }
+  
+  /**
+   * Returns the ordinal of the milestone at the given position of {@link #getMilestones()}
+   */
+  int getOrdinal(int position) {
+    return ordinals[position];
+  }
+  
+  GroupOverviewItem getCatalogueItem() {
+    return catalogueItem;
+  }
+  
+  List<GroupOverviewItem> getMilestoneItems() {
+    return milestoneItems;
+  }
+}
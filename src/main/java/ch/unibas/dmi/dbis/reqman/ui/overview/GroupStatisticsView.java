@@ -1,26 +1,41 @@
 package ch.unibas.dmi.dbis.reqman.ui.overview;
 
 import ch.unibas.dmi.dbis.reqman.analysis.CatalogueAnalyser;
-import ch.unibas.dmi.dbis.reqman.analysis.GroupAnalyser;
+import ch.unibas.dmi.dbis.reqman.analysis.ScoreMatrix;
 import ch.unibas.dmi.dbis.reqman.common.StringUtils;
 import ch.unibas.dmi.dbis.reqman.control.EntityController;
 import ch.unibas.dmi.dbis.reqman.data.Catalogue;
 import ch.unibas.dmi.dbis.reqman.data.Group;
 import ch.unibas.dmi.dbis.reqman.data.Milestone;
+import ch.unibas.dmi.dbis.reqman.data.Requirement;
 import ch.unibas.dmi.dbis.reqman.ui.common.Utils;
+import javafx.application.Platform;
 import javafx.beans.property.ReadOnlyStringWrapper;
 import javafx.collections.FXCollections;
+import javafx.scene.Node;
 import javafx.scene.chart.*;
 import javafx.scene.control.*;
 import javafx.scene.layout.VBox;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 
 /**
- * TODO: write JavaDoc
+ * Shows the points of all groups of the catalogue per milestone, as a table, an overview chart and a detail chart per
+ * group. Open groups are shown as they currently are, all others of the save directory as they were saved.
+ * <p>
+ * The saved groups are read and the statistics are computed on a {@link ForkJoinPool}, with one task per group, while a
+ * progress indicator is shown.
+ * The resulting {@link GroupStatistics} are then displayed at once.
  *
  * @author loris.sauter
  */
@@ -28,33 +43,64 @@ public class GroupStatisticsView extends VBox {
   
   private static final Logger LOGGER = LogManager.getLogger();
   
-  private TreeTableView<GroupOverviewItem> treeTableView;
-  private EntityController ctrl;
-  private CatalogueAnalyser analyser;
-  private LineChart<String, Number> chart;
+  private static final ForkJoinPool POOL = ForkJoinPool.commonPool();
+  
+  private ProgressIndicator progressIndicator;
   private ScrollPane scrollPane;
   private VBox container;
   
+  /**
+   * The number of the latest requested computation. Results of earlier ones are discarded
+   */
+  private long generation = 0;
+  
   public GroupStatisticsView() {
     // TODO Change layout entirely: Use tabs instead of VBox, make all responsive
-    
+  
     initComps();
     layoutComps();
-    addDetailCharts();
+    update();
   }
   
+  /**
+   * Recomputes the statistics in the background and displays them once done.
+   * Has to be called on the application thread.
+   */
   public void update() {
-    container.getChildren().remove(treeTableView);
-    treeTableView = null;
-    setupTreeTable();
-    container.getChildren().add(0, treeTableView);
-    chart = createOverviewChart();
+    EntityController ctrl = EntityController.getInstance();
+    CatalogueAnalyser analyser = ctrl.getCatalogueAnalyser();
+    Catalogue cat = ctrl.getCatalogue();
+    List<Milestone> milestones = new ArrayList<>(cat.milestonesView());
+    int[] ordinals = milestones.stream().mapToInt(analyser.getCourseManager()::getMilestoneOrdinal).toArray();
+    ScoreMatrix.Snapshot snapshot = ScoreMatrix.capture(analyser, new ArrayList<>(ctrl.groupList()));
+    Set<UUID> open = ctrl.getOpenGroupUuids();
+  
+    final long current = ++generation;
+    setBusy(true);
+    CompletableFuture.supplyAsync(() -> {
+      List<Group> saved;
+      try {
+        saved = ctrl.readSavedGroups(open);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      return new GroupStatistics(cat, milestones, ordinals, new ScoreMatrix(snapshot.withGroups(saved), POOL));
+    }, POOL)
+        .whenComplete((statistics, ex) -> Platform.runLater(() -> {
+          if (current != generation) {
+            return; // A newer computation is running
+          }
+          setBusy(false);
+          if (ex != null) {
+            LOGGER.error("Could not compute the group statistics", ex);
+          } else {
+            show(statistics);
+          }
+        }));
   }
   
   private void initComps() {
-    setupTreeTable();
-    chart = createOverviewChart();
-    chart.setPrefSize(800, 600);
+    progressIndicator = new ProgressIndicator();
     scrollPane = new ScrollPane();
     scrollPane.setPrefSize(850, 650);
     container = new VBox();
@@ -63,148 +109,152 @@ public class GroupStatisticsView extends VBox {
   private void layoutComps() {
     scrollPane.setContent(container);
     Utils.applyDefaultSpacing(container);
-    container.getChildren().addAll(treeTableView, chart);
-    getChildren().add(scrollPane);
-//    VBox.setVgrow(treeTableView, Priority.SOMETIMES);
-    
+    getChildren().addAll(progressIndicator, scrollPane);
+  
     // sizing
     container.prefWidthProperty().bind(scrollPane.widthProperty());
     container.prefHeightProperty().bind(scrollPane.heightProperty());
-    
+  
     scrollPane.prefWidthProperty().bind(widthProperty());
     scrollPane.prefHeightProperty().bind(heightProperty());
-    
+  
     scrollPane.setMinHeight(200);
     scrollPane.setMinWidth(300);
   }
   
-  private void addDetailCharts() {
-    for (Group g : EntityController.getInstance().groupList()) {
-      container.getChildren().add(createDetailChart(g));
+  private void setBusy(boolean busy) {
+    progressIndicator.setVisible(busy);
+    progressIndicator.setManaged(busy);
+  }
+  
+  private void show(GroupStatistics statistics) {
+    List<Node> nodes = new ArrayList<>();
+    nodes.add(createTreeTable(statistics));
+    LineChart<String, Number> chart = createOverviewChart(statistics);
+    chart.setPrefSize(800, 600);
+    nodes.add(chart);
+    ScoreMatrix matrix = statistics.getMatrix();
+    for (int row = 0; row < matrix.getGroupCount(); row++) {
+      nodes.add(createDetailChart(statistics, row));
     }
+    container.getChildren().setAll(nodes);
   }
   
-  private void setupTreeTable() {
-    ctrl = EntityController.getInstance();
-    analyser = ctrl.getCatalogueAnalyser();
-    Catalogue cat = ctrl.getCatalogue();
-    GroupOverviewItemFactory factory = new GroupOverviewItemFactory(ctrl.getCourse(), ctrl.getCatalogue());
-    TreeItem<GroupOverviewItem> root = new TreeItem<>(factory.createForCatalogue(ctrl.groupList()));
+  private TreeTableView<GroupOverviewItem> createTreeTable(GroupStatistics statistics) {
+    Catalogue cat = statistics.getCatalogue();
+    TreeItem<GroupOverviewItem> root = new TreeItem<>(statistics.getCatalogueItem());
     root.setExpanded(true);
-    cat.getMilestones().forEach(ms -> {
-      TreeItem<GroupOverviewItem> msItem = new TreeItem<>(factory.createFor(ms, ctrl.groupList()));
-      root.getChildren().add(msItem);
-    });
-    
+    statistics.getMilestoneItems().forEach(item -> root.getChildren().add(new TreeItem<>(item)));
+  
     TreeTableColumn<GroupOverviewItem, String> nameCol = new TreeTableColumn<>("Name");
     nameCol.setCellValueFactory((TreeTableColumn.CellDataFeatures<GroupOverviewItem, String> param) ->
         new ReadOnlyStringWrapper(param.getValue().getValue().getName()));
-    
+  
     TreeTableColumn<GroupOverviewItem, String> maxCol = new TreeTableColumn<>("Maximal Available");
     maxCol.setCellValueFactory((TreeTableColumn.CellDataFeatures<GroupOverviewItem, String> param) -> new ReadOnlyStringWrapper(StringUtils.prettyPrint(param.getValue().getValue().getPoints(cat.getUuid()))));
-    
-    
-    treeTableView = new TreeTableView<>(root);
-    
+  
+  
+    TreeTableView<GroupOverviewItem> treeTableView = new TreeTableView<>(root);
+  
     treeTableView.getColumns().add(nameCol);
     treeTableView.getColumns().add(maxCol);
-    
-    ctrl.groupList().forEach(g -> {
+  
+    ScoreMatrix matrix = statistics.getMatrix();
+    for (int row = 0; row < matrix.getGroupCount(); row++) {
+      Group g = matrix.getGroup(row);
       TreeTableColumn<GroupOverviewItem, String> groupCol = new TreeTableColumn<>(g.getName());
-      
+  
       groupCol.setCellValueFactory((TreeTableColumn.CellDataFeatures<GroupOverviewItem, String> param) -> new ReadOnlyStringWrapper(StringUtils.prettyPrint(param.getValue().getValue().getPoints(g.getUuid()))));
-      
+  
       treeTableView.getColumns().add(groupCol);
-    });
-    
-    
+    }
+  
+  
     nameCol.setPrefWidth(150);
-    
+  
     treeTableView.setTableMenuButtonVisible(true);
-    
+  
     treeTableView.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
     treeTableView.getSelectionModel().setCellSelectionEnabled(false);
-    
-    
+  
+  
     treeTableView.setMinHeight(treeTableView.getPrefHeight());
+    return treeTableView;
   }
   
-  private LineChart<String, Number> createOverviewChart() {
-    ctrl = EntityController.getInstance();
-    analyser = ctrl.getCatalogueAnalyser();
-    Catalogue cat = ctrl.getCatalogue();
-    
+  private LineChart<String, Number> createOverviewChart(GroupStatistics statistics) {
+    ScoreMatrix matrix = statistics.getMatrix();
+    List<Milestone> milestones = statistics.getMilestones();
+  
     final CategoryAxis xAxis = new CategoryAxis();
     final NumberAxis yAxis = new NumberAxis();
     yAxis.setLabel("Points");
     xAxis.setLabel("Milestones");
     final LineChart<String, Number> lineChart = new LineChart<>(xAxis, yAxis);
     lineChart.setTitle("Milestone Points Overview");
-    
+  
     XYChart.Series<String, Number> catSeries = new XYChart.Series<>();
     catSeries.setName("Maximal Points");
-    for (Milestone ms : cat.getMilestones()) {
-      catSeries.getData().add(new XYChart.Data<>(ms.getName(), analyser.getCumulativeMaximalRegularSumFor(ms)));
+    for (int i = 0; i < milestones.size(); i++) {
+      catSeries.getData().add(new XYChart.Data<>(milestones.get(i).getName(), matrix.getCumulativeMaximalSumFor(statistics.getOrdinal(i), Requirement.Type.REGULAR)));
     }
-    
+  
     ArrayList<XYChart.Series<String, Number>> series = new ArrayList<>();
-    
-    for (Group g : ctrl.groupList()) {
-      GroupAnalyser groupAnalyser = ctrl.getGroupAnalyser(g);
-      
+  
+    for (int row = 0; row < matrix.getGroupCount(); row++) {
       XYChart.Series<String, Number> serie = new XYChart.Series<>();
-      serie.setName(g.getName());
-      for (Milestone ms : cat.getMilestones()) {
-        serie.getData().add(new XYChart.Data<>(ms.getName(), groupAnalyser.getCumulativeSumFor(groupAnalyser.getProgressSummaryFor(ms))));
+      serie.setName(matrix.getGroup(row).getName());
+      for (int i = 0; i < milestones.size(); i++) {
+        serie.getData().add(new XYChart.Data<>(milestones.get(i).getName(), matrix.getCumulativeSumFor(row, statistics.getOrdinal(i))));
       }
       series.add(serie);
     }
-    
+  
     lineChart.getData().add(catSeries);
     lineChart.getData().addAll(series);
-    
+  
     return lineChart;
   }
   
-  private StackedBarChart<String, Number> createDetailChart(Group g) {
-    ctrl = EntityController.getInstance();
-    analyser = ctrl.getCatalogueAnalyser();
-    Catalogue cat = ctrl.getCatalogue();
-    GroupAnalyser groupAnalyser = ctrl.getGroupAnalyser(g);
-    
+  private StackedBarChart<String, Number> createDetailChart(GroupStatistics statistics, int row) {
+    ScoreMatrix matrix = statistics.getMatrix();
+    List<Milestone> milestones = statistics.getMilestones();
+  
     final CategoryAxis xAxis = new CategoryAxis();
     xAxis.setLabel("Milestones");
     final NumberAxis yAxis = new NumberAxis();
     yAxis.setLabel("Points");
     final StackedBarChart<String, Number> sbc = new StackedBarChart<>(xAxis, yAxis);
-    xAxis.setCategories(FXCollections.observableArrayList(cat.getMilestones().stream().map(Milestone::getName).collect(Collectors.toList())));
-    
+    xAxis.setCategories(FXCollections.observableArrayList(milestones.stream().map(Milestone::getName).collect(Collectors.toList())));
+  
     XYChart.Series<String, Number> malusSeries = new XYChart.Series<>();
     malusSeries.setName("Malus Points");
     XYChart.Series<String, Number> regularSeries = new XYChart.Series<>();
     regularSeries.setName("Regular Points");
     XYChart.Series<String, Number> bonusSeries = new XYChart.Series<>();
     bonusSeries.setName("Bonus Points");
-    
+  
     double malus,regular,bonus, offset;
-    
-    for (Milestone ms : cat.getMilestones()) {
-      malus = groupAnalyser.getMalusSumFor(groupAnalyser.getProgressSummaryFor(ms));
+  
+    for (int i = 0; i < milestones.size(); i++) {
+      String name = milestones.get(i).getName();
+      int ordinal = statistics.getOrdinal(i);
+      malus = matrix.getSumFor(row, ordinal, Requirement.Type.MALUS);
       offset = malus < 0 ? malus : 0;
-      regular = offset + groupAnalyser.getRegularSumFor(groupAnalyser.getProgressSummaryFor(ms));
+      regular = offset + matrix.getSumFor(row, ordinal, Requirement.Type.REGULAR);
       offset = regular < 0 ? regular : 0;
-      bonus = offset + groupAnalyser.getBonusSumFor(groupAnalyser.getProgressSummaryFor(ms));
-      
-      malusSeries.getData().add(new XYChart.Data<>(ms.getName(), malus));
-      regularSeries.getData().add(new XYChart.Data<>(ms.getName(), regular));
-      bonusSeries.getData().add(new XYChart.Data<>(ms.getName(), bonus));
+      bonus = offset + matrix.getSumFor(row, ordinal, Requirement.Type.BONUS);
+  
+      malusSeries.getData().add(new XYChart.Data<>(name, malus));
+      regularSeries.getData().add(new XYChart.Data<>(name, regular));
+      bonusSeries.getData().add(new XYChart.Data<>(name, bonus));
     }
-    sbc.setTitle("Details Per Milestone of " + g.getName());
-    
+    sbc.setTitle("Details Per Milestone of " + matrix.getGroup(row).getName());
+  
     sbc.getData().addAll(malusSeries, regularSeries, bonusSeries);
-    
+  
     sbc.setMinHeight(100);
-    
+  
     return sbc;
   }
 }
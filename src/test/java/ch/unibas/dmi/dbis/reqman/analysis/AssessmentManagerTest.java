@@ -0,0 +1,61 @@
+package ch.unibas.dmi.dbis.reqman.analysis;
+
+import ch.unibas.dmi.dbis.reqman.data.*;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the filter result cache of the {@link AssessmentManager}
+ *
+ * @author loris.sauter
+ */
+public class AssessmentManagerTest {
+  
+  private Catalogue catalogue;
+  private CatalogueAnalyser analyser;
+  private Requirement r1;
+  private Requirement r2;
+  
+  @Before
+  public void setup() {
+    EntityFactory factory = EntityFactory.createFactoryAndCourse("Manager Course", "HS17");
+    catalogue = factory.createCatalogue("Manager Catalogue");
+    Milestone ms = factory.createMilestone("MS", new Date(1508025600L));
+    r1 = factory.createRequirement("SQL Basics", "Write a SELECT", 4, ms, ms);
+    r2 = factory.createBonusRequirement("Index Tuning", "Create an index", 2, ms, ms);
+    analyser = new CatalogueAnalyser(factory.getCourse(), catalogue);
+  }
+  
+  @Test
+  public void testStructurallyEqualFiltersShareResult() {
+    AssessmentManager manager = AssessmentManager.getInstance();
+    Filter one = new AndFilter(new TypeFilter(Requirement.Type.BONUS), new NameContainsFilter("Index"));
+    Filter two = new AndFilter(new NameContainsFilter("index"), new TypeFilter(Requirement.Type.BONUS));
+    assertEquals(CompiledFilter.compile(one).getKey(), CompiledFilter.compile(two).getKey());
+    assertNotEquals(CompiledFilter.compile(one).getKey(), CompiledFilter.compile(new OrFilter(new TypeFilter(Requirement.Type.BONUS), new NameContainsFilter("index"))).getKey());
+    List<Requirement> result = manager.getFilteredRequirements(analyser, one);
+    assertEquals(Arrays.asList(r2), result);
+    assertSame(result, manager.getFilteredRequirements(analyser, two));
+  }
+  
+  @Test
+  public void testInvalidatedByCatalogueEdits() {
+    AssessmentManager manager = AssessmentManager.getInstance();
+    Filter filter = new TextContainsFilter("select");
+    assertEquals(Arrays.asList(r1), manager.getFilteredRequirements(analyser, filter));
+    r2.setDescription("Select the indexed columns");
+    catalogue.markModified();
+    assertEquals(Arrays.asList(r1, r2), manager.getFilteredRequirements(analyser, filter));
+  }
+  
+  @Test(expected = UnsupportedOperationException.class)
+  public void testResultIsUnmodifiable() {
+    AssessmentManager.getInstance().getFilteredRequirements(analyser, new TypeFilter(Requirement.Type.REGULAR)).clear();
+  }
+}
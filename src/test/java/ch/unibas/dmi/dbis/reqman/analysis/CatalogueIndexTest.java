@@ -0,0 +1,66 @@
+package ch.unibas.dmi.dbis.reqman.analysis;
+
+import ch.unibas.dmi.dbis.reqman.data.*;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Date;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the {@link CatalogueIndex}
+ *
+ * @author loris.sauter
+ */
+public class CatalogueIndexTest {
+  
+  private EntityFactory factory;
+  private Catalogue catalogue;
+  private Milestone ms1;
+  private Milestone ms2;
+  private Requirement r1;
+  private Requirement r2;
+  
+  @Before
+  public void setup() {
+    factory = EntityFactory.createFactoryAndCourse("Index Course", "HS17");
+    catalogue = factory.createCatalogue("Index Catalogue");
+    ms1 = factory.createMilestone("MS1", new Date(1508025600L));
+    ms2 = factory.createMilestone("MS2", new Date(1508457600L));
+    r1 = factory.createRequirement("R1", "R1 excerpt", 5, ms1, ms2);
+    r2 = factory.createBonusRequirement("R2", "R2 excerpt", 2, ms2, ms2);
+  }
+  
+  @Test
+  public void testLookup() {
+    CatalogueIndex index = new CatalogueIndex(catalogue);
+    assertSame(r1, index.getRequirement(r1.getUuid()));
+    assertSame(r2, index.getRequirement(r2.getUuid()));
+    assertSame(ms1, index.getMilestone(ms1.getUuid()));
+    assertSame(ms2, index.getMilestone(ms2.getUuid()));
+    assertNull(index.getRequirement(ms1.getUuid()));
+  }
+  
+  @Test
+  public void testIncrementalUpdate() {
+    CatalogueIndex index = new CatalogueIndex(catalogue);
+    Requirement r3 = factory.createMalusRequirement("R3", "R3 excerpt", 1, ms1, ms1);
+    index.addRequirement(r3);
+    assertSame(r3, index.getRequirement(r3.getUuid()));
+    
+    catalogue.removeRequirement(r1);
+    index.removeRequirement(r1);
+    assertFalse(index.containsRequirement(r1.getUuid()));
+    assertTrue(index.containsRequirement(r2.getUuid()));
+  }
+  
+  @Test
+  public void testDetectsUnreportedModification() {
+    CatalogueIndex index = new CatalogueIndex(catalogue);
+    Requirement r3 = factory.createRequirement("R3", "R3 excerpt", 1, ms1, ms1);
+    catalogue.removeRequirement(r2);
+    assertSame(r3, index.getRequirement(r3.getUuid()));
+    assertNull(index.getRequirement(r2.getUuid()));
+  }
+}
@@ -0,0 +1,83 @@
+package ch.unibas.dmi.dbis.reqman.analysis;
+
+import ch.unibas.dmi.dbis.reqman.data.*;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the {@link CompiledFilter} against the plain evaluation of the {@link Filter}s
+ *
+ * @author loris.sauter
+ */
+public class CompiledFilterTest {
+  
+  private Catalogue catalogue;
+  private CatalogueAnalyser analyser;
+  private Requirement r1;
+  private Requirement r2;
+  private Requirement r3;
+  
+  @Before
+  public void setup() {
+    EntityFactory factory = EntityFactory.createFactoryAndCourse("Filter Course", "HS17");
+    catalogue = factory.createCatalogue("Filter Catalogue");
+    Milestone ms = factory.createMilestone("MS", new Date(1508025600L));
+    r1 = factory.createRequirement("SQL Basics", "Write a SELECT", 4, ms, ms);
+    r1.setCategory("Databases");
+    r1.setDescription("Queries with joins");
+    r2 = factory.createBonusRequirement("Index Tuning", "Create an index", 2, ms, ms);
+    r2.setCategory("Databases");
+    r3 = factory.createMalusRequirement("Late Submission", "Submitted late", 3, ms, ms);
+    analyser = new CatalogueAnalyser(factory.getCourse(), catalogue);
+  }
+  
+  private List<Requirement> plain(Filter filter) {
+    return catalogue.requirementsView().stream().filter(filter).collect(Collectors.toList());
+  }
+  
+  @Test
+  public void testMatchesPlainEvaluation() {
+    List<Filter> filters = Arrays.asList(
+        new TypeFilter(Requirement.Type.BONUS),
+        new NameContainsFilter("sql"),
+        new CategoryContainsFilter("DATA"),
+        new TextContainsFilter("JOIN"),
+        new NotFilter(new TextContainsFilter("index")),
+        new AndFilter(new TextContainsFilter("e"), new AndFilter(new CategoryContainsFilter("data"), new TypeFilter(Requirement.Type.REGULAR))),
+        new OrFilter(new NameContainsFilter("late"), new OrFilter(new TypeFilter(Requirement.Type.BONUS), r -> r.getMaxPoints() > 3)),
+        new AndFilter(new NotFilter(new TypeFilter(Requirement.Type.MALUS)), new OrFilter(new TextContainsFilter("select"), new NameContainsFilter("tuning")))
+    );
+    for (Filter f : filters) {
+      assertEquals(f.getDisplayRepresentation(), plain(f), analyser.getFilteredRequirements(f));
+    }
+  }
+  
+  @Test
+  public void testReportedModificationIsDetected() {
+    Filter filter = new NameContainsFilter("advanced");
+    assertEquals(0, analyser.getFilteredRequirements(filter).size());
+    r1.setName("Advanced SQL");
+    catalogue.markModified();
+    assertEquals(Arrays.asList(r1), analyser.getFilteredRequirements(filter));
+    r1.setCategory(null);
+    analyser.getSearchIndex().updateRequirement(r1);
+    assertEquals(Arrays.asList(r2), analyser.findRequirementsForCategory("base"));
+  }
+  
+  @Test
+  public void testIndexedCandidatesAreVerified() {
+    // "ind" and "dex" occur in different fields of r2, but only the excerpt contains the whole pattern
+    r2.setDescription("A sorted index");
+    catalogue.markModified();
+    assertEquals(Arrays.asList(r2), analyser.getFilteredRequirements(new AndFilter(new TypeFilter(Requirement.Type.BONUS), new TextContainsFilter("an index"))));
+    assertEquals(0, analyser.getFilteredRequirements(new NameContainsFilter("an index")).size());
+    assertEquals(Arrays.asList(r1, r2, r3), analyser.getFilteredRequirements(new TextContainsFilter("e")));
+  }
+}
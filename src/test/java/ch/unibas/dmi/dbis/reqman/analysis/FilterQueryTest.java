@@ -0,0 +1,105 @@
+package ch.unibas.dmi.dbis.reqman.analysis;
+
+import ch.unibas.dmi.dbis.reqman.data.*;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests parsing and planning of textual filter queries by the {@link FilterQuery}
+ *
+ * @author loris.sauter
+ */
+public class FilterQueryTest {
+  
+  private Catalogue catalogue;
+  private CatalogueAnalyser analyser;
+  private Requirement r1;
+  private Requirement r2;
+  private Requirement r3;
+  private Requirement r4;
+  
+  @Before
+  public void setup() {
+    EntityFactory factory = EntityFactory.createFactoryAndCourse("Query Course", "HS17");
+    catalogue = factory.createCatalogue("Query Catalogue");
+    Milestone ms1 = factory.createMilestone("MS1", new Date(1508025600000L));
+    Milestone ms2 = factory.createMilestone("MS2", new Date(1509025600000L));
+    Milestone ms3 = factory.createMilestone("MS3", new Date(1510025600000L));
+    r1 = factory.createRequirement("SQL Basics", "Write a SELECT", 4, ms1, ms3);
+    r1.setCategory("SQL");
+    r2 = factory.createBonusRequirement("Index Tuning", "Create an index", 2, ms3, ms3);
+    r2.setCategory("SQL");
+    r3 = factory.createBonusRequirement("Window Functions", "Rank the rows", 2, ms3, ms3);
+    r3.setCategory("SQL");
+    r4 = factory.createMalusRequirement("Late Submission", "Submitted late", 3, ms2, ms3);
+    analyser = new CatalogueAnalyser(factory.getCourse(), catalogue);
+  }
+  
+  private List<Requirement> query(String query) {
+    return analyser.getFilteredRequirements(analyser.parseFilterQuery(query));
+  }
+  
+  private List<Requirement> plain(String query) {
+    return catalogue.requirementsView().stream().filter(analyser.parseFilterQuery(query)).collect(Collectors.toList());
+  }
+  
+  @Test
+  public void testPredicates() {
+    assertEquals(Arrays.asList(r2, r3), query("type:bonus"));
+    assertEquals(Arrays.asList(r1, r2, r3), query("cat:sql"));
+    assertEquals(Arrays.asList(r3), query("name:\"window func\""));
+    assertEquals(Arrays.asList(r2), query("text:INDEX"));
+    assertEquals(Arrays.asList(r4), query("late"));
+    assertEquals(Arrays.asList(r4), query("ms:2"));
+    assertEquals(Arrays.asList(r2, r3, r4), query("milestone:>=2"));
+    assertEquals(Arrays.asList(r1), query("ms:<2"));
+  }
+  
+  @Test
+  public void testOperators() {
+    assertEquals(Arrays.asList(r3), query("type:bonus AND cat:\"SQL\" AND NOT text:index ms:>=3"));
+    assertEquals(Arrays.asList(r1, r4), query("type:malus OR name:sql"));
+    assertEquals(Arrays.asList(r1, r4), query("NOT (type:bonus)"));
+    assertEquals(Arrays.asList(r2, r4), query("(index OR late) NOT type:regular"));
+    assertEquals(Arrays.asList(r2, r3, r4), query("type:malus OR type:bonus cat:sql"));
+    for (String q : Arrays.asList("type:bonus AND cat:\"SQL\" AND NOT text:index ms:>=3", "NOT(late OR sql) ms:3", "type:regular OR NOT cat:sq")) {
+      assertEquals(q, plain(q), query(q));
+    }
+  }
+  
+  @Test
+  public void testPlanOrdersBySelectivity() {
+    Filter filter = analyser.parseFilterQuery("text:index AND type:bonus AND cat:sql AND type:malus");
+    // Type predicates first, the more selective malus one leading, then the category and finally the text
+    assertEquals("Type is 'Malus' and Type is 'Bonus' and Category contains sql and Text contains index", filter.getDisplayRepresentation());
+    assertEquals(Collections.emptyList(), analyser.getFilteredRequirements(filter));
+  }
+  
+  @Test
+  public void testParsedQueriesAreCached() {
+    Filter filter = analyser.parseFilterQuery("type:bonus cat:sql");
+    assertSame(filter, analyser.parseFilterQuery("type:bonus cat:sql"));
+    catalogue.markModified();
+    assertNotSame(filter, analyser.parseFilterQuery("type:bonus cat:sql"));
+  }
+  
+  @Test
+  public void testMalformedQueries() {
+    for (String q : Arrays.asList("", "type:", "type:huge", "(sql", "sql)", "foo:bar", "ms:>x", "cat:\"sql", "sql AND")) {
+      try {
+        analyser.parseFilterQuery(q);
+        fail("Expected '" + q + "' to be rejected");
+      } catch (IllegalArgumentException ex) {
+        // Expected
+      }
+    }
+  }
+}
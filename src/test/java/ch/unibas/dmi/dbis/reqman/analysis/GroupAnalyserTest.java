@@ -0,0 +1,150 @@
+package ch.unibas.dmi.dbis.reqman.analysis;
+
+import ch.unibas.dmi.dbis.reqman.data.*;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the point summation of the {@link GroupAnalyser}
+ *
+ * @author loris.sauter
+ */
+public class GroupAnalyserTest {
+  
+  private static final double EPSILON = 1e-9;
+  
+  private EntityFactory factory;
+  private Course course;
+  private Catalogue catalogue;
+  private Group group;
+  private GroupAnalyser analyser;
+  
+  private Milestone ms1;
+  private Milestone ms2;
+  private Requirement r1;
+  private Requirement r2;
+  private Requirement r3;
+  private Requirement r4;
+  
+  @Before
+  public void setup() {
+    factory = EntityFactory.createFactoryAndCourse("Sum Course", "HS17");
+    course = factory.getCourse();
+    catalogue = factory.createCatalogue("Sum Catalogue");
+    ms1 = factory.createMilestone("MS1", new Date(1508025600L));
+    ms2 = factory.createMilestone("MS2", new Date(1508457600L));
+    r1 = factory.createRequirement("R1", "R1 excerpt", 4, ms1, ms1);
+    r2 = factory.createRequirement("R2", "R2 excerpt", 6, ms1, ms2);
+    r3 = factory.createBonusRequirement("R3", "R3 excerpt", 2, ms2, ms2);
+    r4 = factory.createMalusRequirement("R4", "R4 excerpt", 3, ms1, ms2);
+    group = factory.createGroup("Group");
+    factory.link(group, course);
+    group.setProgressSummaries(factory.createProgressSummaries());
+    group.setProgressList(factory.createProgressList());
+    analyser = new GroupAnalyser(course, catalogue, group);
+  }
+  
+  private void assess(Requirement r, Milestone ms, double fraction) {
+    Progress p = analyser.getProgressFor(r);
+    p.setFraction(fraction);
+    p.setProgressSummaryUUID(analyser.getProgressSummaryFor(ms).getUuid());
+    analyser.progressChanged(p);
+  }
+  
+  @Test
+  public void testIncrementalSums() {
+    ProgressSummary ps1 = analyser.getProgressSummaryFor(ms1);
+    ProgressSummary ps2 = analyser.getProgressSummaryFor(ms2);
+    assertEquals(0d, analyser.getSum(), EPSILON);
+    
+    assess(r1, ms1, 1);
+    assess(r2, ms1, 0.5);
+    assess(r3, ms2, 1);
+    assertEquals(7d, analyser.getSumFor(ps1), EPSILON);
+    assertEquals(2d, analyser.getSumFor(ps2), EPSILON);
+    assertEquals(2d, analyser.getBonusSumFor(ps2), EPSILON);
+    assertEquals(9d, analyser.getSum(), EPSILON);
+    assertEquals(9d, analyser.getCumulativeSumFor(ps2), EPSILON);
+    
+    // Reassessing at another milestone moves the points
+    assess(r2, ms2, 1);
+    assertEquals(4d, analyser.getSumFor(ps1), EPSILON);
+    assertEquals(8d, analyser.getSumFor(ps2), EPSILON);
+    assertEquals(6d, analyser.getRegularSumFor(ps2), EPSILON);
+    
+    assess(r4, ms1, 1);
+    assertEquals(-3d, analyser.getMalusSumFor(ps1), EPSILON);
+    assertEquals(9d, analyser.getSum(), EPSILON);
+  }
+  
+  @Test
+  public void testUnreportedChangeIsDetected() {
+    assess(r1, ms1, 1);
+    assertEquals(4d, analyser.getSum(), EPSILON);
+    group.setProgressList(factory.createProgressList());
+    assertEquals(0d, analyser.getSum(), EPSILON);
+  }
+  
+  @Test
+  public void testCumulativeSums() {
+    ProgressSummary ps1 = analyser.getProgressSummaryFor(ms1);
+    ProgressSummary ps2 = analyser.getProgressSummaryFor(ms2);
+    CatalogueAnalyser catalogueAnalyser = new CatalogueAnalyser(course, catalogue);
+    assertEquals(10d, catalogueAnalyser.getCumulativeMaximalRegularSumFor(ms1), EPSILON);
+    assertEquals(10d, catalogueAnalyser.getCumulativeMaximalRegularSumFor(ms2), EPSILON);
+    
+    assess(r1, ms1, 1);
+    assertEquals(4d, analyser.getCumulativeSumFor(ps1), EPSILON);
+    assertEquals(4d, analyser.getCumulativeSumFor(ps2), EPSILON);
+    assess(r3, ms2, 0.5);
+    assertEquals(4d, analyser.getCumulativeSumFor(ps1), EPSILON);
+    assertEquals(5d, analyser.getCumulativeSumFor(ps2), EPSILON);
+    
+    factory.createRequirement("R5", "R5 excerpt", 5, ms2, ms2);
+    assertEquals(5d, catalogueAnalyser.getMaximalRegularSumFor(ms2), EPSILON);
+    assertEquals(15d, catalogueAnalyser.getCumulativeMaximalRegularSumFor(ms2), EPSILON);
+  }
+  
+  @Test
+  public void testSharedCatalogueAnalyser() {
+    CatalogueAnalyser catalogueAnalyser = new CatalogueAnalyser(course, catalogue);
+    Group other = factory.createGroup("Other");
+    factory.link(other, course);
+    other.setProgressSummaries(factory.createProgressSummaries());
+    other.setProgressList(factory.createProgressList());
+    GroupAnalyser first = new GroupAnalyser(catalogueAnalyser, group);
+    GroupAnalyser second = new GroupAnalyser(catalogueAnalyser, other);
+    
+    assess(r1, ms1, 1);
+    first.invalidate();
+    assertEquals(4d, first.getSum(), EPSILON);
+    assertEquals(0d, second.getSum(), EPSILON);
+    assertEquals(first.getRequirementOf(analyser.getProgressFor(r1)), second.getRequirementOf(second.getProgressFor(r1)));
+  }
+  
+  @Test
+  public void testProgressBuckets() {
+    ProgressSummary ps1 = analyser.getProgressSummaryFor(ms1);
+    ProgressSummary ps2 = analyser.getProgressSummaryFor(ms2);
+    assertEquals(3, analyser.getProgressFor(ps1).size()); // R1, R2, R4
+    assertEquals(3, analyser.getProgressFor(ps2).size()); // R2, R3, R4
+    assertEquals(2, analyser.getOpenProgressAt(ps1).size()); // R2, R4; R1 is singular
+    
+    assess(r2, ms1, 1);
+    assertEquals(3, analyser.getProgressFor(ps1).size());
+    assertEquals(2, analyser.getProgressFor(ps2).size());
+    assertEquals(1, analyser.getOpenProgressAt(ps1).size());
+    assertEquals(2, analyser.getProgressMadeUntilOrOpen(ps2).size()); // R3 and R4, open at MS2 and R4 still open at MS1
+    
+    Progress p = analyser.getProgressFor(r2);
+    p.reset();
+    analyser.progressChanged(p);
+    assertEquals(3, analyser.getProgressFor(ps2).size());
+    assertEquals(p, analyser.getProgressById(p.getUuid()));
+  }
+  
+}
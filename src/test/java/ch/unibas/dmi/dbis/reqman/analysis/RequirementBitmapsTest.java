@@ -0,0 +1,87 @@
+package ch.unibas.dmi.dbis.reqman.analysis;
+
+import ch.unibas.dmi.dbis.reqman.data.*;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the {@link RequirementBitmaps} and the bitset evaluation of {@link CompiledFilter}s
+ *
+ * @author loris.sauter
+ */
+public class RequirementBitmapsTest {
+  
+  private Catalogue catalogue;
+  private RequirementSearchIndex index;
+  private RequirementBitmaps bitmaps;
+  private Requirement r1;
+  private Requirement r2;
+  private Requirement r3;
+  
+  @Before
+  public void setup() {
+    EntityFactory factory = EntityFactory.createFactoryAndCourse("Bitmap Course", "HS17");
+    catalogue = factory.createCatalogue("Bitmap Catalogue");
+    Milestone ms = factory.createMilestone("MS", new Date(1508025600L));
+    r1 = factory.createRequirement("SQL Basics", "Write a SELECT", 4, ms, ms);
+    r1.setCategory("Databases");
+    r2 = factory.createBonusRequirement("Index Tuning", "Create an index", 2, ms, ms);
+    r2.setCategory("Database Tuning");
+    r3 = factory.createMalusRequirement("Late Submission", "Submitted late", 3, ms, ms);
+    index = new RequirementSearchIndex(catalogue, new RequirementTextCache(catalogue));
+    bitmaps = new RequirementBitmaps(catalogue, index);
+  }
+  
+  private static BitSet bits(int... ordinals) {
+    BitSet set = new BitSet();
+    Arrays.stream(ordinals).forEach(set::set);
+    return set;
+  }
+  
+  @Test
+  public void testPrecomputedSets() {
+    assertEquals(3, bitmaps.size());
+    assertEquals(bits(0, 1, 2), bitmaps.all());
+    assertEquals(bits(1), bitmaps.ofType(Requirement.Type.BONUS));
+    assertEquals(bits(0, 1), bitmaps.ofCategoryContaining("database"));
+    assertEquals(bits(1), bitmaps.ofCategoryContaining("tuning"));
+    assertEquals(bits(0), bitmaps.ofTextContaining(RequirementTextCache.TEXT, "ql"));
+    assertEquals(bits(1, 2), bitmaps.ofTextContaining(RequirementTextCache.TEXT, "ate"));
+  }
+  
+  @Test
+  public void testReturnedSetsAreCopies() {
+    bitmaps.ofType(Requirement.Type.REGULAR).clear();
+    bitmaps.ofTextContaining(RequirementTextCache.NAME, "sql").clear();
+    assertEquals(bits(0), bitmaps.ofType(Requirement.Type.REGULAR));
+    assertEquals(bits(0), bitmaps.ofTextContaining(RequirementTextCache.NAME, "sql"));
+  }
+  
+  @Test
+  public void testRebuiltOnModification() {
+    assertEquals(bits(), bitmaps.ofTextContaining(RequirementTextCache.NAME, "advanced"));
+    r3.setName("Advanced Lateness");
+    catalogue.markModified();
+    index.updateRequirement(r3);
+    assertEquals(bits(2), bitmaps.ofTextContaining(RequirementTextCache.NAME, "advanced"));
+    catalogue.removeRequirement(r1);
+    assertEquals(2, bitmaps.size());
+    assertEquals(bits(0), bitmaps.ofCategoryContaining("database"));
+  }
+  
+  @Test
+  public void testCompiledOperations() {
+    CompiledFilter not = CompiledFilter.compile(new NotFilter(new TypeFilter(Requirement.Type.BONUS)));
+    assertEquals(bits(0, 2), not.evaluate(bitmaps));
+    CompiledFilter or = CompiledFilter.compile(new OrFilter(new CategoryContainsFilter("tuning"), new NameContainsFilter("late")));
+    assertEquals(bits(1, 2), or.evaluate(bitmaps));
+    CompiledFilter and = CompiledFilter.compile(new AndFilter(new NotFilter(new TypeFilter(Requirement.Type.MALUS)), new TextContainsFilter("select")));
+    assertEquals(Arrays.asList(r1), and.apply(bitmaps));
+  }
+}
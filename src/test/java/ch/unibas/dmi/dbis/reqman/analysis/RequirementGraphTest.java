@@ -0,0 +1,82 @@
+package ch.unibas.dmi.dbis.reqman.analysis;
+
+import ch.unibas.dmi.dbis.reqman.data.*;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the {@link RequirementGraph}
+ *
+ * @author loris.sauter
+ */
+public class RequirementGraphTest {
+  
+  private EntityFactory factory;
+  private Catalogue catalogue;
+  private Requirement r1;
+  private Requirement r2;
+  private Requirement r3;
+  private Requirement r4;
+  
+  @Before
+  public void setup() {
+    factory = EntityFactory.createFactoryAndCourse("Graph Course", "HS17");
+    catalogue = factory.createCatalogue("Graph Catalogue");
+    Milestone ms = factory.createMilestone("MS", new Date(1508025600L));
+    r1 = factory.createRequirement("R1", "R1 excerpt", 1, ms, ms);
+    r2 = factory.createRequirement("R2", "R2 excerpt", 1, ms, ms);
+    r3 = factory.createRequirement("R3", "R3 excerpt", 1, ms, ms);
+    r4 = factory.createRequirement("R4", "R4 excerpt", 1, ms, ms);
+    r2.addPredecessor(r1);
+    r3.addPredecessor(r2);
+    r4.addPredecessor(r1);
+  }
+  
+  @Test
+  public void testAdjacency() {
+    RequirementGraph graph = new RequirementGraph(new CatalogueIndex(catalogue));
+    List<Requirement> dependants = graph.getDependants(r1);
+    assertEquals(2, dependants.size());
+    assertTrue(dependants.contains(r2));
+    assertTrue(dependants.contains(r4));
+    assertEquals(1, graph.getPredecessorCount(r3));
+    assertTrue(graph.getPredecessors(r3).contains(r2));
+    assertFalse(graph.hasDependants(r3));
+    assertTrue(graph.dependsOn(r3, r1));
+    assertFalse(graph.dependsOn(r1, r3));
+  }
+  
+  @Test
+  public void testTopologicalOrder() {
+    RequirementGraph graph = new RequirementGraph(new CatalogueIndex(catalogue));
+    List<Requirement> order = graph.getTopologicalOrder();
+    assertEquals(4, order.size());
+    assertTrue(order.indexOf(r1) < order.indexOf(r2));
+    assertTrue(order.indexOf(r2) < order.indexOf(r3));
+    assertTrue(order.indexOf(r1) < order.indexOf(r4));
+    assertFalse(graph.hasCycle());
+  }
+  
+  @Test(expected = IllegalArgumentException.class)
+  public void testRejectsCycle() {
+    RequirementGraph graph = new RequirementGraph(new CatalogueIndex(catalogue));
+    assertTrue(graph.createsCycle(r1, r3));
+    graph.addPredecessor(r1, r3);
+  }
+  
+  @Test
+  public void testDetectsReportedCycle() {
+    RequirementGraph graph = new RequirementGraph(new CatalogueIndex(catalogue));
+    assertTrue(graph.addPredecessor(r3, r4));
+    assertTrue(graph.getDependants(r4).contains(r3));
+    r1.addPredecessor(r3);
+    catalogue.markModified();
+    assertTrue(graph.hasCycle());
+  }
+  
+}
@@ -0,0 +1,68 @@
+package ch.unibas.dmi.dbis.reqman.analysis;
+
+import ch.unibas.dmi.dbis.reqman.data.*;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the incremental maintenance of the {@link RequirementSearchIndex}
+ *
+ * @author loris.sauter
+ */
+public class RequirementSearchIndexTest {
+  
+  private EntityFactory factory;
+  private Catalogue catalogue;
+  private Milestone ms;
+  private RequirementSearchIndex index;
+  private Requirement r1;
+  private Requirement r2;
+  
+  @Before
+  public void setup() {
+    factory = EntityFactory.createFactoryAndCourse("Search Course", "HS17");
+    catalogue = factory.createCatalogue("Search Catalogue");
+    ms = factory.createMilestone("MS", new Date(1508025600L));
+    r1 = factory.createRequirement("Normal Forms", "Normalize the schema", 4, ms, ms);
+    r2 = factory.createRequirement("Transactions", "Use isolation levels", 4, ms, ms);
+    index = new RequirementSearchIndex(catalogue, new RequirementTextCache(catalogue));
+  }
+  
+  @Test
+  public void testFind() {
+    assertEquals(Arrays.asList(r1), index.find(RequirementTextCache.NAME, "FORM"));
+    assertEquals(Arrays.asList(r1, r2), index.find(RequirementTextCache.TEXT, "n"));
+    assertEquals(Collections.emptyList(), index.find(RequirementTextCache.NAME, "schema"));
+    assertEquals(Arrays.asList(r1), index.find(RequirementTextCache.EXCERPT, "schema"));
+  }
+  
+  @Test
+  public void testIncrementalUpdates() {
+    Requirement r3 = factory.createRequirement("Schema Design", "Design it", 2, ms, ms);
+    index.addRequirement(r3);
+    assertEquals(Arrays.asList(r1, r3), index.find(RequirementTextCache.TEXT, "schema"));
+  
+    r1.setExcerpt("Decompose");
+    r1.addProperty("points", "Schema quality");
+    catalogue.markModified();
+    index.updateRequirement(r1);
+    assertEquals(Arrays.asList(r3), index.find(RequirementTextCache.TEXT, "schema"));
+    assertEquals(Arrays.asList(r1), index.find(RequirementTextCache.PROPERTIES, "schema"));
+  
+    catalogue.removeRequirement(r3);
+    index.removeRequirement(r3);
+    assertEquals(Collections.emptyList(), index.find(RequirementTextCache.NAME, "design"));
+  }
+  
+  @Test
+  public void testUnreportedStructuralChangeIsDetected() {
+    Requirement r3 = factory.createRequirement("Isolation", "Serializable", 2, ms, ms);
+    assertEquals(Arrays.asList(r2, r3), index.find(RequirementTextCache.TEXT, "isolation"));
+  }
+}
@@ -0,0 +1,164 @@
+package ch.unibas.dmi.dbis.reqman.analysis;
+
+import ch.unibas.dmi.dbis.reqman.data.*;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the {@link ScoreMatrix} against the sums of the {@link GroupAnalyser}
+ *
+ * @author loris.sauter
+ */
+public class ScoreMatrixTest {
+  
+  private static final double EPSILON = 1e-9;
+  
+  private EntityFactory factory;
+  private Course course;
+  private CatalogueAnalyser catalogueAnalyser;
+  private GroupAnalyser first;
+  private GroupAnalyser second;
+  
+  private Milestone ms1;
+  private Milestone ms2;
+  private Requirement r1;
+  private Requirement r2;
+  private Requirement r3;
+  private Requirement r4;
+  
+  @Before
+  public void setup() {
+    factory = EntityFactory.createFactoryAndCourse("Matrix Course", "HS17");
+    course = factory.getCourse();
+    Catalogue catalogue = factory.createCatalogue("Matrix Catalogue");
+    ms1 = factory.createMilestone("MS1", new Date(1508025600L));
+    ms2 = factory.createMilestone("MS2", new Date(1508457600L));
+    r1 = factory.createRequirement("R1", "R1 excerpt", 4, ms1, ms1);
+    r2 = factory.createRequirement("R2", "R2 excerpt", 6, ms1, ms2);
+    r3 = factory.createBonusRequirement("R3", "R3 excerpt", 2, ms2, ms2);
+    r4 = factory.createMalusRequirement("R4", "R4 excerpt", 3, ms1, ms2);
+    catalogueAnalyser = new CatalogueAnalyser(course, catalogue);
+    first = new GroupAnalyser(catalogueAnalyser, createGroup("First"));
+    second = new GroupAnalyser(catalogueAnalyser, createGroup("Second"));
+  }
+  
+  private Group createGroup(String name) {
+    Group group = factory.createGroup(name);
+    factory.link(group, course);
+    group.setProgressSummaries(factory.createProgressSummaries());
+    group.setProgressList(factory.createProgressList());
+    return group;
+  }
+  
+  private void assess(GroupAnalyser analyser, Requirement r, Milestone ms, double fraction) {
+    Progress p = analyser.getProgressFor(r);
+    p.setFraction(fraction);
+    p.setProgressSummaryUUID(analyser.getProgressSummaryFor(ms).getUuid());
+    analyser.progressChanged(p);
+  }
+  
+  @Test
+  public void testSumsMatchAnalyser() {
+    assess(first, r1, ms1, 1);
+    assess(first, r2, ms2, 0.5);
+    assess(first, r3, ms2, 1);
+    assess(second, r2, ms1, 1);
+    assess(second, r4, ms2, 1);
+  
+    ScoreMatrix matrix = new ScoreMatrix(catalogueAnalyser, Arrays.asList(first, second));
+    assertEquals(2, matrix.getGroupCount());
+    assertEquals(4, matrix.getRequirementCount());
+    assertEquals(2, matrix.getMilestoneCount());
+  
+    for (GroupAnalyser analyser : Arrays.asList(first, second)) {
+      int row = matrix.indexOf(analyser.getGroup());
+      assertEquals(analyser.getSum(), matrix.getSum(row), EPSILON);
+      for (Milestone ms : Arrays.asList(ms1, ms2)) {
+        ProgressSummary ps = analyser.getProgressSummaryFor(ms);
+        int ordinal = catalogueAnalyser.getCourseManager().getMilestoneOrdinal(ms);
+        assertEquals(analyser.getSumFor(ps), matrix.getSumFor(row, ordinal), EPSILON);
+        assertEquals(analyser.getCumulativeSumFor(ps), matrix.getCumulativeSumFor(row, ordinal), EPSILON);
+        assertEquals(analyser.getRegularSumFor(ps), matrix.getSumFor(row, ordinal, Requirement.Type.REGULAR), EPSILON);
+        assertEquals(analyser.getBonusSumFor(ps), matrix.getSumFor(row, ordinal, Requirement.Type.BONUS), EPSILON);
+        assertEquals(analyser.getMalusSumFor(ps), matrix.getSumFor(row, ordinal, Requirement.Type.MALUS), EPSILON);
+      }
+    }
+    assertEquals(-3d, matrix.getPoints(1, matrix.indexOf(r4)), EPSILON);
+    assertEquals(0.75, matrix.getMeanFraction(matrix.indexOf(r2)), EPSILON);
+  }
+  
+  @Test
+  public void testMaximalSums() {
+    ScoreMatrix matrix = new ScoreMatrix(catalogueAnalyser, Arrays.asList(first, second));
+    assertEquals(catalogueAnalyser.getMaximalRegularSumFor(ms1), matrix.getMaximalSumFor(0, Requirement.Type.REGULAR), EPSILON);
+    assertEquals(catalogueAnalyser.getMaximalBonusSumFor(ms2), matrix.getMaximalSumFor(1, Requirement.Type.BONUS), EPSILON);
+    assertEquals(catalogueAnalyser.getMaximalMalusSumFor(ms1), matrix.getMaximalSumFor(0, Requirement.Type.MALUS), EPSILON);
+    assertEquals(catalogueAnalyser.getCumulativeMaximalRegularSumFor(ms2), matrix.getCumulativeMaximalSumFor(1, Requirement.Type.REGULAR), EPSILON);
+  }
+  
+  @Test
+  public void testParallelMatchesSequential() {
+    assess(first, r1, ms1, 1);
+    assess(first, r4, ms1, 1);
+    assess(second, r2, ms2, 0.5);
+    assess(second, r3, ms2, 1);
+    List<Group> groups = Arrays.asList(first.getGroup(), second.getGroup());
+    ScoreMatrix sequential = new ScoreMatrix(ScoreMatrix.capture(catalogueAnalyser, groups), null);
+    ScoreMatrix parallel = new ScoreMatrix(ScoreMatrix.capture(catalogueAnalyser, groups), new ForkJoinPool(2));
+    assertArrayEquals(sequential.getSums(), parallel.getSums(), EPSILON);
+    for (int row = 0; row < groups.size(); row++) {
+      for (int m = 0; m < sequential.getMilestoneCount(); m++) {
+        assertEquals(sequential.getCumulativeSumFor(row, m), parallel.getCumulativeSumFor(row, m), EPSILON);
+        for (Requirement.Type type : Requirement.Type.values()) {
+          assertEquals(sequential.getSumFor(row, m, type), parallel.getSumFor(row, m, type), EPSILON);
+        }
+      }
+    }
+    assertEquals(1d, parallel.getSum(0), EPSILON);
+    assertEquals(5d, parallel.getSum(1), EPSILON);
+  }
+  
+  @Test
+  public void testSnapshotUnaffectedByLaterAssessments() {
+    assess(first, r1, ms1, 1);
+    List<Group> groups = Arrays.asList(first.getGroup(), second.getGroup());
+    ScoreMatrix.Snapshot snapshot = ScoreMatrix.capture(catalogueAnalyser, groups);
+    assess(first, r1, ms2, 0.5); // E.g. by the evaluator, while the rows are computed
+    assess(second, r2, ms1, 1);
+    ScoreMatrix matrix = new ScoreMatrix(snapshot, new ForkJoinPool(2));
+    assertEquals(1d, matrix.getFraction(0, matrix.indexOf(r1)), EPSILON);
+    assertEquals(4d, matrix.getSumFor(0, 0), EPSILON);
+    assertEquals(0d, matrix.getSum(1), EPSILON);
+  }
+  
+  @Test
+  public void testSnapshotWithSavedGroups() {
+    assess(first, r1, ms1, 1);
+    assess(second, r2, ms1, 1);
+    ScoreMatrix.Snapshot snapshot = ScoreMatrix.capture(catalogueAnalyser, Collections.singletonList(first.getGroup()));
+    ScoreMatrix matrix = new ScoreMatrix(snapshot.withGroups(Collections.singletonList(second.getGroup())), null);
+    assertEquals(2, matrix.getGroupCount());
+    assertEquals(4d, matrix.getSum(0), EPSILON);
+    assertEquals(1, matrix.indexOf(second.getGroup()));
+    assertEquals(1d, matrix.getFraction(1, matrix.indexOf(r2)), EPSILON);
+    assertEquals(1, new ScoreMatrix(snapshot, null).getGroupCount());
+  }
+  
+  @Test
+  public void testDistribution() {
+    double[] values = {1, 2, 3, 10};
+    assertEquals(4d, ScoreMatrix.mean(values), EPSILON);
+    assertEquals(2.5, ScoreMatrix.median(values), EPSILON);
+    assertArrayEquals(new int[]{3, 0, 1}, ScoreMatrix.histogram(values, 3));
+    assertArrayEquals(new int[]{0, 0}, ScoreMatrix.histogram(new double[0], 2));
+  }
+}
@@ -0,0 +1,84 @@
+package ch.unibas.dmi.dbis.reqman.common;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the {@link ContentHash} and the skipping of unchanged writes
+ *
+ * @author loris.sauter
+ */
+public class ContentHashTest {
+  
+  private File dir;
+  
+  @Before
+  public void setup() throws IOException {
+    dir = Files.createTempDirectory("reqman-hash").toFile();
+  }
+  
+  @After
+  public void cleanup() throws IOException {
+    for (File f : dir.listFiles()) {
+      Files.delete(f.toPath());
+    }
+    Files.delete(dir.toPath());
+  }
+  
+  private static byte[] bytes(String str) {
+    return str.getBytes(StandardCharsets.UTF_8);
+  }
+  
+  @Test
+  public void testKnownHashes() {
+    assertEquals(0xEF46DB3751D8E999L, ContentHash.hash(new byte[0]));
+    assertEquals(0x44BC2CF5AD770999L, ContentHash.hash(bytes("abc")));
+  }
+  
+  @Test
+  public void testHashDependsOnEveryByte() {
+    byte[] content = bytes("The quick brown fox jumps over the lazy dog, twice or more often");
+    long hash = ContentHash.hash(content);
+    for (int i = 0; i < content.length; i++) {
+      byte[] changed = content.clone();
+      changed[i]++;
+      assertNotEquals("Byte " + i, hash, ContentHash.hash(changed));
+    }
+  }
+  
+  @Test
+  public void testUnchangedWriteSkipped() throws IOException {
+    File file = new File(dir, "export.html");
+    assertTrue(IOUtils.writeIfChanged(file, "<p>Points: 5</p>"));
+    assertFalse(IOUtils.writeIfChanged(file, "<p>Points: 5</p>"));
+    assertTrue(IOUtils.writeIfChanged(file, "<p>Points: 6</p>"));
+    assertEquals("<p>Points: 6</p>", new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+  }
+  
+  @Test
+  public void testUnknownFileCompared() throws IOException {
+    File file = new File(dir, "existing.html");
+    Files.write(file.toPath(), bytes("same"));
+    assertTrue(ContentHash.isWritten(file, bytes("same")));
+    assertFalse(ContentHash.isWritten(file, bytes("else")));
+    assertFalse(ContentHash.isWritten(new File(dir, "missing.html"), new byte[0]));
+  }
+  
+  @Test
+  public void testExternalModificationNotSkipped() throws IOException {
+    File file = new File(dir, "export.html");
+    IOUtils.writeIfChanged(file, "ours");
+    Files.write(file.toPath(), bytes("them"));
+    file.setLastModified(file.lastModified() + 2000);
+    assertTrue(IOUtils.writeIfChanged(file, "ours"));
+    assertEquals("ours", new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,75 @@
+package ch.unibas.dmi.dbis.reqman.common;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the {@link ParallelLoader}
+ *
+ * @author loris.sauter
+ */
+public class ParallelLoaderTest {
+  
+  private static List<Integer> range(int size) {
+    List<Integer> list = new ArrayList<>();
+    for (int i = 0; i < size; i++) {
+      list.add(i);
+    }
+    return list;
+  }
+  
+  @Test
+  public void testResultsInInputOrder() throws Exception {
+    List<Integer> inputs = range(300);
+    List<String> results = ParallelLoader.loadAll(inputs, i -> {
+      Thread.sleep(i % 3); // Let the loads finish out of order
+      return "#" + i;
+    }, null);
+    assertEquals(inputs.size(), results.size());
+    for (int i = 0; i < inputs.size(); i++) {
+      assertEquals("#" + i, results.get(i));
+    }
+  }
+  
+  @Test
+  public void testProgressCounted() throws Exception {
+    AtomicInteger notified = new AtomicInteger();
+    Set<Integer> counts = ConcurrentHashMap.newKeySet();
+    ParallelLoader.loadAll(range(50), i -> i, (input, done, total) -> {
+      assertEquals(50, total);
+      notified.incrementAndGet();
+      counts.add(done);
+    });
+    assertEquals(50, notified.get());
+    assertEquals(new HashSet<>(range(51).subList(1, 51)), counts);
+  }
+  
+  @Test
+  public void testFirstFailureThrown() throws Exception {
+    try {
+      ParallelLoader.loadAll(range(20), i -> {
+        if (i == 7 || i == 15) {
+          throw new IOException("Failed " + i);
+        }
+        return i;
+      }, null);
+      fail("Expected an exception");
+    } catch (IOException e) {
+      assertEquals("Failed 7", e.getMessage());
+    }
+  }
+  
+  @Test
+  public void testEmptyInputs() throws Exception {
+    assertTrue(ParallelLoader.loadAll(new ArrayList<Integer>(), i -> i, null).isEmpty());
+  }
+}
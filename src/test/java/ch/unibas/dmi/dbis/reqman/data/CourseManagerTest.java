@@ -85,4 +85,28 @@ public class CourseManagerTest {
     Assert.assertEquals(this.d3, d3);
   }
   
+  @Test
+  public void testMilestoneOrdinal(){
+    CourseManager manager = new CourseManager(course, catalogue);
+    Assert.assertEquals(3, manager.getMilestoneCount());
+    Assert.assertEquals(0, manager.getMilestoneOrdinal(ms1));
+    Assert.assertEquals(1, manager.getMilestoneOrdinal(ms2));
+    Assert.assertEquals(2, manager.getMilestoneOrdinal(ms3));
+    Assert.assertEquals(ms1, manager.getFirstMilestone());
+    Assert.assertEquals(ms3, manager.getMilestoneByOrdinal(2));
+    Assert.assertNull(manager.getMilestoneByOrdinal(3));
+    Assert.assertEquals(ms2, manager.getMaximalMilestone(r3));
+  }
+  
+  @Test
+  public void testTimelineUpdate(){
+    CourseManager manager = new CourseManager(course, catalogue);
+    Assert.assertEquals(ms1, manager.getFirstMilestone());
+    Time t0 = factory.createTime(new Date(1507593600L));
+    Milestone ms0 = factory.createMilestone("MS0", t0);
+    Assert.assertEquals(4, manager.getMilestoneCount());
+    Assert.assertEquals(ms0, manager.getFirstMilestone());
+    Assert.assertEquals(1, manager.getMilestoneOrdinal(ms1));
+  }
+  
 }
\ No newline at end of file
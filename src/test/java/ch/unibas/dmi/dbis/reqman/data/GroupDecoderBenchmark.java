@@ -0,0 +1,123 @@
+package ch.unibas.dmi.dbis.reqman.data;
+
+import ch.unibas.dmi.dbis.reqman.common.JSONUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Benchmark of reading group files by the streaming {@link GroupDecoder} compared to the data-binding
+ * {@link ObjectMapper}, which was used before.
+ * <p>
+ * Writes 500 synthetic group files into a temporary directory and reads all of them repeatedly by both ways, reporting
+ * the average time and, if the JVM supports it, the allocated bytes per round. Not run as part of the tests, start it by
+ * its main method.
+ *
+ * @author loris.sauter
+ */
+public class GroupDecoderBenchmark {
+  
+  private static final int GROUPS = 500;
+  private static final int REQUIREMENTS = 120;
+  private static final int MILESTONES = 6;
+  private static final int WARMUP_ROUNDS = 5;
+  private static final int ROUNDS = 10;
+  
+  public static void main(String[] args) throws IOException {
+    File dir = Files.createTempDirectory("reqman-bench").toFile();
+    List<File> files = createGroupFiles(dir);
+    ObjectMapper mapper = new ObjectMapper();
+  
+    Reader dataBinding = file -> mapper.readValue(file, Group.class);
+    Reader streaming = JSONUtils::readGroupJSONFile;
+  
+    for (int i = 0; i < WARMUP_ROUNDS; i++) {
+      readAll(files, dataBinding);
+      readAll(files, streaming);
+    }
+    report("data-binding", files, dataBinding);
+    report("streaming", files, streaming);
+  
+    for (File f : files) {
+      Files.delete(f.toPath());
+    }
+    Files.delete(dir.toPath());
+  }
+  
+  private static List<File> createGroupFiles(File dir) throws IOException {
+    EntityFactory factory = EntityFactory.createFactoryAndCourse("Benchmark Course", "HS17");
+    factory.createCatalogue("Benchmark Catalogue");
+    List<Milestone> milestones = new ArrayList<>();
+    for (int m = 0; m < MILESTONES; m++) {
+      milestones.add(factory.createMilestone("MS" + m, new Date(1508025600000L + m * 604800000L)));
+    }
+    List<Requirement> requirements = new ArrayList<>();
+    for (int r = 0; r < REQUIREMENTS; r++) {
+      Milestone ms = milestones.get(r % MILESTONES);
+      requirements.add(factory.createRequirement("Requirement " + r, "Excerpt of requirement " + r, 1 + r % 5, ms, ms));
+    }
+    List<File> files = new ArrayList<>();
+    for (int g = 0; g < GROUPS; g++) {
+      Group group = factory.createGroup("Group " + g, new Member("Member", "First " + g, "member" + g + "@example.org"), new Member("Other", "Second " + g, null));
+      group.setProjectName("Project " + g);
+      List<ProgressSummary> summaries = new ArrayList<>();
+      for (Milestone ms : milestones) {
+        ProgressSummary ps = new ProgressSummary();
+        ps.setMilestoneUUID(ms.getUuid());
+        ps.setInternalComment("Internal notes on " + ms.getName());
+        ps.setExternalComment("Feedback for " + ms.getName());
+        summaries.add(ps);
+      }
+      group.setProgressSummaries(summaries);
+      List<Progress> progressList = new ArrayList<>();
+      for (int r = 0; r < REQUIREMENTS; r++) {
+        Progress p = new Progress();
+        p.setRequirementUUID(requirements.get(r).getUuid());
+        p.setProgressSummaryUUID(summaries.get(r % MILESTONES).getUuid());
+        p.setFraction((r + g) % 3 / 2d);
+        p.setAssessmentDate(new Date(1508025600000L + r * 3600000L));
+        p.setComment(r % 4 == 0 ? "Comment on requirement " + r : null);
+        progressList.add(p);
+      }
+      group.setProgressList(progressList);
+      File file = new File(dir, "group" + g + ".json");
+      JSONUtils.writeToJSONFile(group, file);
+      files.add(file);
+    }
+    return files;
+  }
+  
+  private static int readAll(List<File> files, Reader reader) throws IOException {
+    int progresses = 0;
+    for (File f : files) {
+      progresses += reader.read(f).progressListView().size();
+    }
+    return progresses;
+  }
+  
+  private static void report(String name, List<File> files, Reader reader) throws IOException {
+    ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    com.sun.management.ThreadMXBean allocations = bean instanceof com.sun.management.ThreadMXBean ? (com.sun.management.ThreadMXBean) bean : null;
+    long id = Thread.currentThread().getId();
+    long allocatedBefore = allocations != null ? allocations.getThreadAllocatedBytes(id) : 0;
+    long start = System.nanoTime();
+    for (int i = 0; i < ROUNDS; i++) {
+      readAll(files, reader);
+    }
+    double millis = (System.nanoTime() - start) / 1e6 / ROUNDS;
+    String allocated = allocations != null ? String.format("%.1f MB", (allocations.getThreadAllocatedBytes(id) - allocatedBefore) / 1e6 / ROUNDS) : "n/a";
+    System.out.println(String.format("%-12s %d files: %8.1f ms, %s allocated per round", name, files.size(), millis, allocated));
+  }
+  
+  @FunctionalInterface
+  private interface Reader {
+    Group read(File file) throws IOException;
+  }
+}
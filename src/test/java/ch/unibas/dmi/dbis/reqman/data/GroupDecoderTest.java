@@ -0,0 +1,95 @@
+package ch.unibas.dmi.dbis.reqman.data;
+
+import ch.unibas.dmi.dbis.reqman.common.JSONUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests the {@link GroupDecoder} against the data-binding of jackson
+ *
+ * @author loris.sauter
+ */
+public class GroupDecoderTest {
+  
+  private Group group;
+  
+  @Before
+  public void setup() {
+    EntityFactory factory = EntityFactory.createFactoryAndCourse("Decoder Course", "HS17");
+    factory.createCatalogue("Decoder Catalogue");
+    Milestone ms = factory.createMilestone("MS", new Date(1508025600000L));
+    Requirement r = factory.createRequirement("Req", "Excerpt", 4, ms, ms);
+    group = factory.createGroup("Group", new Member("Doe", "John", "john@doe.ch"), new Member("Roe", "Jane", null));
+    group.setProjectName("Project \"Q\"");
+    group.setVersion("2.0.0");
+    ProgressSummary ps = new ProgressSummary();
+    ps.setMilestoneUUID(ms.getUuid());
+    ps.setInternalComment("internal");
+    ps.setExternalComment("external\nwith newline");
+    group.addProgressSummary(ps);
+    Progress assessed = new Progress();
+    assessed.setRequirementUUID(r.getUuid());
+    assessed.setProgressSummaryUUID(ps.getUuid());
+    assessed.setFraction(0.75);
+    assessed.setAssessmentDate(new Date(1508112000000L));
+    assessed.setComment("Well done");
+    group.addProgress(assessed);
+    Progress fresh = new Progress();
+    fresh.setRequirementUUID(r.getUuid());
+    group.addProgress(fresh);
+  }
+  
+  private static void assertSameGroup(Group expected, Group actual) {
+    assertEquals(expected.toString(), actual.toString());
+    assertEquals(expected.getVersion(), actual.getVersion());
+  }
+  
+  @Test
+  public void testDecodesLikeDataBinding() throws IOException {
+    String json = JSONUtils.toJSON(group);
+    Group bound = new ObjectMapper().readValue(json, Group.class);
+    Group decoded = JSONUtils.readFromString(json, Group.class);
+    assertSameGroup(bound, decoded);
+    assertSameGroup(group, decoded);
+  }
+  
+  @Test
+  public void testReadsGroupFiles() throws IOException {
+    File file = File.createTempFile("group", ".json");
+    file.deleteOnExit();
+    JSONUtils.writeToJSONFile(group, file);
+    assertSameGroup(group, JSONUtils.readGroupJSONFile(file));
+    assertSameGroup(group, JSONUtils.readFromJSONFile(file, Group.class));
+    Files.delete(file.toPath());
+  }
+  
+  @Test
+  public void testUnknownAndMissingProperties() throws IOException {
+    String json = "{\"unknown\" : {\"nested\" : [1, 2, {}]}, \"name\" : \"Minimal\", \"progressList\" : [ {"
+        + "\"uuid\" : \"81e9b515-4143-41b6-825f-ade32a587b69\", \"assessmentDate\" : \"2017-10-16T00:00:00.000+0000\", \"extra\" : null"
+        + "} ] }";
+    Group bound = new ObjectMapper().readValue(json, Group.class);
+    Group decoded = JSONUtils.readFromString(json, Group.class);
+    assertEquals(bound.getName(), decoded.getName());
+    assertEquals(bound.getVersion(), decoded.getVersion());
+    assertEquals(bound.getProgressList().toString(), decoded.getProgressList().toString());
+    assertEquals(0, decoded.getMembers().length);
+    assertNull(decoded.getCourseUuid());
+  }
+  
+  @Test
+  public void testNullListsAreEmpty() throws IOException {
+    Group decoded = JSONUtils.readFromString("{\"members\" : null, \"progressSummaries\" : null}", Group.class);
+    assertEquals(0, decoded.getMembers().length);
+    assertEquals(0, decoded.getProgressSummaries().size());
+  }
+}
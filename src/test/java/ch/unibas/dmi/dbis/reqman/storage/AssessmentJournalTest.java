@@ -0,0 +1,166 @@
+package ch.unibas.dmi.dbis.reqman.storage;
+
+import ch.unibas.dmi.dbis.reqman.common.JSONUtils;
+import ch.unibas.dmi.dbis.reqman.data.EntityFactory;
+import ch.unibas.dmi.dbis.reqman.data.Group;
+import ch.unibas.dmi.dbis.reqman.data.Member;
+import ch.unibas.dmi.dbis.reqman.data.Progress;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Date;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the appending, replaying and compacting of the {@link AssessmentJournal}
+ *
+ * @author loris.sauter
+ */
+public class AssessmentJournalTest {
+  
+  private File dir;
+  private File groupFile;
+  private Group group;
+  private Progress first;
+  private Progress second;
+  
+  @Before
+  public void setup() throws IOException {
+    dir = Files.createTempDirectory("reqman-journal").toFile();
+    EntityFactory factory = EntityFactory.createFactoryAndCourse("Journal Course", "HS17");
+    factory.createCatalogue("Journal Catalogue");
+    group = factory.createGroup("Journal Group", new Member("Doe", "John", null));
+    first = createProgress();
+    second = createProgress();
+    group.addProgress(first);
+    group.addProgress(second);
+    groupFile = new File(dir, "Journal_Group.group");
+    StorageFormat.JSON.write(group, groupFile);
+  }
+  
+  @After
+  public void cleanup() throws IOException {
+    for (File f : dir.listFiles()) {
+      Files.delete(f.toPath());
+    }
+    Files.delete(dir.toPath());
+  }
+  
+  private static Progress createProgress() {
+    Progress progress = new Progress();
+    progress.setRequirementUUID(UUID.randomUUID());
+    return progress;
+  }
+  
+  private static void assess(Progress progress, double fraction, String comment) {
+    progress.setFraction(fraction);
+    progress.setAssessmentDate(new Date());
+    progress.setComment(comment);
+  }
+  
+  private static Progress find(Group group, UUID uuid) {
+    return group.getProgressList().stream().filter(p -> p.getUuid().equals(uuid)).findFirst().orElse(null);
+  }
+  
+  @Test
+  public void testReplayAppliesLatestAssessments() throws IOException {
+    try (AssessmentJournal journal = AssessmentJournal.open(groupFile)) {
+      assess(first, 0.5, "half");
+      assertEquals(1, journal.append(first));
+      assess(second, 1, null);
+      assertEquals(2, journal.append(second));
+      assess(first, 0.75, "more");
+      assertEquals(3, journal.append(first));
+    }
+    Group read = JSONUtils.readGroupJSONFile(groupFile);
+    assertTrue(find(read, first.getUuid()).isFresh());
+    assertEquals(3, AssessmentJournal.replay(groupFile, read));
+    Progress replayed = find(read, first.getUuid());
+    assertEquals(0.75, replayed.getFraction(), 0);
+    assertEquals("more", replayed.getComment());
+    assertEquals(first.getAssessmentDate(), replayed.getAssessmentDate());
+    assertEquals(1, find(read, second.getUuid()).getFraction(), 0);
+  }
+  
+  @Test
+  public void testTornEventDiscarded() throws IOException {
+    try (AssessmentJournal journal = AssessmentJournal.open(groupFile)) {
+      assess(first, 0.5, "half");
+      journal.append(first);
+    }
+    File file = AssessmentJournal.fileOf(groupFile);
+    Files.write(file.toPath(), "{\"progress\":\"".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+    assertEquals(1, AssessmentJournal.replay(groupFile, JSONUtils.readGroupJSONFile(groupFile)));
+    try (AssessmentJournal journal = AssessmentJournal.open(groupFile)) {
+      assertEquals(1, journal.size());
+      assess(second, 1, null);
+      assertEquals(2, journal.append(second));
+    }
+    assertEquals(2, AssessmentJournal.replay(groupFile, JSONUtils.readGroupJSONFile(groupFile)));
+  }
+  
+  @Test
+  public void testCompactionKeepsLaterEvents() throws IOException {
+    try (AssessmentJournal journal = AssessmentJournal.open(groupFile)) {
+      assess(first, 0.5, "half");
+      journal.append(first);
+      StorageFormat.JSON.write(group, groupFile);
+      long mark = journal.sequence();
+      assess(second, 1, "later");
+      journal.append(second);
+      journal.compacted(mark);
+      assertEquals(1, journal.size());
+    }
+    Group read = JSONUtils.readGroupJSONFile(groupFile);
+    assertEquals(1, AssessmentJournal.replay(groupFile, read));
+    assertEquals(0.5, find(read, first.getUuid()).getFraction(), 0);
+    assertEquals("later", find(read, second.getUuid()).getComment());
+  }
+  
+  @Test
+  public void testOverlappingCompactionsKeepLaterEvents() throws IOException {
+    try (AssessmentJournal journal = AssessmentJournal.open(groupFile)) {
+      assess(first, 0.5, "first save");
+      journal.append(first);
+      long firstMark = journal.sequence();
+      assess(first, 0.75, "second save");
+      journal.append(first);
+      journal.append(first);
+      long secondMark = journal.sequence();
+      StorageFormat.JSON.write(group, groupFile);
+      journal.compacted(firstMark);
+      assertEquals(2, journal.size());
+      assess(second, 1, "after both saves");
+      journal.append(second);
+      journal.compacted(secondMark);
+      assertEquals(1, journal.size());
+      journal.compacted(firstMark); // Finished last, e.g. a coalesced save
+      assertEquals(1, journal.size());
+    }
+    Group read = JSONUtils.readGroupJSONFile(groupFile);
+    assertEquals(1, AssessmentJournal.replay(groupFile, read));
+    assertEquals("second save", find(read, first.getUuid()).getComment());
+    assertEquals("after both saves", find(read, second.getUuid()).getComment());
+  }
+  
+  @Test
+  public void testFullCompactionRemovesJournal() throws IOException {
+    try (AssessmentJournal journal = AssessmentJournal.open(groupFile)) {
+      assess(first, 0.5, "half");
+      journal.append(first);
+      StorageFormat.JSON.write(group, groupFile);
+      journal.compacted(journal.sequence());
+      assertEquals(0, journal.size());
+    }
+    assertFalse(AssessmentJournal.fileOf(groupFile).exists());
+    assertEquals(0, AssessmentJournal.replay(groupFile, JSONUtils.readGroupJSONFile(groupFile)));
+  }
+}
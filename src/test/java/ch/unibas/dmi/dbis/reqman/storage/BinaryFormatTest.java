@@ -0,0 +1,113 @@
+package ch.unibas.dmi.dbis.reqman.storage;
+
+import ch.unibas.dmi.dbis.reqman.common.JSONUtils;
+import ch.unibas.dmi.dbis.reqman.common.VersionedEntity;
+import ch.unibas.dmi.dbis.reqman.data.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Date;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests writing and reading entities in the binary {@link StorageFormat}
+ *
+ * @author loris.sauter
+ */
+public class BinaryFormatTest {
+  
+  private File dir;
+  private Course course;
+  private Catalogue catalogue;
+  private Group group;
+  
+  @Before
+  public void setup() throws IOException {
+    dir = Files.createTempDirectory("reqman-binary").toFile();
+    EntityFactory factory = EntityFactory.createFactoryAndCourse("Binary Course", "HS17");
+    course = factory.getCourse();
+    catalogue = factory.createCatalogue("Binary Catalogue");
+    Milestone ms = factory.createMilestone("MS", new Date(1508025600000L));
+    Requirement r = factory.createRequirement("Req ünïcödé", "Excerpt", 4.5, ms, ms);
+    r.addProperty("key", "F36A1E0B-0000-0000-0000-000000000000"); // Not canonical, thus kept as string
+    factory.createBonusRequirement("Bonus", null, 1, ms, ms);
+    group = factory.createGroup("Group", new Member("Doe", "John", "john@doe.ch"));
+    ProgressSummary ps = new ProgressSummary();
+    ps.setMilestoneUUID(ms.getUuid());
+    group.addProgressSummary(ps);
+    Progress p = new Progress();
+    p.setRequirementUUID(r.getUuid());
+    p.setProgressSummaryUUID(ps.getUuid());
+    p.setFraction(0.1);
+    p.setAssessmentDate(new Date(-1000L));
+    group.addProgress(p);
+  }
+  
+  @After
+  public void cleanup() throws IOException {
+    for (File f : dir.listFiles()) {
+      Files.delete(f.toPath());
+    }
+    Files.delete(dir.toPath());
+    for (ReqmanFile.Type type : ReqmanFile.Type.values()) {
+      StorageFormat.setFormatFor(type, StorageFormat.JSON);
+    }
+  }
+  
+  private <T extends VersionedEntity> File save(T entity) throws IOException {
+    SaveFile saveFile = SaveFile.createForEntity(entity);
+    saveFile.setSaveDirectory(dir);
+    saveFile.save();
+    return saveFile.getSaveFile();
+  }
+  
+  private <T extends VersionedEntity> T open(File file, Class<T> clazz) throws IOException {
+    SaveFile saveFile = SaveFile.createForSaveFile(file, clazz);
+    saveFile.open();
+    return clazz.cast(saveFile.getEntity());
+  }
+  
+  @Test
+  public void testRoundTrip() throws IOException {
+    StorageFormat.setFormatFor(ReqmanFile.Type.COURSE, StorageFormat.BINARY);
+    StorageFormat.setFormatFor(ReqmanFile.Type.CATALOGUE, StorageFormat.BINARY);
+    StorageFormat.setFormatFor(ReqmanFile.Type.GROUP, StorageFormat.BINARY);
+    File courseFile = save(course);
+    File catalogueFile = save(catalogue);
+    File groupFile = save(group);
+    assertTrue(BinaryFormat.isBinary(groupFile));
+    assertEquals(JSONUtils.toJSON(course), JSONUtils.toJSON(open(courseFile, Course.class)));
+    assertEquals(JSONUtils.toJSON(catalogue), JSONUtils.toJSON(open(catalogueFile, Catalogue.class)));
+    assertEquals(JSONUtils.toJSON(group), JSONUtils.toJSON(open(groupFile, Group.class)));
+  }
+  
+  @Test
+  public void testSmallerThanJson() throws IOException {
+    File json = new File(dir, "json.group");
+    StorageFormat.JSON.write(group, json);
+    File binary = new File(dir, "binary.group");
+    StorageFormat.BINARY.write(group, binary);
+    assertTrue(binary.length() + " vs " + json.length(), binary.length() < json.length());
+  }
+  
+  @Test
+  public void testJsonIsDetected() throws IOException {
+    File groupFile = save(group);
+    assertFalse(BinaryFormat.isBinary(groupFile));
+    assertEquals(JSONUtils.toJSON(group), JSONUtils.toJSON(open(groupFile, Group.class)));
+  }
+  
+  @Test(expected = IOException.class)
+  public void testTruncatedFileIsRejected() throws IOException {
+    File binary = new File(dir, "binary.group");
+    StorageFormat.BINARY.write(group, binary);
+    byte[] bytes = Files.readAllBytes(binary.toPath());
+    Files.write(binary.toPath(), java.util.Arrays.copyOf(bytes, bytes.length / 2));
+    StorageFormat.read(binary, Group.class);
+  }
+}
@@ -0,0 +1,177 @@
+package ch.unibas.dmi.dbis.reqman.storage;
+
+import ch.unibas.dmi.dbis.reqman.data.EntityFactory;
+import ch.unibas.dmi.dbis.reqman.data.Group;
+import ch.unibas.dmi.dbis.reqman.data.Member;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the {@link CourseArchive}, including its compatibility with regular zip readers
+ *
+ * @author loris.sauter
+ */
+public class CourseArchiveTest {
+  
+  private File dir;
+  private File file;
+  
+  @Before
+  public void setup() throws IOException {
+    dir = Files.createTempDirectory("reqman-archive").toFile();
+    file = new File(dir, "course." + CourseArchive.EXTENSION);
+  }
+  
+  @After
+  public void cleanup() throws IOException {
+    for (File f : dir.listFiles()) {
+      Files.delete(f.toPath());
+    }
+    Files.delete(dir.toPath());
+  }
+  
+  private static byte[] bytes(String str) {
+    return str.getBytes(StandardCharsets.UTF_8);
+  }
+  
+  private static byte[] repeated(String str, int times) {
+    return bytes(String.join("", Collections.nCopies(times, str)));
+  }
+  
+  private static byte[] readZipEntry(ZipFile zip, String name) throws IOException {
+    ZipEntry entry = zip.getEntry(name);
+    assertNotNull(name, entry);
+    byte[] content = new byte[(int) entry.getSize()];
+    try (InputStream in = zip.getInputStream(entry)) {
+      int read = 0;
+      while (read < content.length) {
+        read += in.read(content, read, content.length - read);
+      }
+    }
+    return content;
+  }
+  
+  @Test
+  public void testEntriesReadAfterReopening() throws IOException {
+    try (CourseArchive archive = CourseArchive.open(file)) {
+      assertTrue(archive.names().isEmpty());
+      archive.write("a.group", bytes("first"));
+      archive.write("b.group", repeated("compressible ", 100));
+    }
+    try (CourseArchive archive = CourseArchive.open(file)) {
+      assertEquals(Arrays.asList("a.group", "b.group"), archive.names());
+      assertArrayEquals(bytes("first"), archive.read("a.group"));
+      assertArrayEquals(repeated("compressible ", 100), archive.read("b.group"));
+      assertNull(archive.read("c.group"));
+    }
+  }
+  
+  @Test
+  public void testEntriesReadAfterWriting() throws IOException {
+    try (CourseArchive archive = CourseArchive.open(file)) {
+      archive.write("a.group", bytes("first"));
+      archive.write("b.group", repeated("compressible ", 100));
+      archive.write("a.group", bytes("second"));
+      archive.delete("b.group");
+      archive.write("c.group", bytes("third"));
+      assertEquals(Arrays.asList("a.group", "c.group"), archive.names());
+      assertArrayEquals(bytes("second"), archive.read("a.group"));
+      assertArrayEquals(bytes("third"), archive.read("c.group"));
+      assertNull(archive.read("b.group"));
+    }
+    try (CourseArchive archive = CourseArchive.open(file)) {
+      assertEquals(Arrays.asList("a.group", "c.group"), archive.names());
+      assertArrayEquals(bytes("second"), archive.read("a.group"));
+    }
+  }
+  
+  @Test
+  public void testUpdatedArchiveReadableAsZip() throws IOException {
+    try (CourseArchive archive = CourseArchive.open(file)) {
+      archive.write("a.group", bytes("first"));
+      archive.write("b.group", repeated("compressible ", 100));
+      archive.write("a.group", bytes("second"));
+      assertTrue(archive.delete("b.group"));
+      assertFalse(archive.delete("b.group"));
+      archive.write("c.group", bytes("third"));
+    }
+    try (ZipFile zip = new ZipFile(file)) {
+      assertEquals(2, zip.size());
+      assertArrayEquals(bytes("second"), readZipEntry(zip, "a.group"));
+      assertArrayEquals(bytes("third"), readZipEntry(zip, "c.group"));
+    }
+  }
+  
+  @Test
+  public void testInterruptedWriteDiscarded() throws IOException {
+    try (CourseArchive archive = CourseArchive.open(file)) {
+      archive.write("a.group", bytes("first"));
+    }
+    long size = file.length();
+    Files.write(file.toPath(), repeated("torn entry", 10), StandardOpenOption.APPEND);
+    try (CourseArchive archive = CourseArchive.open(file)) {
+      assertEquals(size, file.length());
+      assertArrayEquals(bytes("first"), archive.read("a.group"));
+      archive.write("b.group", bytes("second"));
+    }
+    try (ZipFile zip = new ZipFile(file)) {
+      assertArrayEquals(bytes("second"), readZipEntry(zip, "b.group"));
+    }
+  }
+  
+  @Test
+  public void testCompactionKeepsCurrentEntries() throws IOException {
+    try (CourseArchive archive = CourseArchive.open(file)) {
+      archive.write("a.group", bytes("kept"));
+      for (int i = 0; i < 20; i++) {
+        archive.write("b.group", repeated("version " + i + " ", 50));
+      }
+      long before = file.length();
+      archive.compact();
+      assertTrue(file.length() < before);
+      assertArrayEquals(bytes("kept"), archive.read("a.group"));
+      assertArrayEquals(repeated("version 19 ", 50), archive.read("b.group"));
+      archive.write("c.group", bytes("after"));
+    }
+    try (ZipFile zip = new ZipFile(file)) {
+      assertEquals(3, zip.size());
+      assertArrayEquals(bytes("kept"), readZipEntry(zip, "a.group"));
+      assertArrayEquals(bytes("after"), readZipEntry(zip, "c.group"));
+    }
+  }
+  
+  @Test
+  public void testEntityRoundTrip() throws IOException {
+    EntityFactory factory = EntityFactory.createFactoryAndCourse("Archive Course", "HS17");
+    factory.createCatalogue("Archive Catalogue");
+    Group group = factory.createGroup("Archive Group", new Member("Doe", "John", null));
+    try (CourseArchive archive = CourseArchive.open(file)) {
+      archive.save(ReqmanFile.Type.GROUP, group.getUuid(), group);
+      assertEquals(Collections.singletonList(group.getUuid()), archive.list(ReqmanFile.Type.GROUP));
+      assertTrue(archive.list(ReqmanFile.Type.COURSE).isEmpty());
+      Group read = archive.open(ReqmanFile.Type.GROUP, group.getUuid(), Group.class);
+      assertEquals(group.getName(), read.getName());
+      assertEquals(group.getCourseUuid(), read.getCourseUuid());
+    }
+  }
+  
+  @Test(expected = IOException.class)
+  public void testNonArchiveRejected() throws IOException {
+    Files.write(file.toPath(), bytes("{\"name\":\"no archive\"}"));
+    CourseArchive.open(file).close();
+  }
+}
@@ -0,0 +1,160 @@
+package ch.unibas.dmi.dbis.reqman.storage;
+
+import ch.unibas.dmi.dbis.reqman.common.JSONUtils;
+import ch.unibas.dmi.dbis.reqman.data.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the {@link DirectoryManifest} and the detection of external modifications by the {@link StorageManager}
+ *
+ * @author loris.sauter
+ */
+public class DirectoryManifestTest {
+  
+  private static final long TIMEOUT = 10000;
+  
+  private File dir;
+  private EntityFactory factory;
+  private Course course;
+  private Group group;
+  
+  @Before
+  public void setup() throws IOException {
+    dir = Files.createTempDirectory("reqman-manifest").toFile();
+    factory = EntityFactory.createFactoryAndCourse("Manifest Course", "HS17");
+    course = factory.getCourse();
+    factory.createCatalogue("Manifest Catalogue");
+    group = factory.createGroup("Group", new Member("Doe", "John", null));
+    JSONUtils.writeToJSONFile(course, new File(dir, "course.course"));
+    JSONUtils.writeToJSONFile(group, new File(dir, "group.group"));
+  }
+  
+  @After
+  public void cleanup() throws IOException {
+    for (File f : dir.listFiles()) {
+      Files.delete(f.toPath());
+    }
+    Files.delete(dir.toPath());
+  }
+  
+  private static void awaitTrue(String message, BooleanSupplier condition) throws InterruptedException {
+    long end = System.currentTimeMillis() + TIMEOUT;
+    while (!condition.getAsBoolean()) {
+      assertTrue(message, System.currentTimeMillis() < end);
+      Thread.sleep(20);
+    }
+  }
+  
+  @Test
+  public void testManifestListsAndPersists() throws IOException {
+    try (DirectoryManifest manifest = DirectoryManifest.open(dir, f -> {
+    })) {
+      List<DirectoryManifest.Entry> entries = manifest.getEntries();
+      assertEquals(2, entries.size());
+      assertEquals(ReqmanFile.Type.COURSE, entries.get(0).getType());
+      assertEquals(course.getUuid(), entries.get(0).getUuid());
+      assertEquals(ReqmanFile.Type.GROUP, entries.get(1).getType());
+      assertEquals(group.getUuid(), entries.get(1).getUuid());
+      assertEquals(new File(dir, "group.group"), manifest.getFile(ReqmanFile.Type.GROUP));
+    }
+    assertTrue(new File(dir, DirectoryManifest.FILE_NAME).exists());
+    try (DirectoryManifest reopened = DirectoryManifest.open(dir, f -> {
+    })) {
+      assertEquals(group.getUuid(), reopened.getEntries().get(1).getUuid());
+    }
+  }
+  
+  @Test
+  public void testBackendPersistedAndEntriesOfPlainManifestRead() throws IOException {
+    DirectoryManifest.Entry entry = DirectoryManifest.Entry.of(new File(dir, "group.group"), ReqmanFile.Type.GROUP, group.getUuid());
+    JSONUtils.writeToJSONFile(new DirectoryManifest.Entry[]{entry}, new File(dir, DirectoryManifest.FILE_NAME));
+    try (DirectoryManifest manifest = DirectoryManifest.open(dir, f -> {
+    })) {
+      assertNull(manifest.getBackend());
+      assertEquals(group.getUuid(), manifest.getEntries().get(1).getUuid());
+      manifest.recordBackend(StorageBackend.Kind.ARCHIVE);
+    }
+    try (DirectoryManifest reopened = DirectoryManifest.open(dir, f -> {
+    })) {
+      assertEquals(StorageBackend.Kind.ARCHIVE, reopened.getBackend());
+    }
+  }
+  
+  @Test
+  public void testDirectoryBackendServedByManifest() throws IOException {
+    try (DirectoryManifest manifest = DirectoryManifest.open(dir, f -> {
+    })) {
+      DirectoryBackend backend = new DirectoryBackend(dir, manifest);
+      assertEquals(Collections.singletonList(group.getUuid()), backend.list(ReqmanFile.Type.GROUP));
+      assertEquals(new File(dir, "group.group"), backend.locate(ReqmanFile.Type.GROUP, group.getUuid()));
+  
+      Group other = factory.createGroup("Other");
+      backend.save(ReqmanFile.Type.GROUP, other.getUuid(), other);
+      assertEquals(2, backend.list(ReqmanFile.Type.GROUP).size()); // Recorded right away
+      assertEquals(other.getUuid(), backend.open(ReqmanFile.Type.GROUP, other.getUuid(), Group.class).getUuid());
+    }
+  }
+  
+  @Test
+  public void testWatcherKeepsManifestCurrent() throws Exception {
+    try (DirectoryManifest manifest = DirectoryManifest.open(dir, f -> {
+    })) {
+      Group other = factory.createGroup("Other");
+      JSONUtils.writeToJSONFile(other, new File(dir, "other.group"));
+      awaitTrue("New file not noticed", () -> manifest.getEntries().stream().anyMatch(e -> other.getUuid().equals(e.getUuid())));
+      Files.delete(new File(dir, "group.group").toPath());
+      awaitTrue("Deleted file not noticed", () -> manifest.getFiles(ReqmanFile.Type.GROUP).size() == 1);
+      assertEquals(new File(dir, "other.group"), manifest.getFile(ReqmanFile.Type.GROUP));
+    }
+  }
+  
+  @Test
+  public void testExternalModificationNotOverwritten() throws Exception {
+    StorageManager manager = StorageManager.getInstance(dir);
+    File file = new File(dir, "course.course");
+    assertEquals(course.getUuid(), manager.openCourse().getUuid());
+    CountDownLatch noticed = new CountDownLatch(1);
+    Consumer<File> listener = f -> {
+      if (f.equals(file.getAbsoluteFile())) {
+        noticed.countDown();
+      }
+    };
+    manager.addExternalModificationListener(listener);
+    try {
+      manager.saveCourse();
+      assertFalse(manager.isModifiedExternally(file));
+  
+      course.setName("Modified elsewhere");
+      JSONUtils.writeToJSONFile(course, file);
+      assertTrue(file.setLastModified(file.lastModified() + 2000));
+      assertTrue(manager.isModifiedExternally(file));
+      assertTrue("Modification not reported", noticed.await(TIMEOUT, TimeUnit.MILLISECONDS));
+      try {
+        manager.saveCourse();
+        fail("Expected the modified file not to be overwritten");
+      } catch (ExternalModificationException e) {
+        assertEquals(file.getAbsoluteFile(), e.getFile());
+      }
+  
+      manager.acceptExternalModification(file);
+      manager.saveCourse();
+      assertFalse(manager.isModifiedExternally(file));
+    } finally {
+      manager.removeExternalModificationListener(listener);
+    }
+  }
+}
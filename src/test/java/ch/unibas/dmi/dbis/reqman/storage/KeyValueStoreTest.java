@@ -0,0 +1,119 @@
+package ch.unibas.dmi.dbis.reqman.storage;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the {@link KeyValueStore}, in particular its recovery from interrupted writes
+ *
+ * @author loris.sauter
+ */
+public class KeyValueStoreTest {
+  
+  private File dir;
+  private File file;
+  
+  @Before
+  public void setup() throws IOException {
+    dir = Files.createTempDirectory("reqman-kv").toFile();
+    file = new File(dir, "course." + KeyValueStore.EXTENSION);
+  }
+  
+  @After
+  public void cleanup() throws IOException {
+    for (File f : dir.listFiles()) {
+      Files.delete(f.toPath());
+    }
+    Files.delete(dir.toPath());
+  }
+  
+  private static byte[] bytes(String str) {
+    return str.getBytes(StandardCharsets.UTF_8);
+  }
+  
+  @Test
+  public void testLatestValuesReadAfterReopening() throws IOException {
+    try (KeyValueStore store = KeyValueStore.open(file)) {
+      assertNull(store.get("a"));
+      store.put("a", bytes("first"));
+      store.put("b", bytes("other"));
+      store.put("a", bytes("second"));
+    }
+    try (KeyValueStore store = KeyValueStore.open(file)) {
+      assertArrayEquals(bytes("second"), store.get("a"));
+      assertArrayEquals(bytes("other"), store.get("b"));
+    }
+  }
+  
+  @Test
+  public void testTornRecordDiscarded() throws IOException {
+    try (KeyValueStore store = KeyValueStore.open(file)) {
+      store.put("a", bytes("kept"));
+      store.put("b", bytes("torn by a crash"));
+    }
+    long intact = file.length();
+    Files.write(file.toPath(), new byte[]{0, 1, 0, 0, 0, 42, 'c'}, StandardOpenOption.APPEND);
+    try (KeyValueStore store = KeyValueStore.open(file)) {
+      assertEquals(intact, file.length());
+      assertArrayEquals(bytes("kept"), store.get("a"));
+      assertArrayEquals(bytes("torn by a crash"), store.get("b"));
+      store.put("c", bytes("appended"));
+    }
+    try (KeyValueStore store = KeyValueStore.open(file)) {
+      assertArrayEquals(bytes("appended"), store.get("c"));
+    }
+  }
+  
+  @Test
+  public void testCorruptLastRecordDiscarded() throws IOException {
+    try (KeyValueStore store = KeyValueStore.open(file)) {
+      store.put("a", bytes("previous"));
+      store.put("a", bytes("unwritten"));
+    }
+    long corrupt = file.length();
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+      channel.write(ByteBuffer.wrap(new byte[4]), corrupt - 4); // Length written, value not
+    }
+    try (KeyValueStore store = KeyValueStore.open(file)) {
+      assertTrue(file.length() < corrupt);
+      assertArrayEquals(bytes("previous"), store.get("a"));
+    }
+  }
+  
+  @Test
+  public void testCompactionKeepsLatestValues() throws IOException {
+    try (KeyValueStore store = KeyValueStore.open(file)) {
+      for (int i = 0; i < 100; i++) {
+        store.put("a", bytes("value " + i));
+      }
+      store.put("b", bytes("other"));
+      long before = file.length();
+      store.compact();
+      assertTrue(file.length() < before);
+      assertArrayEquals(bytes("value 99"), store.get("a"));
+      store.put("c", bytes("after compaction"));
+    }
+    try (KeyValueStore store = KeyValueStore.open(file)) {
+      assertArrayEquals(bytes("value 99"), store.get("a"));
+      assertArrayEquals(bytes("other"), store.get("b"));
+      assertArrayEquals(bytes("after compaction"), store.get("c"));
+    }
+  }
+  
+  @Test(expected = IOException.class)
+  public void testForeignFileRejected() throws IOException {
+    Files.write(file.toPath(), bytes("not a store"));
+    KeyValueStore.open(file).close();
+  }
+}
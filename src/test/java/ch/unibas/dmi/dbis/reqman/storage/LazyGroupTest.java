@@ -0,0 +1,117 @@
+package ch.unibas.dmi.dbis.reqman.storage;
+
+import ch.unibas.dmi.dbis.reqman.common.JSONUtils;
+import ch.unibas.dmi.dbis.reqman.data.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the lazily loaded groups indexed by the {@link StorageManager}
+ *
+ * @author loris.sauter
+ */
+public class LazyGroupTest {
+  
+  private File dir;
+  private List<Group> groups = new ArrayList<>();
+  
+  @Before
+  public void setup() throws IOException {
+    dir = Files.createTempDirectory("reqman-lazy").toFile();
+    EntityFactory factory = EntityFactory.createFactoryAndCourse("Lazy Course", "HS17");
+    factory.createCatalogue("Lazy Catalogue");
+    Milestone ms = factory.createMilestone("MS", new Date(1508025600000L));
+    Requirement r = factory.createRequirement("Req", "Excerpt", 4, ms, ms);
+    for (int i = 0; i < 3; i++) {
+      Group group = factory.createGroup("Group " + i, new Member("Doe", "John " + i, null));
+      group.setProjectName("Project " + i);
+      Progress p = new Progress();
+      p.setRequirementUUID(r.getUuid());
+      p.setFraction(i / 2d);
+      group.addProgress(p);
+      JSONUtils.writeToJSONFile(group, new File(dir, "group" + i + ".group"));
+      groups.add(group);
+    }
+  }
+  
+  @After
+  public void cleanup() throws IOException {
+    for (File f : dir.listFiles()) {
+      Files.delete(f.toPath());
+    }
+    Files.delete(dir.toPath());
+  }
+  
+  @Test
+  public void testHeadersIndexed() throws IOException {
+    List<LazyGroup> indexed = StorageManager.getInstance(dir).indexGroups();
+    assertEquals(groups.size(), indexed.size());
+    for (int i = 0; i < groups.size(); i++) {
+      GroupHeader header = indexed.get(i).getHeader();
+      assertEquals(groups.get(i).getUuid(), header.getUuid());
+      assertEquals(groups.get(i).getName(), header.getName());
+      assertEquals(groups.get(i).getProjectName(), header.getProjectName());
+      assertEquals(groups.get(i).getCatalogueUuid(), header.getCatalogueUuid());
+      assertEquals(1, header.getMembers().size());
+      assertFalse(indexed.get(i).isLoaded());
+    }
+  }
+  
+  @Test
+  public void testMaterializedOnAccess() throws IOException {
+    LazyGroup lazy = StorageManager.getInstance(dir).indexGroups().get(1);
+    Group group = lazy.get();
+    assertTrue(lazy.isLoaded());
+    assertSame(group, lazy.get());
+    assertEquals(JSONUtils.toJSON(groups.get(1)), JSONUtils.toJSON(group));
+    assertSame(group, lazy.detach());
+    assertFalse(lazy.isLoaded());
+    assertNotSame(group, lazy.get());
+  }
+  
+  @Test
+  public void testJournalReplayedOnAccess() throws IOException {
+    File file = new File(dir, "group0.group");
+    Progress progress = groups.get(0).getProgressList().get(0);
+    progress.setFraction(1);
+    progress.setComment("journaled");
+    try (AssessmentJournal journal = AssessmentJournal.open(file)) {
+      journal.append(progress);
+    }
+    Group group = StorageManager.getInstance(dir).indexGroups().get(0).get();
+    assertEquals(1, group.getProgressList().get(0).getFraction(), 0);
+    assertEquals("journaled", group.getProgressList().get(0).getComment());
+  }
+  
+  @Test
+  public void testHeaderOnlyDecoded() throws IOException {
+    Group header = StorageFormat.readGroupHeader(new File(dir, "group0.group"));
+    assertEquals(groups.get(0).getName(), header.getName());
+    assertTrue(header.progressListView().isEmpty());
+    assertTrue(header.progressSummariesView().isEmpty());
+  }
+  
+  @Test
+  public void testModifiedFileReindexed() throws IOException {
+    StorageManager manager = StorageManager.getInstance(dir);
+    LazyGroup before = manager.indexGroups().get(2);
+    assertSame(before, manager.indexGroups().get(2));
+    File file = new File(dir, "group2.group");
+    groups.get(2).setName("Renamed");
+    JSONUtils.writeToJSONFile(groups.get(2), file);
+    assertTrue(file.setLastModified(before.getHeader().getLastModified() + 2000));
+    LazyGroup after = manager.indexGroups().get(2);
+    assertNotSame(before, after);
+    assertEquals("Renamed", after.getHeader().getName());
+  }
+}
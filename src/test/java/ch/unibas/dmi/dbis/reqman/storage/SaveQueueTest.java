@@ -0,0 +1,113 @@
+package ch.unibas.dmi.dbis.reqman.storage;
+
+import ch.unibas.dmi.dbis.reqman.common.JSONUtils;
+import ch.unibas.dmi.dbis.reqman.data.EntityFactory;
+import ch.unibas.dmi.dbis.reqman.data.Group;
+import ch.unibas.dmi.dbis.reqman.data.Member;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the atomic writes of the {@link StorageFormat}s and the write-behind {@link SaveQueue}
+ *
+ * @author loris.sauter
+ */
+public class SaveQueueTest {
+  
+  private File dir;
+  private Group group;
+  
+  @Before
+  public void setup() throws IOException {
+    dir = Files.createTempDirectory("reqman-queue").toFile();
+    EntityFactory factory = EntityFactory.createFactoryAndCourse("Queue Course", "HS17");
+    factory.createCatalogue("Queue Catalogue");
+    group = factory.createGroup("Queue Group", new Member("Doe", "John", null));
+  }
+  
+  @After
+  public void cleanup() throws IOException {
+    for (File f : dir.listFiles()) {
+      Files.delete(f.toPath());
+    }
+    Files.delete(dir.toPath());
+  }
+  
+  private static String read(File file) throws IOException {
+    return new String(Files.readAllBytes(file.toPath()), "UTF-8");
+  }
+  
+  @Test
+  public void testSnapshotWrittenLikeEntity() throws IOException {
+    File direct = new File(dir, "direct.group");
+    File snapshot = new File(dir, "snapshot.group");
+    StorageFormat.JSON.write(group, direct);
+    StorageFormat.JSON.writeSnapshot(JSONUtils.writeToTokens(group), snapshot);
+    assertEquals(read(direct), read(snapshot));
+    assertEquals(2, dir.listFiles().length); // No temporary files left
+  }
+  
+  @Test
+  public void testUnchangedEntityNotWritten() throws IOException {
+    File file = new File(dir, "group.group");
+    assertTrue(StorageFormat.BINARY.write(group, file));
+    assertFalse(StorageFormat.BINARY.write(group, file));
+    assertFalse(StorageFormat.BINARY.writeSnapshot(JSONUtils.writeToTokens(group), file));
+    group.setName("Renamed");
+    assertTrue(StorageFormat.BINARY.write(group, file));
+  }
+  
+  @Test
+  public void testFailedWriteKeepsPreviousFile() throws IOException {
+    File file = new File(dir, "group.group");
+    StorageFormat.BINARY.write(group, file);
+    byte[] before = Files.readAllBytes(file.toPath());
+    TokenBuffer broken = JSONUtils.writeToTokens(group);
+    broken.writeEmbeddedObject(new Object()); // Not encodable
+    try {
+      StorageFormat.BINARY.writeSnapshot(broken, file);
+      fail("Expected the broken snapshot not to be written");
+    } catch (IOException e) {
+      // Expected
+    }
+    assertArrayEquals(before, Files.readAllBytes(file.toPath()));
+    assertEquals(1, dir.listFiles().length);
+  }
+  
+  @Test
+  public void testRepeatedSavesCoalesced() throws Exception {
+    SaveQueue queue = SaveQueue.getInstance();
+    File file = new File(dir, "group.group");
+    CompletableFuture<Void> first;
+    CompletableFuture<Void> second;
+    synchronized (queue) { // Keeps the writer from starting
+      first = queue.submit(file, StorageFormat.JSON, JSONUtils.writeToTokens(group));
+      group.setName("Renamed");
+      second = queue.submit(file, StorageFormat.JSON, JSONUtils.writeToTokens(group));
+    }
+    assertSame(first, second);
+    second.get(10, TimeUnit.SECONDS);
+    assertEquals("Renamed", JSONUtils.readGroupJSONFile(file).getName());
+    assertTrue(queue.flush(10000));
+  }
+  
+  @Test
+  public void testSaveLaterThroughStorageManager() throws Exception {
+    StorageManager manager = StorageManager.getInstance(dir);
+    manager.saveGroupSensitivelyLater(group).get(10, TimeUnit.SECONDS);
+    File file = new File(dir, "Queue_Group.group");
+    assertEquals(group.getUuid(), JSONUtils.readGroupJSONFile(file).getUuid());
+    assertFalse(manager.isModifiedExternally(file));
+    assertTrue(manager.listFiles().contains(new ReqmanFile(file, ReqmanFile.Type.GROUP)));
+  }
+}
@@ -0,0 +1,106 @@
+package ch.unibas.dmi.dbis.reqman.storage;
+
+import ch.unibas.dmi.dbis.reqman.data.EntityFactory;
+import ch.unibas.dmi.dbis.reqman.data.Group;
+import ch.unibas.dmi.dbis.reqman.data.Member;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the contract of {@link StorageBackend}, which every {@link StorageBackend.Kind} has to fulfill
+ *
+ * @author loris.sauter
+ */
+public class StorageBackendTest {
+  
+  private File dir;
+  private EntityFactory factory;
+  
+  @Before
+  public void setup() throws IOException {
+    dir = Files.createTempDirectory("reqman-backend").toFile();
+    factory = EntityFactory.createFactoryAndCourse("Backend Course", "HS17");
+    factory.createCatalogue("Backend Catalogue");
+  }
+  
+  @After
+  public void cleanup() throws IOException {
+    for (File f : dir.listFiles()) {
+      Files.delete(f.toPath());
+    }
+    Files.delete(dir.toPath());
+  }
+  
+  @Test
+  public void testSavedEntitiesOpenedAfterReopening() throws IOException {
+    for (StorageBackend.Kind kind : StorageBackend.Kind.values()) {
+      Group first = factory.createGroup(kind + " First", new Member("Doe", "John", null));
+      Group second = factory.createGroup(kind + " Second", new Member("Doe", "Jane", null));
+      try (StorageBackend backend = kind.open(dir)) {
+        assertEquals(kind, backend.getKind());
+        backend.save(ReqmanFile.Type.GROUP, first.getUuid(), first);
+        backend.save(ReqmanFile.Type.GROUP, second.getUuid(), second);
+      }
+      try (StorageBackend backend = kind.open(dir)) {
+        Set<UUID> listed = new HashSet<>(backend.list(ReqmanFile.Type.GROUP));
+        assertTrue(kind.name(), listed.contains(first.getUuid()));
+        assertTrue(kind.name(), listed.contains(second.getUuid()));
+        Group read = backend.open(ReqmanFile.Type.GROUP, second.getUuid(), Group.class);
+        assertEquals(second.getName(), read.getName());
+        assertEquals(second.getCourseUuid(), read.getCourseUuid());
+        assertNull(kind.name(), backend.open(ReqmanFile.Type.GROUP, UUID.randomUUID(), Group.class));
+      }
+    }
+  }
+  
+  @Test
+  public void testSaveReplacesEntity() throws IOException {
+    for (StorageBackend.Kind kind : StorageBackend.Kind.values()) {
+      Group group = factory.createGroup(kind + " Group", new Member("Doe", "John", null));
+      try (StorageBackend backend = kind.open(dir)) {
+        backend.save(ReqmanFile.Type.GROUP, group.getUuid(), group);
+        group.setProjectName("Renamed");
+        backend.save(ReqmanFile.Type.GROUP, group.getUuid(), group);
+        assertEquals(kind.name(), "Renamed", backend.open(ReqmanFile.Type.GROUP, group.getUuid(), Group.class).getProjectName());
+      }
+    }
+  }
+  
+  @Test
+  public void testDeletedEntityGone() throws IOException {
+    for (StorageBackend.Kind kind : StorageBackend.Kind.values()) {
+      Group group = factory.createGroup(kind + " Deleted", new Member("Doe", "John", null));
+      try (StorageBackend backend = kind.open(dir)) {
+        backend.save(ReqmanFile.Type.GROUP, group.getUuid(), group);
+        assertTrue(kind.name(), backend.delete(ReqmanFile.Type.GROUP, group.getUuid()));
+        assertFalse(kind.name(), backend.delete(ReqmanFile.Type.GROUP, group.getUuid()));
+      }
+      try (StorageBackend backend = kind.open(dir)) {
+        assertFalse(kind.name(), backend.list(ReqmanFile.Type.GROUP).contains(group.getUuid()));
+        assertNull(kind.name(), backend.open(ReqmanFile.Type.GROUP, group.getUuid(), Group.class));
+      }
+    }
+  }
+  
+  @Test
+  public void testTypesListedSeparately() throws IOException {
+    for (StorageBackend.Kind kind : StorageBackend.Kind.values()) {
+      try (StorageBackend backend = kind.open(dir)) {
+        backend.save(ReqmanFile.Type.COURSE, factory.getCourse().getUuid(), factory.getCourse());
+        assertEquals(kind.name(), Collections.singletonList(factory.getCourse().getUuid()), backend.list(ReqmanFile.Type.COURSE));
+        assertFalse(kind.name(), backend.list(ReqmanFile.Type.GROUP).contains(factory.getCourse().getUuid()));
+      }
+    }
+  }
+}
@@ -0,0 +1,134 @@
+package ch.unibas.dmi.dbis.reqman.storage;
+
+import ch.unibas.dmi.dbis.reqman.common.JSONUtils;
+import ch.unibas.dmi.dbis.reqman.data.EntityFactory;
+import ch.unibas.dmi.dbis.reqman.data.Group;
+import ch.unibas.dmi.dbis.reqman.data.Member;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the {@link StorageManager} opening and saving groups
+ *
+ * @author loris.sauter
+ */
+public class StorageManagerTest {
+  
+  private File dir;
+  private File file;
+  private Group group;
+  private StorageManager manager;
+  
+  @Before
+  public void setup() throws Exception {
+    dir = Files.createTempDirectory("reqman-manager").toFile();
+    EntityFactory factory = EntityFactory.createFactoryAndCourse("Manager Course", "HS17");
+    factory.createCatalogue("Manager Catalogue");
+    group = factory.createGroup("Manager Group", new Member("Doe", "John", null));
+    file = new File(dir, "manager.group");
+    StorageFormat.getFormatFor(ReqmanFile.Type.GROUP).write(group, file); // Before opening, thus in the manifest
+    manager = StorageManager.getInstance(dir);
+    manager.saveCourse(factory.getCourse());
+    manager.saveCatalogue(factory.getCatalogue());
+  }
+  
+  @After
+  public void cleanup() throws IOException {
+    manager.closeJournals();
+    manager.setBackend(StorageBackend.Kind.DIRECTORY);
+    for (File f : dir.listFiles()) {
+      Files.delete(f.toPath());
+    }
+    Files.delete(dir.toPath());
+  }
+  
+  @Test
+  public void testReadGroupNotSavedUntilAdded() throws Exception {
+    manager.readGroup(file); // E.g. rejected along with another group of its batch
+    assertFalse(manager.hasGroupSaveFile(group.getUuid()));
+  
+    Group retried = manager.readGroup(file);
+    manager.addGroup(retried, file);
+    retried.setProjectName("Retried");
+    manager.saveGroup(group.getUuid());
+    assertEquals("Retried", StorageFormat.read(file, Group.class).getProjectName());
+  }
+  
+  @Test
+  public void testConvertedGroupsOpenedFromBackend() throws Exception {
+    assertEquals(3, manager.convertBackend(StorageBackend.Kind.KEY_VALUE));
+    assertEquals(StorageBackend.Kind.KEY_VALUE, manager.getBackendKind());
+    assertEquals(Collections.singletonMap(group.getUuid(), group.getName()), manager.listGroups());
+    
+    Group stored = manager.openGroup(group.getUuid());
+    stored.setProjectName("Stored");
+    manager.saveGroup(group.getUuid());
+    assertEquals("Stored", manager.getBackend().open(ReqmanFile.Type.GROUP, group.getUuid(), Group.class).getProjectName());
+    assertNull(StorageFormat.read(file, Group.class).getProjectName());
+  }
+  
+  @Test
+  public void testGroupFilesListedByHeader() throws Exception {
+    assertEquals(Collections.singletonMap(group.getUuid(), group.getName()), manager.listGroups());
+    List<LazyGroup> index = manager.indexGroups();
+    assertEquals(1, index.size());
+    assertFalse(index.get(0).isLoaded());
+  }
+  
+  @Test
+  public void testManifestPersistedOnClose() throws Exception {
+    manager.close();
+    List<DirectoryManifest.Entry> entries = JSONUtils.readFromJSONFile(new File(dir, DirectoryManifest.FILE_NAME), DirectoryManifest.Contents.class).getEntries();
+    assertTrue(entries.stream().anyMatch(e -> e.getType() == ReqmanFile.Type.COURSE));
+    assertTrue(entries.stream().anyMatch(e -> e.getType() == ReqmanFile.Type.CATALOGUE));
+  }
+  
+  @Test
+  public void testBackendRecordedPerDirectory() throws Exception {
+    manager.setBackend(StorageBackend.Kind.KEY_VALUE);
+    File other = Files.createTempDirectory("reqman-other").toFile();
+    try {
+      manager.setSaveDir(other);
+      assertEquals(StorageBackend.Kind.DIRECTORY, manager.getBackendKind());
+      assertFalse(StorageBackend.Kind.KEY_VALUE.getFile(other).exists());
+  
+      manager.setSaveDir(dir);
+      assertEquals(StorageBackend.Kind.KEY_VALUE, manager.getBackendKind());
+    } finally {
+      for (File f : other.listFiles()) {
+        Files.delete(f.toPath());
+      }
+      Files.delete(other.toPath());
+    }
+  }
+  
+  @Test
+  public void testMissingBackendNotCreated() throws Exception {
+    manager.setBackend(StorageBackend.Kind.ARCHIVE);
+    manager.close();
+    Files.delete(StorageBackend.Kind.ARCHIVE.getFile(dir).toPath());
+  
+    manager.setSaveDir(dir);
+    assertEquals(StorageBackend.Kind.DIRECTORY, manager.getBackendKind());
+    assertFalse(StorageBackend.Kind.ARCHIVE.getFile(dir).exists());
+  }
+  
+  @Test
+  public void testGroupOpenedFromFileSavedIntoFile() throws Exception {
+    manager.setBackend(StorageBackend.Kind.KEY_VALUE);
+    Group opened = manager.openGroup(file);
+    opened.setProjectName("File");
+    manager.saveGroup(group.getUuid());
+    assertEquals("File", StorageFormat.read(file, Group.class).getProjectName());
+    assertTrue(manager.getBackend().list(ReqmanFile.Type.GROUP).isEmpty());
+  }
+}